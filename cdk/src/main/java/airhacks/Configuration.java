@@ -3,6 +3,9 @@ package airhacks;
 import java.util.List;
 
 import airhacks.configuration.control.ZCfg;
+import airhacks.lambda.control.ClassDataSharing;
+import airhacks.lambda.control.JvmOptions;
+import airhacks.lambda.control.JvmProfile;
 import software.amazon.awscdk.Environment;
 import software.amazon.awscdk.StackProps;
 
@@ -14,6 +17,30 @@ public record Configuration(String appName,String bucketName) {
             .replace(".", "_")
             .toUpperCase();
 
+    public final static String diskCacheMaxMbKey = "address.disk.cache.max.mb";
+
+    public final static String diskCacheMaxMbKeyAsEnvEntry = diskCacheMaxMbKey
+            .replace(".", "_")
+            .toUpperCase();
+
+    public final static String storageLayoutKey = "address.storage.layout";
+
+    public final static String storageLayoutKeyAsEnvEntry = storageLayoutKey
+            .replace(".", "_")
+            .toUpperCase();
+
+    public final static String s3CredentialsKey = "address.s3.credentials";
+
+    public final static String s3CredentialsKeyAsEnvEntry = s3CredentialsKey
+            .replace(".", "_")
+            .toUpperCase();
+
+    public final static String s3HttpClientKey = "address.s3.http.client";
+
+    public final static String s3HttpClientKeyAsEnvEntry = s3HttpClientKey
+            .replace(".", "_")
+            .toUpperCase();
+
 
     public Configuration(String appName){
         this(appName, null);
@@ -42,6 +69,65 @@ public record Configuration(String appName,String bucketName) {
     }
 
 
+    /**
+     * Deploys the native function.zip (mvn package -Pnative) on provided.al2023 instead of the JVM build on java21.
+     */
+    public boolean nativeImage() {
+        ZCfg.load(appName);
+        return ZCfg.bool("function.native", ConventionalDefaults.nativeImage);
+    }
+
+    /**
+     * JVM startup profile: c1, tiered or serial; class data sharing: app (mvn package -Pappcds), jdk or off.
+     */
+    public JvmOptions jvmOptions() {
+        ZCfg.load(appName);
+        var profile = JvmProfile.valueOf(ZCfg.string("function.jvm.profile", ConventionalDefaults.jvmProfile));
+        var classDataSharing = ClassDataSharing.valueOf(ZCfg.string("function.jvm.cds", ConventionalDefaults.classDataSharing));
+        return new JvmOptions(profile, classDataSharing);
+    }
+
+    /**
+     * Memory and proportional CPU share, the native executable needs less than the JVM.
+     */
+    public int ramInMb() {
+        ZCfg.load(appName);
+        var conventionalRam = nativeImage() ? ConventionalDefaults.nativeRam : ConventionalDefaults.ram;
+        return ZCfg.integer("function.memory.mb", conventionalRam);
+    }
+
+    /**
+     * Size of the /tmp ephemeral storage, 512 - 10240 MB.
+     */
+    public int ephemeralStorageInMb() {
+        ZCfg.load(appName);
+        return ZCfg.integer("function.ephemeral.storage.mb", ConventionalDefaults.ephemeralStorageInMb);
+    }
+
+    /**
+     * Address storage layout: object (one object per address) or segment.
+     */
+    public String storageLayout() {
+        ZCfg.load(appName);
+        return ZCfg.string(storageLayoutKey, ConventionalDefaults.storageLayout);
+    }
+
+    /**
+     * Pinned S3 credentials provider, Lambda passes the role credentials as environment variables.
+     */
+    public String s3Credentials() {
+        ZCfg.load(appName);
+        return ZCfg.string(s3CredentialsKey, ConventionalDefaults.s3Credentials);
+    }
+
+    /**
+     * S3 HTTP client: url-connection, apache or crt (the latter two require the matching Maven profile).
+     */
+    public String s3HttpClient() {
+        ZCfg.load(appName);
+        return ZCfg.string(s3HttpClientKey, ConventionalDefaults.s3HttpClient);
+    }
+
     public List<String> allowOrigins() {
         ZCfg.load(appName);
         var origin = ZCfg.string("http.api.allow.origins");
@@ -4,9 +4,18 @@ public interface ConventionalDefaults {
 
     String functionZip = "../lambda/target/function.zip";
     String quarkusFunctionHandler = "io.quarkus.amazon.lambda.runtime.QuarkusStreamHandler::handleRequest";
+    String nativeFunctionHandler = "not.used.in.provided.runtime";
     int lambdaTimeout = 10;
     int ONE_CPU = 1700;
     int ram = ONE_CPU;
+    int nativeRam = 512;
+    boolean nativeImage = false;
+    String jvmProfile = "c1";
+    String classDataSharing = "jdk";
+    int ephemeralStorageInMb = 512;
+    String storageLayout = "object";
+    String s3Credentials = "environment";
+    String s3HttpClient = "url-connection";
     String defaultRegion = "eu-central-1";
     String defaultFunctioName = "airhacks_QuarkusHttpAPIS3";
 
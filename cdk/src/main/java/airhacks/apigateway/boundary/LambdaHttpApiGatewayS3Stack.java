@@ -5,6 +5,7 @@ import java.util.Map;
 import airhacks.Configuration;
 import airhacks.ConventionalDefaults;
 import airhacks.apigateway.control.APIGatewayIntegrations;
+import airhacks.lambda.control.FunctionSettings;
 import airhacks.lambda.control.QuarkusLambda;
 import software.amazon.awscdk.Stack;
 import software.amazon.awscdk.services.s3.Bucket;
@@ -17,9 +18,18 @@ public class LambdaHttpApiGatewayS3Stack extends Stack {
         super(scope, stackName, configuration.stackProperties());
         var addressBucketName = configuration.bucketName();
         var addressBucket = Bucket.fromBucketName(this, "ImportedAddressBucket", addressBucketName);
-        var envEntries = Map.<String,String>of(Configuration.addressBucketNameKeyAsEnvEntry,addressBucketName);
+        var ephemeralStorageInMb = configuration.ephemeralStorageInMb();
+        //half of /tmp for the address disk cache, the rest stays available to the runtime
+        var envEntries = Map.<String,String>of(
+                Configuration.addressBucketNameKeyAsEnvEntry,addressBucketName,
+                Configuration.diskCacheMaxMbKeyAsEnvEntry,String.valueOf(ephemeralStorageInMb / 2),
+                Configuration.storageLayoutKeyAsEnvEntry,configuration.storageLayout(),
+                Configuration.s3CredentialsKeyAsEnvEntry,configuration.s3Credentials(),
+                Configuration.s3HttpClientKeyAsEnvEntry,configuration.s3HttpClient());
         var functionName = configuration.functionName(ConventionalDefaults.defaultFunctioName);
-        var quarkusLambda = new QuarkusLambda(this,functionName,envEntries);
+        var quarkusLambda = new QuarkusLambda(this,functionName,
+                new FunctionSettings(configuration.ramInMb(),ephemeralStorageInMb,ConventionalDefaults.lambdaTimeout,configuration.nativeImage()),
+                configuration.jvmOptions(),envEntries);
         var function = quarkusLambda.getFunction();
         addressBucket.grantReadWrite(function);
         var allowOrigins = configuration.allowOrigins();
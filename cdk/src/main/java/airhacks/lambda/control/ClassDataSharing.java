@@ -0,0 +1,26 @@
+package airhacks.lambda.control;
+
+/**
+ * Class data sharing archive the JVM maps at startup.
+ */
+public enum ClassDataSharing {
+    /**
+     * Application archive generated with mvn package -Pappcds and packaged in function.zip.
+     * A mismatching archive is ignored, -Xlog:cds reports why.
+     */
+    app("-XX:SharedArchiveFile=/var/task/app-cds.jsa -Xshare:auto"),
+    /**
+     * The default archive of the JDK classes.
+     */
+    jdk(""),
+    /**
+     * No class data sharing, the baseline for measurements.
+     */
+    off("-Xshare:off");
+
+    final String options;
+
+    ClassDataSharing(String options) {
+        this.options = options;
+    }
+}
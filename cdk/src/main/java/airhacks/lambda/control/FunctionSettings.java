@@ -0,0 +1,22 @@
+package airhacks.lambda.control;
+
+import airhacks.ConventionalDefaults;
+import software.amazon.awscdk.services.lambda.Runtime;
+
+/**
+ * Size, limits and runtime of the function.
+ * The native executable (mvn package -Pnative) runs on provided.al2023, the JVM build on Java 21.
+ */
+public record FunctionSettings(int ramInMb, int ephemeralStorageInMb, int timeoutInSeconds, boolean nativeImage) {
+
+    /**
+     * A JVM function with the default ephemeral storage.
+     */
+    public static FunctionSettings jvm(int ramInMb, int timeoutInSeconds) {
+        return new FunctionSettings(ramInMb, ConventionalDefaults.ephemeralStorageInMb, timeoutInSeconds, false);
+    }
+
+    Runtime runtime() {
+        return this.nativeImage ? Runtime.PROVIDED_AL2023 : Runtime.JAVA_21;
+    }
+}
@@ -0,0 +1,19 @@
+package airhacks.lambda.control;
+
+import java.util.Map;
+
+/**
+ * Startup profile and class data sharing, passed as JAVA_TOOL_OPTIONS.
+ */
+public record JvmOptions(JvmProfile profile, ClassDataSharing classDataSharing) {
+
+    public static final JvmOptions DEFAULT = new JvmOptions(JvmProfile.c1, ClassDataSharing.jdk);
+
+    public String javaToolOptions() {
+        return (this.profile.options + " " + this.classDataSharing.options).strip();
+    }
+
+    Map<String, String> runtimeConfiguration() {
+        return Map.of("JAVA_TOOL_OPTIONS", javaToolOptions());
+    }
+}
@@ -0,0 +1,25 @@
+package airhacks.lambda.control;
+
+/**
+ * JVM startup profiles, trading cold start against steady-state throughput.
+ */
+public enum JvmProfile {
+    /**
+     * C1 only: fastest warm-up, lower peak performance.
+     */
+    c1("-XX:+TieredCompilation -XX:TieredStopAtLevel=1"),
+    /**
+     * Full tiered compilation: slower warm-up, C2-compiled hot paths.
+     */
+    tiered("-XX:+TieredCompilation"),
+    /**
+     * C1 only with the SerialGC and a heap that grows from a small initial size and is returned early.
+     */
+    serial("-XX:+TieredCompilation -XX:TieredStopAtLevel=1 -XX:+UseSerialGC -XX:InitialRAMPercentage=25 -XX:MaxRAMPercentage=75 -XX:MinHeapFreeRatio=10 -XX:MaxHeapFreeRatio=30");
+
+    final String options;
+
+    JvmProfile(String options) {
+        this.options = options;
+    }
+}
@@ -6,27 +6,37 @@ import java.util.Map;
 
 import airhacks.ConventionalDefaults;
 import software.amazon.awscdk.Duration;
+import software.amazon.awscdk.Size;
 import software.amazon.awscdk.services.lambda.Alias;
 import software.amazon.awscdk.services.lambda.Architecture;
 import software.amazon.awscdk.services.lambda.CfnFunction;
 import software.amazon.awscdk.services.lambda.Code;
 import software.amazon.awscdk.services.lambda.Function;
 import software.amazon.awscdk.services.lambda.IFunction;
-import software.amazon.awscdk.services.lambda.Runtime;
 import software.amazon.awscdk.services.lambda.Version;
 import software.constructs.Construct;
 
 public final class QuarkusLambda extends Construct {
 
-    static Map<String,String> RUNTIME_CONFIGURATION = Map.of(
-            "JAVA_TOOL_OPTIONS", "-XX:+TieredCompilation -XX:TieredStopAtLevel=1");
+    /**
+     * Native executables do not handle signals the Lambda runtime sends, the JVM flags do not apply.
+     */
+    static Map<String,String> NATIVE_RUNTIME_CONFIGURATION = Map.of(
+            "DISABLE_SIGNAL_HANDLERS", "true");
 
     IFunction function;
 
     public QuarkusLambda(Construct scope, String functionZip,String functionName,String lambdaHandler, int ramInMb,boolean snapStart,int timeout,Map<String,String> applicationConfiguration) {
+        this(scope,functionZip,functionName,lambdaHandler,FunctionSettings.jvm(ramInMb,timeout),snapStart,JvmOptions.DEFAULT,applicationConfiguration);
+    }
+
+    public QuarkusLambda(Construct scope, String functionZip,String functionName,String lambdaHandler, FunctionSettings settings,boolean snapStart,JvmOptions jvmOptions,Map<String,String> applicationConfiguration) {
         super(scope, functionName+"Construct");
-        var configuration = mergeWithRuntimeConfiguration(applicationConfiguration);
-        this.function = createFunction(this,functionZip,functionName, lambdaHandler, configuration, ramInMb, timeout,snapStart);
+        if (snapStart && settings.nativeImage()) {
+            throw new IllegalArgumentException("SnapStart is only supported on the Java runtime, not with a native image");
+        }
+        var configuration = mergeWithRuntimeConfiguration(settings.nativeImage() ? NATIVE_RUNTIME_CONFIGURATION : jvmOptions.runtimeConfiguration(), applicationConfiguration);
+        this.function = createFunction(this,functionZip,functionName, lambdaHandler, configuration, settings);
         if (snapStart){ 
             var version = setupSnapStart(this.function);
             this.function = createAlias(version);
@@ -34,9 +44,22 @@ public final class QuarkusLambda extends Construct {
     }
 
     public QuarkusLambda(Construct scope, String functionName,Map<String, String> configuration) {
-        this(scope,ConventionalDefaults.functionZip,functionName,ConventionalDefaults.quarkusFunctionHandler,1700,false,ConventionalDefaults.lambdaTimeout,configuration);
+        this(scope,functionName,ConventionalDefaults.ephemeralStorageInMb,configuration);
     }   
 
+    public QuarkusLambda(Construct scope, String functionName,int ephemeralStorageInMb,Map<String, String> configuration) {
+        this(scope,functionName,new FunctionSettings(ConventionalDefaults.ram,ephemeralStorageInMb,ConventionalDefaults.lambdaTimeout,false),JvmOptions.DEFAULT,configuration);
+    }
+
+    /**
+     * The native executable runs on provided.al2023, the handler and JVM options are not used.
+     */
+    public QuarkusLambda(Construct scope, String functionName,FunctionSettings settings,JvmOptions jvmOptions,Map<String, String> configuration) {
+        this(scope,ConventionalDefaults.functionZip,functionName,
+                settings.nativeImage() ? ConventionalDefaults.nativeFunctionHandler : ConventionalDefaults.quarkusFunctionHandler,
+                settings,false,jvmOptions,configuration);
+    }
+
     Version setupSnapStart(IFunction function) {
         var defaultChild = function.getNode().getDefaultChild();
         if (defaultChild instanceof CfnFunction cfnFunction) {
@@ -61,20 +84,25 @@ public final class QuarkusLambda extends Construct {
 
     public static IFunction createFunction(Construct scope,String functionZip,String functionName, String functionHandler, Map<String, String> configuration, int memory,
             int timeout,boolean snapStart) {
+        return createFunction(scope,functionZip,functionName,functionHandler,configuration,FunctionSettings.jvm(memory,timeout));
+    }
+
+    public static IFunction createFunction(Construct scope,String functionZip,String functionName, String functionHandler, Map<String, String> configuration, FunctionSettings settings) {
         return Function.Builder.create(scope, functionName)
-                .runtime(Runtime.JAVA_21)
+                .runtime(settings.runtime())
                 .architecture(Architecture.ARM_64)
                 .code(Code.fromAsset(functionZip))
                 .handler(functionHandler)
-                .memorySize(memory)
+                .memorySize(settings.ramInMb())
+                .ephemeralStorageSize(Size.mebibytes(settings.ephemeralStorageInMb()))
                 .functionName(functionName)
                 .environment(configuration)
-                .timeout(Duration.seconds(timeout))
+                .timeout(Duration.seconds(settings.timeoutInSeconds()))
                 .build();
     }
 
-    static Map<String,String> mergeWithRuntimeConfiguration(Map<String,String> applicationConfiguuration){
-        var configuration = new HashMap<>(RUNTIME_CONFIGURATION);
+    static Map<String,String> mergeWithRuntimeConfiguration(Map<String,String> runtimeConfiguration,Map<String,String> applicationConfiguuration){
+        var configuration = new HashMap<>(runtimeConfiguration);
         configuration.putAll(applicationConfiguuration);
         return configuration;
     }
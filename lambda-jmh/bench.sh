@@ -0,0 +1,8 @@
+#!/bin/sh
+set -e
+echo "installing lambda"
+cd ../lambda && mvn -q clean install -DskipTests
+echo "building benchmarks"
+cd ../lambda-jmh && mvn -q clean package
+mkdir -p results
+java -jar target/benchmarks.jar -prof gc -rf json -rff results/jmh-$(date +%Y%m%d-%H%M%S).json "$@"
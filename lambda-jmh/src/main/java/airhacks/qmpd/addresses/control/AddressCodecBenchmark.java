@@ -0,0 +1,51 @@
+package airhacks.qmpd.addresses.control;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import airhacks.qmpd.addresses.entity.Address;
+
+/**
+ * Encoding and decoding of stored records in both storage formats.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AddressCodecBenchmark {
+
+    @Param({"json", "binary"})
+    StorageFormat format;
+
+    Address address;
+    byte[] encoded;
+
+    @Setup
+    public void setup() {
+        this.address = Address.create("123 Main St", "Springfield", "IL", "62701", "US");
+        this.encoded = AddressCodec.encode(this.address, this.format);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return AddressCodec.encode(this.address, this.format);
+    }
+
+    @Benchmark
+    public Address decode() {
+        return AddressCodec.decode(this.encoded);
+    }
+}
@@ -0,0 +1,129 @@
+package airhacks.qmpd.addresses.control;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import airhacks.qmpd.addresses.entity.Address;
+
+/**
+ * AddressStorage of the object layout against the in-process {@link S3StandIn}, including
+ * the S3 client, HTTP and XML overhead. Indexes, autocomplete, snapshots and the ID filter
+ * are disabled; with a cache the reads measure the hit path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AddressStorageBenchmark {
+
+    static final String BUCKET = "benchmark-addresses";
+    static final int STORED = 1000;
+
+    @Param({"0", "10000"})
+    int cacheMaxEntries;
+
+    @Param({"json", "binary"})
+    StorageFormat format;
+
+    /**
+     * Latency of every S3 operation, e.g. -p s3Latency=logNormal:15:60
+     */
+    @Param({"none"})
+    String s3Latency;
+
+    S3StandIn standIn;
+    AddressStorage storage;
+    List<Address> addresses;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.standIn = S3StandIn.start().configure();
+        this.storage = objectStorage(BUCKET, this.format, this.cacheMaxEntries);
+        this.addresses = IntStream.range(0, STORED)
+                .mapToObj(i -> Address.create(i + " Main St", "Springfield", "IL", "62701", "US"))
+                .toList();
+        this.storage.storeAll(this.addresses);
+        this.standIn.latency(S3StandIn.Latency.parse(this.s3Latency));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.standIn.close();
+    }
+
+    /**
+     * Wires an AddressStorage without CDI, all optional collaborators disabled.
+     */
+    static AddressStorage objectStorage(String bucketName, StorageFormat format, int cacheMaxEntries) {
+        var storage = new AddressStorage();
+        storage.bucketName = bucketName;
+        storage.layout = StorageLayout.object;
+        storage.format = format;
+        storage.fetchConcurrency = 64;
+        storage.cacheMaxEntries = cacheMaxEntries;
+        storage.cacheTtlSeconds = 5;
+        storage.diskCacheMaxMb = 0;
+        storage.idFilter = new AddressIdFilter();
+        storage.indexes = new AddressIndexes();
+        storage.autocomplete = new AddressAutocomplete();
+        storage.snapshots = new AddressSnapshots();
+        storage.segments = new SegmentStore();
+        storage.init();
+        return storage;
+    }
+
+    Address randomAddress() {
+        return this.addresses.get(ThreadLocalRandom.current().nextInt(STORED));
+    }
+
+    @Benchmark
+    public Optional<Address> findById() {
+        return this.storage.findById(randomAddress().id());
+    }
+
+    @Benchmark
+    public Optional<Address> findMissing() {
+        return this.storage.findById(UUID.randomUUID().toString());
+    }
+
+    /**
+     * Overwrites one of the stored addresses, the bucket does not grow.
+     */
+    @Benchmark
+    public Address store() {
+        return this.storage.store(randomAddress());
+    }
+
+    @Benchmark
+    public PaginationResult findPage() {
+        return this.storage.findPage(100, null);
+    }
+
+    @Benchmark
+    public BatchGetResult findByIds() {
+        var ids = IntStream.range(0, 20)
+                .mapToObj(i -> randomAddress().id())
+                .toList();
+        return this.storage.findByIds(ids);
+    }
+}
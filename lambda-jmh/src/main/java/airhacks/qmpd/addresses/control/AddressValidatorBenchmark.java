@@ -0,0 +1,75 @@
+package airhacks.qmpd.addresses.control;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import airhacks.qmpd.addresses.entity.Address;
+import airhacks.qmpd.addresses.entity.AddressUpdateRequest;
+import airhacks.qmpd.addresses.entity.AddressValidationException;
+
+/**
+ * Validation of valid and rejected creations per country pattern, and of partial updates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AddressValidatorBenchmark {
+
+    @Param({"US", "CA", "GB"})
+    String country;
+
+    Address valid;
+    Address invalid;
+    AddressUpdateRequest update;
+
+    @Setup
+    public void setup() {
+        var postalCode = switch (this.country) {
+            case "CA" -> "K1A 0B1";
+            case "GB" -> "SW1A 2AA";
+            default -> "62701";
+        };
+        this.valid = Address.create("123 Main St", "Springfield", "IL", postalCode, this.country);
+        this.invalid = Address.create("", "Springfield", "IL", "invalid", this.country);
+        this.update = new AddressUpdateRequest(null, "Chicago", null, postalCode, this.country);
+    }
+
+    @Benchmark
+    public Address validateForCreation() {
+        AddressValidator.validateForCreation(this.valid);
+        return this.valid;
+    }
+
+    /**
+     * Includes building the exception and its error response.
+     */
+    @Benchmark
+    public Object rejectForCreation() {
+        try {
+            AddressValidator.validateForCreation(this.invalid);
+            return this.invalid;
+        } catch (AddressValidationException e) {
+            return e.getResponse();
+        }
+    }
+
+    @Benchmark
+    public AddressUpdateRequest validateForUpdate() {
+        AddressValidator.validateForUpdate(this.update);
+        return this.update;
+    }
+}
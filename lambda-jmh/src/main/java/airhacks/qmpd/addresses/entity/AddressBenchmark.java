@@ -0,0 +1,70 @@
+package airhacks.qmpd.addresses.entity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.json.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * JSON mapping of the Address and AddressResponse: tree (JsonObject) and streaming paths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AddressBenchmark {
+
+    Address address;
+    JsonObject json;
+    String createRequest;
+
+    @Setup
+    public void setup() {
+        this.address = Address.create("123 Main St", "Springfield", "IL", "62701", "US");
+        this.json = this.address.toJSON();
+        this.createRequest = """
+                {"street":"123 Main St","city":"Springfield","state":"IL","postalCode":"62701","country":"US"}""";
+    }
+
+    @Benchmark
+    public JsonObject toJSON() {
+        return this.address.toJSON();
+    }
+
+    @Benchmark
+    public byte[] writeJSON() {
+        var bytes = new ByteArrayOutputStream(256);
+        try (var generator = JSONWritable.GENERATORS.createGenerator(bytes)) {
+            this.address.writeJSON(generator);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public Address fromJSON() {
+        return Address.fromJSON(this.json);
+    }
+
+    @Benchmark
+    public Address fromCreateRequest() {
+        return Address.fromCreateRequest(JSONWritable.PARSERS.createParser(new StringReader(this.createRequest)));
+    }
+
+    @Benchmark
+    public JsonObject responseToJSON() {
+        return AddressResponse.from(this.address).toJSON();
+    }
+}
@@ -28,6 +28,16 @@ public interface AddressesResourceClient {
     @POST
     Response createAddress(JsonObject request);
     
+    /**
+     * Lists addresses page by page.
+     * 
+     * @param limit the page size
+     * @param nextToken the cursor returned with the previous page, null for the first page
+     * @return Response with addresses, nextToken and hasMore
+     */
+    @GET
+    Response listAddresses(@QueryParam("limit") int limit, @QueryParam("nextToken") String nextToken);
+    
     /**
      * Retrieves a specific address by ID.
      * 
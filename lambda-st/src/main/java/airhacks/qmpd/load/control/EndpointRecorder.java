@@ -0,0 +1,52 @@
+package airhacks.qmpd.load.control;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import airhacks.qmpd.load.entity.EndpointResult;
+
+/**
+ * Records latencies and errors of one endpoint from many threads.
+ *
+ * The {@link Recorder} is written without locks, each {@link #interval(double)} drains the
+ * latencies recorded since the previous one into the histogram of the whole run.
+ */
+final class EndpointRecorder {
+
+    static final int SIGNIFICANT_DIGITS = 3;
+
+    final String endpoint;
+    final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS);
+    final Histogram accumulated = new Histogram(SIGNIFICANT_DIGITS);
+    final LongAdder errors = new LongAdder();
+    final LongAdder intervalErrors = new LongAdder();
+    Histogram recycled;
+
+    EndpointRecorder(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    void record(long latencyNanos, boolean success) {
+        this.recorder.recordValue(Math.max(1, latencyNanos));
+        if (!success) {
+            this.errors.increment();
+            this.intervalErrors.increment();
+        }
+    }
+
+    synchronized EndpointResult interval(double seconds) {
+        this.recycled = this.recorder.getIntervalHistogram(this.recycled);
+        this.accumulated.add(this.recycled);
+        return EndpointResult.from(this.endpoint, this.recycled, this.intervalErrors.sumThenReset(), seconds);
+    }
+
+    synchronized EndpointResult result(double seconds) {
+        return EndpointResult.from(this.endpoint, this.accumulated, this.errors.sum(), seconds);
+    }
+
+    synchronized void addTo(Histogram total) {
+        total.add(this.accumulated);
+    }
+}
@@ -0,0 +1,307 @@
+package airhacks.qmpd.load.control;
+
+import java.lang.System.Logger;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
+
+import org.HdrHistogram.Histogram;
+
+import airhacks.qmpd.addresses.boundary.AddressesResourceClient;
+import airhacks.qmpd.load.entity.Endpoint;
+import airhacks.qmpd.load.entity.EndpointResult;
+import airhacks.qmpd.load.entity.LoadConfiguration;
+import airhacks.qmpd.load.entity.LoadReport;
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Drives the address endpoints through the {@link AddressesResourceClient} on virtual threads.
+ *
+ * With a positive {@code load.rate} requests are started on a fixed schedule (open workload)
+ * and at most {@code load.concurrency} are in flight; latencies are measured from the
+ * scheduled start, so a saturated service is not hidden by a stalled generator (coordinated
+ * omission). With {@code load.rate=0}, {@code load.concurrency} loops send requests back to back
+ * (closed workload). Requests scheduled during the warmup are not recorded.
+ * A 404 of get, update and delete is expected, the address may be deleted concurrently.
+ */
+public class LoadGenerator {
+
+    private static final Logger logger = System.getLogger(LoadGenerator.class.getName());
+
+    static final int PAGE_SIZE = 20;
+
+    static final JsonObject UPDATE = Json.createObjectBuilder()
+        .add("city", "Chicago")
+        .add("postalCode", "60601")
+        .build();
+
+    final AddressesResourceClient client;
+    final LoadConfiguration configuration;
+    final Map<Endpoint, EndpointRecorder> recorders = new EnumMap<>(Endpoint.class);
+    final Endpoint[] endpoints;
+    final int[] cumulativeWeights;
+    final AddressPool addresses = new AddressPool();
+    final AtomicLong streetNumbers = new AtomicLong();
+    volatile long measuredFrom;
+
+    public LoadGenerator(AddressesResourceClient client, LoadConfiguration configuration) {
+        this.client = client;
+        this.configuration = configuration;
+        var mix = configuration.mix();
+        this.endpoints = mix.keySet().toArray(Endpoint[]::new);
+        this.cumulativeWeights = new int[this.endpoints.length];
+        var sum = 0;
+        for (var i = 0; i < this.endpoints.length; i++) {
+            sum += mix.get(this.endpoints[i]);
+            this.cumulativeWeights[i] = sum;
+        }
+        for (var endpoint : Endpoint.values()) {
+            this.recorders.put(endpoint, new EndpointRecorder(endpoint.name()));
+        }
+    }
+
+    /**
+     * Seeds addresses, runs warmup and measurement, and deletes the remaining created addresses.
+     */
+    public LoadReport run() throws InterruptedException {
+        concurrently(IntStream.range(0, this.configuration.seedAddresses())
+            .<Runnable>mapToObj(i -> () -> created(this.client.createAddress(newAddress())))
+            .toList());
+        logger.log(Logger.Level.INFO, "Seeded {0} addresses, load: {1}", this.addresses.size(), this.configuration);
+        var started = System.nanoTime();
+        this.measuredFrom = started + this.configuration.warmup().toNanos();
+        var end = this.measuredFrom + this.configuration.duration().toNanos();
+        var reporter = Thread.ofVirtual().name("load-reporter").start(() -> reportIntervals(end));
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            if (this.configuration.ratePerSecond() > 0) {
+                open(executor, started, end);
+            } else {
+                closed(executor, end);
+            }
+        } finally {
+            reporter.interrupt();
+            reporter.join();
+        }
+        var report = report(this.configuration.duration().toNanos() / (double) TimeUnit.SECONDS.toNanos(1));
+        concurrently(this.addresses.drain().stream()
+            .<Runnable>map(id -> () -> this.client.deleteAddress(id).close())
+            .toList());
+        return report;
+    }
+
+    void open(ExecutorService executor, long started, long end) throws InterruptedException {
+        var interval = (long) (TimeUnit.SECONDS.toNanos(1) / this.configuration.ratePerSecond());
+        var inFlight = new Semaphore(this.configuration.concurrency());
+        for (var scheduled = started; scheduled < end; scheduled += interval) {
+            long wait;
+            while ((wait = scheduled - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            inFlight.acquire();
+            var intendedStart = scheduled;
+            executor.submit(() -> {
+                try {
+                    execute(next(), intendedStart);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+    }
+
+    void closed(ExecutorService executor, long end) {
+        for (var i = 0; i < this.configuration.concurrency(); i++) {
+            executor.submit(() -> {
+                while (System.nanoTime() < end) {
+                    execute(next(), System.nanoTime());
+                }
+            });
+        }
+    }
+
+    Endpoint next() {
+        var pick = ThreadLocalRandom.current().nextInt(this.cumulativeWeights[this.cumulativeWeights.length - 1]);
+        for (var i = 0; i < this.cumulativeWeights.length; i++) {
+            if (pick < this.cumulativeWeights[i]) {
+                return this.endpoints[i];
+            }
+        }
+        return this.endpoints[this.endpoints.length - 1];
+    }
+
+    /**
+     * Without a known address, get, update and delete fall back to create.
+     */
+    void execute(Endpoint endpoint, long intendedStart) {
+        var id = switch (endpoint) {
+            case get, update -> this.addresses.any();
+            case delete -> this.addresses.take();
+            case create, list -> Optional.<String>empty();
+        };
+        if (id.isEmpty() && endpoint != Endpoint.list) {
+            endpoint = Endpoint.create;
+        }
+        boolean success;
+        try {
+            success = call(endpoint, id.orElse(null));
+        } catch (RuntimeException e) {
+            logger.log(Logger.Level.DEBUG, "{0} failed: {1}", endpoint, e);
+            success = false;
+        }
+        var latency = System.nanoTime() - intendedStart;
+        if (intendedStart >= this.measuredFrom) {
+            this.recorders.get(endpoint).record(latency, success);
+        }
+    }
+
+    boolean call(Endpoint endpoint, String id) {
+        return switch (endpoint) {
+            case create -> created(this.client.createAddress(newAddress()));
+            case get -> expected(this.client.getAddress(id), 200, 404);
+            case list -> expected(this.client.listAddresses(PAGE_SIZE, null), 200);
+            case update -> expected(this.client.updateAddress(id, UPDATE), 200, 404);
+            case delete -> expected(this.client.deleteAddress(id), 204, 404);
+        };
+    }
+
+    boolean created(Response response) {
+        try (response) {
+            if (response.getStatus() != 201) {
+                return false;
+            }
+            this.addresses.add(response.readEntity(JsonObject.class).getString("id"));
+            return true;
+        }
+    }
+
+    static boolean expected(Response response, int... statuses) {
+        try (response) {
+            return IntStream.of(statuses).anyMatch(status -> status == response.getStatus());
+        }
+    }
+
+    JsonObject newAddress() {
+        return Json.createObjectBuilder()
+            .add("street", this.streetNumbers.incrementAndGet() + " Load St")
+            .add("city", "Springfield")
+            .add("state", "IL")
+            .add("postalCode", "62701")
+            .add("country", "US")
+            .build();
+    }
+
+    /**
+     * Logs the percentiles of every report interval, the long running soak trend.
+     */
+    void reportIntervals(long end) {
+        var interval = this.configuration.reportInterval().toNanos();
+        if (interval <= 0) {
+            return;
+        }
+        var next = this.measuredFrom + interval;
+        try {
+            while (next <= end) {
+                TimeUnit.NANOSECONDS.sleep(next - System.nanoTime());
+                var seconds = interval / (double) TimeUnit.SECONDS.toNanos(1);
+                for (var recorder : this.recorders.values()) {
+                    var result = recorder.interval(seconds);
+                    if (result.requests() > 0) {
+                        logger.log(Logger.Level.INFO, result.summary());
+                    }
+                }
+                next += interval;
+            }
+        } catch (InterruptedException finished) {
+        }
+    }
+
+    LoadReport report(double seconds) {
+        var results = new ArrayList<EndpointResult>();
+        var total = new Histogram(EndpointRecorder.SIGNIFICANT_DIGITS);
+        var errors = 0L;
+        for (var recorder : this.recorders.values()) {
+            recorder.interval(seconds);
+            var result = recorder.result(seconds);
+            if (result.requests() > 0) {
+                results.add(result);
+            }
+            recorder.addTo(total);
+            errors += result.errors();
+        }
+        return new LoadReport(results, EndpointResult.from("total", total, errors, seconds));
+    }
+
+    void concurrently(List<Runnable> tasks) throws InterruptedException {
+        var inFlight = new Semaphore(this.configuration.concurrency());
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (var task : tasks) {
+                inFlight.acquire();
+                executor.submit(() -> {
+                    try {
+                        task.run();
+                    } catch (RuntimeException e) {
+                        logger.log(Logger.Level.WARNING, "Seeding or cleanup request failed: {0}", e);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Identifiers of the addresses created during the run.
+     */
+    static final class AddressPool {
+
+        final List<String> ids = new ArrayList<>();
+
+        synchronized void add(String id) {
+            this.ids.add(id);
+        }
+
+        synchronized Optional<String> any() {
+            if (this.ids.isEmpty()) {
+                return Optional.empty();
+            }
+            return Optional.of(this.ids.get(ThreadLocalRandom.current().nextInt(this.ids.size())));
+        }
+
+        /**
+         * Removes a random identifier by swapping in the last one.
+         */
+        synchronized Optional<String> take() {
+            if (this.ids.isEmpty()) {
+                return Optional.empty();
+            }
+            var index = ThreadLocalRandom.current().nextInt(this.ids.size());
+            var last = this.ids.removeLast();
+            if (index == this.ids.size()) {
+                return Optional.of(last);
+            }
+            return Optional.of(this.ids.set(index, last));
+        }
+
+        synchronized int size() {
+            return this.ids.size();
+        }
+
+        synchronized List<String> drain() {
+            var drained = List.copyOf(this.ids);
+            this.ids.clear();
+            return drained;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package airhacks.qmpd.load.entity;
+
+/**
+ * Address endpoints driven by the load generator.
+ */
+public enum Endpoint {
+    create, get, list, update, delete
+}
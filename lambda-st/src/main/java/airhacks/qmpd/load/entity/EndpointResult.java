@@ -0,0 +1,51 @@
+package airhacks.qmpd.load.entity;
+
+import java.util.concurrent.TimeUnit;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import org.HdrHistogram.Histogram;
+
+/**
+ * Latency percentiles in milliseconds and error count of one endpoint.
+ */
+public record EndpointResult(String endpoint, long requests, long errors, double throughput,
+        double p50, double p90, double p99, double p999, double max) {
+
+    public static EndpointResult from(String endpoint, Histogram latencies, long errors, double seconds) {
+        return new EndpointResult(endpoint, latencies.getTotalCount(), errors, latencies.getTotalCount() / seconds,
+                millis(latencies.getValueAtPercentile(50)),
+                millis(latencies.getValueAtPercentile(90)),
+                millis(latencies.getValueAtPercentile(99)),
+                millis(latencies.getValueAtPercentile(99.9)),
+                millis(latencies.getMaxValue()));
+    }
+
+    static double millis(long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    public double errorRate() {
+        return this.requests == 0 ? 0 : (double) this.errors / this.requests;
+    }
+
+    public String summary() {
+        return "%-7s %8d req %8.1f req/s %6.2f%% errors  p50 %8.2f  p90 %8.2f  p99 %8.2f  p99.9 %8.2f  max %8.2f ms"
+                .formatted(this.endpoint, this.requests, this.throughput, errorRate() * 100,
+                        this.p50, this.p90, this.p99, this.p999, this.max);
+    }
+
+    public JsonObject toJSON() {
+        return Json.createObjectBuilder()
+                .add("endpoint", this.endpoint)
+                .add("requests", this.requests)
+                .add("errors", this.errors)
+                .add("throughput", this.throughput)
+                .add("p50", this.p50)
+                .add("p90", this.p90)
+                .add("p99", this.p99)
+                .add("p999", this.p999)
+                .add("max", this.max)
+                .build();
+    }
+}
@@ -0,0 +1,61 @@
+package airhacks.qmpd.load.entity;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.ConfigProvider;
+
+/**
+ * Load profile and service level objectives, read from the {@code load.*} keys.
+ *
+ * @param concurrency maximum requests in flight
+ * @param ratePerSecond arrival rate of an open workload, 0 runs a closed workload of {@code concurrency} loops
+ * @param duration measured run time, excluding the warmup
+ * @param mix relative weights of the endpoints
+ * @param sloP99Millis maximum p99 latency of every endpoint, 0 disables the check
+ * @param sloMinThroughput minimum requests per second, 0 disables the check
+ * @param sloMaxErrorRate maximum share of failed requests
+ */
+public record LoadConfiguration(int concurrency, double ratePerSecond, Duration duration, Duration warmup,
+        Duration reportInterval, Map<Endpoint, Integer> mix, int seedAddresses,
+        long sloP99Millis, double sloMinThroughput, double sloMaxErrorRate) {
+
+    public static LoadConfiguration load() {
+        var config = ConfigProvider.getConfig();
+        return new LoadConfiguration(
+                value(config, "load.concurrency", Integer.class, 32),
+                value(config, "load.rate", Double.class, 50d),
+                Duration.ofSeconds(value(config, "load.duration.seconds", Long.class, 30L)),
+                Duration.ofSeconds(value(config, "load.warmup.seconds", Long.class, 5L)),
+                Duration.ofSeconds(value(config, "load.report.interval.seconds", Long.class, 10L)),
+                mix(value(config, "load.mix", String.class, "create:10,get:60,list:10,update:15,delete:5")),
+                value(config, "load.seed.addresses", Integer.class, 50),
+                value(config, "load.slo.p99.ms", Long.class, 1000L),
+                value(config, "load.slo.min.throughput", Double.class, 0d),
+                value(config, "load.slo.max.error.rate", Double.class, 0.01));
+    }
+
+    static <T> T value(Config config, String key, Class<T> type, T defaultValue) {
+        return config.getOptionalValue(key, type).orElse(defaultValue);
+    }
+
+    /**
+     * Parses {@code endpoint:weight} pairs, e.g. {@code get:80,create:20}.
+     */
+    public static Map<Endpoint, Integer> mix(String definition) {
+        var weights = new EnumMap<Endpoint, Integer>(Endpoint.class);
+        for (var pair : definition.split(",")) {
+            var parts = pair.strip().split(":");
+            var weight = Integer.parseInt(parts[1].strip());
+            if (weight > 0) {
+                weights.put(Endpoint.valueOf(parts[0].strip()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("load.mix without positive weights: " + definition);
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,51 @@
+package airhacks.qmpd.load.entity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+
+/**
+ * Results per endpoint and over all endpoints, checked against the service level objectives.
+ */
+public record LoadReport(List<EndpointResult> endpoints, EndpointResult total) {
+
+    /**
+     * @return the violated objectives, empty if all are met
+     */
+    public List<String> sloViolations(LoadConfiguration configuration) {
+        var violations = new ArrayList<String>();
+        if (configuration.sloP99Millis() > 0) {
+            this.endpoints.stream()
+                    .filter(result -> result.p99() > configuration.sloP99Millis())
+                    .forEach(result -> violations.add("%s p99 %.2f ms exceeds %d ms"
+                            .formatted(result.endpoint(), result.p99(), configuration.sloP99Millis())));
+        }
+        if (this.total.throughput() < configuration.sloMinThroughput()) {
+            violations.add("throughput %.1f req/s below %.1f req/s"
+                    .formatted(this.total.throughput(), configuration.sloMinThroughput()));
+        }
+        if (this.total.errorRate() > configuration.sloMaxErrorRate()) {
+            violations.add("error rate %.4f exceeds %.4f"
+                    .formatted(this.total.errorRate(), configuration.sloMaxErrorRate()));
+        }
+        return violations;
+    }
+
+    public String summary() {
+        var lines = new ArrayList<String>();
+        this.endpoints.forEach(result -> lines.add(result.summary()));
+        lines.add(this.total.summary());
+        return String.join("\n", lines);
+    }
+
+    public JsonObject toJSON() {
+        var endpoints = Json.createArrayBuilder();
+        this.endpoints.forEach(result -> endpoints.add(result.toJSON()));
+        return Json.createObjectBuilder()
+                .add("endpoints", endpoints)
+                .add("total", this.total.toJSON())
+                .build();
+    }
+}
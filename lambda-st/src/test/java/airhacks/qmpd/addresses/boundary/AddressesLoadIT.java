@@ -0,0 +1,40 @@
+package airhacks.qmpd.addresses.boundary;
+
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import airhacks.qmpd.load.control.LoadGenerator;
+import airhacks.qmpd.load.entity.LoadConfiguration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the load profile of the load.* keys against base_uri and checks the service level objectives.
+ *
+ * The report is printed and written to target/load-report.json.
+ */
+@QuarkusTest
+class AddressesLoadIT {
+
+    @Inject
+    @RestClient
+    AddressesResourceClient client;
+
+    @Test
+    @DisplayName("Request mix meets the p99, throughput and error rate objectives")
+    void meetsServiceLevelObjectives() throws Exception {
+        var configuration = LoadConfiguration.load();
+        var report = new LoadGenerator(this.client, configuration).run();
+
+        System.out.println(report.summary());
+        Files.writeString(Path.of("target", "load-report.json"), report.toJSON().toString());
+        assertThat(report.total().requests()).isPositive();
+        assertThat(report.sloViolations(configuration)).isEmpty();
+    }
+}
@@ -110,5 +110,34 @@ class AddressesResourceIT {
         var postalErrorResponse = postalResponse.readEntity(JsonObject.class);
         assertThat(postalErrorResponse.getString("error")).isEqualTo("VALIDATION_ERROR");
     }
-    
+
+    @Test
+    @DisplayName("Listing returns bounded pages with cursor")
+    void paginatedListing() {
+        var createRequest = Json.createObjectBuilder()
+            .add("street", "1 Page St")
+            .add("city", "Springfield")
+            .add("state", "IL")
+            .add("postalCode", "62701")
+            .add("country", "US")
+            .build();
+        var first = client.createAddress(createRequest).readEntity(JsonObject.class).getString("id");
+        var second = client.createAddress(createRequest).readEntity(JsonObject.class).getString("id");
+
+        var response = client.listAddresses(1, null);
+        assertThat(response.getStatus()).isEqualTo(200);
+        var page = response.readEntity(JsonObject.class);
+        assertThat(page.getJsonArray("addresses")).hasSize(1);
+        assertThat(page.getBoolean("hasMore")).isTrue();
+
+        var nextPage = client.listAddresses(1, page.getString("nextToken")).readEntity(JsonObject.class);
+        assertThat(nextPage.getJsonArray("addresses")).hasSize(1);
+        assertThat(nextPage.getJsonArray("addresses").getJsonObject(0).getString("id"))
+            .isNotEqualTo(page.getJsonArray("addresses").getJsonObject(0).getString("id"));
+
+        assertThat(client.listAddresses(0, null).getStatus()).isEqualTo(400);
+
+        client.deleteAddress(first);
+        client.deleteAddress(second);
+    }
 }
\ No newline at end of file
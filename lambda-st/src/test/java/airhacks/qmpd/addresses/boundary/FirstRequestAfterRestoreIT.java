@@ -0,0 +1,102 @@
+package airhacks.qmpd.addresses.boundary;
+
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures the latency of the first requests served by restored SnapStart environments.
+ *
+ * A concurrent burst exceeding the warm environments is served by freshly restored ones,
+ * the following sequential requests by warm ones. The server side counterpart is the
+ * "First request after restore" log line of each restored environment.
+ */
+@QuarkusTest
+class FirstRequestAfterRestoreIT {
+
+    @Inject
+    @RestClient
+    AddressesResourceClient client;
+
+    @ConfigProperty(name = "restore.burst.size", defaultValue = "20")
+    int burstSize;
+
+    @ConfigProperty(name = "restore.warm.requests", defaultValue = "20")
+    int warmRequests;
+
+    @Test
+    @DisplayName("Burst of first requests compared with warm requests")
+    void firstRequestAfterRestore() throws Exception {
+        var id = createAddress();
+        try {
+            var burst = burst(id);
+            var warm = new ArrayList<Long>();
+            for (var i = 0; i < this.warmRequests; i++) {
+                warm.add(timedGet(id));
+            }
+            report("burst", burst);
+            report("warm", warm);
+            assertThat(burst).hasSize(this.burstSize);
+        } finally {
+            this.client.deleteAddress(id);
+        }
+    }
+
+    String createAddress() {
+        var request = Json.createObjectBuilder()
+            .add("street", "1 Restore St")
+            .add("city", "Springfield")
+            .add("state", "IL")
+            .add("postalCode", "62701")
+            .add("country", "US")
+            .build();
+        var response = this.client.createAddress(request);
+        assertThat(response.getStatus()).isEqualTo(201);
+        return response.readEntity(JsonObject.class).getString("id");
+    }
+
+    List<Long> burst(String id) throws Exception {
+        var requests = IntStream.range(0, this.burstSize)
+            .<Callable<Long>>mapToObj(i -> () -> timedGet(id))
+            .toList();
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var latencies = new ArrayList<Long>();
+            for (var future : executor.invokeAll(requests)) {
+                latencies.add(future.get());
+            }
+            return latencies;
+        }
+    }
+
+    long timedGet(String id) {
+        var started = System.nanoTime();
+        var response = this.client.getAddress(id);
+        var elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        assertThat(response.getStatus()).isEqualTo(200);
+        response.close();
+        return elapsed;
+    }
+
+    static void report(String name, List<Long> latencies) {
+        if (latencies.isEmpty()) {
+            return;
+        }
+        var sorted = latencies.stream().sorted().toList();
+        System.out.printf("%s: %d requests, min %d ms, median %d ms, max %d ms%n", name, sorted.size(),
+            sorted.getFirst(), sorted.get(sorted.size() / 2), sorted.getLast());
+    }
+}
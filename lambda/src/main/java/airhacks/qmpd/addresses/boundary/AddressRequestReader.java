@@ -0,0 +1,49 @@
+package airhacks.qmpd.addresses.boundary;
+
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import airhacks.qmpd.addresses.control.RequestTiming;
+import airhacks.qmpd.addresses.entity.Address;
+import airhacks.qmpd.addresses.entity.AddressUpdateRequest;
+import airhacks.qmpd.addresses.entity.AddressValidationException;
+import airhacks.qmpd.addresses.entity.JSONWritable;
+import jakarta.json.JsonException;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.MessageBodyReader;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Parses create and update request bodies with a JsonParser,
+ * without building an intermediate JsonObject. The parser is not closed,
+ * the container owns the entity stream. Parsing is timed as {@code parse} phase.
+ */
+@Provider
+@Consumes(MediaType.APPLICATION_JSON)
+public class AddressRequestReader implements MessageBodyReader<Object> {
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return type == Address.class || type == AddressUpdateRequest.class;
+    }
+
+    @Override
+    public Object readFrom(Class<Object> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+            MultivaluedMap<String, String> httpHeaders, InputStream entityStream) {
+        var started = System.nanoTime();
+        var parser = JSONWritable.PARSERS.createParser(entityStream);
+        try {
+            if (type == Address.class) {
+                return Address.fromCreateRequest(parser);
+            }
+            return AddressUpdateRequest.fromJSON(parser);
+        } catch (JsonException e) {
+            throw new AddressValidationException("body", "Malformed JSON: " + e.getMessage());
+        } finally {
+            RequestTiming.record(RequestTiming.Phase.parse, started);
+        }
+    }
+}
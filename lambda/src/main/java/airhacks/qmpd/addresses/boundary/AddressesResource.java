@@ -1,28 +1,48 @@
 package airhacks.qmpd.addresses.boundary;
 
+import airhacks.qmpd.addresses.control.AddressAutocomplete;
+import airhacks.qmpd.addresses.control.AddressExporter;
+import airhacks.qmpd.addresses.control.AddressImporter;
 import airhacks.qmpd.addresses.control.AddressStorage;
 import airhacks.qmpd.addresses.control.AddressValidator;
+import airhacks.qmpd.addresses.control.BulkOperations;
+import airhacks.qmpd.addresses.control.ImportFormat;
+import airhacks.qmpd.addresses.control.RequestTiming;
+import airhacks.qmpd.addresses.control.RequestTiming.Phase;
+import airhacks.qmpd.addresses.control.Suggestion;
 import airhacks.qmpd.addresses.entity.Address;
-import airhacks.qmpd.addresses.entity.AddressResponse;
+import airhacks.qmpd.addresses.entity.AddressBatchGetRequest;
+import airhacks.qmpd.addresses.entity.AddressBulkRequest;
+import airhacks.qmpd.addresses.entity.AddressQuery;
 import airhacks.qmpd.addresses.entity.AddressUpdateRequest;
+import airhacks.qmpd.addresses.entity.AddressValidationException;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import jakarta.json.Json;
 import jakarta.json.JsonObject;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+
+import java.io.InputStream;
 
 /**
  * JAX-RS resource for address management operations.
  * 
  * Provides RESTful endpoints for CRUD operations on address records.
+ * Validation and storage calls are timed as {@link RequestTiming} phases.
  */
 @Path("/addresses")
 @ApplicationScoped
@@ -32,58 +52,213 @@ public class AddressesResource {
 
     static final System.Logger LOGGER = System.getLogger(AddressesResource.class.getName());
 
+    static final int MAX_SUGGESTIONS = 100;
+
+    static final String NDJSON = "application/x-ndjson";
+
     @Inject
     AddressStorage storage;
+
+    @Inject
+    BulkOperations bulkOperations;
+
+    @Inject
+    AddressAutocomplete autocomplete;
+
+    @Inject
+    AddressExporter exporter;
+
+    @Inject
+    AddressImporter importer;
     
+    /**
+     * Creates an address from a body parsed by {@link AddressRequestReader}.
+     * Responses are streamed by {@link JSONWritableWriter}.
+     */
     @POST
-    public Response createAddress(JsonObject json) {
-        LOGGER.log(System.Logger.Level.INFO, "Creating address from request: {0}", json);
-        var address = Address.fromCreateRequest(json);
-        AddressValidator.validateForCreation(address);
-        var stored = storage.store(address);
+    public Response createAddress(Address address) {
+        LOGGER.log(System.Logger.Level.INFO, "Creating address from request: {0}", address);
+        RequestTiming.time(Phase.validate, () -> AddressValidator.validateForCreation(address));
+        var stored = RequestTiming.time(Phase.storage, () -> storage.store(address));
         LOGGER.log(System.Logger.Level.INFO, "Address created with ID: {0}", stored.id());
-        var response = AddressResponse.from(stored);
 
         return Response.status(Response.Status.CREATED)
-            .entity(response.toJSON())
+            .entity(stored)
             .build();
     }
     
+    /**
+     * Lists addresses page by page, optionally restricted by indexed fields.
+     *
+     * @param limit page size, at most {@link AddressStorage#MAX_PAGE_SIZE}
+     * @param nextToken cursor returned with the previous page
+     * @param country optional country filter
+     * @param city optional city filter
+     * @param postalCode optional postal code filter
+     */
+    @GET
+    public Response listAddresses(@QueryParam("limit") @DefaultValue("100") int limit,
+            @QueryParam("nextToken") String nextToken,
+            @QueryParam("country") String country,
+            @QueryParam("city") String city,
+            @QueryParam("postalCode") String postalCode) {
+        if (limit < 1 || limit > AddressStorage.MAX_PAGE_SIZE) {
+            throw new AddressValidationException("limit",
+                "Limit must be between 1 and " + AddressStorage.MAX_PAGE_SIZE);
+        }
+        var query = new AddressQuery(country, city, postalCode);
+        var page = RequestTiming.time(Phase.storage, () -> query.isEmpty()
+            ? storage.findPage(limit, nextToken)
+            : storage.findByQuery(query, limit, nextToken));
+        return Response.ok(page).build();
+    }
+
+    /**
+     * Streams all addresses as newline-delimited JSON.
+     * An incomplete export ends with a <code>{"nextToken":"..."}</code> line to resume from.
+     *
+     * @param nextToken cursor from the last line of a previous, incomplete export
+     */
+    @GET
+    @Path("/export")
+    @Produces(NDJSON)
+    public Response export(@QueryParam("nextToken") String nextToken) {
+        StreamingOutput output = stream -> exporter.export(nextToken, stream);
+        return Response.ok(output).build();
+    }
+
+    /**
+     * Imports addresses from a CSV or NDJSON request body and returns the import report.
+     */
+    @POST
+    @Path("/import")
+    @Consumes({"text/csv", NDJSON})
+    public Response importAddresses(@HeaderParam(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body) {
+        var report = importer.importStream(ImportFormat.ofMediaType(contentType), body);
+        return Response.ok(report).build();
+    }
+
+    /**
+     * Imports a file uploaded below {@code imports/} in the bucket.
+     * Repeat with the returned nextOffset until the report is complete.
+     *
+     * @param name file name below the import prefix, ending with .csv, .ndjson or .jsonl
+     * @param offset nextOffset of the previous report
+     */
+    @POST
+    @Path("/import/{name: .+}")
+    @Consumes(MediaType.WILDCARD)
+    public Response importFile(@PathParam("name") String name,
+            @QueryParam("offset") @DefaultValue("0") long offset) {
+        if (offset < 0) {
+            throw new AddressValidationException("offset", "Offset must not be negative");
+        }
+        var report = importer.importObject(name, offset);
+        return Response.ok(report).build();
+    }
+
+    /**
+     * Fetches up to {@link AddressValidator#MAX_BATCH_SIZE} addresses in one call.
+     * Unknown IDs are reported in the missing list instead of failing the request.
+     */
+    @POST
+    @Path("/batch-get")
+    public Response batchGet(JsonObject json) {
+        var request = AddressBatchGetRequest.fromJSON(json);
+        RequestTiming.time(Phase.validate, () -> AddressValidator.validateForBatchGet(request));
+        var result = RequestTiming.time(Phase.storage, () -> storage.findByIds(request.ids()));
+        return Response.ok(result).build();
+    }
+
+    /**
+     * Creates, updates and deletes many addresses in one call.
+     * Partial failures are reported per item, the response status is always 200.
+     */
+    @POST
+    @Path("/bulk")
+    public Response bulk(JsonObject json) {
+        return bulk(AddressBulkRequest.fromJSON(json));
+    }
+
+    /**
+     * The bulk request as NDJSON, one {@code create}, {@code update} or {@code delete} operation per line.
+     */
+    @POST
+    @Path("/bulk")
+    @Consumes(NDJSON)
+    public Response bulkNDJSON(InputStream body) {
+        return bulk(RequestTiming.time(Phase.parse, () -> BulkOperations.fromNDJSON(body)));
+    }
+
+    Response bulk(AddressBulkRequest request) {
+        RequestTiming.time(Phase.validate, () -> AddressValidator.validateForBulk(request));
+        var result = RequestTiming.time(Phase.storage, () -> bulkOperations.apply(request));
+        return Response.ok(result.toJSON()).build();
+    }
+
+    /**
+     * Suggests the most frequent city or street names starting with the prefix.
+     *
+     * @param field {@code city} or {@code street}
+     * @param prefix typed characters, case-insensitive
+     * @param limit number of suggestions, at most {@value #MAX_SUGGESTIONS}
+     */
+    @GET
+    @Path("/autocomplete/{field}")
+    public Response autocomplete(@PathParam("field") String field,
+            @QueryParam("prefix") String prefix,
+            @QueryParam("limit") @DefaultValue("10") int limit) {
+        if (!"city".equals(field) && !"street".equals(field)) {
+            throw new AddressValidationException("field", "Field must be city or street");
+        }
+        if (prefix == null || prefix.isBlank()) {
+            throw new AddressValidationException("prefix", "Prefix is required");
+        }
+        if (limit < 1 || limit > MAX_SUGGESTIONS) {
+            throw new AddressValidationException("limit", "Limit must be between 1 and " + MAX_SUGGESTIONS);
+        }
+        var suggestions = Json.createArrayBuilder();
+        autocomplete.complete(AddressAutocomplete.Field.valueOf(field), prefix, limit)
+            .stream()
+            .map(Suggestion::toJSON)
+            .forEach(suggestions::add);
+        var result = Json.createObjectBuilder()
+            .add("suggestions", suggestions)
+            .build();
+        return Response.ok(result).build();
+    }
+
     @GET
     @Path("/{id}")
     public Response getAddress(@PathParam("id") String id) {
-        var addressOpt = storage.findById(id);
+        var addressOpt = RequestTiming.time(Phase.storage, () -> storage.findById(id));
         if (addressOpt.isEmpty()) {
             throw new AddressNotFoundException(id);
         }
-        var address = addressOpt.get();
-        var response = AddressResponse.from(address);
-        return Response.ok(response.toJSON()).build();
+        return Response.ok(addressOpt.get()).build();
     }
     
     
     @PUT
     @Path("/{id}")
-    public Response updateAddress(@PathParam("id") String id, JsonObject json) {
-        var request = AddressUpdateRequest.fromJSON(json);
-        var existingAddressOpt = storage.findById(id);
+    public Response updateAddress(@PathParam("id") String id, AddressUpdateRequest request) {
+        var existingAddressOpt = RequestTiming.time(Phase.storage, () -> storage.findById(id));
         if (existingAddressOpt.isEmpty()) {
             throw new AddressNotFoundException(id);
         }
         
         var existingAddress = existingAddressOpt.get();
-        AddressValidator.validateForUpdate(request);
+        RequestTiming.time(Phase.validate, () -> AddressValidator.validateForUpdate(request));
         var updatedAddress = existingAddress.update(request);
-        var stored = storage.update(updatedAddress);
-        var response = AddressResponse.from(stored);
+        var stored = RequestTiming.time(Phase.storage, () -> storage.update(updatedAddress));
         
-        return Response.ok(response.toJSON()).build();
+        return Response.ok(stored).build();
     }
     
     @DELETE
     @Path("/{id}")
     public Response deleteAddress(@PathParam("id") String id) {
-        storage.remove(id);
+        RequestTiming.time(Phase.storage, () -> storage.remove(id));
         return Response.noContent().build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,104 @@
+package airhacks.qmpd.addresses.boundary;
+
+import airhacks.qmpd.addresses.control.AddressStorage;
+import airhacks.qmpd.addresses.control.AddressValidator;
+import airhacks.qmpd.addresses.control.AsyncAddressStorage;
+import airhacks.qmpd.addresses.control.RequestTiming;
+import airhacks.qmpd.addresses.control.RequestTiming.Phase;
+import airhacks.qmpd.addresses.entity.Address;
+import airhacks.qmpd.addresses.entity.AddressBatchGetRequest;
+import airhacks.qmpd.addresses.entity.AddressUpdateRequest;
+import airhacks.qmpd.addresses.entity.AddressValidationException;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.json.JsonObject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DELETE;
+import jakarta.ws.rs.DefaultValue;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.PUT;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Non-blocking variants of the {@link AddressesResource} endpoints.
+ *
+ * Responses complete when the S3 requests of {@link AsyncAddressStorage} complete,
+ * no request thread waits for them. Validation and error responses are the same, an update
+ * of an unknown address is 404 before its request is validated.
+ * Validation is timed as {@link RequestTiming} phase, storage calls until their stage completes.
+ */
+@Path("/async/addresses")
+@ApplicationScoped
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+public class AsyncAddressesResource {
+
+    @Inject
+    AsyncAddressStorage storage;
+
+    @POST
+    public CompletionStage<Response> createAddress(Address address) {
+        RequestTiming.time(Phase.validate, () -> AddressValidator.validateForCreation(address));
+        return RequestTiming.timeAsync(Phase.storage, () -> storage.store(address))
+            .thenApply(stored -> Response.status(Response.Status.CREATED).entity(stored).build());
+    }
+
+    /**
+     * @param limit page size, at most {@link AddressStorage#MAX_PAGE_SIZE}
+     * @param nextToken cursor returned with the previous page
+     */
+    @GET
+    public CompletionStage<Response> listAddresses(@QueryParam("limit") @DefaultValue("100") int limit,
+            @QueryParam("nextToken") String nextToken) {
+        if (limit < 1 || limit > AddressStorage.MAX_PAGE_SIZE) {
+            throw new AddressValidationException("limit",
+                "Limit must be between 1 and " + AddressStorage.MAX_PAGE_SIZE);
+        }
+        return RequestTiming.timeAsync(Phase.storage, () -> storage.findPage(limit, nextToken))
+            .thenApply(page -> Response.ok(page).build());
+    }
+
+    @POST
+    @Path("/batch-get")
+    public CompletionStage<Response> batchGet(JsonObject json) {
+        var request = AddressBatchGetRequest.fromJSON(json);
+        RequestTiming.time(Phase.validate, () -> AddressValidator.validateForBatchGet(request));
+        return RequestTiming.timeAsync(Phase.storage, () -> storage.findByIds(request.ids()))
+            .thenApply(result -> Response.ok(result).build());
+    }
+
+    @GET
+    @Path("/{id}")
+    public CompletionStage<Response> getAddress(@PathParam("id") String id) {
+        return RequestTiming.timeAsync(Phase.storage, () -> storage.findById(id))
+            .thenApply(address -> Response.ok(address.orElseThrow(() -> new AddressNotFoundException(id))).build());
+    }
+
+    @PUT
+    @Path("/{id}")
+    public CompletionStage<Response> updateAddress(@PathParam("id") String id, AddressUpdateRequest request) {
+        var timing = RequestTiming.current();
+        return RequestTiming.timeAsync(Phase.storage, () -> storage.findById(id))
+            .thenCompose(existing -> RequestTiming.within(timing, () -> {
+                var address = existing.orElseThrow(() -> new AddressNotFoundException(id));
+                RequestTiming.time(Phase.validate, () -> AddressValidator.validateForUpdate(request));
+                return RequestTiming.timeAsync(Phase.storage, () -> storage.update(address.update(request)));
+            }))
+            .thenApply(stored -> Response.ok(stored).build());
+    }
+
+    @DELETE
+    @Path("/{id}")
+    public CompletionStage<Response> deleteAddress(@PathParam("id") String id) {
+        return RequestTiming.timeAsync(Phase.storage, () -> storage.remove(id))
+            .thenApply(done -> Response.noContent().build());
+    }
+}
@@ -0,0 +1,98 @@
+package airhacks.qmpd.addresses.boundary;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import airhacks.qmpd.addresses.control.InvocationMetrics;
+import airhacks.qmpd.addresses.control.Metric;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.container.ResourceInfo;
+import jakarta.ws.rs.core.Context;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+
+/**
+ * Records latency and status classes of every resource method as {@code <resource class>.<method>.*}
+ * metrics and flushes the metrics of the invocation, see {@link InvocationMetrics}. The class name
+ * keeps methods of the same name apart, e.g. of the sync and async address resources.
+ *
+ * The latency includes the serialization of the response, responses with an entity are
+ * flushed after they are written, responses without one by the response filter.
+ */
+@Provider
+public class InvocationMetricsFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+
+    static final String STARTED = InvocationMetricsFilter.class.getName() + ".started";
+    static final String ENDPOINT = InvocationMetricsFilter.class.getName() + ".endpoint";
+
+    static final Map<Method, EndpointMetrics> ENDPOINTS = new ConcurrentHashMap<>();
+
+    record EndpointMetrics(String name, Metric latency, Metric requests, Metric clientErrors, Metric serverErrors) {
+
+        static EndpointMetrics of(Method method) {
+            return of(method.getDeclaringClass().getSimpleName() + "." + method.getName());
+        }
+
+        static EndpointMetrics of(String name) {
+            return new EndpointMetrics(name,
+                    InvocationMetrics.timer(name + ".Latency"),
+                    InvocationMetrics.counter(name + ".Requests"),
+                    InvocationMetrics.counter(name + ".ClientErrors"),
+                    InvocationMetrics.counter(name + ".ServerErrors"));
+        }
+    }
+
+    @Context
+    ResourceInfo resourceInfo;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        var method = this.resourceInfo.getResourceMethod();
+        if (!InvocationMetrics.enabled() || method == null) {
+            return;
+        }
+        requestContext.setProperty(ENDPOINT, ENDPOINTS.computeIfAbsent(method, EndpointMetrics::of));
+        requestContext.setProperty(STARTED, System.nanoTime());
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        if (!(requestContext.getProperty(ENDPOINT) instanceof EndpointMetrics endpoint)) {
+            return;
+        }
+        endpoint.requests().increment();
+        switch (responseContext.getStatusInfo().getFamily()) {
+            case CLIENT_ERROR -> endpoint.clientErrors().increment();
+            case SERVER_ERROR -> endpoint.serverErrors().increment();
+            default -> {
+            }
+        }
+        if (!responseContext.hasEntity()) {
+            complete(endpoint, requestContext.getProperty(STARTED));
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        try {
+            context.proceed();
+        } finally {
+            if (context.getProperty(ENDPOINT) instanceof EndpointMetrics endpoint) {
+                complete(endpoint, context.getProperty(STARTED));
+            }
+        }
+    }
+
+    static void complete(EndpointMetrics endpoint, Object started) {
+        if (started instanceof Long nanos) {
+            endpoint.latency().recordSince(nanos);
+        }
+        InvocationMetrics.flush(endpoint.name());
+    }
+}
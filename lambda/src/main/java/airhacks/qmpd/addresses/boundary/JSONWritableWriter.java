@@ -0,0 +1,37 @@
+package airhacks.qmpd.addresses.boundary;
+
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import airhacks.qmpd.addresses.entity.JSONWritable;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.ext.MessageBodyWriter;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Streams response entities to the output with a JsonGenerator,
+ * skipping the JsonObject tree and its string copy.
+ */
+@Provider
+@Produces(MediaType.APPLICATION_JSON)
+public class JSONWritableWriter implements MessageBodyWriter<JSONWritable> {
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return JSONWritable.class.isAssignableFrom(type);
+    }
+
+    /**
+     * Flushes instead of closing the generator, the container owns the entity stream.
+     */
+    @Override
+    public void writeTo(JSONWritable entity, Class<?> type, Type genericType, Annotation[] annotations,
+            MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) {
+        var generator = JSONWritable.GENERATORS.createGenerator(entityStream);
+        entity.writeJSON(generator);
+        generator.flush();
+    }
+}
@@ -0,0 +1,34 @@
+package airhacks.qmpd.addresses.boundary;
+
+import airhacks.qmpd.addresses.control.SnapStartPriming;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.ext.Provider;
+
+/**
+ * Passes the duration of every request to {@link SnapStartPriming},
+ * which logs the first one after a restore.
+ */
+@Provider
+public class RestoreTimingFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    static final String STARTED = RestoreTimingFilter.class.getName() + ".started";
+
+    @Inject
+    SnapStartPriming priming;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        requestContext.setProperty(STARTED, System.nanoTime());
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        if (requestContext.getProperty(STARTED) instanceof Long started) {
+            priming.requestCompleted(started);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package airhacks.qmpd.addresses.boundary;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.System.Logger;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import airhacks.qmpd.addresses.control.RequestTiming;
+import airhacks.qmpd.addresses.control.SnapStartPriming;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.core.MultivaluedMap;
+import jakarta.ws.rs.core.StreamingOutput;
+import jakarta.ws.rs.ext.Provider;
+import jakarta.ws.rs.ext.WriterInterceptor;
+import jakarta.ws.rs.ext.WriterInterceptorContext;
+
+/**
+ * Returns the {@link RequestTiming} phases of every request as {@code Server-Timing} header.
+ *
+ * Response entities are serialized into a buffer, so the {@code serialize} phase is known
+ * before the header is sent; streamed responses are not buffered and report no serialization.
+ * The buffer copies every response body, hence the filter is opt-in with
+ * {@code address.server.timing.enabled=true}.
+ * With {@code address.server.timing.log=true} the header is logged as well.
+ */
+@Provider
+public class ServerTimingFilter implements ContainerRequestFilter, ContainerResponseFilter, WriterInterceptor {
+
+    private static final Logger logger = System.getLogger(ServerTimingFilter.class.getName());
+
+    static final String SERVER_TIMING = "Server-Timing";
+    static final String TIMING = ServerTimingFilter.class.getName() + ".timing";
+    static final String REQUEST = ServerTimingFilter.class.getName() + ".request";
+
+    @Inject
+    SnapStartPriming priming;
+
+    @ConfigProperty(name = "address.server.timing.log", defaultValue = "false")
+    boolean log;
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        if (!RequestTiming.enabled()) {
+            return;
+        }
+        var timing = RequestTiming.start();
+        this.priming.flagColdStart(timing);
+        requestContext.setProperty(TIMING, timing);
+        if (this.log) {
+            requestContext.setProperty(REQUEST, requestContext.getMethod() + " " + requestContext.getUriInfo().getPath());
+        }
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        if (!(requestContext.getProperty(TIMING) instanceof RequestTiming timing)) {
+            return;
+        }
+        timing.end();
+        if (!responseContext.hasEntity() || responseContext.getEntity() instanceof StreamingOutput) {
+            complete(timing, responseContext.getHeaders(), requestContext.getProperty(REQUEST));
+        }
+    }
+
+    @Override
+    public void aroundWriteTo(WriterInterceptorContext context) throws IOException {
+        if (!(context.getProperty(TIMING) instanceof RequestTiming timing) || context.getEntity() instanceof StreamingOutput) {
+            context.proceed();
+            return;
+        }
+        var entityStream = context.getOutputStream();
+        var buffer = new ByteArrayOutputStream();
+        context.setOutputStream(buffer);
+        var started = System.nanoTime();
+        context.proceed();
+        timing.add(RequestTiming.Phase.serialize, System.nanoTime() - started);
+        complete(timing, context.getHeaders(), context.getProperty(REQUEST));
+        context.setOutputStream(entityStream);
+        buffer.writeTo(entityStream);
+    }
+
+    void complete(RequestTiming timing, MultivaluedMap<String, Object> headers, Object request) {
+        var header = timing.header();
+        headers.putSingle(SERVER_TIMING, header);
+        if (this.log) {
+            logger.log(Logger.Level.INFO, "{0} {1}: {2}", request, SERVER_TIMING, header);
+        }
+    }
+}
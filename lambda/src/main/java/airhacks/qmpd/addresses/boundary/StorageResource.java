@@ -0,0 +1,139 @@
+package airhacks.qmpd.addresses.boundary;
+
+import airhacks.qmpd.addresses.control.AddressAutocomplete;
+import airhacks.qmpd.addresses.control.AddressIdFilter;
+import airhacks.qmpd.addresses.control.AddressSnapshots;
+import airhacks.qmpd.addresses.control.SegmentStore;
+import airhacks.qmpd.addresses.control.AddressStorage;
+import jakarta.json.Json;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * JAX-RS resource exposing operational state of the address storage.
+ */
+@Path("/storage")
+@ApplicationScoped
+@Produces(MediaType.APPLICATION_JSON)
+public class StorageResource {
+
+    @Inject
+    AddressStorage storage;
+
+    @Inject
+    AddressIdFilter idFilter;
+
+    @Inject
+    AddressAutocomplete autocomplete;
+
+    @Inject
+    AddressSnapshots snapshots;
+
+    @Inject
+    SegmentStore segments;
+
+    /**
+     * Cache counters of the Lambda instance serving the request.
+     */
+    @GET
+    @Path("/cache")
+    public Response cacheStatistics() {
+        return Response.ok(storage.cacheStatistics().toJSON()).build();
+    }
+
+    @GET
+    @Path("/id-filter")
+    public Response idFilterStatistics() {
+        return Response.ok(idFilter.statistics()).build();
+    }
+
+    /**
+     * Rebuilds the address ID filter from a full bucket listing.
+     * Drops the bits of deleted addresses.
+     * Call again with the returned nextToken until hasMore is false.
+     */
+    @POST
+    @Path("/id-filter")
+    public Response rebuildIdFilter(@QueryParam("nextToken") String nextToken) {
+        return Response.ok(storage.rebuildIdFilter(nextToken)).build();
+    }
+
+    /**
+     * Writes index markers for one page of existing addresses.
+     * Call again with the returned nextToken until hasMore is false.
+     */
+    @POST
+    @Path("/indexes")
+    public Response reindex(@QueryParam("nextToken") String nextToken) {
+        var page = storage.reindex(nextToken);
+        var builder = Json.createObjectBuilder()
+            .add("indexed", page.addresses().size())
+            .add("hasMore", page.hasMore());
+        if (page.nextToken() != null) {
+            builder.add("nextToken", page.nextToken());
+        }
+        return Response.ok(builder.build()).build();
+    }
+
+    @GET
+    @Path("/autocomplete")
+    public Response autocompleteStatistics() {
+        return Response.ok(autocomplete.statistics()).build();
+    }
+
+    /**
+     * Rebuilds the autocomplete snapshot from all stored addresses.
+     * Corrects drifted counts and deltas that could not be written.
+     * Call again with the returned nextToken until hasMore is false.
+     */
+    @POST
+    @Path("/autocomplete")
+    public Response rebuildAutocomplete(@QueryParam("nextToken") String nextToken) {
+        return Response.ok(storage.rebuildAutocomplete(nextToken)).build();
+    }
+
+    /**
+     * Manifest of the latest snapshot, 404 if none was taken yet.
+     */
+    @GET
+    @Path("/snapshot")
+    public Response latestSnapshot() {
+        return snapshots.latest()
+            .map(manifest -> Response.ok(manifest.toJSON()))
+            .orElseGet(() -> Response.status(Response.Status.NOT_FOUND))
+            .build();
+    }
+
+    /**
+     * Writes a new columnar snapshot from the previous one plus the changes since.
+     * Call again with the returned nextToken until hasMore is false.
+     */
+    @POST
+    @Path("/snapshot")
+    public Response takeSnapshot(@QueryParam("nextToken") String nextToken) {
+        return Response.ok(storage.takeSnapshot(nextToken)).build();
+    }
+
+    @GET
+    @Path("/segments")
+    public Response segmentStatistics() {
+        return Response.ok(segments.statistics()).build();
+    }
+
+    /**
+     * Packs pending writes of the segment layout into a new segment.
+     * Call again while the returned remaining count is positive.
+     */
+    @POST
+    @Path("/segments")
+    public Response compactSegments() {
+        return Response.ok(storage.compactSegments()).build();
+    }
+}
\ No newline at end of file
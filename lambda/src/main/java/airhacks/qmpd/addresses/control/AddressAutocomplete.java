@@ -0,0 +1,683 @@
+package airhacks.qmpd.addresses.control;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import airhacks.qmpd.addresses.entity.Address;
+import airhacks.qmpd.addresses.entity.AddressException;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import jakarta.ws.rs.core.Response;
+import software.amazon.awssdk.awscore.AwsRequestOverrideConfiguration;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.model.Delete;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+/**
+ * Type-ahead over city and street names.
+ *
+ * Both {@link PrefixIndex}es are serialized into the single object {@value #SNAPSHOT_KEY}.
+ * Every write appends its changes as a small delta object below {@value #DELTAS_PREFIX},
+ * named after the time it was written, and never fails the address write. Lookups answer
+ * from the snapshot plus the deltas written after it; every {@code address.autocomplete.refresh.seconds}
+ * an instance revalidates the snapshot with a conditional GET and lists only the deltas
+ * written since its previous listing, so writes of all instances become visible.
+ *
+ * Deltas older than the listing overlap are merged into a new snapshot in one pass once
+ * there are enough of them, written over the snapshot version that was read. The deltas
+ * contained in the snapshot it replaced are deleted then, an instance still reading that
+ * snapshot finds the newer one with its next refresh.
+ */
+@ApplicationScoped
+public class AddressAutocomplete {
+
+    private static final Logger logger = System.getLogger(AddressAutocomplete.class.getName());
+
+    static final String SNAPSHOT_KEY = "autocomplete/snapshot";
+    static final String DELTAS_PREFIX = "autocomplete/deltas/";
+    static final String REBUILD_KEY = "autocomplete/rebuild";
+    static final int SNAPSHOT_VERSION = 2;
+    static final int UNMERGED_SNAPSHOT_VERSION = 1;
+
+    public enum Field {
+        city, street
+    }
+
+    /**
+     * A weight change of one value.
+     */
+    record Change(Field field, String value, int delta) {
+    }
+
+    /**
+     * The loaded snapshot with the deltas applied since. Deltas are applied without locking
+     * and at most once, keyed by their object key.
+     *
+     * @param mergedUntil epoch millis, deltas written before are contained in the snapshot
+     */
+    record View(PrefixIndex cities, PrefixIndex streets, String eTag, long mergedUntil,
+            ConcurrentSkipListMap<String, List<Change>> deltas,
+            ConcurrentSkipListMap<String, PrefixIndex.Adjustment> cityAdjustments,
+            ConcurrentSkipListMap<String, PrefixIndex.Adjustment> streetAdjustments,
+            long listedAt, long refreshedAt) {
+
+        static View of(PrefixIndex cities, PrefixIndex streets, String eTag, long mergedUntil) {
+            return new View(cities, streets, eTag, mergedUntil, new ConcurrentSkipListMap<>(),
+                    new ConcurrentSkipListMap<>(), new ConcurrentSkipListMap<>(), mergedUntil, System.nanoTime());
+        }
+
+        void apply(String key, List<Change> changes) {
+            if (this.deltas.putIfAbsent(key, changes) == null) {
+                adjust(changes, this.cityAdjustments, this.streetAdjustments);
+            }
+        }
+
+        /**
+         * @return a view of the same deltas, listed at the given times
+         */
+        View listed(long listedAt, long refreshedAt) {
+            return new View(cities, streets, eTag, mergedUntil, deltas, cityAdjustments, streetAdjustments,
+                    listedAt, refreshedAt);
+        }
+
+        List<Suggestion> complete(Field field, String prefix, int limit) {
+            return field == Field.city
+                    ? this.cities.complete(prefix, limit, this.cityAdjustments)
+                    : this.streets.complete(prefix, limit, this.streetAdjustments);
+        }
+    }
+
+    static void adjust(List<Change> changes, Map<String, PrefixIndex.Adjustment> cities,
+            Map<String, PrefixIndex.Adjustment> streets) {
+        for (var change : changes) {
+            var adjustments = change.field() == Field.city ? cities : streets;
+            adjustments.merge(PrefixIndex.normalize(change.value()),
+                    new PrefixIndex.Adjustment(change.value().trim(), change.delta()), PrefixIndex.Adjustment::plus);
+        }
+    }
+
+    @ConfigProperty(name = "address.bucket.name", defaultValue = "-not-set-")
+    String bucketName;
+
+    @ConfigProperty(name = "address.autocomplete.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "address.autocomplete.refresh.seconds", defaultValue = "30")
+    long refreshSeconds;
+
+    @ConfigProperty(name = "address.autocomplete.merge.deltas", defaultValue = "1000")
+    int mergeDeltas;
+
+    @ConfigProperty(name = "address.autocomplete.merge.seconds", defaultValue = "300")
+    long mergeSeconds;
+
+    @ConfigProperty(name = "address.fetch.concurrency", defaultValue = "64")
+    int fetchConcurrency;
+
+    @ConfigProperty(name = "address.rebuild.max.seconds", defaultValue = "7")
+    long maxSeconds;
+
+    volatile View view;
+    final ReentrantLock refreshing = new ReentrantLock();
+
+    public boolean enabled() {
+        return this.enabled;
+    }
+
+    /**
+     * @param field the completed address field
+     * @param prefix typed characters, matched case-insensitively
+     * @param limit maximum number of suggestions
+     * @return the most frequent values starting with the prefix
+     * @throws AddressException if autocomplete is disabled or the snapshot cannot be read
+     */
+    public List<Suggestion> complete(Field field, String prefix, int limit) {
+        if (!enabled) {
+            throw new AddressException("Autocomplete is disabled", Response.Status.BAD_REQUEST);
+        }
+        return refreshed().complete(field, prefix, limit);
+    }
+
+    void added(Address address) {
+        record(changes(address, 1));
+    }
+
+    void removed(Address address) {
+        record(changes(address, -1));
+    }
+
+    void replaced(Address previous, Address current) {
+        var changes = new ArrayList<Change>(changes(previous, -1));
+        changes.addAll(changes(current, 1));
+        record(changes);
+    }
+
+    static List<Change> changes(Address address, int delta) {
+        if (address == null) {
+            return List.of();
+        }
+        var changes = new ArrayList<Change>(2);
+        if (address.city() != null && !address.city().isBlank()) {
+            changes.add(new Change(Field.city, address.city(), delta));
+        }
+        if (address.street() != null && !address.street().isBlank()) {
+            changes.add(new Change(Field.street, address.street(), delta));
+        }
+        return changes;
+    }
+
+    /**
+     * Appends the changes of a write to the delta log and applies them to the loaded view.
+     * Never fails the write: a delta that cannot be written is missing until the next rebuild.
+     */
+    void record(List<Change> changes) {
+        if (!enabled || changes.isEmpty()) {
+            return;
+        }
+        var key = DELTAS_PREFIX + "%013d-%s".formatted(System.currentTimeMillis(), UUID.randomUUID());
+        var putObjectRequest = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .contentType(AddressIdFilter.CONTENT_TYPE)
+                .build();
+        try {
+            S3Access.CLIENT.putObject(putObjectRequest, RequestBody.fromBytes(toBytes(changes)));
+        } catch (S3Exception e) {
+            logger.log(Logger.Level.WARNING, "Autocomplete delta skipped until the next rebuild. Reason: {0}", e);
+            return;
+        }
+        var current = this.view;
+        if (current != null) {
+            current.apply(key, changes);
+        }
+    }
+
+    /**
+     * Returns the view, refreshed if it is older than the refresh interval. Only one thread
+     * refreshes, the others keep answering from the current view meanwhile.
+     */
+    View refreshed() {
+        var current = this.view;
+        if (current != null && !isStale(current)) {
+            return current;
+        }
+        if (current != null && !this.refreshing.tryLock()) {
+            return current;
+        }
+        if (current == null) {
+            this.refreshing.lock();
+        }
+        try {
+            current = this.view;
+            if (current != null && !isStale(current)) {
+                return current;
+            }
+            current = refresh(current);
+            this.view = current;
+            if (mergeDue(current)) {
+                merge(current);
+            }
+            return this.view;
+        } finally {
+            this.refreshing.unlock();
+        }
+    }
+
+    boolean isStale(View view) {
+        return System.nanoTime() - view.refreshedAt() > TimeUnit.SECONDS.toNanos(refreshSeconds);
+    }
+
+    /**
+     * Revalidates the snapshot and applies the deltas written since the previous listing.
+     *
+     * @throws AddressException if the snapshot or the delta log cannot be read
+     */
+    View refresh(View current) {
+        var loaded = load(current);
+        var listedAt = System.currentTimeMillis();
+        var startAfter = deltaMarker(Math.max(loaded.mergedUntil(), loaded.listedAt() - SegmentStore.LISTING_OVERLAP_MILLIS));
+        try {
+            var keys = listDeltas(startAfter, null)
+                    .stream()
+                    .filter(key -> !loaded.deltas().containsKey(key))
+                    .toList();
+            ParallelFetcher.fetchAll(keys, key -> readDelta(key).map(changes -> {
+                loaded.apply(key, changes);
+                return key;
+            }), fetchConcurrency);
+            logger.log(Logger.Level.DEBUG, "Applied {0} autocomplete deltas", keys.size());
+        } catch (S3Exception e) {
+            logger.log(Logger.Level.ERROR, "Failed to read autocomplete deltas. Reason: {0}", e);
+            throw new AddressException("Failed to read autocomplete deltas: " + e.getMessage(), e);
+        }
+        return loaded.listed(listedAt, System.nanoTime());
+    }
+
+    /**
+     * A merged snapshot is loaded only if it changed since the current view.
+     */
+    View load(View current) {
+        var getObjectRequest = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(SNAPSHOT_KEY);
+        if (current != null && current.eTag() != null) {
+            getObjectRequest.ifNoneMatch(current.eTag());
+        }
+        try (var response = S3Access.CLIENT.getObject(getObjectRequest.build());
+                var input = new DataInputStream(new BufferedInputStream(response))) {
+            var version = input.readInt();
+            if (version != SNAPSHOT_VERSION && version != UNMERGED_SNAPSHOT_VERSION) {
+                throw new IOException("Unsupported snapshot version " + version);
+            }
+            var mergedUntil = version == SNAPSHOT_VERSION ? input.readLong() : 0;
+            var cities = PrefixIndex.readFrom(input);
+            var streets = PrefixIndex.readFrom(input);
+            logger.log(Logger.Level.DEBUG, "Loaded autocomplete snapshot with {0} cities, {1} streets",
+                    cities.size(), streets.size());
+            return View.of(cities, streets, response.response().eTag(), mergedUntil);
+        } catch (NoSuchKeyException e) {
+            logger.log(Logger.Level.INFO, "Autocomplete snapshot not built yet");
+            return View.of(PrefixIndex.EMPTY, PrefixIndex.EMPTY, null, 0);
+        } catch (S3Exception e) {
+            if (current != null && e.statusCode() == AddressStorage.NOT_MODIFIED) {
+                return current;
+            }
+            logger.log(Logger.Level.ERROR, "Failed to load autocomplete snapshot. Reason: {0}", e);
+            throw new AddressException("Failed to load autocomplete snapshot: " + e.getMessage(), e);
+        } catch (IOException e) {
+            logger.log(Logger.Level.ERROR, "Failed to load autocomplete snapshot. Reason: {0}", e);
+            throw new AddressException("Failed to load autocomplete snapshot: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Deltas are merged once enough of them or an old one are safely listed: every delta
+     * written before the merge bound has been seen by the last listing.
+     */
+    boolean mergeDue(View view) {
+        var mergeable = view.deltas().headMap(deltaMarker(mergeBound(view)));
+        if (mergeable.isEmpty()) {
+            return false;
+        }
+        var oldest = writtenAt(mergeable.firstKey());
+        return mergeable.size() >= mergeDeltas
+                || System.currentTimeMillis() - oldest > TimeUnit.SECONDS.toMillis(mergeSeconds);
+    }
+
+    static long mergeBound(View view) {
+        return view.listedAt() - SegmentStore.LISTING_OVERLAP_MILLIS;
+    }
+
+    /**
+     * Merges the listed deltas into a new snapshot. Another instance merging first wins,
+     * this instance loads its snapshot with the next refresh.
+     */
+    void merge(View view) {
+        var mergedUntil = mergeBound(view);
+        var mergeable = view.deltas().headMap(deltaMarker(mergedUntil));
+        var cityAdjustments = new HashMap<String, PrefixIndex.Adjustment>();
+        var streetAdjustments = new HashMap<String, PrefixIndex.Adjustment>();
+        mergeable.values().forEach(changes -> adjust(changes, cityAdjustments, streetAdjustments));
+        var cities = view.cities().merged(cityAdjustments);
+        var streets = view.streets().merged(streetAdjustments);
+        var precondition = view.eTag() == null
+                ? ConditionalWrite.ifNoneMatch()
+                : ConditionalWrite.ifMatch(view.eTag());
+        String eTag;
+        try {
+            eTag = write(cities, streets, mergedUntil, precondition);
+        } catch (AddressException e) {
+            logger.log(Logger.Level.WARNING, "Autocomplete deltas not merged. Reason: {0}", e.getMessage());
+            return;
+        }
+        if (eTag == null) {
+            logger.log(Logger.Level.DEBUG, "Autocomplete snapshot merged concurrently");
+            return;
+        }
+        var next = View.of(cities, streets, eTag, mergedUntil).listed(view.listedAt(), view.refreshedAt());
+        view.deltas().tailMap(deltaMarker(mergedUntil)).forEach(next::apply);
+        this.view = next;
+        logger.log(Logger.Level.INFO, "Merged {0} autocomplete deltas", mergeable.size());
+        deleteDeltas(view.mergedUntil());
+    }
+
+    /**
+     * Deletes the deltas contained in the replaced snapshot. Skipped while a rebuild runs,
+     * it replaces the snapshot with one that may not contain them.
+     */
+    void deleteDeltas(long before) {
+        try {
+            if (rebuildRunning()) {
+                logger.log(Logger.Level.INFO, "Autocomplete deltas kept for the running rebuild");
+                return;
+            }
+            var keys = listDeltas(null, deltaMarker(before));
+            for (int from = 0; from < keys.size(); from += AddressStorage.MAX_DELETE_BATCH_SIZE) {
+                var batch = keys.subList(from, Math.min(keys.size(), from + AddressStorage.MAX_DELETE_BATCH_SIZE));
+                var objects = batch.stream()
+                        .map(key -> ObjectIdentifier.builder().key(key).build())
+                        .toList();
+                var deleteObjectsRequest = DeleteObjectsRequest.builder()
+                        .bucket(bucketName)
+                        .delete(Delete.builder().objects(objects).quiet(true).build())
+                        .build();
+                S3Access.CLIENT.deleteObjects(deleteObjectsRequest).errors().forEach(error -> logger.log(Logger.Level.WARNING,
+                        "Autocomplete delta {0} left behind. Reason: {1}", error.key(), error.message()));
+            }
+        } catch (S3Exception e) {
+            logger.log(Logger.Level.WARNING, "Merged autocomplete deltas left behind. Reason: {0}", e);
+        }
+    }
+
+    boolean rebuildRunning() {
+        try {
+            S3Access.CLIENT.headObject(builder -> builder.bucket(bucketName).key(REBUILD_KEY));
+            return true;
+        } catch (NoSuchKeyException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @param startAfter marker to continue after, or null for the oldest delta
+     * @param before marker to stop at, or null for all deltas
+     */
+    List<String> listDeltas(String startAfter, String before) {
+        var listObjectsRequest = ListObjectsV2Request.builder()
+                .bucket(bucketName)
+                .prefix(DELTAS_PREFIX)
+                .startAfter(startAfter)
+                .build();
+        return S3Access.CLIENT.listObjectsV2Paginator(listObjectsRequest)
+                .contents()
+                .stream()
+                .map(S3Object::key)
+                .takeWhile(key -> before == null || key.compareTo(before) < 0)
+                .toList();
+    }
+
+    /**
+     * @return the changes, empty if the delta was deleted by a merge meanwhile
+     */
+    Optional<List<Change>> readDelta(String key) {
+        try {
+            var content = S3Access.CLIENT.getObjectAsBytes(builder -> builder.bucket(bucketName).key(key)).asByteArray();
+            return Optional.of(fromBytes(content));
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            logger.log(Logger.Level.WARNING, "Unreadable autocomplete delta {0} skipped. Reason: {1}", key, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @return a marker sorting before every delta written at or after the time
+     */
+    static String deltaMarker(long timestamp) {
+        return DELTAS_PREFIX + "%013d".formatted(Math.max(0, timestamp));
+    }
+
+    static long writtenAt(String deltaKey) {
+        var name = deltaKey.substring(DELTAS_PREFIX.length());
+        return Long.parseLong(name.substring(0, name.indexOf('-')));
+    }
+
+    static byte[] toBytes(List<Change> changes) {
+        var bytes = new ByteArrayOutputStream();
+        try (var output = new DataOutputStream(bytes)) {
+            output.writeInt(changes.size());
+            for (var change : changes) {
+                output.writeUTF(change.field().name());
+                output.writeUTF(change.value());
+                output.writeInt(change.delta());
+            }
+        } catch (IOException e) {
+            throw new AddressException("Failed to serialize autocomplete delta: " + e.getMessage(), e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static List<Change> fromBytes(byte[] content) throws IOException {
+        try (var input = new DataInputStream(new ByteArrayInputStream(content))) {
+            var size = input.readInt();
+            var changes = new ArrayList<Change>(size);
+            for (int i = 0; i < size; i++) {
+                changes.add(new Change(Field.valueOf(input.readUTF()), input.readUTF(), input.readInt()));
+            }
+            return changes;
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unknown autocomplete field", e);
+        }
+    }
+
+    /**
+     * A rebuild in progress, stored in {@value #REBUILD_KEY} between the invocations that list the addresses.
+     *
+     * @param startedAt epoch millis, deltas written before are contained in the listed addresses
+     * @param cursor the last listed ID, null before the listing started
+     * @param version ETag of the stored rebuild, null before it was stored
+     */
+    record Rebuild(String token, long startedAt, String cursor, long count, PrefixIndex cities, PrefixIndex streets,
+            String version) {
+
+        static final int FORMAT_VERSION = 1;
+
+        byte[] toBytes() {
+            var bytes = new ByteArrayOutputStream();
+            try (var output = new DataOutputStream(bytes)) {
+                output.writeInt(FORMAT_VERSION);
+                output.writeUTF(token);
+                output.writeLong(startedAt);
+                output.writeUTF(cursor == null ? "" : cursor);
+                output.writeLong(count);
+                cities.writeTo(output);
+                streets.writeTo(output);
+            } catch (IOException e) {
+                throw new AddressException("Failed to serialize autocomplete rebuild: " + e.getMessage(), e);
+            }
+            return bytes.toByteArray();
+        }
+
+        static Rebuild fromBytes(byte[] content, String version) throws IOException {
+            try (var input = new DataInputStream(new ByteArrayInputStream(content))) {
+                var formatVersion = input.readInt();
+                if (formatVersion != FORMAT_VERSION) {
+                    throw new IOException("Unsupported autocomplete rebuild version " + formatVersion);
+                }
+                var token = input.readUTF();
+                var startedAt = input.readLong();
+                var cursor = input.readUTF();
+                var count = input.readLong();
+                var cities = PrefixIndex.readFrom(input);
+                var streets = PrefixIndex.readFrom(input);
+                return new Rebuild(token, startedAt, cursor.isEmpty() ? null : cursor, count, cities, streets, version);
+            }
+        }
+    }
+
+    /**
+     * Builds both indexes from all stored addresses page by page within the time budget and
+     * writes the snapshot with the last call. Deltas written after the rebuild started are
+     * applied on top; addresses written while it runs may be counted twice until the next rebuild.
+     *
+     * @param nextToken token of the previous call, null to start a new rebuild and abandon a running one
+     * @param pages lists the addresses after an ID, or from the start for null
+     * @return the progress, with the token for the next call while hasMore is true
+     * @throws AddressException if the token does not belong to the running rebuild or a write fails
+     */
+    public JsonObject rebuild(String nextToken, Function<String, PaginationResult> pages) {
+        if (!enabled) {
+            throw new AddressException("Autocomplete is disabled", Response.Status.BAD_REQUEST);
+        }
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(maxSeconds);
+        var rebuild = nextToken == null
+                ? new Rebuild(UUID.randomUUID().toString(), System.currentTimeMillis(), null, 0, PrefixIndex.EMPTY, PrefixIndex.EMPTY, null)
+                : resume(nextToken);
+        var cityCounts = rebuild.cities().counts();
+        var streetCounts = rebuild.streets().counts();
+        var cursor = rebuild.cursor();
+        var count = rebuild.count();
+        PaginationResult page;
+        do {
+            page = pages.apply(cursor);
+            for (var address : page.addresses()) {
+                countValue(cityCounts, address.city());
+                countValue(streetCounts, address.street());
+            }
+            count += page.addresses().size();
+            cursor = page.nextToken();
+        } while (page.hasMore() && System.nanoTime() - deadline < 0);
+        var cities = PrefixIndex.of(cityCounts);
+        var streets = PrefixIndex.of(streetCounts);
+        if (page.hasMore()) {
+            var next = new Rebuild(rebuild.token(), rebuild.startedAt(), cursor, count, cities, streets, rebuild.version());
+            save(next);
+            logger.log(Logger.Level.INFO, "Autocomplete rebuild {0} stopped at budget with {1} addresses", next.token(), count);
+            return Json.createObjectBuilder()
+                    .add("addresses", count)
+                    .add("hasMore", true)
+                    .add("nextToken", next.token())
+                    .build();
+        }
+        write(cities, streets, rebuild.startedAt(), null);
+        deleteRebuild();
+        this.refreshing.lock();
+        try {
+            this.view = null;
+        } finally {
+            this.refreshing.unlock();
+        }
+        logger.log(Logger.Level.INFO, "Rebuilt autocomplete snapshot from {0} addresses", count);
+        return Json.createObjectBuilder()
+                .add("addresses", count)
+                .add("hasMore", false)
+                .build();
+    }
+
+    Rebuild resume(String token) {
+        Rebuild rebuild;
+        try {
+            var response = S3Access.CLIENT.getObjectAsBytes(builder -> builder.bucket(bucketName).key(REBUILD_KEY));
+            rebuild = Rebuild.fromBytes(response.asByteArray(), response.response().eTag());
+        } catch (NoSuchKeyException e) {
+            throw new AddressException("No autocomplete rebuild in progress: " + token, Response.Status.NOT_FOUND);
+        } catch (S3Exception | IOException e) {
+            logger.log(Logger.Level.ERROR, "Failed to read autocomplete rebuild. Reason: {0}", e);
+            throw new AddressException("Failed to read autocomplete rebuild: " + e.getMessage(), e);
+        }
+        if (!rebuild.token().equals(token)) {
+            throw new AddressException("Autocomplete rebuild " + token + " was replaced by a newer one", Response.Status.CONFLICT);
+        }
+        return rebuild;
+    }
+
+    /**
+     * Stores the rebuild over the version it was loaded from, a new rebuild replaces a running one.
+     */
+    void save(Rebuild rebuild) {
+        var putObjectRequest = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(REBUILD_KEY)
+                .contentType(AddressIdFilter.CONTENT_TYPE);
+        if (rebuild.version() != null) {
+            putObjectRequest.overrideConfiguration(ConditionalWrite.ifMatch(rebuild.version()));
+        }
+        try {
+            S3Access.CLIENT.putObject(putObjectRequest.build(), RequestBody.fromBytes(rebuild.toBytes()));
+        } catch (S3Exception e) {
+            if (ConditionalWrite.lostRace(e)) {
+                throw new AddressException("Autocomplete rebuild " + rebuild.token() + " was changed concurrently", Response.Status.CONFLICT);
+            }
+            logger.log(Logger.Level.ERROR, "Failed to write autocomplete rebuild. Reason: {0}", e);
+            throw new AddressException("Failed to write autocomplete rebuild: " + e.getMessage(), e);
+        }
+    }
+
+    void deleteRebuild() {
+        try {
+            S3Access.CLIENT.deleteObject(builder -> builder.bucket(bucketName).key(REBUILD_KEY));
+        } catch (S3Exception e) {
+            logger.log(Logger.Level.WARNING, "Finished autocomplete rebuild left behind, merged deltas are kept until it is removed. Reason: {0}", e);
+        }
+    }
+
+    static void countValue(Map<String, Integer> counts, String value) {
+        if (value != null && !value.isBlank()) {
+            counts.merge(value, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Writes the snapshot, conditionally if a precondition is given.
+     *
+     * @param precondition replaces only the version that was read, null to overwrite any version
+     * @return the ETag of the written snapshot, null if another instance replaced the version first
+     * @throws AddressException if the snapshot cannot be written
+     */
+    String write(PrefixIndex cities, PrefixIndex streets, long mergedUntil,
+            Consumer<AwsRequestOverrideConfiguration.Builder> precondition) {
+        var bytes = new ByteArrayOutputStream();
+        try (var output = new DataOutputStream(bytes)) {
+            output.writeInt(SNAPSHOT_VERSION);
+            output.writeLong(mergedUntil);
+            cities.writeTo(output);
+            streets.writeTo(output);
+        } catch (IOException e) {
+            throw new AddressException("Failed to serialize autocomplete snapshot: " + e.getMessage(), e);
+        }
+        var putObjectRequest = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(SNAPSHOT_KEY)
+                .contentType(AddressIdFilter.CONTENT_TYPE);
+        if (precondition != null) {
+            putObjectRequest.overrideConfiguration(precondition);
+        }
+        try {
+            return S3Access.CLIENT.putObject(putObjectRequest.build(), RequestBody.fromBytes(bytes.toByteArray())).eTag();
+        } catch (S3Exception e) {
+            if (precondition != null && ConditionalWrite.lostRace(e)) {
+                return null;
+            }
+            logger.log(Logger.Level.ERROR, "Failed to write autocomplete snapshot. Reason: {0}", e);
+            throw new AddressException("Failed to write autocomplete snapshot: " + e.getMessage(), e);
+        }
+    }
+
+    public JsonObject statistics() {
+        var current = this.view;
+        return Json.createObjectBuilder()
+                .add("enabled", enabled)
+                .add("loaded", current != null)
+                .add("cities", current == null ? 0 : current.cities().size())
+                .add("streets", current == null ? 0 : current.streets().size())
+                .add("pendingDeltas", current == null ? 0 : current.deltas().size())
+                .build();
+    }
+}
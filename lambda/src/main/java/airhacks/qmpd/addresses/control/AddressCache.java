@@ -0,0 +1,139 @@
+package airhacks.qmpd.addresses.control;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import airhacks.qmpd.addresses.entity.Address;
+
+/**
+ * Bounded, least-recently-used cache of parsed addresses with their S3 ETags.
+ *
+ * Entries younger than the time-to-live are served without S3 access,
+ * older entries remain cached to be revalidated with a conditional GET.
+ * A capacity of zero disables the in-memory tier. Misses of the in-memory tier
+ * fall back to the {@link DiskCache} on ephemeral storage.
+ */
+class AddressCache {
+
+    record Entry(Address address, String eTag, long loadedAt) {}
+
+    static final Metric HITS = InvocationMetrics.counter("Cache.Hits");
+    static final Metric MISSES = InvocationMetrics.counter("Cache.Misses");
+    static final Metric REVALIDATIONS = InvocationMetrics.counter("Cache.Revalidations");
+
+    final int maxEntries;
+    final long ttlNanos;
+    final Map<String, Entry> entries;
+    final DiskCache disk;
+
+    final LongAdder hits = new LongAdder();
+    final LongAdder misses = new LongAdder();
+    final LongAdder revalidations = new LongAdder();
+    final LongAdder evictions = new LongAdder();
+
+    AddressCache(int maxEntries, long ttlSeconds) {
+        this(maxEntries, ttlSeconds, DiskCache.disabled());
+    }
+
+    AddressCache(int maxEntries, long ttlSeconds, DiskCache disk) {
+        this.maxEntries = maxEntries;
+        this.disk = disk;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                var evict = size() > AddressCache.this.maxEntries;
+                if (evict) {
+                    evictions.increment();
+                }
+                return evict;
+            }
+        };
+    }
+
+    boolean enabled() {
+        return this.maxEntries > 0;
+    }
+
+    Entry get(String id) {
+        synchronized (this) {
+            var entry = this.entries.get(id);
+            if (entry != null) {
+                return entry;
+            }
+        }
+        var entry = this.disk.get(id);
+        if (entry != null && enabled()) {
+            synchronized (this) {
+                this.entries.put(id, entry);
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Looks up the memory tier only, never blocks on the disk tier.
+     */
+    synchronized Entry getFromMemory(String id) {
+        return this.entries.get(id);
+    }
+
+    boolean isFresh(Entry entry) {
+        return System.nanoTime() - entry.loadedAt() < this.ttlNanos;
+    }
+
+    void put(String id, Address address, String eTag) {
+        if (eTag == null) {
+            return;
+        }
+        if (enabled()) {
+            synchronized (this) {
+                this.entries.put(id, new Entry(address, eTag, System.nanoTime()));
+            }
+        }
+        this.disk.put(id, address, eTag);
+    }
+
+    /**
+     * Restarts the time-to-live of an entry confirmed by a 304 Not Modified.
+     */
+    void revalidated(String id, Entry entry) {
+        this.revalidations.increment();
+        REVALIDATIONS.increment();
+        if (enabled()) {
+            synchronized (this) {
+                this.entries.put(id, new Entry(entry.address(), entry.eTag(), System.nanoTime()));
+            }
+        }
+        this.disk.touch(id);
+    }
+
+    void invalidate(String id) {
+        synchronized (this) {
+            this.entries.remove(id);
+        }
+        this.disk.invalidate(id);
+    }
+
+    void hit() {
+        this.hits.increment();
+        HITS.increment();
+    }
+
+    void miss() {
+        this.misses.increment();
+        MISSES.increment();
+    }
+
+    CacheStatistics statistics() {
+        int size;
+        synchronized (this) {
+            size = this.entries.size();
+        }
+        return new CacheStatistics(size, this.maxEntries,
+                this.hits.sum(), this.revalidations.sum(), this.misses.sum(), this.evictions.sum(),
+                this.disk.size(), this.disk.bytes(), this.disk.hits.sum());
+    }
+}
@@ -0,0 +1,180 @@
+package airhacks.qmpd.addresses.control;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+import airhacks.qmpd.addresses.entity.Address;
+import airhacks.qmpd.addresses.entity.JSONWritable;
+import jakarta.json.Json;
+
+/**
+ * Encodes stored address records as JSON or in a compact, versioned binary format.
+ *
+ * Binary records start with the version byte {@value #VERSION}, JSON records with
+ * <code>{</code>, so {@link #decode(byte[])} reads both and existing JSON objects migrate
+ * lazily with their next write. Binary layout: six fields as varint length + 1 (0 for null)
+ * followed by UTF-8 bytes, then both timestamps as zigzag varint epoch seconds (UTC)
+ * and varint nanoseconds.
+ */
+final class AddressCodec {
+
+    static final byte VERSION = 1;
+    static final byte JSON_START = '{';
+
+    private AddressCodec() {
+    }
+
+    static byte[] encode(Address address, StorageFormat format) {
+        return switch (format) {
+            case json -> toJSON(address);
+            case binary -> toBinary(address);
+        };
+    }
+
+    /**
+     * @throws IllegalArgumentException if the content is neither JSON nor a known binary version
+     */
+    static Address decode(byte[] content) {
+        if (content.length == 0) {
+            throw new IllegalArgumentException("Empty address record");
+        }
+        return switch (content[0]) {
+            case VERSION -> fromBinary(content);
+            case JSON_START -> Address.fromJSON(Json.createReader(new ByteArrayInputStream(content)).readObject());
+            default -> throw new IllegalArgumentException("Unknown address record format " + content[0]);
+        };
+    }
+
+    /**
+     * Streams the JSON into the byte array, without an intermediate JsonObject and String.
+     */
+    static byte[] toJSON(Address address) {
+        var bytes = new ByteArrayOutputStream(384);
+        try (var generator = JSONWritable.GENERATORS.createGenerator(bytes)) {
+            address.writeJSON(generator);
+        }
+        return bytes.toByteArray();
+    }
+
+    static byte[] toBinary(Address address) {
+        var writer = new Writer(256);
+        writer.buffer[writer.position++] = VERSION;
+        writer.string(address.id());
+        writer.string(address.street());
+        writer.string(address.city());
+        writer.string(address.state());
+        writer.string(address.postalCode());
+        writer.string(address.country());
+        writer.timestamp(address.createdAt());
+        writer.timestamp(address.updatedAt());
+        return Arrays.copyOf(writer.buffer, writer.position);
+    }
+
+    static Address fromBinary(byte[] content) {
+        var reader = new Reader(content);
+        reader.position = 1;
+        return new Address(
+            reader.string(),
+            reader.string(),
+            reader.string(),
+            reader.string(),
+            reader.string(),
+            reader.string(),
+            reader.timestamp(),
+            reader.timestamp()
+        );
+    }
+
+    static final class Writer {
+
+        byte[] buffer;
+        int position;
+
+        Writer(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        void ensure(int additional) {
+            if (this.position + additional > this.buffer.length) {
+                this.buffer = Arrays.copyOf(this.buffer, Math.max(this.buffer.length * 2, this.position + additional));
+            }
+        }
+
+        void varint(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                this.buffer[this.position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            this.buffer[this.position++] = (byte) value;
+        }
+
+        void string(String value) {
+            if (value == null) {
+                varint(0);
+                return;
+            }
+            var bytes = value.getBytes(StandardCharsets.UTF_8);
+            varint(bytes.length + 1L);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, this.buffer, this.position, bytes.length);
+            this.position += bytes.length;
+        }
+
+        void timestamp(LocalDateTime value) {
+            var seconds = value.toEpochSecond(ZoneOffset.UTC);
+            varint((seconds << 1) ^ (seconds >> 63));
+            varint(value.getNano());
+        }
+    }
+
+    static final class Reader {
+
+        final byte[] content;
+        int position;
+
+        Reader(byte[] content) {
+            this.content = content;
+        }
+
+        long varint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (this.position >= this.content.length) {
+                    throw new IllegalArgumentException("Truncated address record");
+                }
+                var next = this.content[this.position++];
+                value |= (long) (next & 0x7F) << shift;
+                if ((next & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in address record");
+        }
+
+        String string() {
+            var length = varint();
+            if (length == 0) {
+                return null;
+            }
+            var size = (int) (length - 1);
+            if (size < 0 || this.position + size > this.content.length) {
+                throw new IllegalArgumentException("Truncated address record");
+            }
+            var value = new String(this.content, this.position, size, StandardCharsets.UTF_8);
+            this.position += size;
+            return value;
+        }
+
+        LocalDateTime timestamp() {
+            var zigzag = varint();
+            var seconds = (zigzag >>> 1) ^ -(zigzag & 1);
+            var nanos = (int) varint();
+            return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+        }
+    }
+}
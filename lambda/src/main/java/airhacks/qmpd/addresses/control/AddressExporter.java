@@ -0,0 +1,146 @@
+package airhacks.qmpd.addresses.control;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.System.Logger;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import airhacks.qmpd.addresses.entity.AddressException;
+import airhacks.qmpd.addresses.entity.AddressResponse;
+import airhacks.qmpd.addresses.entity.JSONWritable;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.json.Json;
+
+/**
+ * Streams all addresses as newline-delimited JSON, one address response per line.
+ *
+ * Pages are listed in key order and the next page is fetched with the {@link AsyncAddressStorage}
+ * while the current one is written, so at most two pages are in memory. Near the end of the
+ * budget the next page is not prefetched. An export stops before the time or
+ * size budget of an invocation is exhausted and ends with the line
+ * <code>{"nextToken":"..."}</code>; passing the token continues after the last written address.
+ */
+@ApplicationScoped
+public class AddressExporter {
+
+    private static final Logger logger = System.getLogger(AddressExporter.class.getName());
+
+    static final byte NEWLINE = '\n';
+
+    @Inject
+    AddressStorage storage;
+
+    @Inject
+    AsyncAddressStorage asyncStorage;
+
+    @ConfigProperty(name = "address.export.max.seconds", defaultValue = "8")
+    long maxSeconds;
+
+    @ConfigProperty(name = "address.export.max.mb", defaultValue = "5")
+    long maxMb;
+
+    /**
+     * @param nextToken the token of the last line of a previous, incomplete export, or null to start
+     * @param output receives the NDJSON lines
+     * @throws AddressException if listing or fetching fails
+     */
+    public void export(String nextToken, OutputStream output) throws IOException {
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(maxSeconds);
+        var maxBytes = maxMb * 1024 * 1024;
+        var written = 0L;
+        var count = 0L;
+        var line = new ByteArrayOutputStream(512);
+        var started = System.nanoTime();
+        var page = this.storage.findPage(AddressStorage.MAX_PAGE_SIZE, nextToken);
+        var pageNanos = System.nanoTime() - started;
+        var pageBytes = 0L;
+        while (true) {
+            var current = page;
+            Future<PaginationResult> next = current.hasMore() && prefetch(deadline, pageNanos, maxBytes - written, pageBytes)
+                    ? this.asyncStorage.findPage(AddressStorage.MAX_PAGE_SIZE, current.nextToken()).toCompletableFuture()
+                    : null;
+            started = System.nanoTime();
+            var writtenBefore = written;
+            for (var address : current.addresses()) {
+                if (exhausted(count, deadline, written, maxBytes)) {
+                    writeNextToken(output, nextToken);
+                    logger.log(Logger.Level.INFO, "Export of {0} addresses stopped at budget, resume after {1}", count, nextToken);
+                    return;
+                }
+                line.reset();
+                writeLine(AddressResponse.from(address), line);
+                line.writeTo(output);
+                written += line.size();
+                count++;
+                nextToken = address.id();
+            }
+            if (!current.hasMore()) {
+                break;
+            }
+            nextToken = current.nextToken();
+            page = next != null
+                    ? await(next)
+                    : this.storage.findPage(AddressStorage.MAX_PAGE_SIZE, nextToken);
+            pageNanos = System.nanoTime() - started;
+            pageBytes = written - writtenBefore;
+        }
+        logger.log(Logger.Level.INFO, "Exported {0} addresses with {1} bytes", count, written);
+    }
+
+    /**
+     * A prefetch cannot be cancelled once its requests are sent. It is only started if the
+     * remaining budget is likely to cover the current and the next page, estimated by the
+     * duration and size of the previous one; otherwise the next page, if reached at all,
+     * is fetched when it is needed.
+     */
+    static boolean prefetch(long deadline, long pageNanos, long remainingBytes, long pageBytes) {
+        return deadline - System.nanoTime() > 2 * pageNanos && remainingBytes > 2 * pageBytes;
+    }
+
+    /**
+     * An export writes at least one address before it stops: a cursor without progress
+     * would be resumed forever, an empty one would end the export.
+     */
+    static boolean exhausted(long count, long deadline, long written, long maxBytes) {
+        return count > 0 && (System.nanoTime() > deadline || written >= maxBytes);
+    }
+
+    static void writeLine(JSONWritable entity, ByteArrayOutputStream line) {
+        try (var generator = JSONWritable.GENERATORS.createGenerator(line)) {
+            entity.writeJSON(generator);
+        }
+        line.write(NEWLINE);
+    }
+
+    static PaginationResult await(Future<PaginationResult> next) {
+        try {
+            return next.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AddressException("Export interrupted", e);
+        } catch (ExecutionException e) {
+            var cause = e.getCause() instanceof CompletionException completion ? completion.getCause() : e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new AddressException("Export failed: " + cause.getMessage(), cause);
+        }
+    }
+
+    static void writeNextToken(OutputStream output, String nextToken) throws IOException {
+        var line = Json.createObjectBuilder()
+                .add("nextToken", nextToken == null ? "" : nextToken)
+                .build()
+                .toString();
+        output.write(line.getBytes(StandardCharsets.UTF_8));
+        output.write(NEWLINE);
+    }
+}
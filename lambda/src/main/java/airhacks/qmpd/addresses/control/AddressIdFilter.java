@@ -0,0 +1,670 @@
+package airhacks.qmpd.addresses.control;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.System.Logger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import airhacks.qmpd.addresses.entity.AddressException;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import jakarta.ws.rs.core.Response;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+/**
+ * Bloom filter of existing address IDs to answer lookups of unknown IDs without reading the address.
+ *
+ * The filter is split into shards stored as S3 objects below {@value #PREFIX}, so a new ID
+ * only rewrites one small shard. Shards are updated with conditional PUTs (If-Match on the
+ * ETag that was read) and retried when another instance wrote the shard in between, so no
+ * instance drops the IDs of another. Concurrent adds of one shard are written together.
+ *
+ * A negative answer is only given by a shard read after the lookup started: the cached shard
+ * is revalidated with a conditional GET, shared by all lookups of the shard waiting at that time.
+ * So an ID added by any instance before the lookup is never rejected. Positive answers need no
+ * revalidation, bits are only added.
+ *
+ * Only a complete shard rejects lookups. The first add creates an incomplete shard, a rebuild
+ * with {@link #rebuild(String, Function)} completes it. An add that cannot be written marks its shard
+ * invalid instead of failing the address write, so the shard answers "might exist" until the
+ * next rebuild. Deletions keep their bits until the next rebuild.
+ */
+@ApplicationScoped
+public class AddressIdFilter {
+
+    private static final Logger logger = System.getLogger(AddressIdFilter.class.getName());
+
+    static final String PREFIX = "filters/address-ids/";
+    static final String CONTENT_TYPE = "application/octet-stream";
+    static final String STATE = "filter-state";
+    static final String REBUILD = PREFIX + "rebuild";
+
+    /**
+     * Whether a shard may reject lookups, stored as object metadata.
+     */
+    enum State {
+        complete, incomplete, invalid;
+
+        /**
+         * Shards without state were written by a rebuild before states existed.
+         */
+        static State of(Map<String, String> metadata) {
+            var state = metadata.get(STATE);
+            return state == null ? complete : State.valueOf(state);
+        }
+    }
+
+    /**
+     * A loaded shard, the filter and ETag are null if the shard does not exist.
+     *
+     * @param loadedAt nano time before the shard was read or written, it contains every ID added before
+     */
+    record Shard(BloomFilter filter, String eTag, State state, long loadedAt) {
+
+        boolean usable() {
+            return this.filter != null && this.state == State.complete;
+        }
+
+        boolean rejects(String id) {
+            return usable() && !this.filter.mightContain(id);
+        }
+    }
+
+    /**
+     * IDs waiting for the next write of their shard, sealed when a writer takes them over.
+     */
+    static final class Batch {
+
+        final List<String> ids = new ArrayList<>();
+        boolean sealed;
+        volatile boolean written;
+
+        Batch(String id) {
+            this.ids.add(id);
+        }
+
+        synchronized boolean offer(String id) {
+            if (this.sealed) {
+                return false;
+            }
+            return this.ids.add(id);
+        }
+
+        synchronized List<String> seal() {
+            this.sealed = true;
+            return List.copyOf(this.ids);
+        }
+    }
+
+    /**
+     * A rebuild in progress, stored between the invocations that list the IDs.
+     *
+     * @param listAfter epoch millis when the listing may start, after the grace period of the capture
+     * @param cursor the last listed ID, null before the listing started
+     * @param eTags the shard versions captured at the start
+     * @param filters the rebuilt shard filters
+     * @param version ETag of the stored rebuild, null before it was stored
+     */
+    record Rebuild(String token, long listAfter, String cursor, long ids, List<String> eTags,
+            List<BloomFilter> filters, String version) {
+
+        static final int FORMAT_VERSION = 1;
+
+        Rebuild listed(String cursor, long ids) {
+            return new Rebuild(token, listAfter, cursor, ids, eTags, filters, version);
+        }
+
+        Rebuild stored(String version) {
+            return new Rebuild(token, listAfter, cursor, ids, eTags, filters, version);
+        }
+
+        byte[] toBytes() {
+            var bytes = new ByteArrayOutputStream();
+            try (var output = new DataOutputStream(bytes)) {
+                output.writeInt(FORMAT_VERSION);
+                output.writeUTF(token);
+                output.writeLong(listAfter);
+                output.writeUTF(cursor == null ? "" : cursor);
+                output.writeLong(ids);
+                output.writeInt(filters.size());
+                for (int i = 0; i < filters.size(); i++) {
+                    output.writeUTF(eTags.get(i));
+                    var filter = filters.get(i).toBytes();
+                    output.writeInt(filter.length);
+                    output.write(filter);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return bytes.toByteArray();
+        }
+
+        static Rebuild fromBytes(byte[] content, String version) {
+            try (var input = new DataInputStream(new ByteArrayInputStream(content))) {
+                var formatVersion = input.readInt();
+                if (formatVersion != FORMAT_VERSION) {
+                    throw new IllegalArgumentException("Unsupported address id filter rebuild version: " + formatVersion);
+                }
+                var token = input.readUTF();
+                var listAfter = input.readLong();
+                var cursor = input.readUTF();
+                var ids = input.readLong();
+                var shards = input.readInt();
+                var eTags = new ArrayList<String>(shards);
+                var filters = new ArrayList<BloomFilter>(shards);
+                for (int i = 0; i < shards; i++) {
+                    eTags.add(input.readUTF());
+                    filters.add(BloomFilter.fromBytes(input.readNBytes(input.readInt())));
+                }
+                return new Rebuild(token, listAfter, cursor.isEmpty() ? null : cursor, ids, eTags, filters, version);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @ConfigProperty(name = "address.bucket.name", defaultValue = "-not-set-")
+    String bucketName;
+
+    @ConfigProperty(name = "address.id.filter.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "address.id.filter.expected.insertions", defaultValue = "1000000")
+    long expectedInsertions;
+
+    @ConfigProperty(name = "address.id.filter.false.positive.rate", defaultValue = "0.01")
+    double falsePositiveRate;
+
+    @ConfigProperty(name = "address.id.filter.shards", defaultValue = "64")
+    int numberOfShards;
+
+    @ConfigProperty(name = "address.id.filter.refresh.seconds", defaultValue = "30")
+    long refreshSeconds;
+
+    @ConfigProperty(name = "address.id.filter.rebuild.grace.seconds", defaultValue = "15")
+    long rebuildGraceSeconds;
+
+    @ConfigProperty(name = "address.rebuild.max.seconds", defaultValue = "7")
+    long rebuildMaxSeconds;
+
+    AtomicReferenceArray<Shard> shards;
+    AtomicReferenceArray<Batch> batches;
+    ReentrantLock[] locks;
+    ReentrantLock[] confirmations;
+    final LongAdder rejectedLookups = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        this.shards = new AtomicReferenceArray<>(numberOfShards);
+        this.batches = new AtomicReferenceArray<>(numberOfShards);
+        this.locks = new ReentrantLock[numberOfShards];
+        this.confirmations = new ReentrantLock[numberOfShards];
+        for (int i = 0; i < numberOfShards; i++) {
+            this.locks[i] = new ReentrantLock();
+            this.confirmations[i] = new ReentrantLock();
+        }
+        if (enabled) {
+            var indexes = IntStream.range(0, numberOfShards).boxed().toList();
+            ParallelFetcher.fetchAll(indexes, index -> {
+                try {
+                    return reload(index);
+                } catch (RuntimeException e) {
+                    logger.log(Logger.Level.WARNING, "Cannot load address id filter shard {0}. Reason: {1}", index, e);
+                    return null;
+                }
+            }, numberOfShards);
+            logger.log(Logger.Level.INFO, "Loaded address id filter with {0} shards", numberOfShards);
+        }
+    }
+
+    public boolean enabled() {
+        return this.enabled;
+    }
+
+    S3Client client() {
+        return S3Access.CLIENT;
+    }
+
+    /**
+     * @return false if the address definitely does not exist, true if it might or the filter cannot tell
+     */
+    public boolean mightContain(String id) {
+        if (!enabled) {
+            return true;
+        }
+        var index = shardOf(id);
+        var requestedAt = System.nanoTime();
+        try {
+            var shard = this.shards.get(index);
+            if (shard == null || (!shard.usable() && isStale(shard))) {
+                shard = reload(index);
+            }
+            if (!shard.rejects(id) || !confirm(index, requestedAt).rejects(id)) {
+                return true;
+            }
+        } catch (RuntimeException e) {
+            logger.log(Logger.Level.WARNING, "Cannot check address id filter shard {0}, falling back to S3. Reason: {1}", index, e);
+            return true;
+        }
+        this.rejectedLookups.increment();
+        return false;
+    }
+
+    /**
+     * Returns a shard read after the lookup started. Lookups queue behind one conditional GET
+     * and reuse its result if it was sent after they started.
+     */
+    Shard confirm(int index, long requestedAt) {
+        var lock = this.confirmations[index];
+        lock.lock();
+        try {
+            var shard = this.shards.get(index);
+            if (shard != null && shard.loadedAt() - requestedAt > 0) {
+                return shard;
+            }
+            return reload(index);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Adds an ID to its persisted shard. Called before the address is written, so every
+     * instance finds the ID in the shard once the address exists. While a shard write is in
+     * flight, new IDs collect in a batch the next writer takes over. Never fails: a shard
+     * that cannot be written is invalidated and the rebuild restores it.
+     */
+    public void add(String id) {
+        if (!enabled) {
+            return;
+        }
+        var index = shardOf(id);
+        var batch = enqueue(index, id);
+        var lock = this.locks[index];
+        lock.lock();
+        try {
+            if (!batch.written) {
+                write(index, this.batches.getAndSet(index, null));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    Batch enqueue(int index, String id) {
+        while (true) {
+            var open = this.batches.get(index);
+            if (open != null && open.offer(id)) {
+                return open;
+            }
+            var batch = new Batch(id);
+            if (this.batches.compareAndSet(index, open, batch)) {
+                return batch;
+            }
+        }
+    }
+
+    void write(int index, Batch batch) {
+        var ids = batch.seal();
+        try {
+            persist(index, ids);
+        } catch (RuntimeException e) {
+            logger.log(Logger.Level.WARNING, "Address id filter shard {0} misses {1} ids, invalidated until the next rebuild. Reason: {2}",
+                    index, ids.size(), e);
+            invalidate(index);
+        } finally {
+            batch.written = true;
+        }
+    }
+
+    /**
+     * Writes the IDs into the shard, optimistically based on the cached version first.
+     * A missing shard is created incomplete.
+     *
+     * @throws AddressException if the shard keeps changing concurrently
+     */
+    void persist(int index, List<String> ids) {
+        var shard = this.shards.get(index);
+        for (var attempt = 1; attempt <= ConditionalWrite.MAX_ATTEMPTS; attempt++) {
+            if (shard == null || attempt > 1) {
+                shard = reload(index);
+            }
+            var requestedAt = System.nanoTime();
+            var filter = shard.filter() == null ? emptyFilter() : shard.filter().copy();
+            var state = shard.filter() == null ? State.incomplete : shard.state();
+            ids.forEach(filter::add);
+            var eTag = write(index, filter, state, shard.eTag());
+            if (eTag != null) {
+                remember(index, new Shard(filter, eTag, state, requestedAt));
+                return;
+            }
+            logger.log(Logger.Level.DEBUG, "Address id filter shard {0} changed concurrently, attempt {1}", index, attempt);
+        }
+        throw new AddressException("Failed to update address id filter: shard " + index + " changed concurrently");
+    }
+
+    /**
+     * Marks the shard invalid, so no instance trusts its negative answers until the next rebuild.
+     */
+    void invalidate(int index) {
+        var requestedAt = System.nanoTime();
+        var filter = emptyFilter();
+        try {
+            var putObjectRequest = putRequest(index, State.invalid).build();
+            var eTag = client().putObject(putObjectRequest, RequestBody.fromBytes(filter.toBytes())).eTag();
+            remember(index, new Shard(filter, eTag, State.invalid, requestedAt));
+        } catch (RuntimeException e) {
+            logger.log(Logger.Level.ERROR, "Cannot invalidate address id filter shard {0}, other instances may reject its new ids until the next rebuild. Reason: {1}",
+                    index, e);
+            remember(index, new Shard(null, null, State.invalid, requestedAt));
+        }
+    }
+
+    /**
+     * Rebuilds all shards from the IDs of the stored addresses, page by page within the time budget.
+     *
+     * The first call captures the version of every shard and delays the listing by a grace period,
+     * so adds committed before the capture have written their addresses when the listing passes them.
+     * The last call merges each rebuilt filter with the IDs added to its shard since the capture and
+     * writes it only over the version it read, retrying if an add wrote the shard in between.
+     * Shards invalidated during the rebuild stay invalid and are reported as skipped.
+     *
+     * @param nextToken token of the previous call, null to start a new rebuild and abandon a running one
+     * @param pages lists one page of IDs after the last listed ID, or from the start for null
+     * @return the progress, with the token for the next call while hasMore is true
+     * @throws AddressException if the token does not belong to the running rebuild
+     */
+    public JsonObject rebuild(String nextToken, Function<String, IdPage> pages) {
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(rebuildMaxSeconds);
+        var rebuild = nextToken == null ? start() : resume(nextToken);
+        if (!awaitListing(rebuild.listAfter(), deadline)) {
+            return progress(rebuild);
+        }
+        var cursor = rebuild.cursor();
+        var count = rebuild.ids();
+        IdPage page;
+        do {
+            page = pages.apply(cursor);
+            page.ids().forEach(id -> rebuild.filters().get(shardOf(id)).add(id));
+            count += page.ids().size();
+            cursor = page.nextToken();
+        } while (page.hasMore() && System.nanoTime() - deadline < 0);
+        if (page.hasMore()) {
+            var next = rebuild.listed(cursor, count);
+            return progress(next.stored(save(next)));
+        }
+        var indexes = IntStream.range(0, numberOfShards).boxed().toList();
+        var skipped = ParallelFetcher.fetchAll(indexes,
+                index -> complete(index, rebuild.filters().get(index), rebuild.eTags().get(index)), numberOfShards)
+                .stream()
+                .filter(completed -> !completed)
+                .count();
+        client().deleteObject(builder -> builder.bucket(bucketName).key(REBUILD));
+        logger.log(Logger.Level.INFO, "Rebuilt address id filter with {0} ids, skipped {1} shards", count, skipped);
+        return Json.createObjectBuilder()
+                .add("ids", count)
+                .add("hasMore", false)
+                .add("skippedShards", skipped)
+                .build();
+    }
+
+    Rebuild start() {
+        var indexes = IntStream.range(0, numberOfShards).boxed().toList();
+        var eTags = ParallelFetcher.fetchAll(indexes, this::capture, numberOfShards);
+        var filters = indexes.stream().map(index -> emptyFilter()).toList();
+        var listAfter = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(rebuildGraceSeconds);
+        var rebuild = new Rebuild(UUID.randomUUID().toString(), listAfter, null, 0, eTags, filters, null);
+        logger.log(Logger.Level.INFO, "Started address id filter rebuild {0}", rebuild.token());
+        return rebuild.stored(save(rebuild));
+    }
+
+    Rebuild resume(String token) {
+        Rebuild rebuild;
+        try {
+            var response = client().getObjectAsBytes(builder -> builder.bucket(bucketName).key(REBUILD));
+            rebuild = Rebuild.fromBytes(response.asByteArray(), response.response().eTag());
+        } catch (NoSuchKeyException e) {
+            throw new AddressException("No address id filter rebuild in progress: " + token, Response.Status.NOT_FOUND);
+        }
+        if (!rebuild.token().equals(token)) {
+            throw new AddressException("Address id filter rebuild " + token + " was replaced by a newer one", Response.Status.CONFLICT);
+        }
+        return rebuild;
+    }
+
+    /**
+     * Stores the rebuild over the version it was loaded from.
+     *
+     * @return the ETag of the stored rebuild
+     */
+    String save(Rebuild rebuild) {
+        var putObjectRequest = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(REBUILD)
+                .contentType(CONTENT_TYPE);
+        if (rebuild.version() != null) {
+            putObjectRequest.overrideConfiguration(ConditionalWrite.ifMatch(rebuild.version()));
+        }
+        try {
+            return client().putObject(putObjectRequest.build(), RequestBody.fromBytes(rebuild.toBytes())).eTag();
+        } catch (S3Exception e) {
+            if (ConditionalWrite.lostRace(e)) {
+                throw new AddressException("Address id filter rebuild " + rebuild.token() + " was changed concurrently", Response.Status.CONFLICT);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Waits for the grace period at most until the deadline.
+     *
+     * @return true if the listing may start
+     */
+    static boolean awaitListing(long listAfter, long deadline) {
+        var remaining = listAfter - System.currentTimeMillis();
+        if (remaining <= 0) {
+            return true;
+        }
+        var budget = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+        try {
+            Thread.sleep(Math.max(0, Math.min(remaining, budget)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AddressException("Interrupted while waiting for the address id filter rebuild", e);
+        }
+        return remaining <= budget;
+    }
+
+    JsonObject progress(Rebuild rebuild) {
+        return Json.createObjectBuilder()
+                .add("ids", rebuild.ids())
+                .add("hasMore", true)
+                .add("nextToken", rebuild.token())
+                .build();
+    }
+
+    /**
+     * Makes the shard mergeable: creates a missing shard and replaces an invalid shard or one with
+     * other dimensions than configured by an empty incomplete one, adds of the rebuild period
+     * then land in a filter the rebuilt one can absorb.
+     *
+     * @return the ETag of the captured shard version
+     */
+    String capture(int index) {
+        for (var attempt = 1; attempt <= ConditionalWrite.MAX_ATTEMPTS; attempt++) {
+            var shard = reload(index);
+            var empty = emptyFilter();
+            if (shard.filter() != null && shard.state() != State.invalid && shard.filter().sameDimensions(empty)) {
+                return shard.eTag();
+            }
+            var requestedAt = System.nanoTime();
+            var eTag = write(index, empty, State.incomplete, shard.eTag());
+            if (eTag != null) {
+                remember(index, new Shard(empty, eTag, State.incomplete, requestedAt));
+                return eTag;
+            }
+        }
+        throw new AddressException("Failed to start address id filter rebuild: shard " + index + " changed concurrently");
+    }
+
+    /**
+     * Replaces the shard with the rebuilt filter plus the IDs added since the capture.
+     *
+     * @return false if the shard was invalidated, removed or kept changing during the rebuild
+     */
+    boolean complete(int index, BloomFilter rebuilt, String capturedETag) {
+        try {
+            for (var attempt = 1; attempt <= ConditionalWrite.MAX_ATTEMPTS; attempt++) {
+                var shard = reload(index);
+                if (shard.filter() == null || shard.state() == State.invalid || !shard.filter().sameDimensions(rebuilt)) {
+                    logger.log(Logger.Level.WARNING, "Address id filter shard {0} was invalidated during the rebuild, rebuild again", index);
+                    return false;
+                }
+                var filter = rebuilt.copy();
+                if (!shard.eTag().equals(capturedETag)) {
+                    filter.merge(shard.filter());
+                }
+                var requestedAt = System.nanoTime();
+                var eTag = write(index, filter, State.complete, shard.eTag());
+                if (eTag != null) {
+                    remember(index, new Shard(filter, eTag, State.complete, requestedAt));
+                    return true;
+                }
+            }
+            logger.log(Logger.Level.WARNING, "Address id filter shard {0} changed concurrently, rebuild again", index);
+        } catch (RuntimeException e) {
+            logger.log(Logger.Level.WARNING, "Cannot complete address id filter shard {0}, rebuild again. Reason: {1}", index, e);
+        }
+        return false;
+    }
+
+    BloomFilter emptyFilter() {
+        return BloomFilter.create(Math.max(1, expectedInsertions / numberOfShards), falsePositiveRate);
+    }
+
+    int shardOf(String id) {
+        return (int) Math.floorMod(BloomFilter.mix(BloomFilter.hash(id) ^ 0x5bd1e995L), (long) numberOfShards);
+    }
+
+    boolean isStale(Shard shard) {
+        return System.nanoTime() - shard.loadedAt() > TimeUnit.SECONDS.toNanos(refreshSeconds);
+    }
+
+    String key(int index) {
+        return PREFIX + index;
+    }
+
+    /**
+     * Keeps the more recently read version of a shard.
+     */
+    void remember(int index, Shard shard) {
+        this.shards.accumulateAndGet(index, shard,
+                (current, candidate) -> current == null || candidate.loadedAt() - current.loadedAt() > 0 ? candidate : current);
+    }
+
+    /**
+     * A loaded shard is revalidated with a conditional GET, unchanged shards are not downloaded again.
+     *
+     * @throws S3Exception if the shard cannot be read
+     * @throws IllegalArgumentException if the shard content is not a filter
+     */
+    Shard reload(int index) {
+        var loaded = this.shards.get(index);
+        var getObjectRequest = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key(index));
+        if (loaded != null && loaded.eTag() != null) {
+            getObjectRequest.ifNoneMatch(loaded.eTag());
+        }
+        var requestedAt = System.nanoTime();
+        Shard shard;
+        try {
+            var response = client().getObjectAsBytes(getObjectRequest.build());
+            shard = new Shard(BloomFilter.fromBytes(response.asByteArray()), response.response().eTag(),
+                    State.of(response.response().metadata()), requestedAt);
+        } catch (NoSuchKeyException e) {
+            logger.log(Logger.Level.DEBUG, "Address id filter shard {0} not built yet", index);
+            shard = new Shard(null, null, State.incomplete, requestedAt);
+        } catch (S3Exception e) {
+            if (loaded == null || e.statusCode() != AddressStorage.NOT_MODIFIED) {
+                throw e;
+            }
+            shard = new Shard(loaded.filter(), loaded.eTag(), loaded.state(), requestedAt);
+        }
+        remember(index, shard);
+        return shard;
+    }
+
+    PutObjectRequest.Builder putRequest(int index, State state) {
+        return PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key(index))
+                .contentType(CONTENT_TYPE)
+                .metadata(Map.of(STATE, state.name()));
+    }
+
+    /**
+     * Replaces the shard only if it is still the version with the expected ETag,
+     * or creates it only if it does not exist yet.
+     *
+     * @return the ETag of the written shard, null if another instance changed it first
+     */
+    String write(int index, BloomFilter filter, State state, String expectedETag) {
+        var putObjectRequest = putRequest(index, state)
+                .overrideConfiguration(expectedETag == null
+                        ? ConditionalWrite.ifNoneMatch()
+                        : ConditionalWrite.ifMatch(expectedETag))
+                .build();
+        try {
+            return client().putObject(putObjectRequest, RequestBody.fromBytes(filter.toBytes())).eTag();
+        } catch (S3Exception e) {
+            if (ConditionalWrite.lostRace(e)) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    public JsonObject statistics() {
+        var loaded = 0;
+        var complete = 0;
+        for (int i = 0; i < this.shards.length(); i++) {
+            var shard = this.shards.get(i);
+            if (shard != null && shard.filter() != null) {
+                loaded++;
+            }
+            if (shard != null && shard.usable()) {
+                complete++;
+            }
+        }
+        return Json.createObjectBuilder()
+                .add("enabled", enabled)
+                .add("shards", numberOfShards)
+                .add("loadedShards", loaded)
+                .add("completeShards", complete)
+                .add("rejectedLookups", this.rejectedLookups.sum())
+                .build();
+    }
+}
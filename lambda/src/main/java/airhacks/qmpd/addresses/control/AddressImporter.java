@@ -0,0 +1,363 @@
+package airhacks.qmpd.addresses.control;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.lang.System.Logger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import airhacks.qmpd.addresses.entity.Address;
+import airhacks.qmpd.addresses.entity.AddressException;
+import airhacks.qmpd.addresses.entity.AddressValidationException;
+import airhacks.qmpd.addresses.entity.JSONWritable;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.json.JsonException;
+import jakarta.ws.rs.core.Response;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+/**
+ * Imports CSV or NDJSON files of create requests, uploaded below {@value #PREFIX}
+ * or streamed in the request body.
+ *
+ * Records are read incrementally in batches. A batch is parsed and validated in parallel,
+ * then written through {@link AddressStorage} with bounded concurrency while the next batch
+ * is read, so at most two batches are in memory. Rejected and failed records are collected
+ * in an {@link ImportReport} stored below {@value #REPORT_PREFIX}, including records that
+ * cannot be read and a CSV header naming no address field. An import of a bucket
+ * object stops at the time budget and continues from the reported offset with a Range GET.
+ */
+@ApplicationScoped
+public class AddressImporter {
+
+    private static final Logger logger = System.getLogger(AddressImporter.class.getName());
+
+    static final String PREFIX = "imports/";
+    static final String REPORT_PREFIX = "import-reports/";
+    static final int RANGE_NOT_SATISFIABLE = 416;
+    static final List<String> CSV_COLUMNS = List.of("street", "city", "state", "postalCode", "country");
+
+    @ConfigProperty(name = "address.bucket.name", defaultValue = "-not-set-")
+    String bucketName;
+
+    @ConfigProperty(name = "address.import.batch.size", defaultValue = "1000")
+    int batchSize;
+
+    @ConfigProperty(name = "address.import.concurrency", defaultValue = "128")
+    int concurrency;
+
+    @ConfigProperty(name = "address.import.max.seconds", defaultValue = "7")
+    long maxSeconds;
+
+    @ConfigProperty(name = "address.import.max.reported.errors", defaultValue = "1000")
+    int maxReportedErrors;
+
+    @Inject
+    AddressStorage storage;
+
+    record Parsed(ImportRecords.Record record, Address address, String error) {}
+
+    /**
+     * Imports the object {@code imports/<name>}, the format follows the file extension.
+     *
+     * @param offset 0, or the nextOffset of the previous report
+     * @throws AddressException with status 404 if the object does not exist
+     */
+    public ImportReport importObject(String name, long offset) {
+        var format = ImportFormat.ofName(name);
+        var key = PREFIX + name;
+        var header = format == ImportFormat.csv && offset > 0 ? readHeader(key) : null;
+        var reportKey = REPORT_PREFIX + name + (offset > 0 ? "." + offset : "") + ".json";
+        var getObjectRequest = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .range(offset > 0 ? "bytes=" + offset + "-" : null)
+                .build();
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(maxSeconds);
+        try (var response = S3Access.CLIENT.getObject(getObjectRequest)) {
+            var report = run(key, format, response, offset, header, reportKey, deadline);
+            if (!report.complete()) {
+                response.abort();
+            }
+            return report;
+        } catch (NoSuchKeyException e) {
+            throw new AddressException("Import file not found: " + key, Response.Status.NOT_FOUND);
+        } catch (S3Exception e) {
+            if (e.statusCode() == RANGE_NOT_SATISFIABLE) {
+                return new ImportReport(key, format, offset, 0, 0, 0, null, null, List.of());
+            }
+            logger.log(Logger.Level.ERROR, "Failed to read import file {0}. Reason: {1}", key, e);
+            throw new AddressException("Failed to read import file: " + e.getMessage(), e);
+        } catch (IOException e) {
+            logger.log(Logger.Level.ERROR, "Failed to read import file {0}. Reason: {1}", key, e);
+            throw new AddressException("Failed to read import file: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Imports a request body, the time budget is not applied since the body cannot be resumed.
+     */
+    public ImportReport importStream(ImportFormat format, InputStream input) {
+        var name = "request-" + System.currentTimeMillis() + "-" + UUID.randomUUID().toString().substring(0, 8);
+        try {
+            return run("request", format, input, 0, null, REPORT_PREFIX + name + ".json", Long.MAX_VALUE);
+        } catch (IOException e) {
+            throw new AddressValidationException("body", "Failed to read import: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @param header CSV header of a resumed import, null to read it from the input
+     * @param deadline System.nanoTime() after which no further batch is read
+     */
+    ImportReport run(String source, ImportFormat format, InputStream input, long offset, ImportRecords.Record header,
+            String reportKey, long deadline) throws IOException {
+        var records = new ImportRecords(input, format, offset);
+        int[] columns = null;
+        if (format == ImportFormat.csv) {
+            if (header == null) {
+                header = records.next();
+            }
+            try {
+                columns = header == null ? new int[0] : columns(header);
+            } catch (AddressValidationException e) {
+                var progress = new Progress(maxReportedErrors);
+                progress.failed(header, e.getMessage());
+                return completed(new ImportReport(source, format, offset, 0, 0, progress.failed, null, reportKey,
+                        progress.errors));
+            }
+        }
+        var csvColumns = columns;
+        var progress = new Progress(maxReportedErrors);
+        Long nextOffset = null;
+        try (var writer = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Parsed> writing = List.of();
+            Future<Map<String, String>> pending = null;
+            var batch = read(records);
+            while (!batch.isEmpty() || pending != null) {
+                var parsed = batch.parallelStream()
+                        .map(record -> parse(record, format, csvColumns))
+                        .toList();
+                if (pending != null) {
+                    progress.written(writing, await(pending));
+                    pending = null;
+                }
+                if (batch.isEmpty()) {
+                    break;
+                }
+                writing = progress.validated(parsed);
+                var addresses = writing.stream().map(Parsed::address).toList();
+                pending = writer.submit(() -> this.storage.storeAll(addresses, concurrency));
+                if (System.nanoTime() > deadline) {
+                    nextOffset = records.offset();
+                    batch = List.of();
+                } else {
+                    batch = read(records);
+                }
+            }
+        }
+        return completed(new ImportReport(source, format, offset, progress.records, progress.imported, progress.failed,
+                nextOffset, reportKey, progress.errors));
+    }
+
+    ImportReport completed(ImportReport report) {
+        write(report);
+        logger.log(Logger.Level.INFO, "Imported {0} of {1} records from {2}, report: {3}",
+                report.imported(), report.records(), report.source(), report.reportKey());
+        return report;
+    }
+
+    List<ImportRecords.Record> read(ImportRecords records) throws IOException {
+        var batch = new ArrayList<ImportRecords.Record>(batchSize);
+        ImportRecords.Record record;
+        while (batch.size() < batchSize && (record = records.next()) != null) {
+            batch.add(record);
+        }
+        return batch;
+    }
+
+    /**
+     * Parses and validates one record, rejections are returned as error message.
+     */
+    static Parsed parse(ImportRecords.Record record, ImportFormat format, int[] columns) {
+        if (record.error() != null) {
+            return new Parsed(record, null, record.error());
+        }
+        try {
+            var address = switch (format) {
+                case csv -> fromCSV(ImportRecords.csvFields(record.text()), columns);
+                case ndjson -> Address.fromCreateRequest(JSONWritable.PARSERS.createParser(new StringReader(record.text())));
+            };
+            AddressValidator.validateForCreation(address);
+            return new Parsed(record, address, null);
+        } catch (AddressValidationException e) {
+            return new Parsed(record, null, e.getMessage());
+        } catch (JsonException e) {
+            return new Parsed(record, null, "Malformed JSON: " + e.getMessage());
+        }
+    }
+
+    static Address fromCSV(List<String> fields, int[] columns) {
+        var values = new String[CSV_COLUMNS.size()];
+        for (int i = 0; i < values.length; i++) {
+            var column = columns[i];
+            values[i] = column >= 0 && column < fields.size() ? fields.get(column) : null;
+        }
+        return Address.create(values[0], values[1], values[2], values[3], values[4]);
+    }
+
+    /**
+     * @throws AddressValidationException if the header could not be read or names none of the address fields
+     */
+    static int[] columns(ImportRecords.Record header) {
+        if (header.error() != null) {
+            throw new AddressValidationException("header", header.error());
+        }
+        return columns(ImportRecords.csvFields(header.text()));
+    }
+
+    /**
+     * Maps the address fields to header positions, matching names case-insensitively.
+     *
+     * @return the position of each of {@link #CSV_COLUMNS}, -1 if missing
+     * @throws AddressValidationException if the header names none of the address fields
+     */
+    static int[] columns(List<String> header) {
+        var columns = new int[CSV_COLUMNS.size()];
+        var found = false;
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = -1;
+            for (int j = 0; j < header.size(); j++) {
+                if (CSV_COLUMNS.get(i).equalsIgnoreCase(header.get(j))) {
+                    columns[i] = j;
+                    found = true;
+                }
+            }
+        }
+        if (!found) {
+            throw new AddressValidationException("header", "CSV header must name the columns " + CSV_COLUMNS);
+        }
+        return columns;
+    }
+
+    /**
+     * Reads the header of a CSV file for an import resumed at an offset.
+     */
+    ImportRecords.Record readHeader(String key) {
+        var getObjectRequest = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .range("bytes=0-" + (ImportRecords.MAX_RECORD_BYTES - 1))
+                .build();
+        try (var response = S3Access.CLIENT.getObject(getObjectRequest)) {
+            var header = new ImportRecords(response, ImportFormat.csv, 0).next();
+            response.abort();
+            if (header == null) {
+                throw new AddressValidationException("header", "CSV file is empty: " + key);
+            }
+            return header;
+        } catch (NoSuchKeyException e) {
+            throw new AddressException("Import file not found: " + key, Response.Status.NOT_FOUND);
+        } catch (S3Exception | IOException e) {
+            throw new AddressException("Failed to read import header: " + e.getMessage(), e);
+        }
+    }
+
+    void write(ImportReport report) {
+        var bytes = new ByteArrayOutputStream();
+        try (var generator = JSONWritable.GENERATORS.createGenerator(bytes)) {
+            report.writeJSON(generator);
+        }
+        var putObjectRequest = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(report.reportKey())
+                .contentType("application/json")
+                .build();
+        try {
+            S3Access.CLIENT.putObject(putObjectRequest, RequestBody.fromBytes(bytes.toByteArray()));
+        } catch (S3Exception e) {
+            logger.log(Logger.Level.ERROR, "Failed to write import report {0}. Reason: {1}", report.reportKey(), e);
+            throw new AddressException("Failed to write import report: " + e.getMessage(), e);
+        }
+    }
+
+    static Map<String, String> await(Future<Map<String, String>> pending) {
+        try {
+            return pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AddressException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new AddressException("Import failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Counters of one invocation, only the first errors are kept.
+     */
+    static final class Progress {
+
+        final int maxErrors;
+        final List<ImportError> errors = new ArrayList<>();
+        long records;
+        long imported;
+        long failed;
+
+        Progress(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        /**
+         * Counts the rejected records.
+         *
+         * @return the records to write
+         */
+        List<Parsed> validated(List<Parsed> parsed) {
+            this.records += parsed.size();
+            var valid = new ArrayList<Parsed>(parsed.size());
+            for (var item : parsed) {
+                if (item.error() == null) {
+                    valid.add(item);
+                } else {
+                    failed(item.record(), item.error());
+                }
+            }
+            return valid;
+        }
+
+        void written(List<Parsed> written, Map<String, String> failures) {
+            for (var item : written) {
+                var failure = failures.get(item.address().id());
+                if (failure == null) {
+                    this.imported++;
+                } else {
+                    failed(item.record(), failure);
+                }
+            }
+        }
+
+        void failed(ImportRecords.Record record, String message) {
+            this.failed++;
+            if (this.errors.size() < this.maxErrors) {
+                this.errors.add(new ImportError(record.line(), record.offset(), message));
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package airhacks.qmpd.addresses.control;
+
+import java.lang.System.Logger;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import airhacks.qmpd.addresses.entity.Address;
+import airhacks.qmpd.addresses.entity.AddressException;
+import airhacks.qmpd.addresses.entity.AddressQuery;
+import jakarta.enterprise.context.ApplicationScoped;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.model.Delete;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+/**
+ * Secondary indexes over country, city and postal code.
+ *
+ * Each indexed value is an empty marker object
+ * {@code indexes/<field>/<normalized value>/<id>}, so a query is a prefix listing.
+ * Markers are written before and removed after the address object changes: a crash
+ * leaves stale markers only, which queries filter out by checking the loaded address.
+ */
+@ApplicationScoped
+public class AddressIndexes {
+
+    private static final Logger logger = System.getLogger(AddressIndexes.class.getName());
+
+    static final String PREFIX = "indexes/";
+
+    @ConfigProperty(name = "address.bucket.name", defaultValue = "-not-set-")
+    String bucketName;
+
+    @ConfigProperty(name = "address.index.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "address.fetch.concurrency", defaultValue = "64")
+    int writeConcurrency;
+
+    public boolean enabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Marker keys of all indexed, non-empty fields of an address.
+     */
+    List<String> keys(Address address) {
+        if (!enabled) {
+            return List.of();
+        }
+        var keys = new ArrayList<String>(3);
+        addKey(keys, "country", address.country(), address.id());
+        addKey(keys, "city", address.city(), address.id());
+        addKey(keys, "postalCode", address.postalCode(), address.id());
+        return keys;
+    }
+
+    static void addKey(List<String> keys, String field, String value, String id) {
+        var normalized = AddressQuery.normalize(value);
+        if (normalized == null || normalized.isEmpty()) {
+            return;
+        }
+        keys.add(prefix(field, normalized) + id);
+    }
+
+    static String prefix(String field, String normalizedValue) {
+        return PREFIX + field + "/" + URLEncoder.encode(normalizedValue, StandardCharsets.UTF_8) + "/";
+    }
+
+    /**
+     * Writes marker objects concurrently.
+     *
+     * @throws AddressException if a marker cannot be written
+     */
+    void put(List<String> keys) {
+        ParallelFetcher.fetchAll(keys, key -> {
+            var putObjectRequest = PutObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(key)
+                    .build();
+            try {
+                S3Access.CLIENT.putObject(putObjectRequest, RequestBody.empty());
+                return key;
+            } catch (S3Exception e) {
+                logger.log(Logger.Level.ERROR, "Failed to write index marker {0}. Reason: {1}", key, e);
+                throw new AddressException("Failed to update address index: " + e.getMessage(), e);
+            }
+        }, writeConcurrency);
+    }
+
+    /**
+     * Deletes marker objects in DeleteObjects batches. Failures only leave
+     * stale markers behind and are logged instead of thrown.
+     */
+    void delete(List<String> keys) {
+        for (int from = 0; from < keys.size(); from += AddressStorage.MAX_DELETE_BATCH_SIZE) {
+            var batch = keys.subList(from, Math.min(keys.size(), from + AddressStorage.MAX_DELETE_BATCH_SIZE));
+            var objects = batch.stream()
+                    .map(key -> ObjectIdentifier.builder().key(key).build())
+                    .toList();
+            var deleteObjectsRequest = DeleteObjectsRequest.builder()
+                    .bucket(bucketName)
+                    .delete(Delete.builder().objects(objects).quiet(true).build())
+                    .build();
+            try {
+                var response = S3Access.CLIENT.deleteObjects(deleteObjectsRequest);
+                response.errors().forEach(error -> logger.log(Logger.Level.WARNING,
+                        "Stale index marker {0} left behind. Reason: {1}", error.key(), error.message()));
+            } catch (S3Exception e) {
+                logger.log(Logger.Level.WARNING, "Stale index markers left behind: {0}. Reason: {1}", batch.size(), e);
+            }
+        }
+    }
+
+    /**
+     * Lists candidate IDs from the most selective index in the query:
+     * postal code, then city, then country.
+     *
+     * @throws AddressException if the listing fails
+     */
+    IdPage findIds(AddressQuery query, int limit, String nextToken) {
+        var field = query.postalCode() != null ? Map.entry("postalCode", query.postalCode())
+                : query.city() != null ? Map.entry("city", query.city())
+                : Map.entry("country", query.country());
+        var prefix = prefix(field.getKey(), AddressQuery.normalize(field.getValue()));
+        var listObjectsRequest = ListObjectsV2Request.builder()
+                .bucket(bucketName)
+                .prefix(prefix)
+                .maxKeys(limit);
+        if (nextToken != null && !nextToken.isBlank()) {
+            listObjectsRequest.startAfter(prefix + nextToken);
+        }
+        try {
+            var response = S3Access.CLIENT.listObjectsV2(listObjectsRequest.build());
+            var ids = response.contents()
+                    .stream()
+                    .map(S3Object::key)
+                    .map(key -> key.substring(prefix.length()))
+                    .toList();
+            var hasMore = Boolean.TRUE.equals(response.isTruncated()) && !ids.isEmpty();
+            return new IdPage(ids, ids.isEmpty() ? null : ids.getLast(), hasMore);
+        } catch (S3Exception e) {
+            logger.log(Logger.Level.ERROR, "Failed to query index {0}. Reason: {1}", prefix, e);
+            throw new AddressException("Failed to query addresses: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,454 @@
+package airhacks.qmpd.addresses.control;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import airhacks.qmpd.addresses.entity.Address;
+import airhacks.qmpd.addresses.entity.AddressException;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import jakarta.ws.rs.core.Response;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.model.CommonPrefix;
+import software.amazon.awssdk.services.s3.model.Delete;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+/**
+ * Columnar snapshots of all addresses for full scans with a few large GETs.
+ *
+ * A snapshot is a set of {@link ColumnarSnapshot} parts below {@code snapshots/<takenAt>/}
+ * and the manifest {@value #MANIFEST_KEY}, written last to switch atomically. Every write
+ * records an empty change marker {@code snapshots/changes/<id>/<epoch millis>} before the address
+ * object changes, so a scan reads the snapshot and re-fetches only the addresses changed since.
+ * Each write creates its own marker, clearing the markers a snapshot contains never removes
+ * the marker of a later write to the same address. A snapshot is written over several calls,
+ * its progress is kept in {@value #RUN_KEY}.
+ */
+@ApplicationScoped
+public class AddressSnapshots {
+
+    private static final Logger logger = System.getLogger(AddressSnapshots.class.getName());
+
+    static final String PREFIX = "snapshots/";
+    static final String MANIFEST_KEY = PREFIX + "manifest.json";
+    static final String CHANGES_PREFIX = PREFIX + "changes/";
+    static final String RUN_KEY = PREFIX + "run.json";
+
+    /**
+     * Markers are written before the address object, a marker is known to be contained
+     * in a snapshot only if it is older than the longest Lambda invocation.
+     */
+    static final Duration CHANGE_GRACE = Duration.ofMinutes(15);
+
+    @ConfigProperty(name = "address.bucket.name", defaultValue = "-not-set-")
+    String bucketName;
+
+    @ConfigProperty(name = "address.snapshot.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "address.snapshot.part.size", defaultValue = "100000")
+    int partSize;
+
+    @ConfigProperty(name = "address.fetch.concurrency", defaultValue = "64")
+    int writeConcurrency;
+
+    @ConfigProperty(name = "address.rebuild.max.seconds", defaultValue = "7")
+    long maxSeconds;
+
+    public boolean enabled() {
+        return this.enabled;
+    }
+
+    /**
+     * Writes change markers concurrently, called before the addresses are written or removed.
+     *
+     * @throws AddressException if a marker cannot be written
+     */
+    void recordChanges(List<String> ids) {
+        if (!enabled) {
+            return;
+        }
+        ParallelFetcher.fetchAll(ids, id -> {
+            var putObjectRequest = PutObjectRequest.builder()
+                    .bucket(bucketName)
+                    .key(CHANGES_PREFIX + id + "/" + System.currentTimeMillis())
+                    .build();
+            try {
+                S3Access.CLIENT.putObject(putObjectRequest, RequestBody.empty());
+                return id;
+            } catch (S3Exception e) {
+                logger.log(Logger.Level.ERROR, "Failed to record change of {0}. Reason: {1}", id, e);
+                throw new AddressException("Failed to record address change: " + e.getMessage(), e);
+            }
+        }, writeConcurrency);
+    }
+
+    /**
+     * @return the IDs changed since the latest snapshot with the time of their latest marker
+     */
+    Map<String, Instant> changes() {
+        var changes = new LinkedHashMap<String, Instant>();
+        markers().forEach(marker -> changes.merge(changedId(marker.key()), changedAt(marker),
+                (first, second) -> first.isAfter(second) ? first : second));
+        return changes;
+    }
+
+    List<S3Object> markers() {
+        var listObjectsRequest = ListObjectsV2Request.builder()
+                .bucket(bucketName)
+                .prefix(CHANGES_PREFIX)
+                .build();
+        try {
+            return S3Access.CLIENT.listObjectsV2Paginator(listObjectsRequest)
+                    .contents()
+                    .stream()
+                    .toList();
+        } catch (S3Exception e) {
+            logger.log(Logger.Level.ERROR, "Failed to list address changes {0}", e);
+            throw new AddressException("Failed to list address changes: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Markers written before the time suffix existed are named after the ID only.
+     */
+    static String changedId(String marker) {
+        var name = marker.substring(CHANGES_PREFIX.length());
+        var separator = name.lastIndexOf('/');
+        return separator < 0 ? name : name.substring(0, separator);
+    }
+
+    /**
+     * @return the write time in the marker key, or the last modification of markers without one
+     */
+    static Instant changedAt(S3Object marker) {
+        var name = marker.key().substring(CHANGES_PREFIX.length());
+        var separator = name.lastIndexOf('/');
+        if (separator < 0) {
+            return marker.lastModified();
+        }
+        try {
+            return Instant.ofEpochMilli(Long.parseLong(name.substring(separator + 1)));
+        } catch (NumberFormatException e) {
+            return marker.lastModified();
+        }
+    }
+
+    public Optional<SnapshotManifest> latest() {
+        var getObjectRequest = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(MANIFEST_KEY)
+                .build();
+        try (var response = S3Access.CLIENT.getObject(getObjectRequest);
+                var reader = Json.createReader(response)) {
+            return Optional.of(SnapshotManifest.fromJSON(reader.readObject()));
+        } catch (NoSuchKeyException e) {
+            return Optional.empty();
+        } catch (S3Exception | IOException e) {
+            logger.log(Logger.Level.ERROR, "Failed to read snapshot manifest {0}", e);
+            throw new AddressException("Failed to read snapshot manifest: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Streams the parts of a snapshot with one sequential GET each.
+     */
+    void read(SnapshotManifest manifest, Consumer<Address> consumer) {
+        manifest.parts().forEach(part -> readPart(part, consumer));
+    }
+
+    void readPart(String part, Consumer<Address> consumer) {
+        var getObjectRequest = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(part)
+                .build();
+        try (var input = new DataInputStream(new BufferedInputStream(S3Access.CLIENT.getObject(getObjectRequest), 1 << 16))) {
+            ColumnarSnapshot.read(input, consumer);
+        } catch (S3Exception | IOException e) {
+            logger.log(Logger.Level.ERROR, "Failed to read snapshot part {0}. Reason: {1}", part, e);
+            throw new AddressException("Failed to read snapshot: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Writes a new snapshot within the time budget of one call and switches the manifest to it
+     * with the last call. Parts of the replaced snapshot are kept for scans still reading them,
+     * older ones are deleted.
+     *
+     * @param nextToken token of the previous call, null to start a new snapshot and abandon a running one
+     * @param pages lists the addresses after an ID, used if there is no previous snapshot
+     * @param fetch reads the current version of changed addresses, missing ones were removed
+     * @return the progress, with the token for the next call while hasMore is true
+     * @throws AddressException if the token does not belong to the running snapshot or a read or write fails
+     */
+    JsonObject take(String nextToken, Function<String, PaginationResult> pages, Function<List<String>, List<Address>> fetch) {
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(maxSeconds);
+        var run = nextToken == null ? start() : resume(nextToken);
+        var previous = run.basedOn() < 0 ? null : basedOn(run);
+        var generation = PREFIX + run.takenAt() + "/";
+        var parts = new ArrayList<>(run.parts());
+        var rows = new ArrayList<Address>(partSize);
+        var phase = run.phase();
+        var nextPart = run.nextPart();
+        var cursor = run.cursor();
+        var count = run.count();
+        NavigableSet<String> changed = null;
+        var done = false;
+        do {
+            var before = rows.size();
+            switch (phase) {
+                case previous -> {
+                    if (changed == null) {
+                        changed = new TreeSet<>(changes().keySet());
+                    }
+                    var excluded = changed;
+                    if (nextPart < previous.parts().size()) {
+                        readPart(previous.parts().get(nextPart++), address -> {
+                            if (!excluded.contains(address.id())) {
+                                rows.add(address);
+                            }
+                        });
+                    }
+                    if (nextPart >= previous.parts().size()) {
+                        phase = SnapshotRun.Phase.changes;
+                    }
+                }
+                case changes -> {
+                    if (changed == null) {
+                        changed = new TreeSet<>(changes().keySet());
+                    }
+                    var remaining = cursor == null ? changed : changed.tailSet(cursor, false);
+                    var batch = remaining.stream().limit(AddressStorage.MAX_PAGE_SIZE).toList();
+                    rows.addAll(fetch.apply(batch));
+                    cursor = batch.isEmpty() ? cursor : batch.getLast();
+                    done = batch.size() == remaining.size();
+                }
+                case listing -> {
+                    var page = pages.apply(cursor);
+                    rows.addAll(page.addresses());
+                    cursor = page.nextToken();
+                    done = !page.hasMore();
+                }
+            }
+            count += rows.size() - before;
+            if (rows.size() >= partSize) {
+                parts.add(writePart(generation, parts.size(), rows));
+                rows.clear();
+            }
+        } while (!done && System.nanoTime() - deadline < 0);
+        if (!rows.isEmpty()) {
+            parts.add(writePart(generation, parts.size(), rows));
+        }
+        if (!done) {
+            var next = run.next(phase, nextPart, cursor, count, parts);
+            next = next.stored(save(next));
+            logger.log(Logger.Level.INFO, "Snapshot {0} stopped at budget with {1} addresses", run.token(), count);
+            return Json.createObjectBuilder()
+                    .add("addresses", count)
+                    .add("hasMore", true)
+                    .add("nextToken", next.token())
+                    .build();
+        }
+        var manifest = new SnapshotManifest(run.takenAt(), count, parts);
+        put(MANIFEST_KEY, manifest.toJSON().toString().getBytes(StandardCharsets.UTF_8), "application/json");
+        var retained = previous == null ? generation : PREFIX + previous.takenAt() + "/";
+        deleteGenerations(List.of(generation, retained));
+        clearChanges(run.takenAt());
+        deleteRun();
+        logger.log(Logger.Level.INFO, "Wrote snapshot with {0} addresses in {1} parts", count, parts.size());
+        return Json.createObjectBuilder()
+                .add("addresses", count)
+                .add("hasMore", false)
+                .add("manifest", manifest.toJSON())
+                .build();
+    }
+
+    SnapshotRun start() {
+        var takenAt = System.currentTimeMillis();
+        var basedOn = latest().map(SnapshotManifest::takenAt).orElse(-1L);
+        var phase = basedOn < 0 ? SnapshotRun.Phase.listing : SnapshotRun.Phase.previous;
+        var run = new SnapshotRun(UUID.randomUUID().toString(), takenAt, basedOn, phase, 0, null, 0, List.of(), null);
+        logger.log(Logger.Level.INFO, "Started snapshot {0}", run.token());
+        return run.stored(save(run));
+    }
+
+    SnapshotRun resume(String token) {
+        var getObjectRequest = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(RUN_KEY)
+                .build();
+        SnapshotRun run;
+        try (var response = S3Access.CLIENT.getObject(getObjectRequest);
+                var reader = Json.createReader(response)) {
+            run = SnapshotRun.fromJSON(reader.readObject(), response.response().eTag());
+        } catch (NoSuchKeyException e) {
+            throw new AddressException("No snapshot in progress: " + token, Response.Status.NOT_FOUND);
+        } catch (S3Exception | IOException e) {
+            logger.log(Logger.Level.ERROR, "Failed to read snapshot run {0}", e);
+            throw new AddressException("Failed to read snapshot run: " + e.getMessage(), e);
+        }
+        if (!run.token().equals(token)) {
+            throw new AddressException("Snapshot " + token + " was replaced by a newer one", Response.Status.CONFLICT);
+        }
+        return run;
+    }
+
+    /**
+     * @return the manifest the run copies, it is replaced only by the run itself
+     */
+    SnapshotManifest basedOn(SnapshotRun run) {
+        return latest()
+                .filter(manifest -> manifest.takenAt() == run.basedOn())
+                .orElseThrow(() -> new AddressException("Snapshot " + run.token() + " is based on a replaced snapshot, start again",
+                        Response.Status.CONFLICT));
+    }
+
+    /**
+     * Stores the run over the version it was loaded from.
+     *
+     * @return the ETag of the stored run
+     */
+    String save(SnapshotRun run) {
+        var putObjectRequest = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(RUN_KEY)
+                .contentType("application/json");
+        if (run.version() != null) {
+            putObjectRequest.overrideConfiguration(ConditionalWrite.ifMatch(run.version()));
+        }
+        try {
+            var content = run.toJSON().toString().getBytes(StandardCharsets.UTF_8);
+            return S3Access.CLIENT.putObject(putObjectRequest.build(), RequestBody.fromBytes(content)).eTag();
+        } catch (S3Exception e) {
+            if (ConditionalWrite.lostRace(e)) {
+                throw new AddressException("Snapshot " + run.token() + " was changed concurrently", Response.Status.CONFLICT);
+            }
+            logger.log(Logger.Level.ERROR, "Failed to write snapshot run {0}", e);
+            throw new AddressException("Failed to write snapshot run: " + e.getMessage(), e);
+        }
+    }
+
+    void deleteRun() {
+        try {
+            S3Access.CLIENT.deleteObject(builder -> builder.bucket(bucketName).key(RUN_KEY));
+        } catch (S3Exception e) {
+            logger.log(Logger.Level.WARNING, "Finished snapshot run left behind. Reason: {0}", e);
+        }
+    }
+
+    String writePart(String generation, int index, List<Address> rows) {
+        var key = generation + "part-%05d".formatted(index);
+        var bytes = new ByteArrayOutputStream();
+        try (var output = new DataOutputStream(bytes)) {
+            ColumnarSnapshot.write(rows, output);
+        } catch (IOException e) {
+            throw new AddressException("Failed to encode snapshot part: " + e.getMessage(), e);
+        }
+        put(key, bytes.toByteArray(), AddressIdFilter.CONTENT_TYPE);
+        return key;
+    }
+
+    void put(String key, byte[] content, String contentType) {
+        var putObjectRequest = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .contentType(contentType)
+                .build();
+        try {
+            S3Access.CLIENT.putObject(putObjectRequest, RequestBody.fromBytes(content));
+        } catch (S3Exception e) {
+            logger.log(Logger.Level.ERROR, "Failed to write snapshot object {0}. Reason: {1}", key, e);
+            throw new AddressException("Failed to write snapshot: " + e.getMessage(), e);
+        }
+    }
+
+    void deleteGenerations(List<String> retained) {
+        var listObjectsRequest = ListObjectsV2Request.builder()
+                .bucket(bucketName)
+                .prefix(PREFIX)
+                .delimiter(AddressStorage.DELIMITER)
+                .build();
+        try {
+            var stale = S3Access.CLIENT.listObjectsV2Paginator(listObjectsRequest)
+                    .commonPrefixes()
+                    .stream()
+                    .map(CommonPrefix::prefix)
+                    .filter(prefix -> !prefix.equals(CHANGES_PREFIX) && !retained.contains(prefix))
+                    .toList();
+            for (var prefix : stale) {
+                var keys = S3Access.CLIENT.listObjectsV2Paginator(builder -> builder.bucket(bucketName).prefix(prefix))
+                        .contents()
+                        .stream()
+                        .map(S3Object::key)
+                        .toList();
+                delete(keys);
+            }
+        } catch (S3Exception e) {
+            logger.log(Logger.Level.WARNING, "Stale snapshot parts left behind. Reason: {0}", e);
+        }
+    }
+
+    /**
+     * Deletes the markers of changes contained in the snapshot taken at the given time.
+     * Markers are listed again, a write during the snapshot has its own, newer marker.
+     */
+    void clearChanges(long takenAt) {
+        var contained = Instant.ofEpochMilli(takenAt).minus(CHANGE_GRACE);
+        var keys = markers().stream()
+                .filter(marker -> changedAt(marker).isBefore(contained))
+                .map(S3Object::key)
+                .toList();
+        delete(keys);
+    }
+
+    /**
+     * Deletes objects in DeleteObjects batches, failures are logged and retried by the next snapshot.
+     */
+    void delete(List<String> keys) {
+        for (int from = 0; from < keys.size(); from += AddressStorage.MAX_DELETE_BATCH_SIZE) {
+            var batch = keys.subList(from, Math.min(keys.size(), from + AddressStorage.MAX_DELETE_BATCH_SIZE));
+            var objects = batch.stream()
+                    .map(key -> ObjectIdentifier.builder().key(key).build())
+                    .toList();
+            var deleteObjectsRequest = DeleteObjectsRequest.builder()
+                    .bucket(bucketName)
+                    .delete(Delete.builder().objects(objects).quiet(true).build())
+                    .build();
+            try {
+                var response = S3Access.CLIENT.deleteObjects(deleteObjectsRequest);
+                response.errors().forEach(error -> logger.log(Logger.Level.WARNING,
+                        "Snapshot object {0} left behind. Reason: {1}", error.key(), error.message()));
+            } catch (S3Exception e) {
+                logger.log(Logger.Level.WARNING, "Snapshot objects left behind: {0}. Reason: {1}", batch.size(), e);
+            }
+        }
+    }
+}
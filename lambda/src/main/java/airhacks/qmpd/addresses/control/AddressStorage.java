@@ -1,20 +1,41 @@
 package airhacks.qmpd.addresses.control;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.lang.System.Logger;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
 
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import airhacks.qmpd.addresses.entity.Address;
 import airhacks.qmpd.addresses.entity.AddressException;
+import airhacks.qmpd.addresses.entity.AddressQuery;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
-import jakarta.json.Json;
+import jakarta.inject.Inject;
+import jakarta.json.JsonObject;
+import jakarta.ws.rs.core.Response;
 import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.model.CommonPrefix;
+import software.amazon.awssdk.services.s3.model.Delete;
 import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
 import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
 import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 import software.amazon.awssdk.services.s3.model.S3Exception;
 import software.amazon.awssdk.services.s3.model.S3Object;
@@ -23,20 +44,135 @@ import software.amazon.awssdk.services.s3.model.S3Object;
  * S3 storage implementation for address management.
  * 
  * Provides CRUD operations for address records using static client access
- * with JSON serialization. Each address is stored as a JSON object with the
- * address ID as the S3 object key.
+ * with JSON serialization. By default each address is stored as a JSON object with
+ * the address ID as the S3 object key; {@code address.storage.layout=segment} packs
+ * addresses into segment objects instead, see {@link SegmentStore}.
  */
 @ApplicationScoped
 public class AddressStorage {
 
     private static final Logger logger = System.getLogger(AddressStorage.class.getName());
 
+    /**
+     * Maximum number of keys returned by a single ListObjectsV2 call.
+     */
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * Maximum number of keys accepted by a single DeleteObjects call.
+     */
+    static final int MAX_DELETE_BATCH_SIZE = 1000;
+
+    static final int NOT_MODIFIED = 304;
+
     @ConfigProperty(name = "address.bucket.name", defaultValue = "-not-set-")
     String bucketName;
 
+    @ConfigProperty(name = "address.storage.layout", defaultValue = "object")
+    StorageLayout layout;
+
+    @ConfigProperty(name = "address.storage.format", defaultValue = "json")
+    StorageFormat format;
+
+    @ConfigProperty(name = "address.storage.format.fallback", defaultValue = "true")
+    boolean formatFallback;
+
+    @ConfigProperty(name = "address.fetch.concurrency", defaultValue = "64")
+    int fetchConcurrency;
+
+    @ConfigProperty(name = "address.cache.max.entries", defaultValue = "10000")
+    int cacheMaxEntries;
+
+    @ConfigProperty(name = "address.cache.ttl.seconds", defaultValue = "5")
+    long cacheTtlSeconds;
+
+    @ConfigProperty(name = "address.disk.cache.directory", defaultValue = "/tmp/address-cache")
+    String diskCacheDirectory;
+
+    @ConfigProperty(name = "address.disk.cache.max.mb", defaultValue = "256")
+    long diskCacheMaxMb;
+
+    @Inject
+    AddressIdFilter idFilter;
+
+    @Inject
+    AddressIndexes indexes;
+
+    @Inject
+    AddressAutocomplete autocomplete;
+
+    @Inject
+    AddressSnapshots snapshots;
 
+    @Inject
+    SegmentStore segments;
+
+    AddressCache cache;
+
+    /**
+     * The configured format first, followed by the formats of records written before a format change.
+     */
+    List<StorageFormat> readFormats;
+
+    @PostConstruct
+    void init() {
+        var diskCache = new DiskCache(Path.of(diskCacheDirectory), diskCacheMaxMb * 1024 * 1024);
+        this.cache = new AddressCache(cacheMaxEntries, cacheTtlSeconds, diskCache);
+        var formats = new ArrayList<StorageFormat>(List.of(this.format));
+        if (this.formatFallback) {
+            Stream.of(StorageFormat.values())
+                    .filter(other -> other != this.format)
+                    .forEach(formats::add);
+        }
+        this.readFormats = List.copyOf(formats);
+    }
+
+    /**
+     * Addresses are stored at the bucket root, auxiliary objects below prefixes.
+     */
+    static final String DELIMITER = "/";
+
+    /**
+     * The key in the configured format, records are stored as {@code <id><format suffix>}.
+     */
     String key(String id){
-        return id + ".json";
+        return key(id, this.format);
+    }
+
+    static String key(String id, StorageFormat format){
+        return id + format.suffix;
+    }
+
+    /**
+     * The greatest key of an ID: a listing continuing after it skips the keys of all formats.
+     */
+    static String lastKey(String id){
+        return Stream.of(StorageFormat.values())
+                .map(format -> key(id, format))
+                .max(Comparator.naturalOrder())
+                .orElseThrow();
+    }
+
+    static boolean isRecordKey(String key){
+        return Stream.of(StorageFormat.values()).anyMatch(format -> key.endsWith(format.suffix));
+    }
+
+    static String id(String key){
+        for (var format : StorageFormat.values()) {
+            if (key.endsWith(format.suffix))
+                return key.substring(0, key.length() - format.suffix.length());
+        }
+        return key;
+    }
+
+    /**
+     * Keys of the other formats that may still hold the record, deleted when it is written or removed.
+     */
+    List<String> previousKeys(String id){
+        return this.readFormats.stream()
+                .skip(1)
+                .map(format -> key(id, format))
+                .toList();
     }
 
     String key(Address address){
@@ -52,49 +188,263 @@ public class AddressStorage {
      * @throws AddressException if storage operation fails
      */
     public Address store(Address address) {
-        var key = key(address.id());
+        this.idFilter.add(address.id());
+        this.indexes.put(this.indexes.keys(address));
+        this.snapshots.recordChanges(List.of(address.id()));
         try {
-            var json = address.toJSON().toString();
-            var putObjectRequest = PutObjectRequest.builder()
-                    .bucket(bucketName)
-                    .key(key)
-                    .contentType("application/json")
-                    .build();
-
-            S3Access.CLIENT.putObject(putObjectRequest, RequestBody.fromString(json));
+            var eTag = put(address);
+            this.cache.put(address.id(), address, eTag);
+            this.autocomplete.added(address);
             logger.log(Logger.Level.DEBUG, "Stored address with id: {0}", address.id());
             return address;
         } catch (S3Exception e) {
+            this.cache.invalidate(address.id());
             logger.log(Logger.Level.ERROR, "Failed to store address with id: {0}. Reason: {1}", address.id(), e);
             throw new AddressException("Failed to store address: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Writes the address in the configured layout.
+     *
+     * @return the version to revalidate cached copies with
+     * @throws S3Exception if the write fails
+     */
+    String put(Address address) {
+        var content = AddressCodec.encode(address, this.format);
+        if (this.layout == StorageLayout.segment) {
+            return this.segments.write(address.id(), content, this.format.contentType);
+        }
+        var putObjectRequest = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key(address))
+                .contentType(this.format.contentType)
+                .build();
+        var body = RequestBody.fromContentProvider(() -> new ByteArrayInputStream(content), content.length, this.format.contentType);
+        return S3Access.CLIENT.putObject(putObjectRequest, body).eTag();
+    }
+
+    /**
+     * Deletes the copies of a rewritten record in the other formats: records migrate to the
+     * configured format with their next write.
+     *
+     * @throws S3Exception if the deletion fails
+     */
+    void deletePrevious(String id) {
+        if (this.layout == StorageLayout.segment) {
+            return;
+        }
+        for (var key : previousKeys(id)) {
+            S3Access.CLIENT.deleteObject(DeleteObjectRequest.builder().bucket(bucketName).key(key).build());
+        }
+    }
+
+    /**
+     * Stores multiple new address records concurrently.
+     *
+     * @param addresses the addresses to store
+     * @return failure messages by address ID, empty if all writes succeeded
+     */
+    public Map<String, String> storeAll(List<Address> addresses) {
+        return storeAll(addresses, fetchConcurrency);
+    }
+
+    /**
+     * Stores multiple new address records with at most {@code concurrency} writes in flight.
+     */
+    public Map<String, String> storeAll(List<Address> addresses, int concurrency) {
+        return writeAll(addresses, this::store, concurrency);
+    }
+
+    Map<String, String> writeAll(List<Address> addresses, UnaryOperator<Address> write, int concurrency) {
+        var outcomes = ParallelFetcher.fetchAll(addresses, address -> {
+            try {
+                write.apply(address);
+                return null;
+            } catch (AddressException e) {
+                return e.getMessage();
+            } catch (RuntimeException e) {
+                logger.log(Logger.Level.ERROR, "Failed to write address with id: {0}. Reason: {1}", address.id(), e);
+                return "Failed to write address: " + e.getMessage();
+            }
+        }, concurrency);
+        var failures = new LinkedHashMap<String, String>();
+        for (int i = 0; i < addresses.size(); i++) {
+            var failure = outcomes.get(i);
+            if (failure != null) {
+                failures.put(addresses.get(i).id(), failure);
+            }
+        }
+        return failures;
+    }
+
     /**
      * Finds an address by its unique identifier.
      * 
+     * Fresh cache entries are returned without S3 access, stale entries
+     * are revalidated with a conditional GET (If-None-Match).
+     *
      * @param id the address identifier
      * @return Optional containing the address if found, empty otherwise
      * @throws AddressException if retrieval operation fails
      */
     public Optional<Address> findById(String id) {
-        var key = key(id);
-        try {
-            var getObjectRequest = GetObjectRequest.builder()
-                    .bucket(bucketName)
-                    .key(key)
-                    .build();
+        var lookup = lookup(id);
+        if (!lookup.read()) {
+            return lookup.result();
+        }
+        var cached = lookup.cached();
+        if (this.layout == StorageLayout.segment) {
+            return findInSegments(id, cached);
+        }
+        NoSuchKeyException missing = null;
+        for (var format : this.readFormats) {
+            try (var response = S3Access.CLIENT.getObject(getRequest(id, cached, format))) {
+                return loaded(id, response.readAllBytes(), response.response().eTag());
+            } catch (NoSuchKeyException e) {
+                missing = e;
+            } catch (S3Exception e) {
+                return notLoaded(id, cached, e);
+            } catch (IOException e) {
+                logger.log(Logger.Level.ERROR, "Failed to read address with id: {0} Reason: {1}", id, e);
+                throw new AddressException("Failed to retrieve address: " + e.getMessage(), e);
+            }
+        }
+        return notLoaded(id, cached, missing);
+    }
+
+    /**
+     * For {@link AsyncAddressStorage}, see {@link #readFormats}.
+     */
+    List<StorageFormat> readFormats() {
+        return this.readFormats;
+    }
+
+    /**
+     * Outcome of the cache and ID filter checks of a lookup.
+     *
+     * @param result the fresh cached address, or empty if the ID filter rejected the ID
+     * @param cached the entry to revalidate when the object is read, null if none
+     * @param read whether the object has to be read, {@code result} is undefined then
+     */
+    record Lookup(Optional<Address> result, AddressCache.Entry cached, boolean read) {}
+
+    /**
+     * Checks both cache tiers and the ID filter, which may reload a filter shard from S3.
+     */
+    Lookup lookup(String id) {
+        return lookup(id, this.cache.get(id));
+    }
 
-            var response = S3Access.CLIENT.getObject(getObjectRequest);
-            var jsonReader = Json.createReader(response);
-            var jsonObject = jsonReader.readObject();
-            var address = Address.fromJSON(jsonObject);
+    /**
+     * @param cached the entry of either cache tier, null if none; the ID filter is only asked without one
+     */
+    Lookup lookup(String id, AddressCache.Entry cached) {
+        if (cached != null && this.cache.isFresh(cached)) {
+            this.cache.hit();
+            return new Lookup(Optional.of(cached.address()), cached, false);
+        }
+        if (cached == null && !mightExist(id)) {
+            return new Lookup(Optional.empty(), null, false);
+        }
+        return new Lookup(Optional.empty(), cached, true);
+    }
 
+    /**
+     * Decodes and caches the content of an address object read by a (conditional) GET.
+     */
+    Optional<Address> loaded(String id, byte[] content, String eTag) {
+        try {
+            var address = AddressCodec.decode(content);
+            this.cache.miss();
+            this.cache.put(id, address, eTag);
             logger.log(Logger.Level.DEBUG, "Found address with id: {0}", id);
             return Optional.of(address);
-        } catch (NoSuchKeyException e) {
+        } catch (IllegalArgumentException e) {
+            logger.log(Logger.Level.ERROR, "Failed to read address with id: {0} Reason: {1}", id, e);
+            throw new AddressException("Failed to retrieve address: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Handles a failed GET: a missing object is not found, a 304 revalidates the cached copy.
+     */
+    Optional<Address> notLoaded(String id, AddressCache.Entry cached, S3Exception e) {
+        if (e instanceof NoSuchKeyException) {
+            this.cache.invalidate(id);
             logger.log(Logger.Level.DEBUG, "Address not found with id: {0}", id);
             return Optional.empty();
+        }
+        if (cached != null && e.statusCode() == NOT_MODIFIED) {
+            this.cache.revalidated(id, cached);
+            logger.log(Logger.Level.DEBUG, "Revalidated cached address with id: {0}", id);
+            return Optional.of(cached.address());
+        }
+        logger.log(Logger.Level.ERROR, "Failed to find address with id: {0} Reason: {1}", id, e);
+        throw new AddressException("Failed to retrieve address: " + e.getMessage(), e);
+    }
+
+    /**
+     * For {@link AsyncAddressStorage}: its client proxy forwards method calls, not field reads.
+     */
+    AddressCache cache() {
+        return this.cache;
+    }
+
+    StorageLayout layout() {
+        return this.layout;
+    }
+
+    /**
+     * Asks the ID filter, may reload a filter shard from S3.
+     */
+    boolean mightExist(String id) {
+        if (this.idFilter.mightContain(id)) {
+            return true;
+        }
+        logger.log(Logger.Level.DEBUG, "Address id filter rejected id: {0}", id);
+        return false;
+    }
+
+    /**
+     * A GET of the address object, conditional if a cached copy is revalidated.
+     */
+    GetObjectRequest getRequest(String id, AddressCache.Entry cached, StorageFormat format) {
+        var getObjectRequest = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key(id, format));
+        if (cached != null) {
+            getObjectRequest.ifNoneMatch(cached.eTag());
+        }
+        return getObjectRequest.build();
+    }
+
+    /**
+     * Reads the current version of an address with a Range GET, a cached copy
+     * of the same version is revalidated without reading the record.
+     */
+    Optional<Address> findInSegments(String id, AddressCache.Entry cached) {
+        try {
+            var location = this.segments.locate(id);
+            if (cached != null && location.isPresent() && cached.eTag().equals(location.get().version())) {
+                this.cache.revalidated(id, cached);
+                return Optional.of(cached.address());
+            }
+            var content = location.flatMap(this.segments::read);
+            if (location.isPresent() && content.isEmpty()) {
+                location = this.segments.locate(id);
+                content = location.flatMap(this.segments::read);
+            }
+            if (content.isEmpty()) {
+                this.cache.invalidate(id);
+                logger.log(Logger.Level.DEBUG, "Address not found with id: {0}", id);
+                return Optional.empty();
+            }
+            var version = location.get().version();
+            var address = AddressCodec.decode(content.get());
+            this.cache.miss();
+            this.cache.put(id, address, version);
+            return Optional.of(address);
         } catch (S3Exception e) {
             logger.log(Logger.Level.ERROR, "Failed to find address with id: {0} Reason: {1}", id, e);
             throw new AddressException("Failed to retrieve address: " + e.getMessage(), e);
@@ -102,35 +452,231 @@ public class AddressStorage {
     }
 
     /**
-     * Retrieves all address records from S3.
-     * 
-     * @return list of all addresses
+     * Finds multiple addresses concurrently.
+     *
+     * Duplicate IDs are fetched once.
+     *
+     * @param ids the address identifiers
+     * @return found addresses and missing IDs, both in request order
+     * @throws AddressException if a retrieval operation fails
+     */
+    public BatchGetResult findByIds(List<String> ids) {
+        var distinctIds = List.copyOf(new LinkedHashSet<>(ids));
+        var results = ParallelFetcher.fetchAll(distinctIds, this::findById, fetchConcurrency);
+        var addresses = new ArrayList<Address>();
+        var missing = new ArrayList<String>();
+        for (int i = 0; i < distinctIds.size(); i++) {
+            var id = distinctIds.get(i);
+            results.get(i).ifPresentOrElse(addresses::add, () -> missing.add(id));
+        }
+        logger.log(Logger.Level.DEBUG, "Batch get found {0}, missing {1}", addresses.size(), missing.size());
+        return new BatchGetResult(addresses, missing);
+    }
+
+    /**
+     * Retrieves a single page of address records from S3.
+     *
+     * Uses the last address ID of the previous page as StartAfter marker,
+     * so the cursor is stateless and never expires.
+     *
+     * @param limit maximum number of addresses (1..1000, S3 listing page size)
+     * @param nextToken the last address ID of the previous page, or null for the first page
+     * @return the addresses of the page with the cursor for the next one
      * @throws AddressException if list operation fails
      */
-    public List<Address> findAll() {
+    public PaginationResult findPage(int limit, String nextToken) {
+        var page = findIds(limit, nextToken);
         try {
-            var listObjectsRequest = ListObjectsV2Request.builder()
-                    .bucket(bucketName)
-                    .build();
-
-            var response = S3Access.CLIENT.listObjectsV2(listObjectsRequest);
-
-            var addresses = response.contents()
+            var addresses = ParallelFetcher.fetchAll(page.ids(), this::findById, fetchConcurrency)
                     .stream()
-                    .map(S3Object::key)
-                    .map(this::findById)
-                    .filter(Optional::isPresent)
-                    .map(Optional::get)
+                    .flatMap(Optional::stream)
                     .toList();
-
-            logger.log(Logger.Level.DEBUG, "Retrieved {0} addresses", addresses.size());
-            return addresses;
+            logger.log(Logger.Level.DEBUG, "Retrieved page with {0} addresses, more: {1}", addresses.size(), page.hasMore());
+            return new PaginationResult(addresses, page.nextToken(), page.hasMore());
         } catch (S3Exception e) {
             logger.log(Logger.Level.ERROR, "Failed to list addresses {0}", e);
             throw new AddressException("Failed to retrieve addresses: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Lists one page of address IDs without loading the addresses.
+     *
+     * @throws AddressException if list operation fails
+     */
+    IdPage findIds(int limit, String nextToken) {
+        try {
+            return this.layout == StorageLayout.segment
+                    ? this.segments.page(limit, nextToken)
+                    : listIds(limit, nextToken);
+        } catch (S3Exception e) {
+            logger.log(Logger.Level.ERROR, "Failed to list address ids {0}", e);
+            throw new AddressException("Failed to list address ids: " + e.getMessage(), e);
+        }
+    }
+
+    IdPage listIds(int limit, String nextToken) {
+        return idPage(S3Access.CLIENT.listObjectsV2(listRequest(limit, nextToken)));
+    }
+
+    ListObjectsV2Request listRequest(int limit, String nextToken) {
+        var listObjectsRequest = ListObjectsV2Request.builder()
+                .bucket(bucketName)
+                .delimiter(DELIMITER)
+                .maxKeys(limit);
+        if (nextToken != null && !nextToken.isBlank()) {
+            listObjectsRequest.startAfter(startAfter(nextToken));
+        }
+        return listObjectsRequest.build();
+    }
+
+    /**
+     * A cursor ending with the delimiter is a rolled up prefix: the marker sorts after
+     * every key below it, otherwise the same prefix would be listed again.
+     */
+    String startAfter(String nextToken) {
+        if (nextToken.endsWith(DELIMITER))
+            return nextToken + Character.toString(Character.MAX_CODE_POINT);
+        return lastKey(nextToken);
+    }
+
+    /**
+     * With a delimiter, common prefixes count towards maxKeys: a page may end with
+     * a prefix instead of a key, or contain only prefixes.
+     */
+    static IdPage idPage(ListObjectsV2Response response) {
+        var keys = response.contents()
+                .stream()
+                .map(S3Object::key)
+                .toList();
+        var ids = keys.stream()
+                .filter(AddressStorage::isRecordKey)
+                .map(AddressStorage::id)
+                .distinct()
+                .toList();
+        var prefixes = response.commonPrefixes()
+                .stream()
+                .map(CommonPrefix::prefix)
+                .toList();
+        var lastKey = keys.isEmpty() ? null : keys.getLast();
+        var lastPrefix = prefixes.isEmpty() ? null : prefixes.getLast();
+        var last = lastPrefix == null || (lastKey != null && lastKey.compareTo(lastPrefix) > 0)
+                ? lastKey
+                : lastPrefix;
+        var hasMore = Boolean.TRUE.equals(response.isTruncated());
+        return new IdPage(ids, last == null ? null : id(last), hasMore);
+    }
+
+    /**
+     * Rebuilds the address ID filter from the listing of the bucket, one time budget per call.
+     *
+     * @param nextToken the token of the previous call, or null to start
+     * @return the progress of the rebuild with the token for the next call
+     * @throws AddressException if the rebuild fails
+     */
+    public JsonObject rebuildIdFilter(String nextToken) {
+        try {
+            return this.idFilter.rebuild(nextToken, token -> findIds(MAX_PAGE_SIZE, token));
+        } catch (S3Exception e) {
+            logger.log(Logger.Level.ERROR, "Failed to rebuild address id filter {0}", e);
+            throw new AddressException("Failed to rebuild address id filter: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Walks all stored addresses page by page, keeping one page in memory.
+     *
+     * @param consumer receives each address
+     * @throws AddressException if list or retrieval operation fails
+     */
+    public void forEachAddress(Consumer<Address> consumer) {
+        String nextToken = null;
+        do {
+            var page = findPage(MAX_PAGE_SIZE, nextToken);
+            page.addresses().forEach(consumer);
+            nextToken = page.nextToken();
+        } while (nextToken != null);
+    }
+
+    /**
+     * Passes every stored address to the consumer, in no particular order.
+     *
+     * With snapshots enabled, reads the latest snapshot with a few large GETs and
+     * re-fetches only the addresses changed since; otherwise walks all addresses.
+     *
+     * @param consumer receives each address
+     * @throws AddressException if a read operation fails
+     */
+    public void scan(Consumer<Address> consumer) {
+        if (!this.snapshots.enabled()) {
+            forEachAddress(consumer);
+            return;
+        }
+        scan(consumer, this.snapshots.changes().keySet());
+    }
+
+    void scan(Consumer<Address> consumer, Set<String> changedIds) {
+        var latest = this.snapshots.latest();
+        if (latest.isEmpty()) {
+            forEachAddress(consumer);
+            return;
+        }
+        this.snapshots.read(latest.get(), address -> {
+            if (!changedIds.contains(address.id())) {
+                consumer.accept(address);
+            }
+        });
+        var changed = List.copyOf(changedIds);
+        for (int from = 0; from < changed.size(); from += MAX_PAGE_SIZE) {
+            var batch = changed.subList(from, Math.min(changed.size(), from + MAX_PAGE_SIZE));
+            findByIds(batch).addresses().forEach(consumer);
+        }
+        logger.log(Logger.Level.DEBUG, "Scanned snapshot with {0} changed addresses", changed.size());
+    }
+
+    /**
+     * Writes a new snapshot from the previous one plus the changes since,
+     * or from all addresses if there is no snapshot yet, one time budget per call.
+     *
+     * @param nextToken the token of the previous call, or null to start
+     * @return the progress, with the manifest of the new snapshot after the last call
+     * @throws AddressException if snapshots are disabled or a read or write fails
+     */
+    public JsonObject takeSnapshot(String nextToken) {
+        if (!this.snapshots.enabled()) {
+            throw new AddressException("Snapshots are disabled", Response.Status.BAD_REQUEST);
+        }
+        return this.snapshots.take(nextToken,
+                cursor -> findPage(MAX_PAGE_SIZE, cursor),
+                ids -> findByIds(ids).addresses());
+    }
+
+    /**
+     * Rebuilds the autocomplete snapshot from all stored addresses, one time budget per call.
+     *
+     * @param nextToken the token of the previous call, or null to start
+     * @return the progress of the rebuild with the token for the next call
+     * @throws AddressException if a read or write fails
+     */
+    public JsonObject rebuildAutocomplete(String nextToken) {
+        return this.autocomplete.rebuild(nextToken, cursor -> findPage(MAX_PAGE_SIZE, cursor));
+    }
+
+    /**
+     * Retrieves all address records.
+     *
+     * Loads the whole address set into memory, prefer {@link #findPage(int, String)} for large buckets.
+     *
+     * @return list of all addresses
+     * @throws AddressException if a read operation fails
+     */
+    public List<Address> findAll() {
+        var addresses = new ArrayList<Address>();
+        scan(addresses::add);
+        logger.log(Logger.Level.DEBUG, "Retrieved {0} addresses", addresses.size());
+        return addresses;
+    }
+
     /**
      * Updates an existing address record.
      *
@@ -139,24 +685,36 @@ public class AddressStorage {
      * @throws AddressException         if update operation fails
      */
     public Address update(Address address) {
-        var key = key(address);
+        var previous = previous(address.id());
+        var previousIndexKeys = indexKeys(previous);
+        var currentIndexKeys = this.indexes.keys(address);
+        this.indexes.put(difference(currentIndexKeys, previousIndexKeys));
+        this.snapshots.recordChanges(List.of(address.id()));
         try {
-            var json = address.toJSON().toString();
-            var putObjectRequest = PutObjectRequest.builder()
-                    .bucket(bucketName)
-                    .key(key)
-                    .contentType("application/json")
-                    .build();
-
-            S3Access.CLIENT.putObject(putObjectRequest, RequestBody.fromString(json));
+            var eTag = put(address);
+            deletePrevious(address.id());
+            this.cache.put(address.id(), address, eTag);
+            this.indexes.delete(difference(previousIndexKeys, currentIndexKeys));
+            this.autocomplete.replaced(previous, address);
             logger.log(Logger.Level.DEBUG, "Updated address with id: {0}", address.id());
             return address;
         } catch (S3Exception e) {
+            this.cache.invalidate(address.id());
             logger.log(Logger.Level.ERROR, "Failed to update address with id: {0}. Reason: {1}", address.id(), e);
             throw new AddressException("Failed to update address: " + e.getMessage(), e);
         }
     }
 
+    /**
+     * Updates multiple existing address records concurrently.
+     *
+     * @param addresses the addresses with updated information
+     * @return failure messages by address ID, empty if all writes succeeded
+     */
+    public Map<String, String> updateAll(List<Address> addresses) {
+        return writeAll(addresses, this::update, fetchConcurrency);
+    }
+
     /**
      * Removes an address record from S3.
      *
@@ -164,18 +722,206 @@ public class AddressStorage {
      * @throws AddressException         if deletion operation fails
      */
     public void remove(String id) {
-        var key = key(id);
+        var previous = previous(id);
+        this.snapshots.recordChanges(List.of(id));
         try {
-            var deleteObjectRequest = DeleteObjectRequest.builder()
-                    .bucket(bucketName)
-                    .key(key)
-                    .build();
-
-            S3Access.CLIENT.deleteObject(deleteObjectRequest);
+            delete(id);
+            this.cache.invalidate(id);
+            if (previous != null) {
+                this.indexes.delete(indexKeys(previous));
+                this.autocomplete.removed(previous);
+            }
             logger.log(Logger.Level.DEBUG, "Removed address with id: {0}", id);
         } catch (S3Exception e) {
             logger.log(Logger.Level.ERROR, "Failed to remove address with id: {0}. Reason: {1}", id, e);
             throw new AddressException("Failed to remove address: " + e.getMessage(), e);
         }
     }
+
+    /**
+     * Deletes the address in the configured layout.
+     *
+     * @throws S3Exception if the deletion fails
+     */
+    void delete(String id) {
+        if (this.layout == StorageLayout.segment) {
+            this.segments.delete(id);
+            return;
+        }
+        var deleteObjectRequest = DeleteObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key(id))
+                .build();
+        S3Access.CLIENT.deleteObject(deleteObjectRequest);
+        deletePrevious(id);
+    }
+
+    /**
+     * Removes multiple address records with DeleteObjects,
+     * {@value #MAX_DELETE_BATCH_SIZE} keys per call, or with concurrent
+     * deletion records in the segment layout.
+     *
+     * Like {@link #remove(String)}, removing a non-existing address succeeds.
+     *
+     * @param ids the address identifiers to remove
+     * @return failure messages by address ID, empty if all deletions succeeded
+     */
+    public Map<String, String> removeAll(List<String> ids) {
+        var previous = tracksPrevious() ? findByIds(ids).addresses() : List.<Address>of();
+        this.snapshots.recordChanges(ids);
+        var failures = this.layout == StorageLayout.segment ? deleteSegmentRecords(ids) : deleteObjects(ids);
+        var removed = previous.stream()
+                .filter(address -> !failures.containsKey(address.id()))
+                .toList();
+        var staleIndexKeys = removed.stream()
+                .map(this.indexes::keys)
+                .flatMap(List::stream)
+                .toList();
+        this.indexes.delete(staleIndexKeys);
+        removed.forEach(this.autocomplete::removed);
+        return failures;
+    }
+
+    Map<String, String> deleteSegmentRecords(List<String> ids) {
+        ids.forEach(this.cache::invalidate);
+        var outcomes = ParallelFetcher.fetchAll(ids, id -> {
+            try {
+                this.segments.delete(id);
+                return null;
+            } catch (RuntimeException e) {
+                logger.log(Logger.Level.ERROR, "Failed to remove address with id: {0}. Reason: {1}", id, e);
+                return "Failed to remove address: " + e.getMessage();
+            }
+        }, fetchConcurrency);
+        var failures = new LinkedHashMap<String, String>();
+        for (int i = 0; i < ids.size(); i++) {
+            if (outcomes.get(i) != null) {
+                failures.put(ids.get(i), outcomes.get(i));
+            }
+        }
+        return failures;
+    }
+
+    Map<String, String> deleteObjects(List<String> ids) {
+        var failures = new LinkedHashMap<String, String>();
+        var batchSize = MAX_DELETE_BATCH_SIZE / this.readFormats.size();
+        for (int from = 0; from < ids.size(); from += batchSize) {
+            var batch = ids.subList(from, Math.min(ids.size(), from + batchSize));
+            batch.forEach(this.cache::invalidate);
+            var objects = batch.stream()
+                    .flatMap(id -> this.readFormats.stream().map(format -> key(id, format)))
+                    .map(key -> ObjectIdentifier.builder().key(key).build())
+                    .toList();
+            var deleteObjectsRequest = DeleteObjectsRequest.builder()
+                    .bucket(bucketName)
+                    .delete(Delete.builder().objects(objects).quiet(true).build())
+                    .build();
+            try {
+                var response = S3Access.CLIENT.deleteObjects(deleteObjectsRequest);
+                response.errors().forEach(error -> failures.put(id(error.key()), error.message()));
+                logger.log(Logger.Level.DEBUG, "Removed {0} addresses, {1} failed", batch.size(), response.errors().size());
+            } catch (RuntimeException e) {
+                logger.log(Logger.Level.ERROR, "Failed to remove {0} addresses. Reason: {1}", batch.size(), e);
+                batch.forEach(id -> failures.put(id, "Failed to remove address: " + e.getMessage()));
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Indexes and autocomplete need the stored state to undo it on update and removal.
+     */
+    boolean tracksPrevious() {
+        return this.indexes.enabled() || this.autocomplete.enabled();
+    }
+
+    /**
+     * @return the stored address, or null if it does not exist or nothing tracks it
+     */
+    Address previous(String id) {
+        if (!tracksPrevious()) {
+            return null;
+        }
+        return findById(id).orElse(null);
+    }
+
+    List<String> indexKeys(Address address) {
+        if (address == null) {
+            return List.of();
+        }
+        return this.indexes.keys(address);
+    }
+
+    static List<String> difference(List<String> keys, List<String> removed) {
+        return keys.stream()
+                .filter(key -> !removed.contains(key))
+                .toList();
+    }
+
+    /**
+     * Finds addresses by indexed fields page by page.
+     *
+     * Candidates come from the most selective index, every loaded address is
+     * checked against the whole query, so pages may contain less than limit entries.
+     *
+     * @param query the indexed field values, at least one set
+     * @param limit maximum number of index entries to read
+     * @param nextToken the last address ID of the previous page, or null for the first page
+     * @return matching addresses with the cursor for the next page
+     * @throws AddressException if indexes are disabled or the query fails
+     */
+    public PaginationResult findByQuery(AddressQuery query, int limit, String nextToken) {
+        if (!this.indexes.enabled()) {
+            throw new AddressException("Secondary indexes are disabled", Response.Status.BAD_REQUEST);
+        }
+        var page = this.indexes.findIds(query, limit, nextToken);
+        var addresses = ParallelFetcher.fetchAll(page.ids(), this::findById, fetchConcurrency)
+                .stream()
+                .flatMap(Optional::stream)
+                .filter(query::matches)
+                .toList();
+        logger.log(Logger.Level.DEBUG, "Query matched {0} of {1} indexed addresses", addresses.size(), page.ids().size());
+        return new PaginationResult(addresses, page.nextToken(), page.hasMore());
+    }
+
+    /**
+     * Writes index markers for one page of existing addresses,
+     * used to index addresses stored before indexing was enabled.
+     *
+     * @param nextToken the last address ID of the previous page, or null to start
+     * @return the indexed page with the cursor for the next call
+     */
+    public PaginationResult reindex(String nextToken) {
+        var page = findPage(MAX_PAGE_SIZE, nextToken);
+        var keys = page.addresses()
+                .stream()
+                .map(this.indexes::keys)
+                .flatMap(List::stream)
+                .toList();
+        this.indexes.put(keys);
+        logger.log(Logger.Level.INFO, "Indexed {0} addresses", page.addresses().size());
+        return page;
+    }
+
+    /**
+     * Packs pending writes of the segment layout into a new segment.
+     *
+     * @return counters of the compaction run
+     * @throws AddressException if the segment layout is not configured or compaction fails
+     */
+    public JsonObject compactSegments() {
+        if (this.layout != StorageLayout.segment) {
+            throw new AddressException("Segment layout is not configured", Response.Status.BAD_REQUEST);
+        }
+        try {
+            return this.segments.compact();
+        } catch (S3Exception e) {
+            logger.log(Logger.Level.ERROR, "Failed to compact segments {0}", e);
+            throw new AddressException("Failed to compact segments: " + e.getMessage(), e);
+        }
+    }
+
+    public CacheStatistics cacheStatistics() {
+        return this.cache.statistics();
+    }
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package airhacks.qmpd.addresses.control;
 
 import airhacks.qmpd.addresses.entity.Address;
+import airhacks.qmpd.addresses.entity.AddressBatchGetRequest;
+import airhacks.qmpd.addresses.entity.AddressBulkRequest;
 import airhacks.qmpd.addresses.entity.AddressUpdateRequest;
 import airhacks.qmpd.addresses.entity.AddressValidationException;
 import airhacks.qmpd.addresses.entity.AddressValidationException.ValidationError;
@@ -23,6 +25,8 @@ public interface AddressValidator {
     Pattern UK_POSTAL_CODE = Pattern.compile("^[A-Z]{1,2}\\d[A-Z\\d]? \\d[A-Z]{2}$");
     Pattern DE_POSTAL_CODE = Pattern.compile("^\\d{5}$");
     Pattern FR_POSTAL_CODE = Pattern.compile("^\\d{5}$");
+
+    int MAX_BATCH_SIZE = 1000;
     
     /**
      * Validates address data for creation.
@@ -137,6 +141,54 @@ public interface AddressValidator {
         }
     }
     
+    /**
+     * Validates a batch lookup request.
+     *
+     * Requires between 1 and {@link #MAX_BATCH_SIZE} non-blank IDs.
+     *
+     * @param request the batch request to validate
+     * @throws AddressValidationException if validation fails
+     */
+    static void validateForBatchGet(AddressBatchGetRequest request) {
+        if (request == null || request.ids() == null || request.ids().isEmpty()) {
+            throw new AddressValidationException("ids", "At least one id is required");
+        }
+        if (request.ids().size() > MAX_BATCH_SIZE) {
+            throw new AddressValidationException("ids", "At most " + MAX_BATCH_SIZE + " ids are allowed");
+        }
+        if (request.ids().stream().anyMatch(id -> id == null || id.isBlank())) {
+            throw new AddressValidationException("ids", "Ids cannot be empty");
+        }
+    }
+
+    /**
+     * Validates the shape of a bulk request.
+     *
+     * Requires at least one operation and at most {@link #MAX_BATCH_SIZE}
+     * items per operation list. Items are validated individually during processing.
+     *
+     * @param request the bulk request to validate
+     * @throws AddressValidationException if validation fails
+     */
+    static void validateForBulk(AddressBulkRequest request) {
+        if (request == null || request.size() == 0) {
+            throw new AddressValidationException("request", "At least one create, update or delete is required");
+        }
+        var errors = new ArrayList<ValidationError>();
+        if (request.create().size() > MAX_BATCH_SIZE) {
+            errors.add(new ValidationError("create", "At most " + MAX_BATCH_SIZE + " creates are allowed"));
+        }
+        if (request.update().size() > MAX_BATCH_SIZE) {
+            errors.add(new ValidationError("update", "At most " + MAX_BATCH_SIZE + " updates are allowed"));
+        }
+        if (request.delete().size() > MAX_BATCH_SIZE) {
+            errors.add(new ValidationError("delete", "At most " + MAX_BATCH_SIZE + " deletes are allowed"));
+        }
+        if (!errors.isEmpty()) {
+            throw new AddressValidationException(errors);
+        }
+    }
+
     /**
      * Validates postal code format for specific country.
      * 
@@ -0,0 +1,162 @@
+package airhacks.qmpd.addresses.control;
+
+import java.lang.System.Logger;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import airhacks.qmpd.addresses.entity.Address;
+import airhacks.qmpd.addresses.entity.AddressException;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+/**
+ * Non-blocking variant of the {@link AddressStorage} read path on {@link S3AsyncAccess}.
+ *
+ * Single and multi-object reads of the object layout are pipelined on the Netty event loop.
+ * The cache and ID filter checks and the handling of the GET outcome are the ones of
+ * {@link AddressStorage}, only the GET itself is non-blocking. Writes keep the ordering of
+ * ID filter, index, snapshot marker and object of the synchronous implementation and,
+ * like reads of the segment layout, run the blocking code on virtual threads. Only the
+ * memory cache tier is checked on the calling thread, the disk tier and the ID filter,
+ * which may refresh a shard from S3, are consulted on a virtual thread.
+ * The {@link RequestTiming} of the caller is passed on to every stage that issues S3 calls.
+ */
+@ApplicationScoped
+public class AsyncAddressStorage {
+
+    private static final Logger logger = System.getLogger(AsyncAddressStorage.class.getName());
+
+    static final ExecutorService BLOCKING = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Inject
+    AddressStorage storage;
+
+    /**
+     * @return the address, empty if not found; fails with {@link AddressException}
+     */
+    public CompletionStage<Optional<Address>> findById(String id) {
+        var inMemory = this.storage.cache().getFromMemory(id);
+        if (inMemory != null) {
+            return read(id, this.storage.lookup(id, inMemory));
+        }
+        var timing = RequestTiming.current();
+        return blocking(() -> this.storage.lookup(id))
+                .thenCompose(lookup -> RequestTiming.within(timing, () -> read(id, lookup)));
+    }
+
+    /**
+     * Completes a lookup of {@link AddressStorage}, reading the object if it has to be read.
+     */
+    CompletionStage<Optional<Address>> read(String id, AddressStorage.Lookup lookup) {
+        if (!lookup.read()) {
+            return CompletableFuture.completedFuture(lookup.result());
+        }
+        if (this.storage.layout() == StorageLayout.segment) {
+            return blocking(() -> this.storage.findInSegments(id, lookup.cached()));
+        }
+        return fetch(id, lookup.cached());
+    }
+
+    /**
+     * Reads the address object, revalidating the cached copy with a conditional GET.
+     * Decoding and the cache updates are shared with {@link AddressStorage#findById(String)},
+     * a missing object is looked up in the other formats like there.
+     */
+    CompletionStage<Optional<Address>> fetch(String id, AddressCache.Entry cached) {
+        return fetch(id, cached, this.storage.readFormats(), 0, RequestTiming.current());
+    }
+
+    CompletionStage<Optional<Address>> fetch(String id, AddressCache.Entry cached, List<StorageFormat> formats, int index,
+            RequestTiming timing) {
+        var request = this.storage.getRequest(id, cached, formats.get(index));
+        return S3AsyncAccess.CLIENT.getObject(request, AsyncResponseTransformer.toBytes())
+                .handle((response, failure) -> {
+                    if (failure == null) {
+                        return CompletableFuture.completedFuture(
+                                this.storage.loaded(id, response.asByteArrayUnsafe(), response.response().eTag()));
+                    }
+                    var cause = failure instanceof CompletionException ? failure.getCause() : failure;
+                    if (cause instanceof NoSuchKeyException && index + 1 < formats.size()) {
+                        return RequestTiming.within(timing, () -> fetch(id, cached, formats, index + 1, timing));
+                    }
+                    if (cause instanceof S3Exception e) {
+                        return CompletableFuture.completedFuture(this.storage.notLoaded(id, cached, e));
+                    }
+                    logger.log(Logger.Level.ERROR, "Failed to find address with id: {0} Reason: {1}", id, cause);
+                    throw new AddressException("Failed to retrieve address: " + cause.getMessage(), cause);
+                })
+                .thenCompose(Function.identity());
+    }
+
+    /**
+     * Issues all GETs at once, the connection pool bounds the requests in flight.
+     * Duplicate IDs are fetched once.
+     */
+    public CompletionStage<BatchGetResult> findByIds(List<String> ids) {
+        var distinctIds = List.copyOf(new LinkedHashSet<>(ids));
+        var lookups = distinctIds.stream()
+                .map(id -> findById(id).toCompletableFuture())
+                .toList();
+        return CompletableFuture.allOf(lookups.toArray(CompletableFuture[]::new))
+                .thenApply(done -> {
+                    var addresses = new ArrayList<Address>();
+                    var missing = new ArrayList<String>();
+                    for (int i = 0; i < distinctIds.size(); i++) {
+                        var id = distinctIds.get(i);
+                        lookups.get(i).join().ifPresentOrElse(addresses::add, () -> missing.add(id));
+                    }
+                    return new BatchGetResult(addresses, missing);
+                });
+    }
+
+    /**
+     * Lists a page and fetches its addresses without blocking, see {@link AddressStorage#findPage(int, String)}.
+     */
+    public CompletionStage<PaginationResult> findPage(int limit, String nextToken) {
+        if (this.storage.layout() == StorageLayout.segment) {
+            return blocking(() -> this.storage.findPage(limit, nextToken));
+        }
+        var timing = RequestTiming.current();
+        return S3AsyncAccess.CLIENT.listObjectsV2(this.storage.listRequest(limit, nextToken))
+                .exceptionally(failure -> {
+                    var cause = failure instanceof CompletionException ? failure.getCause() : failure;
+                    logger.log(Logger.Level.ERROR, "Failed to list addresses {0}", cause);
+                    throw new AddressException("Failed to retrieve addresses: " + cause.getMessage(), cause);
+                })
+                .thenApply(AddressStorage::idPage)
+                .thenCompose(page -> RequestTiming.within(timing, () -> findByIds(page.ids()))
+                        .thenApply(result -> new PaginationResult(result.addresses(), page.nextToken(), page.hasMore())));
+    }
+
+    public CompletionStage<Address> store(Address address) {
+        return blocking(() -> this.storage.store(address));
+    }
+
+    public CompletionStage<Address> update(Address address) {
+        return blocking(() -> this.storage.update(address));
+    }
+
+    public CompletionStage<Void> remove(String id) {
+        return blocking(() -> {
+            this.storage.remove(id);
+            return null;
+        });
+    }
+
+    static <T> CompletionStage<T> blocking(Supplier<T> call) {
+        var timing = RequestTiming.current();
+        return CompletableFuture.supplyAsync(() -> RequestTiming.within(timing, call), BLOCKING);
+    }
+}
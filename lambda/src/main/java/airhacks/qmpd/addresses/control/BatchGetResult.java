@@ -0,0 +1,29 @@
+package airhacks.qmpd.addresses.control;
+
+import airhacks.qmpd.addresses.entity.Address;
+import airhacks.qmpd.addresses.entity.JSONWritable;
+import jakarta.json.stream.JsonGenerator;
+
+import java.util.List;
+
+/**
+ * Result of a batch lookup: the found addresses and the IDs without a record,
+ * both in request order.
+ */
+public record BatchGetResult(
+    List<Address> addresses,
+    List<String> missing
+) implements JSONWritable {
+
+    @Override
+    public void writeJSON(JsonGenerator generator) {
+        generator.writeStartObject();
+        generator.writeStartArray("addresses");
+        addresses.forEach(address -> address.writeJSON(generator));
+        generator.writeEnd();
+        generator.writeStartArray("missing");
+        missing.forEach(generator::write);
+        generator.writeEnd();
+        generator.writeEnd();
+    }
+}
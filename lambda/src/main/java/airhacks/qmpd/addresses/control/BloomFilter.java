@@ -0,0 +1,138 @@
+package airhacks.qmpd.addresses.control;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Bloom filter over strings with a compact binary representation.
+ *
+ * Sized from the expected number of insertions and the accepted false-positive rate,
+ * uses double hashing over a 64-bit FNV-1a hash finalized with the MurmurHash3 mixer.
+ * Not thread-safe.
+ */
+class BloomFilter {
+
+    static final int FORMAT_VERSION = 1;
+
+    final long[] bits;
+    final int numberOfBits;
+    final int numberOfHashes;
+
+    BloomFilter(int numberOfBits, int numberOfHashes) {
+        this(new long[(numberOfBits + 63) / 64], numberOfBits, numberOfHashes);
+    }
+
+    BloomFilter(long[] bits, int numberOfBits, int numberOfHashes) {
+        this.bits = bits;
+        this.numberOfBits = numberOfBits;
+        this.numberOfHashes = numberOfHashes;
+    }
+
+    static BloomFilter create(long expectedInsertions, double falsePositiveRate) {
+        var insertions = Math.max(1, expectedInsertions);
+        var optimalBits = -insertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        var numberOfBits = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, Math.ceil(optimalBits)));
+        var numberOfHashes = (int) Math.max(1, Math.round((double) numberOfBits / insertions * Math.log(2)));
+        return new BloomFilter(numberOfBits, numberOfHashes);
+    }
+
+    static long hash(String value) {
+        var hash = 0xcbf29ce484222325L;
+        for (var b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= (b & 0xff);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    void add(String value) {
+        var first = hash(value);
+        var second = mix(first + 0x9e3779b97f4a7c15L);
+        for (int i = 0; i < this.numberOfHashes; i++) {
+            var index = Math.floorMod(first + i * second, this.numberOfBits);
+            this.bits[index >>> 6] |= 1L << index;
+        }
+    }
+
+    /**
+     * @return false if the value was definitely never added, true if it possibly was
+     */
+    boolean mightContain(String value) {
+        var first = hash(value);
+        var second = mix(first + 0x9e3779b97f4a7c15L);
+        for (int i = 0; i < this.numberOfHashes; i++) {
+            var index = Math.floorMod(first + i * second, this.numberOfBits);
+            if ((this.bits[index >>> 6] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    BloomFilter copy() {
+        return new BloomFilter(this.bits.clone(), this.numberOfBits, this.numberOfHashes);
+    }
+
+    boolean sameDimensions(BloomFilter other) {
+        return other.numberOfBits == this.numberOfBits && other.numberOfHashes == this.numberOfHashes;
+    }
+
+    /**
+     * Adds all values of a filter with the same dimensions.
+     */
+    void merge(BloomFilter other) {
+        if (!sameDimensions(other)) {
+            throw new IllegalArgumentException("Cannot merge filters with different dimensions");
+        }
+        for (int i = 0; i < this.bits.length; i++) {
+            this.bits[i] |= other.bits[i];
+        }
+    }
+
+    byte[] toBytes() {
+        var bytes = new ByteArrayOutputStream(12 + this.bits.length * 8);
+        try (var output = new DataOutputStream(bytes)) {
+            output.writeInt(FORMAT_VERSION);
+            output.writeInt(this.numberOfBits);
+            output.writeInt(this.numberOfHashes);
+            for (var word : this.bits) {
+                output.writeLong(word);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static BloomFilter fromBytes(byte[] content) {
+        try (var input = new DataInputStream(new ByteArrayInputStream(content))) {
+            var version = input.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported bloom filter version: " + version);
+            }
+            var numberOfBits = input.readInt();
+            var numberOfHashes = input.readInt();
+            var bits = new long[(numberOfBits + 63) / 64];
+            for (int i = 0; i < bits.length; i++) {
+                bits[i] = input.readLong();
+            }
+            return new BloomFilter(bits, numberOfBits, numberOfHashes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
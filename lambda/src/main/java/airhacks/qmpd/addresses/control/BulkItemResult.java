@@ -0,0 +1,45 @@
+package airhacks.qmpd.addresses.control;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+
+/**
+ * Outcome of a single item within a bulk request.
+ *
+ * The index refers to the position within the create, update or delete list,
+ * the status mirrors the HTTP status of the equivalent single-item call.
+ */
+public record BulkItemResult(
+    String operation,
+    int index,
+    String id,
+    int status,
+    String message
+) {
+
+    public static BulkItemResult success(String operation, int index, String id, int status) {
+        return new BulkItemResult(operation, index, id, status, null);
+    }
+
+    public static BulkItemResult failure(String operation, int index, String id, int status, String message) {
+        return new BulkItemResult(operation, index, id, status, message);
+    }
+
+    public boolean succeeded() {
+        return status < 300;
+    }
+
+    public JsonObject toJSON() {
+        var builder = Json.createObjectBuilder()
+            .add("operation", operation)
+            .add("index", index)
+            .add("status", status);
+        if (id != null) {
+            builder.add("id", id);
+        }
+        if (message != null) {
+            builder.add("message", message);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,226 @@
+package airhacks.qmpd.addresses.control;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.lang.System.Logger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import airhacks.qmpd.addresses.entity.Address;
+import airhacks.qmpd.addresses.entity.AddressBulkRequest;
+import airhacks.qmpd.addresses.entity.AddressUpdateRequest;
+import airhacks.qmpd.addresses.entity.AddressValidationException;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.json.Json;
+import jakarta.json.JsonException;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+
+/**
+ * Processes bulk create, update and delete requests.
+ *
+ * All items are validated in a single pass first, only valid items are written.
+ * Writes run concurrently through {@link AddressStorage}, deletes are sent as
+ * DeleteObjects batches. Failures are reported per item and never abort the batch.
+ * Requests arrive as one JSON document or as NDJSON with one operation per line.
+ */
+@ApplicationScoped
+public class BulkOperations {
+
+    private static final Logger logger = System.getLogger(BulkOperations.class.getName());
+
+    static final String CREATE = "create";
+    static final String UPDATE = "update";
+    static final String DELETE = "delete";
+
+    @Inject
+    AddressStorage storage;
+
+    public BulkResult apply(AddressBulkRequest request) {
+        var results = new ArrayList<BulkItemResult>(request.size());
+        results.addAll(create(request.create()));
+        results.addAll(update(request.update()));
+        results.addAll(delete(request.delete()));
+        var result = new BulkResult(results);
+        logger.log(Logger.Level.INFO, "Bulk request processed, succeeded: {0}, failed: {1}", result.succeeded(), result.failed());
+        return result;
+    }
+
+    /**
+     * Reads a bulk request from NDJSON lines, each holding one operation:
+     * <code>{"create":{...}}</code>, <code>{"update":{"id":...}}</code> or <code>{"delete":"id"}</code>.
+     * Lines are read with {@link ImportRecords}, items keep the per-item validation of
+     * {@link AddressBulkRequest#fromJSON(JsonObject)}.
+     *
+     * @throws AddressValidationException naming the line that is not a single known operation
+     */
+    public static AddressBulkRequest fromNDJSON(InputStream input) {
+        var create = new ArrayList<JsonObject>();
+        var update = new ArrayList<JsonObject>();
+        var delete = new ArrayList<String>();
+        var records = new ImportRecords(input, ImportFormat.ndjson, 0);
+        try {
+            ImportRecords.Record record;
+            while ((record = records.next()) != null) {
+                var field = "line " + record.line();
+                if (record.error() != null) {
+                    throw new AddressValidationException(field, record.error());
+                }
+                var operation = operation(field, record.text());
+                var name = operation.keySet().iterator().next();
+                var value = operation.get(name);
+                switch (name) {
+                    case CREATE -> create.add(value instanceof JsonObject object ? object : JsonValue.EMPTY_JSON_OBJECT);
+                    case UPDATE -> update.add(value instanceof JsonObject object ? object : JsonValue.EMPTY_JSON_OBJECT);
+                    case DELETE -> delete.add(value instanceof JsonString string ? string.getString() : value.toString());
+                    default -> throw new AddressValidationException(field, "Unknown operation " + name + ", expected create, update or delete");
+                }
+            }
+        } catch (IOException e) {
+            throw new AddressValidationException("body", "Failed to read bulk request: " + e.getMessage());
+        }
+        return new AddressBulkRequest(create, update, delete);
+    }
+
+    static JsonObject operation(String field, String line) {
+        JsonObject operation;
+        try (var reader = Json.createReader(new StringReader(line))) {
+            operation = reader.readObject();
+        } catch (JsonException e) {
+            throw new AddressValidationException(field, "Malformed JSON: " + e.getMessage());
+        }
+        if (operation.size() != 1) {
+            throw new AddressValidationException(field, "Expected exactly one of create, update or delete");
+        }
+        return operation;
+    }
+
+    List<BulkItemResult> create(List<JsonObject> items) {
+        var results = new BulkItemResult[items.size()];
+        var valid = new ArrayList<Address>();
+        var positions = new ArrayList<Integer>();
+        for (int i = 0; i < items.size(); i++) {
+            try {
+                var address = Address.fromCreateRequest(items.get(i));
+                AddressValidator.validateForCreation(address);
+                valid.add(address);
+                positions.add(i);
+            } catch (AddressValidationException e) {
+                results[i] = BulkItemResult.failure(CREATE, i, null, 400, e.getMessage());
+            } catch (ClassCastException | JsonException e) {
+                results[i] = BulkItemResult.failure(CREATE, i, null, 400, "Malformed address: " + e.getMessage());
+            }
+        }
+        var failures = storage.storeAll(valid);
+        for (int j = 0; j < valid.size(); j++) {
+            var index = positions.get(j);
+            var id = valid.get(j).id();
+            var failure = failures.get(id);
+            results[index] = failure == null
+                    ? BulkItemResult.success(CREATE, index, id, 201)
+                    : BulkItemResult.failure(CREATE, index, id, 500, failure);
+        }
+        return Arrays.asList(results);
+    }
+
+    record PendingUpdate(int index, String id, AddressUpdateRequest request) {}
+
+    List<BulkItemResult> update(List<JsonObject> items) {
+        var results = new BulkItemResult[items.size()];
+        var pending = new ArrayList<PendingUpdate>();
+        var seenIds = new HashSet<String>();
+        for (int i = 0; i < items.size(); i++) {
+            var item = items.get(i);
+            try {
+                var id = item.containsKey("id") ? item.getString("id") : null;
+                if (id == null || id.isBlank()) {
+                    results[i] = BulkItemResult.failure(UPDATE, i, null, 400, "id is required");
+                    continue;
+                }
+                if (!seenIds.add(id)) {
+                    results[i] = BulkItemResult.failure(UPDATE, i, id, 409, "Duplicate id within bulk request");
+                    continue;
+                }
+                var request = AddressUpdateRequest.fromJSON(item);
+                AddressValidator.validateForUpdate(request);
+                pending.add(new PendingUpdate(i, id, request));
+            } catch (AddressValidationException e) {
+                results[i] = BulkItemResult.failure(UPDATE, i, null, 400, e.getMessage());
+            } catch (ClassCastException | JsonException e) {
+                results[i] = BulkItemResult.failure(UPDATE, i, null, 400, "Malformed update: " + e.getMessage());
+            }
+        }
+        var ids = pending.stream().map(PendingUpdate::id).toList();
+        Map<String, Address> existing;
+        try {
+            existing = storage.findByIds(ids)
+                    .addresses()
+                    .stream()
+                    .collect(Collectors.toMap(Address::id, address -> address));
+        } catch (RuntimeException e) {
+            logger.log(Logger.Level.ERROR, "Failed to read addresses to update: {0}", e);
+            for (var update : pending) {
+                results[update.index()] = BulkItemResult.failure(UPDATE, update.index(), update.id(), 500,
+                        "Failed to retrieve address: " + e.getMessage());
+            }
+            return Arrays.asList(results);
+        }
+        var updated = new ArrayList<Address>();
+        var positions = new ArrayList<Integer>();
+        for (var update : pending) {
+            var address = existing.get(update.id());
+            if (address == null) {
+                results[update.index()] = BulkItemResult.failure(UPDATE, update.index(), update.id(), 404,
+                        "Address not found with id: " + update.id());
+                continue;
+            }
+            updated.add(address.update(update.request()));
+            positions.add(update.index());
+        }
+        var failures = storage.updateAll(updated);
+        for (int j = 0; j < updated.size(); j++) {
+            var index = positions.get(j);
+            var id = updated.get(j).id();
+            var failure = failures.get(id);
+            results[index] = failure == null
+                    ? BulkItemResult.success(UPDATE, index, id, 200)
+                    : BulkItemResult.failure(UPDATE, index, id, 500, failure);
+        }
+        return Arrays.asList(results);
+    }
+
+    List<BulkItemResult> delete(List<String> ids) {
+        var results = new ArrayList<BulkItemResult>(ids.size());
+        var valid = ids.stream()
+                .filter(id -> id != null && !id.isBlank())
+                .distinct()
+                .toList();
+        Map<String, String> failures;
+        try {
+            failures = storage.removeAll(valid);
+        } catch (RuntimeException e) {
+            logger.log(Logger.Level.ERROR, "Failed to remove addresses: {0}", e);
+            failures = valid.stream()
+                    .collect(Collectors.toMap(id -> id, id -> "Failed to remove address: " + e.getMessage()));
+        }
+        for (int i = 0; i < ids.size(); i++) {
+            var id = ids.get(i);
+            if (id == null || id.isBlank()) {
+                results.add(BulkItemResult.failure(DELETE, i, null, 400, "id is required"));
+                continue;
+            }
+            var failure = failures.get(id);
+            results.add(failure == null
+                    ? BulkItemResult.success(DELETE, i, id, 204)
+                    : BulkItemResult.failure(DELETE, i, id, 500, failure));
+        }
+        return results;
+    }
+}
@@ -0,0 +1,32 @@
+package airhacks.qmpd.addresses.control;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+
+import java.util.List;
+
+/**
+ * Per-item outcomes of a bulk request with success and failure counts.
+ */
+public record BulkResult(List<BulkItemResult> results) {
+
+    public long succeeded() {
+        return results.stream().filter(BulkItemResult::succeeded).count();
+    }
+
+    public long failed() {
+        return results.size() - succeeded();
+    }
+
+    public JsonObject toJSON() {
+        var resultsBuilder = Json.createArrayBuilder();
+        results.stream()
+            .map(BulkItemResult::toJSON)
+            .forEach(resultsBuilder::add);
+        return Json.createObjectBuilder()
+            .add("succeeded", succeeded())
+            .add("failed", failed())
+            .add("results", resultsBuilder)
+            .build();
+    }
+}
@@ -0,0 +1,38 @@
+package airhacks.qmpd.addresses.control;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+
+/**
+ * Counters of the in-memory address cache since the Lambda instance was initialized.
+ *
+ * Hits are served without S3 access, revalidations are confirmed with a 304 Not Modified
+ * without download, misses require a full S3 GET. Disk hits count in-memory misses
+ * answered by the ephemeral storage tier.
+ */
+public record CacheStatistics(
+    int size,
+    int maxEntries,
+    long hits,
+    long revalidations,
+    long misses,
+    long evictions,
+    int diskEntries,
+    long diskBytes,
+    long diskHits
+) {
+
+    public JsonObject toJSON() {
+        return Json.createObjectBuilder()
+            .add("size", size)
+            .add("maxEntries", maxEntries)
+            .add("hits", hits)
+            .add("revalidations", revalidations)
+            .add("misses", misses)
+            .add("evictions", evictions)
+            .add("diskEntries", diskEntries)
+            .add("diskBytes", diskBytes)
+            .add("diskHits", diskHits)
+            .build();
+    }
+}
@@ -0,0 +1,178 @@
+package airhacks.qmpd.addresses.control;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import airhacks.qmpd.addresses.entity.Address;
+
+/**
+ * Column-oriented binary encoding of a snapshot part.
+ *
+ * Each field is written as one column: IDs, streets and postal codes as length-prefixed
+ * UTF-8, country, state and city as a dictionary followed by one code per row, timestamps
+ * as epoch nanoseconds (UTC) to keep the full precision of the address. Parts of version 1
+ * stored epoch milliseconds and are still read. Low-cardinality columns shrink to a few bytes per row and
+ * decoding reuses the dictionary strings instead of allocating one per address.
+ */
+final class ColumnarSnapshot {
+
+    static final int MAGIC = 0x514d5053;
+    static final int VERSION = 2;
+    static final int MILLIS_VERSION = 1;
+    static final int NULL = -1;
+
+    private ColumnarSnapshot() {
+    }
+
+    static void write(List<Address> addresses, DataOutputStream output) throws IOException {
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeInt(addresses.size());
+        writeStrings(addresses, Address::id, output);
+        writeStrings(addresses, Address::street, output);
+        writeDictionary(addresses, Address::city, output);
+        writeDictionary(addresses, Address::state, output);
+        writeStrings(addresses, Address::postalCode, output);
+        writeDictionary(addresses, Address::country, output);
+        writeTimestamps(addresses, Address::createdAt, output);
+        writeTimestamps(addresses, Address::updatedAt, output);
+    }
+
+    static void writeStrings(List<Address> addresses, Function<Address, String> column, DataOutputStream output)
+            throws IOException {
+        for (var address : addresses) {
+            writeString(column.apply(address), output);
+        }
+    }
+
+    static void writeString(String value, DataOutputStream output) throws IOException {
+        if (value == null) {
+            output.writeInt(NULL);
+            return;
+        }
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    static void writeDictionary(List<Address> addresses, Function<Address, String> column, DataOutputStream output)
+            throws IOException {
+        var codes = new HashMap<String, Integer>();
+        var dictionary = new ArrayList<String>();
+        var rows = new int[addresses.size()];
+        for (int i = 0; i < rows.length; i++) {
+            var value = column.apply(addresses.get(i));
+            if (value == null) {
+                rows[i] = NULL;
+                continue;
+            }
+            rows[i] = codes.computeIfAbsent(value, key -> {
+                dictionary.add(key);
+                return dictionary.size() - 1;
+            });
+        }
+        output.writeInt(dictionary.size());
+        for (var value : dictionary) {
+            writeString(value, output);
+        }
+        for (var code : rows) {
+            output.writeInt(code);
+        }
+    }
+
+    static void writeTimestamps(List<Address> addresses, Function<Address, LocalDateTime> column,
+            DataOutputStream output) throws IOException {
+        for (var address : addresses) {
+            output.writeLong(epochNanos(column.apply(address)));
+        }
+    }
+
+    /**
+     * Decodes one part and passes its addresses in stored order.
+     *
+     * @throws IOException if the input is truncated or not a snapshot part
+     */
+    static void read(DataInputStream input, Consumer<Address> consumer) throws IOException {
+        if (input.readInt() != MAGIC) {
+            throw new IOException("Not a snapshot part");
+        }
+        var version = input.readInt();
+        if (version != VERSION && version != MILLIS_VERSION) {
+            throw new IOException("Unsupported snapshot part version " + version);
+        }
+        var count = input.readInt();
+        var ids = readStrings(count, input);
+        var streets = readStrings(count, input);
+        var cities = readDictionary(count, input);
+        var states = readDictionary(count, input);
+        var postalCodes = readStrings(count, input);
+        var countries = readDictionary(count, input);
+        var createdAt = readTimestamps(count, input);
+        var updatedAt = readTimestamps(count, input);
+        var nanosPerUnit = version == MILLIS_VERSION ? 1_000_000 : 1;
+        for (int i = 0; i < count; i++) {
+            consumer.accept(new Address(ids[i], streets[i], cities[i], states[i], postalCodes[i], countries[i],
+                    timestamp(createdAt[i] * nanosPerUnit), timestamp(updatedAt[i] * nanosPerUnit)));
+        }
+    }
+
+    static String[] readStrings(int count, DataInputStream input) throws IOException {
+        var values = new String[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = readString(input);
+        }
+        return values;
+    }
+
+    static String readString(DataInputStream input) throws IOException {
+        var length = input.readInt();
+        if (length == NULL) {
+            return null;
+        }
+        var bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static String[] readDictionary(int count, DataInputStream input) throws IOException {
+        var dictionary = readStrings(input.readInt(), input);
+        var values = new String[count];
+        for (int i = 0; i < count; i++) {
+            var code = input.readInt();
+            values[i] = code == NULL ? null : dictionary[code];
+        }
+        return values;
+    }
+
+    static long[] readTimestamps(int count, DataInputStream input) throws IOException {
+        var values = new long[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = input.readLong();
+        }
+        return values;
+    }
+
+    /**
+     * Covers the years 1677 to 2262.
+     *
+     * @throws ArithmeticException for timestamps outside that range
+     */
+    static long epochNanos(LocalDateTime timestamp) {
+        var instant = timestamp.toInstant(ZoneOffset.UTC);
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000_000L), instant.getNano());
+    }
+
+    static LocalDateTime timestamp(long epochNanos) {
+        return LocalDateTime.ofInstant(Instant.ofEpochSecond(0, epochNanos), ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,38 @@
+package airhacks.qmpd.addresses.control;
+
+import java.util.function.Consumer;
+
+import software.amazon.awssdk.awscore.AwsRequestOverrideConfiguration;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+/**
+ * Optimistic concurrency for read-modify-write cycles of objects shared by all instances.
+ *
+ * A write replaces only the version that was read (If-Match) or creates a missing object
+ * (If-None-Match: *). A concurrent writer fails the condition with 412, or 409 while a
+ * conflicting write is in progress; the caller reads the current version and retries.
+ * The headers are set explicitly, the SDK version in use has no conditional write fields.
+ */
+interface ConditionalWrite {
+
+    int PRECONDITION_FAILED = 412;
+
+    int CONFLICT = 409;
+
+    int MAX_ATTEMPTS = 8;
+
+    static Consumer<AwsRequestOverrideConfiguration.Builder> ifMatch(String eTag) {
+        return configuration -> configuration.putHeader("If-Match", eTag);
+    }
+
+    static Consumer<AwsRequestOverrideConfiguration.Builder> ifNoneMatch() {
+        return configuration -> configuration.putHeader("If-None-Match", "*");
+    }
+
+    /**
+     * @return true if another instance changed the object since it was read
+     */
+    static boolean lostRace(S3Exception e) {
+        return e.statusCode() == PRECONDITION_FAILED || e.statusCode() == CONFLICT;
+    }
+}
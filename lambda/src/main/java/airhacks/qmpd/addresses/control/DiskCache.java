@@ -0,0 +1,232 @@
+package airhacks.qmpd.addresses.control;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.System.Logger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import airhacks.qmpd.addresses.entity.Address;
+import jakarta.json.Json;
+
+/**
+ * Second cache tier on the Lambda ephemeral storage (/tmp).
+ *
+ * Each address is kept in its own file: the ETag on the first line, followed
+ * by the JSON representation. The file modification time is the load time.
+ * Files survive warm invocations and JVM restarts within the same execution
+ * environment; the least recently used files are deleted once the configured
+ * size is exceeded. A size of zero disables the tier.
+ */
+class DiskCache {
+
+    private static final Logger logger = System.getLogger(DiskCache.class.getName());
+
+    static final int MAX_FILE_NAME_LENGTH = 200;
+
+    final Path directory;
+    final long maxBytes;
+    final Map<String, Long> sizes = new LinkedHashMap<>(16, 0.75f, true);
+    long totalBytes;
+    boolean available;
+
+    final LongAdder hits = new LongAdder();
+
+    DiskCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.available = maxBytes > 0 && load();
+    }
+
+    static DiskCache disabled() {
+        return new DiskCache(null, 0);
+    }
+
+    boolean enabled() {
+        return this.available;
+    }
+
+    /**
+     * Rebuilds the LRU index from files left by a previous JVM, oldest first.
+     */
+    boolean load() {
+        try {
+            Files.createDirectories(this.directory);
+            try (var files = Files.list(this.directory)) {
+                files.filter(Files::isRegularFile)
+                        .sorted(Comparator.comparing(DiskCache::lastModified))
+                        .forEach(this::index);
+            }
+            synchronized (this) {
+                evict();
+            }
+            logger.log(Logger.Level.INFO, "Disk cache at {0} holds {1} addresses, {2} bytes",
+                    this.directory, this.sizes.size(), this.totalBytes);
+            return true;
+        } catch (IOException e) {
+            logger.log(Logger.Level.WARNING, "Disk cache at {0} disabled. Reason: {1}", this.directory, e);
+            return false;
+        }
+    }
+
+    void index(Path file) {
+        var name = file.getFileName().toString();
+        try {
+            if (name.contains(".")) {
+                Files.deleteIfExists(file);
+                return;
+            }
+            var size = Files.size(file);
+            this.sizes.put(name, size);
+            this.totalBytes += size;
+        } catch (IOException e) {
+            logger.log(Logger.Level.WARNING, "Cannot index cached file {0}. Reason: {1}", file, e);
+        }
+    }
+
+    static FileTime lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    /**
+     * Base64url without padding: no path separators, no dots, no traversal.
+     */
+    static String fileName(String id) {
+        var name = Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(id.getBytes(StandardCharsets.UTF_8));
+        return name.length() > MAX_FILE_NAME_LENGTH ? null : name;
+    }
+
+    AddressCache.Entry get(String id) {
+        if (!this.available) {
+            return null;
+        }
+        var name = fileName(id);
+        if (name == null) {
+            return null;
+        }
+        synchronized (this) {
+            if (this.sizes.get(name) == null) {
+                return null;
+            }
+        }
+        var file = this.directory.resolve(name);
+        try {
+            var loadedAt = Files.getLastModifiedTime(file).toMillis();
+            var content = Files.readString(file);
+            var separator = content.indexOf('\n');
+            var eTag = content.substring(0, separator);
+            var jsonObject = Json.createReader(new StringReader(content.substring(separator + 1))).readObject();
+            var address = Address.fromJSON(jsonObject);
+            this.hits.increment();
+            var age = Math.max(0, System.currentTimeMillis() - loadedAt);
+            return new AddressCache.Entry(address, eTag, System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(age));
+        } catch (IOException | RuntimeException e) {
+            logger.log(Logger.Level.DEBUG, "Dropping unreadable cached address {0}. Reason: {1}", id, e);
+            invalidate(id);
+            return null;
+        }
+    }
+
+    void put(String id, Address address, String eTag) {
+        if (!this.available) {
+            return;
+        }
+        var name = fileName(id);
+        if (name == null) {
+            return;
+        }
+        var content = (eTag + "\n" + address.toJSON()).getBytes(StandardCharsets.UTF_8);
+        try {
+            var temporary = Files.createTempFile(this.directory, "address", ".part");
+            Files.write(temporary, content);
+            Files.move(temporary, this.directory.resolve(name), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            synchronized (this) {
+                var previous = this.sizes.put(name, (long) content.length);
+                this.totalBytes += content.length - (previous == null ? 0 : previous);
+                evict();
+            }
+        } catch (IOException e) {
+            logger.log(Logger.Level.WARNING, "Cannot cache address {0} on disk. Reason: {1}", id, e);
+        }
+    }
+
+    /**
+     * Restarts the time-to-live of a file confirmed by a 304 Not Modified.
+     */
+    void touch(String id) {
+        if (!this.available) {
+            return;
+        }
+        var name = fileName(id);
+        if (name == null) {
+            return;
+        }
+        try {
+            Files.setLastModifiedTime(this.directory.resolve(name), FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            invalidate(id);
+        }
+    }
+
+    void invalidate(String id) {
+        if (!this.available) {
+            return;
+        }
+        var name = fileName(id);
+        if (name == null) {
+            return;
+        }
+        synchronized (this) {
+            var size = this.sizes.remove(name);
+            if (size != null) {
+                this.totalBytes -= size;
+            }
+            delete(name);
+        }
+    }
+
+    /**
+     * Deletes least recently used files until the size limit holds. Caller holds the lock.
+     */
+    void evict() {
+        var iterator = this.sizes.entrySet().iterator();
+        while (this.totalBytes > this.maxBytes && iterator.hasNext()) {
+            var eldest = iterator.next();
+            this.totalBytes -= eldest.getValue();
+            iterator.remove();
+            delete(eldest.getKey());
+        }
+    }
+
+    void delete(String name) {
+        try {
+            Files.deleteIfExists(this.directory.resolve(name));
+        } catch (IOException e) {
+            logger.log(Logger.Level.WARNING, "Cannot delete cached file {0}. Reason: {1}", name, e);
+        }
+    }
+
+    synchronized int size() {
+        return this.sizes.size();
+    }
+
+    synchronized long bytes() {
+        return this.totalBytes;
+    }
+}
@@ -0,0 +1,13 @@
+package airhacks.qmpd.addresses.control;
+
+import java.util.List;
+
+/**
+ * A page of address IDs with the cursor of the last listed entry.
+ */
+record IdPage(List<String> ids, String lastId, boolean hasMore) {
+
+    String nextToken() {
+        return hasMore ? lastId : null;
+    }
+}
@@ -0,0 +1,20 @@
+package airhacks.qmpd.addresses.control;
+
+import airhacks.qmpd.addresses.entity.JSONWritable;
+import jakarta.json.stream.JsonGenerator;
+
+/**
+ * A rejected or failed import record. The line counts from the first record
+ * of the invocation, the offset is the byte position within the file.
+ */
+public record ImportError(long line, long offset, String message) implements JSONWritable {
+
+    @Override
+    public void writeJSON(JsonGenerator generator) {
+        generator.writeStartObject()
+            .write("line", line)
+            .write("offset", offset);
+        JSONWritable.write(generator, "message", message);
+        generator.writeEnd();
+    }
+}
@@ -0,0 +1,44 @@
+package airhacks.qmpd.addresses.control;
+
+import airhacks.qmpd.addresses.entity.AddressValidationException;
+
+/**
+ * File formats accepted by the {@link AddressImporter}: CSV with a header row naming
+ * the address fields, or newline-delimited JSON with one create request per line.
+ */
+public enum ImportFormat {
+    csv("text/csv"),
+    ndjson("application/x-ndjson");
+
+    public final String contentType;
+
+    ImportFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    /**
+     * @throws AddressValidationException if the media type is neither CSV nor NDJSON
+     */
+    public static ImportFormat ofMediaType(String mediaType) {
+        for (var format : values()) {
+            if (mediaType != null && mediaType.toLowerCase().startsWith(format.contentType)) {
+                return format;
+            }
+        }
+        throw new AddressValidationException("Content-Type", "Expected text/csv or application/x-ndjson, got: " + mediaType);
+    }
+
+    /**
+     * @throws AddressValidationException if the name ends neither with .csv nor with .ndjson or .jsonl
+     */
+    static ImportFormat ofName(String name) {
+        var lowerCase = name.toLowerCase();
+        if (lowerCase.endsWith(".csv")) {
+            return csv;
+        }
+        if (lowerCase.endsWith(".ndjson") || lowerCase.endsWith(".jsonl")) {
+            return ndjson;
+        }
+        throw new AddressValidationException("name", "Import file must end with .csv, .ndjson or .jsonl: " + name);
+    }
+}
@@ -0,0 +1,205 @@
+package airhacks.qmpd.addresses.control;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads import records one at a time from a byte stream, tracking the byte offset
+ * of the next record so an import can be resumed with a Range GET.
+ *
+ * Records are lines terminated by LF or CRLF, blank lines are skipped. CSV records
+ * continue over line breaks within quoted fields (RFC 4180). A record that cannot be
+ * read is returned with an error instead of its text and reading continues after it.
+ */
+final class ImportRecords {
+
+    static final int MAX_RECORD_BYTES = 64 * 1024;
+    static final int CHUNK_SIZE = 64 * 1024;
+    static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    /**
+     * @param text the record, null if it could not be read
+     * @param error why the record could not be read, null otherwise
+     */
+    record Record(long line, long offset, String text, String error) {
+
+        Record(long line, long offset, String text) {
+            this(line, offset, text, null);
+        }
+    }
+
+    final InputStream input;
+    final ImportFormat format;
+    long offset;
+    long line;
+    byte[] buffer = new byte[512];
+    final byte[] chunk = new byte[CHUNK_SIZE];
+    int position;
+    int limit;
+    boolean oversized;
+
+    /**
+     * Reads in chunks of {@value #CHUNK_SIZE} bytes, the input needs no buffering.
+     *
+     * @param input positioned at the start of a record
+     * @param offset position of the input within the file
+     */
+    ImportRecords(InputStream input, ImportFormat format, long offset) {
+        this.input = input;
+        this.format = format;
+        this.offset = offset;
+    }
+
+    /**
+     * A record exceeding {@value #MAX_RECORD_BYTES} bytes is skipped up to the end of its line,
+     * a quote that is not closed until the end of the input consumes the rest of it.
+     *
+     * @return the next non-blank record, or null at the end of the input
+     */
+    Record next() throws IOException {
+        String text;
+        long start;
+        do {
+            start = this.offset;
+            text = readLine();
+            if (text == null) {
+                return null;
+            }
+            if (this.oversized) {
+                return new Record(this.line, start, null, tooLarge());
+            }
+        } while (text.isBlank());
+        var first = this.line;
+        if (this.format == ImportFormat.csv) {
+            while (!quotesClosed(text)) {
+                var continuation = readLine();
+                if (continuation == null) {
+                    return new Record(first, start, null, "Unterminated quoted CSV field");
+                }
+                if (this.oversized || text.length() + 1 + continuation.length() > MAX_RECORD_BYTES) {
+                    return new Record(first, start, null, tooLarge());
+                }
+                text = text + "\n" + continuation;
+            }
+        }
+        return new Record(first, start, text);
+    }
+
+    static String tooLarge() {
+        return "Record exceeds " + MAX_RECORD_BYTES + " bytes";
+    }
+
+    /**
+     * Position of the next unread record within the file.
+     */
+    long offset() {
+        return this.offset;
+    }
+
+    /**
+     * Bytes beyond {@value #MAX_RECORD_BYTES} are skipped and flag the line as oversized.
+     */
+    String readLine() throws IOException {
+        this.oversized = false;
+        var length = 0;
+        var skipped = 0L;
+        var next = read();
+        if (next == -1) {
+            return null;
+        }
+        while (next != -1 && next != '\n') {
+            if (length == MAX_RECORD_BYTES) {
+                this.oversized = true;
+                skipped++;
+            } else {
+                if (length == this.buffer.length) {
+                    this.buffer = Arrays.copyOf(this.buffer, length * 2);
+                }
+                this.buffer[length++] = (byte) next;
+            }
+            next = read();
+        }
+        this.offset += length + skipped + (next == '\n' ? 1 : 0);
+        this.line++;
+        if (this.oversized) {
+            return "";
+        }
+        if (length > 0 && this.buffer[length - 1] == '\r') {
+            length--;
+        }
+        var text = new String(this.buffer, 0, length, StandardCharsets.UTF_8);
+        if (!text.isEmpty() && text.charAt(0) == BYTE_ORDER_MARK) {
+            return text.substring(1);
+        }
+        return text;
+    }
+
+    int read() throws IOException {
+        if (this.position == this.limit) {
+            this.limit = this.input.read(this.chunk);
+            this.position = 0;
+            if (this.limit <= 0) {
+                this.limit = 0;
+                return -1;
+            }
+        }
+        return this.chunk[this.position++] & 0xFF;
+    }
+
+    /**
+     * An escaped quote counts twice, so quoted fields are closed if the number of quotes is even.
+     */
+    static boolean quotesClosed(String text) {
+        var quotes = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '"') {
+                quotes++;
+            }
+        }
+        return quotes % 2 == 0;
+    }
+
+    /**
+     * Splits a CSV record into its fields. Unquoted fields are stripped,
+     * quoted fields are taken as is with doubled quotes unescaped.
+     *
+     * @return the fields, or null if the record ends within a quoted field
+     */
+    static List<String> csvFields(String record) {
+        var fields = new ArrayList<String>();
+        var field = new StringBuilder();
+        var quoted = false;
+        var wasQuoted = false;
+        for (int i = 0; i < record.length(); i++) {
+            var character = record.charAt(i);
+            if (quoted) {
+                if (character != '"') {
+                    field.append(character);
+                } else if (i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (character == '"') {
+                quoted = true;
+                wasQuoted = true;
+            } else if (character == ',') {
+                fields.add(wasQuoted ? field.toString() : field.toString().strip());
+                field.setLength(0);
+                wasQuoted = false;
+            } else {
+                field.append(character);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(wasQuoted ? field.toString() : field.toString().strip());
+        return fields;
+    }
+}
@@ -0,0 +1,50 @@
+package airhacks.qmpd.addresses.control;
+
+import java.util.List;
+
+import airhacks.qmpd.addresses.entity.JSONWritable;
+import jakarta.json.stream.JsonGenerator;
+
+/**
+ * Outcome of an import invocation, also stored as the report object.
+ *
+ * A nextOffset is present if the invocation stopped at its time budget,
+ * the import continues from there. Only the first errors are listed,
+ * {@code failed} counts all of them.
+ */
+public record ImportReport(
+    String source,
+    ImportFormat format,
+    long startOffset,
+    long records,
+    long imported,
+    long failed,
+    Long nextOffset,
+    String reportKey,
+    List<ImportError> errors
+) implements JSONWritable {
+
+    public boolean complete() {
+        return nextOffset == null;
+    }
+
+    @Override
+    public void writeJSON(JsonGenerator generator) {
+        generator.writeStartObject()
+            .write("source", source)
+            .write("format", format.name())
+            .write("startOffset", startOffset)
+            .write("records", records)
+            .write("imported", imported)
+            .write("failed", failed)
+            .write("complete", complete());
+        if (nextOffset != null) {
+            generator.write("nextOffset", nextOffset);
+        }
+        JSONWritable.write(generator, "reportKey", reportKey);
+        generator.writeStartArray("errors");
+        errors.forEach(error -> error.writeJSON(generator));
+        generator.writeEnd();
+        generator.writeEnd();
+    }
+}
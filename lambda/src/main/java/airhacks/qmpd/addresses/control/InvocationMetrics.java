@@ -0,0 +1,142 @@
+package airhacks.qmpd.addresses.control;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.microprofile.config.ConfigProvider;
+
+import airhacks.qmpd.addresses.entity.JSONWritable;
+
+/**
+ * Timers, histograms and counters flushed once per invocation as CloudWatch Embedded
+ * Metric Format (EMF) documents to stdout, CloudWatch Logs extracts the metrics without
+ * API calls or agents.
+ *
+ * Metrics are registered once and recorded without allocation. A Lambda execution
+ * environment serves one invocation at a time; in a local instance serving concurrent
+ * requests, each flush contains whatever was recorded since the previous one.
+ */
+public final class InvocationMetrics {
+
+    static final boolean ENABLED = ConfigProvider.getConfig()
+            .getOptionalValue("address.metrics.enabled", Boolean.class).orElse(true);
+
+    static final String NAMESPACE = ConfigProvider.getConfig()
+            .getOptionalValue("address.metrics.namespace", String.class).orElse("Addresses");
+
+    static final String FUNCTION_NAME = System.getenv().getOrDefault("AWS_LAMBDA_FUNCTION_NAME", "local");
+
+    /**
+     * Maximum number of metrics of a single EMF document.
+     */
+    static final int MAX_METRICS = 100;
+
+    static final Map<String, Metric> METRICS = new ConcurrentHashMap<>();
+
+    private InvocationMetrics() {
+    }
+
+    public static Metric timer(String name) {
+        return register(name, Metric.Unit.milliseconds, false);
+    }
+
+    public static Metric histogram(String name, Metric.Unit unit) {
+        return register(name, unit, false);
+    }
+
+    public static Metric counter(String name) {
+        return register(name, Metric.Unit.count, true);
+    }
+
+    static Metric register(String name, Metric.Unit unit, boolean counter) {
+        return METRICS.computeIfAbsent(name, key -> new Metric(key, unit, counter));
+    }
+
+    public static boolean enabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Writes the metrics recorded since the previous flush to stdout and resets them.
+     *
+     * @param endpoint the invoked endpoint, a property of the documents
+     */
+    public static void flush(String endpoint) {
+        if (!ENABLED) {
+            return;
+        }
+        documents(endpoint, System.currentTimeMillis()).forEach(System.out::println);
+    }
+
+    /**
+     * Drops the metrics recorded outside of an invocation, e.g. by priming.
+     */
+    static void discard() {
+        METRICS.values().forEach(Metric::drain);
+    }
+
+    /**
+     * @return one single line JSON document per {@value #MAX_METRICS} recorded metrics
+     */
+    static List<String> documents(String endpoint, long timestamp) {
+        var recorded = new ArrayList<Map.Entry<Metric, double[]>>();
+        for (var metric : METRICS.values()) {
+            var values = metric.drain();
+            if (values.length > 0) {
+                recorded.add(Map.entry(metric, values));
+            }
+        }
+        var documents = new ArrayList<String>();
+        for (var from = 0; from < recorded.size(); from += MAX_METRICS) {
+            documents.add(document(recorded.subList(from, Math.min(from + MAX_METRICS, recorded.size())), endpoint, timestamp));
+        }
+        return documents;
+    }
+
+    static String document(List<Map.Entry<Metric, double[]>> metrics, String endpoint, long timestamp) {
+        var writer = new StringWriter();
+        try (var generator = JSONWritable.GENERATORS.createGenerator(writer)) {
+            generator.writeStartObject()
+                    .writeStartObject("_aws")
+                    .write("Timestamp", timestamp)
+                    .writeStartArray("CloudWatchMetrics")
+                    .writeStartObject()
+                    .write("Namespace", NAMESPACE)
+                    .writeStartArray("Dimensions")
+                    .writeStartArray()
+                    .write("FunctionName")
+                    .writeEnd()
+                    .writeEnd()
+                    .writeStartArray("Metrics");
+            for (var entry : metrics) {
+                generator.writeStartObject()
+                        .write("Name", entry.getKey().name)
+                        .write("Unit", entry.getKey().unit.emfName)
+                        .writeEnd();
+            }
+            generator.writeEnd()
+                    .writeEnd()
+                    .writeEnd()
+                    .writeEnd()
+                    .write("FunctionName", FUNCTION_NAME)
+                    .write("Endpoint", endpoint);
+            for (var entry : metrics) {
+                var values = entry.getValue();
+                if (values.length == 1) {
+                    generator.write(entry.getKey().name, values[0]);
+                    continue;
+                }
+                generator.writeStartArray(entry.getKey().name);
+                for (var value : values) {
+                    generator.write(value);
+                }
+                generator.writeEnd();
+            }
+            generator.writeEnd();
+        }
+        return writer.toString();
+    }
+}
@@ -0,0 +1,93 @@
+package airhacks.qmpd.addresses.control;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A timer, histogram or counter of the current invocation, see {@link InvocationMetrics}.
+ *
+ * Counters are summed. Timers and histograms keep up to {@value #MAX_VALUES} observations,
+ * the limit of an EMF metric; beyond that a uniform sample is kept (reservoir sampling).
+ * Recording is a no-op with {@code address.metrics.enabled=false}.
+ */
+public final class Metric {
+
+    public enum Unit {
+        milliseconds("Milliseconds"), bytes("Bytes"), count("Count");
+
+        final String emfName;
+
+        Unit(String emfName) {
+            this.emfName = emfName;
+        }
+    }
+
+    static final int MAX_VALUES = 100;
+
+    static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    final String name;
+    final Unit unit;
+    final boolean counter;
+    final LongAdder sum = new LongAdder();
+    final double[] values;
+    long observations;
+
+    Metric(String name, Unit unit, boolean counter) {
+        this.name = name;
+        this.unit = unit;
+        this.counter = counter;
+        this.values = counter ? new double[0] : new double[MAX_VALUES];
+    }
+
+    public void increment() {
+        add(1);
+    }
+
+    public void add(long amount) {
+        if (InvocationMetrics.ENABLED) {
+            this.sum.add(amount);
+        }
+    }
+
+    /**
+     * @param started System.nanoTime() at the start of the timed operation
+     */
+    public void recordSince(long started) {
+        record((System.nanoTime() - started) / NANOS_PER_MILLI);
+    }
+
+    public void record(double value) {
+        if (!InvocationMetrics.ENABLED) {
+            return;
+        }
+        synchronized (this) {
+            var index = this.observations < MAX_VALUES
+                    ? this.observations
+                    : ThreadLocalRandom.current().nextLong(this.observations + 1);
+            if (index < MAX_VALUES) {
+                this.values[(int) index] = value;
+            }
+            this.observations++;
+        }
+    }
+
+    /**
+     * Returns the values recorded since the previous drain and resets the metric.
+     *
+     * @return the sum of a counter, the (sampled) observations otherwise; empty if nothing was recorded
+     */
+    double[] drain() {
+        if (this.counter) {
+            var value = this.sum.sumThenReset();
+            return value == 0 ? new double[0] : new double[] { value };
+        }
+        synchronized (this) {
+            var drained = Arrays.copyOf(this.values, (int) Math.min(this.observations, MAX_VALUES));
+            this.observations = 0;
+            return drained;
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package airhacks.qmpd.addresses.control;
 
 import airhacks.qmpd.addresses.entity.Address;
+import airhacks.qmpd.addresses.entity.JSONWritable;
+import jakarta.json.stream.JsonGenerator;
 
 import java.util.List;
 
@@ -13,4 +15,18 @@ public record PaginationResult(
     List<Address> addresses,
     String nextToken,
     boolean hasMore
-) {}
+) implements JSONWritable {
+
+    @Override
+    public void writeJSON(JsonGenerator generator) {
+        generator.writeStartObject();
+        generator.writeStartArray("addresses");
+        addresses.forEach(address -> address.writeJSON(generator));
+        generator.writeEnd();
+        generator.write("hasMore", hasMore);
+        if (nextToken != null) {
+            generator.write("nextToken", nextToken);
+        }
+        generator.writeEnd();
+    }
+}
@@ -0,0 +1,64 @@
+package airhacks.qmpd.addresses.control;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+
+import airhacks.qmpd.addresses.entity.AddressException;
+
+/**
+ * Executes blocking S3 calls concurrently on virtual threads.
+ *
+ * The number of in-flight calls is bounded by a semaphore,
+ * results are returned in the order of the input.
+ * The {@link RequestTiming} of the caller is bound to the fetching threads.
+ */
+public interface ParallelFetcher {
+
+    /**
+     * Applies the fetch function to all items with at most {@code concurrency} calls in flight.
+     *
+     * @param items the inputs, e.g. address IDs of a listing page
+     * @param fetch blocking function executed once per item
+     * @param concurrency maximum number of concurrent calls
+     * @return the results in input order
+     * @throws AddressException if a call fails with a checked exception or the caller is interrupted
+     */
+    static <T, R> List<R> fetchAll(List<T> items, Function<T, R> fetch, int concurrency) {
+        if (items.size() < 2 || concurrency < 2) {
+            return items.stream().map(fetch).toList();
+        }
+        var timing = RequestTiming.current();
+        var permits = new Semaphore(concurrency);
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            var futures = new ArrayList<Future<R>>(items.size());
+            for (var item : items) {
+                permits.acquire();
+                futures.add(executor.submit(() -> {
+                    try {
+                        return RequestTiming.within(timing, () -> fetch.apply(item));
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            var results = new ArrayList<R>(items.size());
+            for (var future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AddressException("Interrupted while fetching addresses", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new AddressException("Failed to fetch addresses: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+}
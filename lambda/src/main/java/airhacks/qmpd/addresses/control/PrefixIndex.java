@@ -0,0 +1,248 @@
+package airhacks.qmpd.addresses.control;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+/**
+ * Immutable, compact prefix index of values weighted by their number of occurrences.
+ *
+ * Keys are normalized values in sorted parallel arrays: a prefix lookup is two
+ * binary searches and a scan of the matching range, selecting the top-k entries
+ * by weight without intermediate collections. Changes are not applied one by one:
+ * they are collected as {@link Adjustment}s, applied on top of the index by lookups
+ * and merged into a new index in one pass.
+ */
+final class PrefixIndex {
+
+    static final PrefixIndex EMPTY = new PrefixIndex(new String[0], new String[0], new int[0]);
+
+    /**
+     * A not yet merged weight change of a normalized key.
+     *
+     * @param value the value as written, displayed if the key is not indexed yet
+     */
+    record Adjustment(String value, int delta) {
+
+        /**
+         * @return the combined change, null if the changes cancel out
+         */
+        Adjustment plus(Adjustment other) {
+            var delta = this.delta + other.delta;
+            return delta == 0 ? null : new Adjustment(this.value, delta);
+        }
+    }
+
+    final String[] keys;
+    final String[] values;
+    final int[] weights;
+
+    PrefixIndex(String[] keys, String[] values, int[] weights) {
+        this.keys = keys;
+        this.values = values;
+        this.weights = weights;
+    }
+
+    static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Builds an index from values with their number of occurrences.
+     * Values differing only in case or surrounding whitespace share one entry.
+     */
+    static PrefixIndex of(Map<String, Integer> counts) {
+        var sorted = new TreeMap<String, Map.Entry<String, Integer>>();
+        counts.forEach((value, count) -> {
+            if (value == null || value.isBlank() || count <= 0) {
+                return;
+            }
+            var key = normalize(value);
+            var existing = sorted.get(key);
+            var total = count + (existing == null ? 0 : existing.getValue());
+            var display = existing == null ? value.trim() : existing.getKey();
+            sorted.put(key, Map.entry(display, total));
+        });
+        var keys = new String[sorted.size()];
+        var values = new String[sorted.size()];
+        var weights = new int[sorted.size()];
+        var i = 0;
+        for (var entry : sorted.entrySet()) {
+            keys[i] = entry.getKey();
+            values[i] = entry.getValue().getKey();
+            weights[i] = entry.getValue().getValue();
+            i++;
+        }
+        return new PrefixIndex(keys, values, weights);
+    }
+
+    /**
+     * @return the weight of every indexed value, the inverse of {@link #of(Map)}
+     */
+    Map<String, Integer> counts() {
+        var counts = new HashMap<String, Integer>(this.keys.length * 2);
+        for (int i = 0; i < this.keys.length; i++) {
+            counts.put(this.values[i], this.weights[i]);
+        }
+        return counts;
+    }
+
+    int size() {
+        return this.keys.length;
+    }
+
+    /**
+     * Returns at most limit values starting with the prefix, most frequent first.
+     */
+    List<Suggestion> complete(String prefix, int limit) {
+        var normalized = normalize(prefix);
+        var from = Arrays.binarySearch(this.keys, normalized);
+        if (from < 0) {
+            from = -from - 1;
+        }
+        var to = endOfPrefix(normalized, from);
+        var count = Math.min(limit, to - from);
+        if (count <= 0) {
+            return List.of();
+        }
+        var best = new int[count];
+        var size = 0;
+        for (int i = from; i < to; i++) {
+            if (size == count && this.weights[i] <= this.weights[best[size - 1]]) {
+                continue;
+            }
+            var position = size == count ? size - 1 : size++;
+            while (position > 0 && this.weights[best[position - 1]] < this.weights[i]) {
+                best[position] = best[position - 1];
+                position--;
+            }
+            best[position] = i;
+        }
+        var suggestions = new ArrayList<Suggestion>(count);
+        for (int i = 0; i < count; i++) {
+            suggestions.add(new Suggestion(this.values[best[i]], this.weights[best[i]]));
+        }
+        return suggestions;
+    }
+
+    /**
+     * First index at or after from whose key does not start with the prefix.
+     */
+    int endOfPrefix(String prefix, int from) {
+        var low = from;
+        var high = this.keys.length;
+        while (low < high) {
+            var middle = (low + high) >>> 1;
+            if (this.keys[middle].startsWith(prefix)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Like {@link #complete(String, int)}, with the weights changed by the adjustments.
+     *
+     * @param adjustments by normalized key
+     */
+    List<Suggestion> complete(String prefix, int limit, NavigableMap<String, Adjustment> adjustments) {
+        var normalized = normalize(prefix);
+        var pending = adjustments.tailMap(normalized, true)
+                .entrySet()
+                .stream()
+                .takeWhile(entry -> entry.getKey().startsWith(normalized))
+                .toList();
+        if (pending.isEmpty()) {
+            return complete(prefix, limit);
+        }
+        if (limit <= 0) {
+            return List.of();
+        }
+        var best = new PriorityQueue<Suggestion>(limit + 1, Comparator.comparingInt(Suggestion::count));
+        var from = Arrays.binarySearch(this.keys, normalized);
+        if (from < 0) {
+            from = -from - 1;
+        }
+        var to = endOfPrefix(normalized, from);
+        for (int i = from; i < to; i++) {
+            var adjustment = adjustments.get(this.keys[i]);
+            offer(best, limit, this.values[i], this.weights[i] + (adjustment == null ? 0 : adjustment.delta()));
+        }
+        for (var entry : pending) {
+            if (Arrays.binarySearch(this.keys, from, to, entry.getKey()) < 0) {
+                offer(best, limit, entry.getValue().value(), entry.getValue().delta());
+            }
+        }
+        var suggestions = new ArrayList<>(best);
+        suggestions.sort(Comparator.comparingInt(Suggestion::count).reversed());
+        return suggestions;
+    }
+
+    static void offer(PriorityQueue<Suggestion> best, int limit, String value, int weight) {
+        if (weight <= 0) {
+            return;
+        }
+        if (best.size() < limit) {
+            best.add(new Suggestion(value, weight));
+        } else if (best.peek().count() < weight) {
+            best.poll();
+            best.add(new Suggestion(value, weight));
+        }
+    }
+
+    /**
+     * Returns a new index with all adjustments applied, entries reaching zero are removed.
+     *
+     * @param adjustments by normalized key
+     */
+    PrefixIndex merged(Map<String, Adjustment> adjustments) {
+        if (adjustments.isEmpty()) {
+            return this;
+        }
+        var counts = new HashMap<String, Integer>();
+        for (int i = 0; i < this.keys.length; i++) {
+            var adjustment = adjustments.get(this.keys[i]);
+            counts.merge(this.values[i], this.weights[i] + (adjustment == null ? 0 : adjustment.delta()), Integer::sum);
+        }
+        adjustments.forEach((key, adjustment) -> {
+            if (Arrays.binarySearch(this.keys, key) < 0) {
+                counts.merge(adjustment.value(), adjustment.delta(), Integer::sum);
+            }
+        });
+        return of(counts);
+    }
+
+    void writeTo(DataOutputStream output) throws IOException {
+        output.writeInt(this.keys.length);
+        for (int i = 0; i < this.keys.length; i++) {
+            output.writeUTF(this.keys[i]);
+            output.writeUTF(this.values[i]);
+            output.writeInt(this.weights[i]);
+        }
+    }
+
+    static PrefixIndex readFrom(DataInputStream input) throws IOException {
+        var length = input.readInt();
+        var keys = new String[length];
+        var values = new String[length];
+        var weights = new int[length];
+        for (int i = 0; i < length; i++) {
+            keys[i] = input.readUTF();
+            values[i] = input.readUTF();
+            weights[i] = input.readInt();
+        }
+        return new PrefixIndex(keys, values, weights);
+    }
+}
@@ -0,0 +1,214 @@
+package airhacks.qmpd.addresses.control;
+
+import java.util.Locale;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+import org.eclipse.microprofile.config.ConfigProvider;
+
+/**
+ * Phase durations of the current request, rendered as a {@code Server-Timing} header.
+ *
+ * The timing is bound to the request thread only. Code that fans out to other threads passes
+ * it on explicitly with {@link #within(RequestTiming, Supplier)}, e.g. {@link ParallelFetcher}.
+ * S3 calls capture it when they start, so completions on other threads are attributed as well.
+ * An ended timing is ignored and unbound by every thread that still holds it.
+ * Phases of concurrent calls, e.g. the GETs of a listing page, are summed and counted.
+ */
+public final class RequestTiming {
+
+    public enum Phase {
+        init("init", "cold start"),
+        restore("restore", "SnapStart restore"),
+        parse("parse", null),
+        validate("validate", null),
+        storage("storage", null),
+        s3Get("s3-get", null),
+        s3Put("s3-put", null),
+        s3List("s3-list", null),
+        s3Delete("s3-delete", null),
+        s3Head("s3-head", null),
+        s3Other("s3-other", null),
+        serialize("serialize", null);
+
+        final String headerName;
+        final String description;
+
+        Phase(String headerName, String description) {
+            this.headerName = headerName;
+            this.description = description;
+        }
+
+        static Phase ofS3Operation(String operation) {
+            return switch (operation) {
+                case "GetObject" -> s3Get;
+                case "PutObject" -> s3Put;
+                case "ListObjectsV2" -> s3List;
+                case "DeleteObject", "DeleteObjects" -> s3Delete;
+                case "HeadObject" -> s3Head;
+                default -> s3Other;
+            };
+        }
+    }
+
+    static final boolean ENABLED = ConfigProvider.getConfig()
+            .getOptionalValue("address.server.timing.enabled", Boolean.class).orElse(false);
+
+    static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+    static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    final long started = System.nanoTime();
+    final AtomicLongArray nanos = new AtomicLongArray(Phase.values().length);
+    final AtomicLongArray counts = new AtomicLongArray(Phase.values().length);
+    volatile boolean ended;
+
+    public static boolean enabled() {
+        return ENABLED;
+    }
+
+    /**
+     * Binds a new timing to the current thread.
+     */
+    public static RequestTiming start() {
+        var timing = new RequestTiming();
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    /**
+     * @return the timing of the current request, null outside of a timed request
+     */
+    public static RequestTiming current() {
+        var timing = CURRENT.get();
+        if (timing != null && timing.ended) {
+            CURRENT.remove();
+            return null;
+        }
+        return timing;
+    }
+
+    /**
+     * Binds the timing to the current thread for the duration of the operation,
+     * the previous binding is restored afterwards.
+     *
+     * @param timing the timing captured on the request thread, may be null
+     */
+    public static <T> T within(RequestTiming timing, Supplier<T> operation) {
+        if (timing == null) {
+            return operation.get();
+        }
+        var previous = CURRENT.get();
+        CURRENT.set(timing);
+        try {
+            return operation.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * Adds the time since {@code started} to the phase of the current request, if any.
+     *
+     * @param started System.nanoTime() at the start of the phase
+     */
+    public static void record(Phase phase, long started) {
+        var timing = current();
+        if (timing != null) {
+            timing.add(phase, System.nanoTime() - started);
+        }
+    }
+
+    public static <T> T time(Phase phase, Supplier<T> operation) {
+        var started = System.nanoTime();
+        try {
+            return operation.get();
+        } finally {
+            record(phase, started);
+        }
+    }
+
+    public static void time(Phase phase, Runnable operation) {
+        var started = System.nanoTime();
+        try {
+            operation.run();
+        } finally {
+            record(phase, started);
+        }
+    }
+
+    /**
+     * Times a non-blocking operation until its stage completes.
+     */
+    public static <T> CompletionStage<T> timeAsync(Phase phase, Supplier<? extends CompletionStage<T>> operation) {
+        var timing = current();
+        var started = System.nanoTime();
+        if (timing == null) {
+            return operation.get();
+        }
+        CompletionStage<T> stage;
+        try {
+            stage = operation.get();
+        } catch (RuntimeException e) {
+            timing.add(phase, System.nanoTime() - started);
+            throw e;
+        }
+        return stage.whenComplete((result, failure) -> timing.add(phase, System.nanoTime() - started));
+    }
+
+    public void add(Phase phase, long durationNanos) {
+        this.nanos.addAndGet(phase.ordinal(), durationNanos);
+        this.counts.incrementAndGet(phase.ordinal());
+    }
+
+    /**
+     * Flags a phase that preceded the request, e.g. the initialization of a cold start.
+     */
+    public void flag(Phase phase, long durationMillis) {
+        add(phase, TimeUnit.MILLISECONDS.toNanos(durationMillis));
+    }
+
+    /**
+     * Ends the timing and unbinds it from the current thread.
+     * Other threads still holding it unbind it with their next {@link #current()}.
+     */
+    public void end() {
+        this.ended = true;
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * @return the recorded phases followed by {@code total}, the time since the start of the request
+     */
+    public String header() {
+        var header = new StringJoiner(", ");
+        for (var phase : Phase.values()) {
+            var count = this.counts.get(phase.ordinal());
+            if (count == 0) {
+                continue;
+            }
+            var entry = entry(phase.headerName, this.nanos.get(phase.ordinal()));
+            if (phase.description != null) {
+                entry += ";desc=\"" + phase.description + "\"";
+            } else if (count > 1) {
+                entry += ";desc=\"" + count + " calls\"";
+            }
+            header.add(entry);
+        }
+        header.add(entry("total", System.nanoTime() - this.started));
+        return header.toString();
+    }
+
+    static String entry(String name, long nanos) {
+        return String.format(Locale.ROOT, "%s;dur=%.2f", name, nanos / NANOS_PER_MILLI);
+    }
+}
@@ -0,0 +1,15 @@
+package airhacks.qmpd.addresses.control;
+
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+
+/**
+ * Provides static access to the non-blocking S3AsyncClient.
+ *
+ * Uses the Netty based HTTP client by default, Netty is already on the classpath with Quarkus.
+ * Requests beyond {@code address.s3.max.connections} open connections wait for a pooled
+ * connection instead of a thread. The client is created with the first access.
+ */
+interface S3AsyncAccess {
+
+    S3AsyncClient CLIENT = S3Clients.async(S3ClientConfiguration.load());
+}
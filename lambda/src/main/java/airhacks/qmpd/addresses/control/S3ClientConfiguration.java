@@ -0,0 +1,94 @@
+package airhacks.qmpd.addresses.control;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+
+import org.eclipse.microprofile.config.ConfigProvider;
+
+/**
+ * Settings of the S3 clients, read from MicroProfile config with the first S3 access.
+ *
+ * The clients are static, so the settings are looked up with {@link ConfigProvider}
+ * instead of injected. Every key can also be set as environment variable,
+ * e.g. {@code ADDRESS_S3_HTTP_CLIENT}.
+ */
+record S3ClientConfiguration(
+    String httpClient,
+    String asyncHttpClient,
+    int maxConnections,
+    Duration connectTimeout,
+    Duration socketTimeout,
+    Duration acquireTimeout,
+    Duration maxIdleTime,
+    boolean tcpKeepAlive,
+    String credentials,
+    Optional<String> accessKeyId,
+    Optional<String> secretAccessKey,
+    String region,
+    Optional<URI> endpointOverride,
+    boolean pathStyle,
+    int maxAttempts
+) {
+
+    static final String PREFIX = "address.s3.";
+
+    static S3ClientConfiguration load() {
+        var config = ConfigProvider.getConfig();
+        return from(key -> config.getOptionalValue(key, String.class));
+    }
+
+    /**
+     * @param lookup returns the configured value of a key, if any
+     * @throws IllegalArgumentException if a number is malformed
+     */
+    static S3ClientConfiguration from(Function<String, Optional<String>> lookup) {
+        Function<String, Optional<String>> setting = name -> lookup.apply(PREFIX + name)
+                .map(String::strip)
+                .filter(value -> !value.isEmpty());
+        var region = setting.apply("region")
+                .orElse(System.getenv().getOrDefault("AWS_REGION", S3Access.defaultRegion));
+        return new S3ClientConfiguration(
+            setting.apply("http.client").orElse("url-connection"),
+            setting.apply("async.http.client").orElse("netty"),
+            Integer.parseInt(setting.apply("max.connections").orElse("128")),
+            Duration.ofMillis(Long.parseLong(setting.apply("connect.timeout.ms").orElse("2000"))),
+            Duration.ofMillis(Long.parseLong(setting.apply("socket.timeout.ms").orElse("5000"))),
+            Duration.ofMillis(Long.parseLong(setting.apply("acquire.timeout.ms").orElse("10000"))),
+            Duration.ofSeconds(Long.parseLong(setting.apply("max.idle.seconds").orElse("60"))),
+            Boolean.parseBoolean(setting.apply("tcp.keep.alive").orElse("true")),
+            setting.apply("credentials").orElse("chain"),
+            setting.apply("access.key.id"),
+            setting.apply("secret.access.key"),
+            region,
+            setting.apply("endpoint.override").map(URI::create),
+            Boolean.parseBoolean(setting.apply("path.style").orElse("false")),
+            Integer.parseInt(setting.apply("max.attempts").orElse("3"))
+        );
+    }
+
+    static final String MASKED = "****";
+
+    /**
+     * Masks the secret access key, the configuration is logged and used as map key.
+     */
+    @Override
+    public String toString() {
+        return "S3ClientConfiguration[httpClient=" + httpClient
+                + ", asyncHttpClient=" + asyncHttpClient
+                + ", maxConnections=" + maxConnections
+                + ", connectTimeout=" + connectTimeout
+                + ", socketTimeout=" + socketTimeout
+                + ", acquireTimeout=" + acquireTimeout
+                + ", maxIdleTime=" + maxIdleTime
+                + ", tcpKeepAlive=" + tcpKeepAlive
+                + ", credentials=" + credentials
+                + ", accessKeyId=" + accessKeyId
+                + ", secretAccessKey=" + secretAccessKey.map(secret -> MASKED)
+                + ", region=" + region
+                + ", endpointOverride=" + endpointOverride
+                + ", pathStyle=" + pathStyle
+                + ", maxAttempts=" + maxAttempts + "]";
+    }
+}
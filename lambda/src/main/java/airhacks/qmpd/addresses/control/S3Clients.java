@@ -0,0 +1,239 @@
+package airhacks.qmpd.addresses.control;
+
+import java.lang.System.Logger;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import software.amazon.awssdk.auth.credentials.AnonymousCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.ContainerCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.EnvironmentVariableCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.InstanceProfileCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.ProfileCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.SystemPropertyCredentialsProvider;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.core.retry.RetryPolicy;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.crt.AwsCrtAsyncHttpClient;
+import software.amazon.awssdk.http.crt.AwsCrtHttpClient;
+import software.amazon.awssdk.http.crt.TcpKeepAliveConfiguration;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3BaseClientBuilder;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.utils.SdkAutoCloseable;
+
+/**
+ * Builds the S3 clients from an {@link S3ClientConfiguration}.
+ *
+ * The Apache and CRT HTTP clients are optional dependencies, packaged with the
+ * {@code apache-client} and {@code crt-client} Maven profiles. Each HTTP client is
+ * built in its own nested class, so classes of unused clients are never loaded.
+ */
+final class S3Clients {
+
+    private static final Logger logger = System.getLogger(S3Clients.class.getName());
+
+    static final String JDK_MAX_CONNECTIONS = "http.maxConnections";
+
+    static final Map<S3ClientConfiguration, RestorableCredentials> sharedCredentials = new ConcurrentHashMap<>();
+
+    private S3Clients() {
+    }
+
+    static S3Client sync(S3ClientConfiguration configuration) {
+        var httpClient = switch (configuration.httpClient()) {
+            case "url-connection" -> UrlConnection.create(configuration);
+            case "apache" -> Apache.create(configuration);
+            case "crt" -> Crt.create(configuration);
+            default -> throw new IllegalArgumentException("Unknown S3 HTTP client: " + configuration.httpClient()
+                    + ", expected url-connection, apache or crt");
+        };
+        logger.log(Logger.Level.INFO, "S3 client: {0}, credentials: {1}, region: {2}",
+                configuration.httpClient(), configuration.credentials(), configuration.region());
+        return configure(S3Client.builder(), configuration)
+                .httpClient(httpClient)
+                .build();
+    }
+
+    static S3AsyncClient async(S3ClientConfiguration configuration) {
+        var httpClient = switch (configuration.asyncHttpClient()) {
+            case "netty" -> Netty.create(configuration);
+            case "crt" -> Crt.createAsync(configuration);
+            default -> throw new IllegalArgumentException("Unknown S3 async HTTP client: " + configuration.asyncHttpClient()
+                    + ", expected netty or crt");
+        };
+        return configure(S3AsyncClient.builder(), configuration)
+                .httpClient(httpClient)
+                .build();
+    }
+
+    static <B extends S3BaseClientBuilder<B, ?>> B configure(B builder, S3ClientConfiguration configuration) {
+        var overrideConfiguration = ClientOverrideConfiguration.builder()
+                .retryPolicy(RetryPolicy.builder()
+                        .numRetries(Math.max(0, configuration.maxAttempts() - 1))
+                        .build());
+        if (InvocationMetrics.enabled() || RequestTiming.enabled()) {
+            overrideConfiguration.addExecutionInterceptor(new S3MetricsInterceptor());
+        }
+        builder.region(Region.of(configuration.region()))
+                .credentialsProvider(credentials(configuration))
+                .forcePathStyle(configuration.pathStyle())
+                .overrideConfiguration(overrideConfiguration.build());
+        configuration.endpointOverride().ifPresent(builder::endpointOverride);
+        return builder;
+    }
+
+    /**
+     * One provider per configuration is shared by the sync and async client, so both see
+     * the credentials resolved again after a SnapStart restore.
+     */
+    static RestorableCredentials credentials(S3ClientConfiguration configuration) {
+        return sharedCredentials.computeIfAbsent(configuration, key -> new RestorableCredentials(() -> provider(key)));
+    }
+
+    /**
+     * Replaces the cached credentials of a restored snapshot, a no-op before the first S3 access.
+     */
+    static void resetCredentials() {
+        sharedCredentials.values().forEach(RestorableCredentials::reset);
+    }
+
+    /**
+     * A pinned provider skips the discovery of the default chain at cold start.
+     */
+    static AwsCredentialsProvider provider(S3ClientConfiguration configuration) {
+        return switch (configuration.credentials()) {
+            case "chain" -> DefaultCredentialsProvider.builder().build();
+            case "environment" -> EnvironmentVariableCredentialsProvider.create();
+            case "system-properties" -> SystemPropertyCredentialsProvider.create();
+            case "container" -> ContainerCredentialsProvider.builder().build();
+            case "instance-profile" -> InstanceProfileCredentialsProvider.create();
+            case "profile" -> ProfileCredentialsProvider.create();
+            case "anonymous" -> AnonymousCredentialsProvider.create();
+            case "static" -> StaticCredentialsProvider.create(AwsBasicCredentials.create(
+                    configuration.accessKeyId().orElseThrow(() -> new IllegalArgumentException("address.s3.access.key.id is required")),
+                    configuration.secretAccessKey().orElseThrow(() -> new IllegalArgumentException("address.s3.secret.access.key is required"))));
+            default -> throw new IllegalArgumentException("Unknown S3 credentials provider: " + configuration.credentials());
+        };
+    }
+
+    /**
+     * Delegates to a provider that is recreated on {@link #reset()},
+     * dropping credentials cached before a checkpoint.
+     */
+    static final class RestorableCredentials implements AwsCredentialsProvider {
+
+        final Supplier<AwsCredentialsProvider> factory;
+        volatile AwsCredentialsProvider delegate;
+
+        RestorableCredentials(Supplier<AwsCredentialsProvider> factory) {
+            this.factory = factory;
+            this.delegate = factory.get();
+        }
+
+        @Override
+        public AwsCredentials resolveCredentials() {
+            return this.delegate.resolveCredentials();
+        }
+
+        void reset() {
+            var previous = this.delegate;
+            this.delegate = this.factory.get();
+            if (previous instanceof SdkAutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    static final class UrlConnection {
+
+        /**
+         * The JDK keeps {@code http.maxConnections} (default 5) idle connections per host,
+         * raised to the maximum connections unless set explicitly. The system property is
+         * process-wide: it applies to every {@code HttpURLConnection} of the JVM, not only
+         * to S3, and only if set before the first connection is opened.
+         */
+        static SdkHttpClient create(S3ClientConfiguration configuration) {
+            if (System.getProperty(JDK_MAX_CONNECTIONS) == null) {
+                System.setProperty(JDK_MAX_CONNECTIONS, String.valueOf(configuration.maxConnections()));
+            }
+            return UrlConnectionHttpClient.builder()
+                    .connectionTimeout(configuration.connectTimeout())
+                    .socketTimeout(configuration.socketTimeout())
+                    .build();
+        }
+    }
+
+    static final class Apache {
+
+        static SdkHttpClient create(S3ClientConfiguration configuration) {
+            return ApacheHttpClient.builder()
+                    .maxConnections(configuration.maxConnections())
+                    .connectionTimeout(configuration.connectTimeout())
+                    .socketTimeout(configuration.socketTimeout())
+                    .connectionAcquisitionTimeout(configuration.acquireTimeout())
+                    .connectionMaxIdleTime(configuration.maxIdleTime())
+                    .tcpKeepAlive(configuration.tcpKeepAlive())
+                    .build();
+        }
+    }
+
+    static final class Netty {
+
+        static SdkAsyncHttpClient create(S3ClientConfiguration configuration) {
+            return NettyNioAsyncHttpClient.builder()
+                    .maxConcurrency(configuration.maxConnections())
+                    .connectionTimeout(configuration.connectTimeout())
+                    .readTimeout(configuration.socketTimeout())
+                    .connectionAcquisitionTimeout(configuration.acquireTimeout())
+                    .connectionMaxIdleTime(configuration.maxIdleTime())
+                    .tcpKeepAlive(configuration.tcpKeepAlive())
+                    .build();
+        }
+    }
+
+    /**
+     * The CRT clients have no socket read timeout, keep-alive probes detect dead connections.
+     */
+    static final class Crt {
+
+        static SdkHttpClient create(S3ClientConfiguration configuration) {
+            var builder = AwsCrtHttpClient.builder()
+                    .maxConcurrency(configuration.maxConnections())
+                    .connectionTimeout(configuration.connectTimeout())
+                    .connectionMaxIdleTime(configuration.maxIdleTime());
+            if (configuration.tcpKeepAlive()) {
+                builder.tcpKeepAliveConfiguration(keepAlive(configuration));
+            }
+            return builder.build();
+        }
+
+        static SdkAsyncHttpClient createAsync(S3ClientConfiguration configuration) {
+            var builder = AwsCrtAsyncHttpClient.builder()
+                    .maxConcurrency(configuration.maxConnections())
+                    .connectionTimeout(configuration.connectTimeout())
+                    .connectionMaxIdleTime(configuration.maxIdleTime());
+            if (configuration.tcpKeepAlive()) {
+                builder.tcpKeepAliveConfiguration(keepAlive(configuration));
+            }
+            return builder.build();
+        }
+
+        static TcpKeepAliveConfiguration keepAlive(S3ClientConfiguration configuration) {
+            return TcpKeepAliveConfiguration.builder()
+                    .keepAliveInterval(configuration.socketTimeout())
+                    .keepAliveTimeout(configuration.socketTimeout())
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package airhacks.qmpd.addresses.control;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.concurrent.ConcurrentHashMap;
+
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttribute;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.core.interceptor.SdkExecutionAttribute;
+import software.amazon.awssdk.http.SdkHttpRequest;
+import software.amazon.awssdk.http.SdkHttpResponse;
+
+/**
+ * Records latency, payload sizes and outcomes of every S3 call of the sync and async clients
+ * as {@code S3.<Operation>.*} metrics, see {@link InvocationMetrics}.
+ *
+ * The latency spans all attempts of a call. 404 (NoSuchKey), 304 (conditional GET of an
+ * unchanged object) and 412 (failed precondition) are counted separately from errors.
+ * The latency is also added to the {@link RequestTiming} captured when the call starts.
+ */
+final class S3MetricsInterceptor implements ExecutionInterceptor {
+
+    static final ExecutionAttribute<Long> STARTED = new ExecutionAttribute<>("S3MetricsStarted");
+
+    static final ExecutionAttribute<RequestTiming> TIMING = new ExecutionAttribute<>("S3RequestTiming");
+
+    static final Map<String, OperationMetrics> OPERATIONS = new ConcurrentHashMap<>();
+
+    record OperationMetrics(RequestTiming.Phase phase, Metric latency, Metric requestBytes, Metric responseBytes,
+            Metric notFound, Metric notModified, Metric preconditionFailed, Metric errors) {
+
+        static OperationMetrics of(String operation) {
+            var prefix = "S3." + operation + ".";
+            return new OperationMetrics(RequestTiming.Phase.ofS3Operation(operation),
+                    InvocationMetrics.timer(prefix + "Latency"),
+                    InvocationMetrics.histogram(prefix + "RequestBytes", Metric.Unit.bytes),
+                    InvocationMetrics.histogram(prefix + "ResponseBytes", Metric.Unit.bytes),
+                    InvocationMetrics.counter(prefix + "NotFound"),
+                    InvocationMetrics.counter(prefix + "NotModified"),
+                    InvocationMetrics.counter(prefix + "PreconditionFailed"),
+                    InvocationMetrics.counter(prefix + "Errors"));
+        }
+    }
+
+    @Override
+    public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes executionAttributes) {
+        executionAttributes.putAttribute(STARTED, System.nanoTime());
+        var timing = RequestTiming.current();
+        if (timing != null) {
+            executionAttributes.putAttribute(TIMING, timing);
+        }
+    }
+
+    @Override
+    public void afterExecution(Context.AfterExecution context, ExecutionAttributes executionAttributes) {
+        var metrics = metrics(executionAttributes);
+        recordLatency(metrics, executionAttributes);
+        contentLength(context.httpRequest()).ifPresent(metrics.requestBytes()::record);
+        contentLength(context.httpResponse()).ifPresent(metrics.responseBytes()::record);
+    }
+
+    @Override
+    public void onExecutionFailure(Context.FailedExecution context, ExecutionAttributes executionAttributes) {
+        var metrics = metrics(executionAttributes);
+        recordLatency(metrics, executionAttributes);
+        var status = context.httpResponse().map(SdkHttpResponse::statusCode).orElse(0);
+        switch (status) {
+            case 404 -> metrics.notFound().increment();
+            case 304 -> metrics.notModified().increment();
+            case 412 -> metrics.preconditionFailed().increment();
+            default -> metrics.errors().increment();
+        }
+    }
+
+    static OperationMetrics metrics(ExecutionAttributes executionAttributes) {
+        var operation = executionAttributes.getAttribute(SdkExecutionAttribute.OPERATION_NAME);
+        return OPERATIONS.computeIfAbsent(operation == null ? "Unknown" : operation, OperationMetrics::of);
+    }
+
+    static void recordLatency(OperationMetrics metrics, ExecutionAttributes executionAttributes) {
+        var started = executionAttributes.getAttribute(STARTED);
+        if (started == null) {
+            return;
+        }
+        metrics.latency().recordSince(started);
+        var timing = executionAttributes.getAttribute(TIMING);
+        if (timing != null) {
+            timing.add(metrics.phase(), System.nanoTime() - started);
+        }
+    }
+
+    /**
+     * Chunked uploads announce the payload size in {@code x-amz-decoded-content-length}.
+     */
+    static OptionalDouble contentLength(SdkHttpRequest request) {
+        return parse(request.firstMatchingHeader("x-amz-decoded-content-length")
+                .or(() -> request.firstMatchingHeader("Content-Length")));
+    }
+
+    static OptionalDouble contentLength(SdkHttpResponse response) {
+        return parse(response.firstMatchingHeader("Content-Length"));
+    }
+
+    static OptionalDouble parse(Optional<String> header) {
+        try {
+            return header.map(value -> OptionalDouble.of(Long.parseLong(value.strip())))
+                    .orElse(OptionalDouble.empty());
+        } catch (NumberFormatException e) {
+            return OptionalDouble.empty();
+        }
+    }
+}
@@ -0,0 +1,688 @@
+package airhacks.qmpd.addresses.control;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import airhacks.qmpd.addresses.entity.AddressException;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.model.Delete;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+/**
+ * Segment layout: addresses packed into large objects below {@value #DATA_PREFIX}.
+ *
+ * An index sharded into objects below {@value #INDEX_PREFIX} maps each ID to
+ * (segment, offset, length), single reads are Range GETs. Writes and deletions go to
+ * append objects {@code segments/pending/<timestamp>-<random>/<id>} (empty for deletions)
+ * which {@link #compact()} packs into a new segment. Every write creates a new key, so
+ * compaction deletes exactly the versions it packed and never a concurrent write.
+ * Index shards are replaced with conditional PUTs, concurrent compactions retry instead
+ * of overwriting each other.
+ * The pending listing is cached and refreshed like the ID filter shards, bounding the
+ * visibility delay of writes of other instances. Append keys start with their timestamp,
+ * so a refresh lists only the keys written since the previous listing.
+ */
+@ApplicationScoped
+public class SegmentStore {
+
+    private static final Logger logger = System.getLogger(SegmentStore.class.getName());
+
+    static final String PREFIX = "segments/";
+    static final String DATA_PREFIX = PREFIX + "data/";
+    static final String INDEX_PREFIX = PREFIX + "index/";
+    static final String PENDING_PREFIX = PREFIX + "pending/";
+
+    /**
+     * Keys this much older than the previous listing are listed again, covering clock skew
+     * between instances and appends still in flight during the listing.
+     */
+    static final long LISTING_OVERLAP_MILLIS = 60_000;
+
+    /**
+     * Age after which the pending writes are listed completely again, dropping the
+     * records packed by compactions of other instances.
+     */
+    static final long FULL_LISTING_MILLIS = 15 * 60_000;
+
+    /**
+     * Content of a packed deletion, compared by identity.
+     */
+    static final byte[] DELETED = new byte[0];
+
+    /**
+     * Where the current version of an address is stored. Pending objects are read as a whole.
+     */
+    record Location(String key, long offset, int length) {
+
+        static final int WHOLE_OBJECT = -1;
+
+        boolean pending() {
+            return this.length == WHOLE_OBJECT;
+        }
+
+        String version() {
+            return this.key + "@" + this.offset;
+        }
+    }
+
+    /**
+     * Newest append object of an address, size 0 marks a deletion.
+     */
+    record PendingRecord(String key, long size) {
+
+        boolean deleted() {
+            return this.size == 0;
+        }
+    }
+
+    /**
+     * @param listedAt wall clock time the listing started, the next refresh continues from there
+     * @param fullyListedAt wall clock time of the last complete listing
+     */
+    record Pending(Map<String, PendingRecord> records, long listedAt, long fullyListedAt, long loadedAt) {}
+
+    record Shard(Map<String, Location> locations, String eTag, long loadedAt) {}
+
+    /**
+     * All indexed IDs in key order, built from the location maps of the listed shards.
+     */
+    record IndexedIds(List<Map<String, Location>> sources, NavigableSet<String> ids) {}
+
+    @ConfigProperty(name = "address.bucket.name", defaultValue = "-not-set-")
+    String bucketName;
+
+    @ConfigProperty(name = "address.segment.index.shards", defaultValue = "64")
+    int numberOfShards;
+
+    @ConfigProperty(name = "address.segment.refresh.seconds", defaultValue = "5")
+    long refreshSeconds;
+
+    @ConfigProperty(name = "address.segment.compaction.max.records", defaultValue = "100000")
+    int maxCompactionRecords;
+
+    @ConfigProperty(name = "address.fetch.concurrency", defaultValue = "64")
+    int fetchConcurrency;
+
+    AtomicReferenceArray<Shard> shards;
+    ReentrantLock[] locks;
+    volatile Pending pending;
+    volatile IndexedIds indexedIds;
+
+    @PostConstruct
+    void init() {
+        this.shards = new AtomicReferenceArray<>(numberOfShards);
+        this.locks = new ReentrantLock[numberOfShards];
+        for (int i = 0; i < numberOfShards; i++) {
+            this.locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * @return the location of the current version, empty if the address does not exist
+     */
+    Optional<Location> locate(String id) {
+        var record = pending().records().get(id);
+        if (record != null) {
+            return record.deleted()
+                    ? Optional.empty()
+                    : Optional.of(new Location(record.key(), 0, Location.WHOLE_OBJECT));
+        }
+        return Optional.ofNullable(shard(shardOf(id)).locations().get(id));
+    }
+
+    /**
+     * Reads the record at the location with a Range GET, or a plain GET for pending objects.
+     *
+     * @return the stored content, empty if the location vanished due to a concurrent compaction
+     */
+    Optional<byte[]> read(Location location) {
+        var getObjectRequest = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(location.key());
+        if (!location.pending()) {
+            getObjectRequest.range("bytes=" + location.offset() + "-" + (location.offset() + location.length() - 1));
+        }
+        try {
+            return Optional.of(S3Access.CLIENT.getObjectAsBytes(getObjectRequest.build()).asByteArray());
+        } catch (NoSuchKeyException e) {
+            vanished(location);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * A concurrent compaction packed the pending object: forgets it and revalidates
+     * the index shard pointing to the new segment.
+     */
+    void vanished(Location location) {
+        if (!location.pending()) {
+            return;
+        }
+        var id = idOf(location.key());
+        var current = this.pending;
+        if (current != null) {
+            current.records().computeIfPresent(id, (key, record) -> record.key().equals(location.key()) ? null : record);
+        }
+        var index = shardOf(id);
+        reload(index, this.shards.get(index));
+    }
+
+    /**
+     * Appends a new version of the address.
+     *
+     * @return the version of the written record
+     * @throws S3Exception if the append object cannot be written
+     */
+    String write(String id, byte[] content, String contentType) {
+        var body = RequestBody.fromContentProvider(() -> new ByteArrayInputStream(content), content.length, contentType);
+        var key = append(id, body, content.length, contentType);
+        return new Location(key, 0, Location.WHOLE_OBJECT).version();
+    }
+
+    /**
+     * Appends a deletion of the address.
+     *
+     * @throws S3Exception if the append object cannot be written
+     */
+    void delete(String id) {
+        append(id, RequestBody.empty(), 0, StorageFormat.json.contentType);
+    }
+
+    String append(String id, RequestBody body, long size, String contentType) {
+        var key = PENDING_PREFIX + "%013d-%s/".formatted(System.currentTimeMillis(), UUID.randomUUID()) + id;
+        var putObjectRequest = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .contentType(contentType)
+                .build();
+        S3Access.CLIENT.putObject(putObjectRequest, body);
+        var current = this.pending;
+        if (current != null) {
+            current.records().merge(id, new PendingRecord(key, size), SegmentStore::newer);
+        }
+        return key;
+    }
+
+    /**
+     * All existing IDs in key order, intended for listings.
+     */
+    List<String> ids() {
+        return ids(null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * One page of IDs in key order after the cursor.
+     */
+    IdPage page(int limit, String nextToken) {
+        var ids = ids(nextToken, limit + 1);
+        var hasMore = ids.size() > limit;
+        var page = hasMore ? ids.subList(0, limit) : ids;
+        return new IdPage(page, page.isEmpty() ? null : page.getLast(), hasMore);
+    }
+
+    /**
+     * Merges the cached indexed IDs with the pending writes without copying the index.
+     */
+    List<String> ids(String after, int count) {
+        var indexed = indexedIds();
+        var written = new TreeSet<String>();
+        var deleted = new HashSet<String>();
+        pending().records().forEach((id, record) -> {
+            if (record.deleted()) {
+                deleted.add(id);
+            } else {
+                written.add(id);
+            }
+        });
+        if (after != null && !after.isBlank()) {
+            return merge(indexed.tailSet(after, false), written.tailSet(after, false), deleted, count);
+        }
+        return merge(indexed, written, deleted, count);
+    }
+
+    /**
+     * @return the first count IDs of both sorted sets without duplicates and deleted IDs
+     */
+    static List<String> merge(NavigableSet<String> indexed, NavigableSet<String> written, Set<String> deleted, int count) {
+        var ids = new ArrayList<String>(Math.min(count, indexed.size() + written.size()));
+        var indexedIds = indexed.iterator();
+        var writtenIds = written.iterator();
+        var nextIndexed = next(indexedIds, deleted);
+        var nextWritten = writtenIds.hasNext() ? writtenIds.next() : null;
+        while (ids.size() < count && (nextIndexed != null || nextWritten != null)) {
+            var order = nextIndexed == null ? 1 : nextWritten == null ? -1 : nextIndexed.compareTo(nextWritten);
+            if (order <= 0) {
+                ids.add(nextIndexed);
+                nextIndexed = next(indexedIds, deleted);
+            } else {
+                ids.add(nextWritten);
+            }
+            if (order >= 0) {
+                nextWritten = writtenIds.hasNext() ? writtenIds.next() : null;
+            }
+        }
+        return ids;
+    }
+
+    static String next(Iterator<String> ids, Set<String> deleted) {
+        while (ids.hasNext()) {
+            var id = ids.next();
+            if (!deleted.contains(id)) {
+                return id;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The sorted IDs of all shards, rebuilt only if a shard was loaded with new content.
+     */
+    NavigableSet<String> indexedIds() {
+        var sources = shards()
+                .stream()
+                .map(Shard::locations)
+                .toList();
+        var current = this.indexedIds;
+        if (current != null && sameInstances(current.sources(), sources)) {
+            return current.ids();
+        }
+        var ids = new TreeSet<String>();
+        sources.forEach(locations -> ids.addAll(locations.keySet()));
+        var sorted = Collections.unmodifiableNavigableSet(ids);
+        this.indexedIds = new IndexedIds(sources, sorted);
+        return sorted;
+    }
+
+    static boolean sameInstances(List<?> first, List<?> second) {
+        if (first.size() != second.size()) {
+            return false;
+        }
+        for (int i = 0; i < first.size(); i++) {
+            if (first.get(i) != second.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * All shards, reloading missing and stale ones in parallel.
+     */
+    List<Shard> shards() {
+        var outdated = IntStream.range(0, numberOfShards)
+                .filter(index -> {
+                    var shard = this.shards.get(index);
+                    return shard == null || isStale(shard.loadedAt());
+                })
+                .boxed()
+                .toList();
+        if (!outdated.isEmpty()) {
+            ParallelFetcher.fetchAll(outdated, this::shard, numberOfShards);
+        }
+        return IntStream.range(0, numberOfShards)
+                .mapToObj(this.shards::get)
+                .toList();
+    }
+
+    /**
+     * Packs up to {@code address.segment.compaction.max.records} pending records into a new
+     * segment, points the index to it and deletes the packed append objects.
+     *
+     * @return counters of the compaction run
+     * @throws AddressException if the segment or an index shard cannot be written
+     */
+    public JsonObject compact() {
+        var listed = listPending();
+        var latest = new TreeMap<String, PendingRecord>();
+        listed.forEach((key, size) -> {
+            var id = idOf(key);
+            if (latest.size() < maxCompactionRecords || latest.containsKey(id)) {
+                latest.merge(id, new PendingRecord(key, size), SegmentStore::newer);
+            }
+        });
+        var ids = List.copyOf(latest.keySet());
+        var contents = ParallelFetcher.fetchAll(ids, id -> {
+            var record = latest.get(id);
+            if (record.deleted()) {
+                return DELETED;
+            }
+            return read(new Location(record.key(), 0, Location.WHOLE_OBJECT)).orElse(null);
+        }, fetchConcurrency);
+
+        var segmentKey = DATA_PREFIX + "%013d-%s".formatted(System.currentTimeMillis(), UUID.randomUUID());
+        var segment = new ByteArrayOutputStream();
+        var changes = new HashMap<Integer, Map<String, Location>>();
+        for (int i = 0; i < ids.size(); i++) {
+            var id = ids.get(i);
+            var content = contents.get(i);
+            if (content == null) {
+                latest.remove(id);
+                continue;
+            }
+            Location location = null;
+            if (content != DELETED) {
+                location = new Location(segmentKey, segment.size(), content.length);
+                segment.writeBytes(content);
+            }
+            changes.computeIfAbsent(shardOf(id), shard -> new HashMap<>()).put(id, location);
+        }
+        if (segment.size() > 0) {
+            put(segmentKey, segment.toByteArray());
+        }
+        ParallelFetcher.fetchAll(List.copyOf(changes.keySet()), index -> {
+            updateShard(index, changes.get(index));
+            return index;
+        }, numberOfShards);
+
+        var packedKeys = listed.keySet()
+                .stream()
+                .filter(key -> {
+                    var record = latest.get(idOf(key));
+                    return record != null;
+                })
+                .toList();
+        deleteKeys(packedKeys);
+        this.pending = null;
+        logger.log(Logger.Level.INFO, "Compacted {0} addresses into segment {1} with {2} bytes",
+                latest.size(), segmentKey, segment.size());
+        return Json.createObjectBuilder()
+                .add("addresses", latest.size())
+                .add("bytes", segment.size())
+                .add("segment", segmentKey)
+                .add("remaining", listed.size() - packedKeys.size())
+                .build();
+    }
+
+    static PendingRecord newer(PendingRecord first, PendingRecord second) {
+        return first.key().compareTo(second.key()) > 0 ? first : second;
+    }
+
+    static String idOf(String pendingKey) {
+        return pendingKey.substring(pendingKey.indexOf('/', PENDING_PREFIX.length()) + 1);
+    }
+
+    /**
+     * The newest pending record of each ID. Refreshes list only the keys written since
+     * the previous listing, every {@value #FULL_LISTING_MILLIS} ms all append objects are listed.
+     */
+    Pending pending() {
+        var current = this.pending;
+        if (current == null || isStale(current.loadedAt())) {
+            var listedAt = System.currentTimeMillis();
+            var full = current == null || listedAt - current.fullyListedAt() > FULL_LISTING_MILLIS;
+            var records = full
+                    ? new ConcurrentHashMap<String, PendingRecord>()
+                    : new ConcurrentHashMap<>(current.records());
+            var startAfter = full ? null : startAfter(current.listedAt() - LISTING_OVERLAP_MILLIS);
+            listPending(startAfter).forEach((key, size) -> records.merge(idOf(key), new PendingRecord(key, size), SegmentStore::newer));
+            current = new Pending(records, listedAt, full ? listedAt : current.fullyListedAt(), System.nanoTime());
+            this.pending = current;
+        }
+        return current;
+    }
+
+    /**
+     * @return a marker sorting before every append key written at or after the time
+     */
+    static String startAfter(long timestamp) {
+        return PENDING_PREFIX + "%013d".formatted(Math.max(0, timestamp));
+    }
+
+    Map<String, Long> listPending() {
+        return listPending(null);
+    }
+
+    /**
+     * @param startAfter marker to continue after, or null for all append objects
+     */
+    Map<String, Long> listPending(String startAfter) {
+        var listObjectsRequest = ListObjectsV2Request.builder()
+                .bucket(bucketName)
+                .prefix(PENDING_PREFIX)
+                .startAfter(startAfter)
+                .build();
+        var keys = new TreeMap<String, Long>();
+        S3Access.CLIENT.listObjectsV2Paginator(listObjectsRequest)
+                .contents()
+                .forEach(object -> keys.put(object.key(), object.size()));
+        return keys;
+    }
+
+    int shardOf(String id) {
+        return (int) Math.floorMod(BloomFilter.mix(BloomFilter.hash(id)), (long) numberOfShards);
+    }
+
+    boolean isStale(long loadedAt) {
+        return System.nanoTime() - loadedAt > TimeUnit.SECONDS.toNanos(refreshSeconds);
+    }
+
+    String key(int index) {
+        return INDEX_PREFIX + index;
+    }
+
+    Shard shard(int index) {
+        var shard = this.shards.get(index);
+        if (shard == null || isStale(shard.loadedAt())) {
+            shard = reload(index, shard);
+        }
+        return shard;
+    }
+
+    /**
+     * Loads a shard, revalidating a previously loaded one with If-None-Match.
+     */
+    Shard reload(int index, Shard loaded) {
+        var getObjectRequest = GetObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key(index));
+        if (loaded != null && loaded.eTag() != null) {
+            getObjectRequest.ifNoneMatch(loaded.eTag());
+        }
+        Shard shard;
+        try (var response = S3Access.CLIENT.getObject(getObjectRequest.build());
+                var input = new DataInputStream(new BufferedInputStream(response))) {
+            shard = new Shard(readLocations(input), response.response().eTag(), System.nanoTime());
+        } catch (NoSuchKeyException e) {
+            shard = new Shard(Map.of(), null, System.nanoTime());
+        } catch (S3Exception e) {
+            if (loaded == null || e.statusCode() != AddressStorage.NOT_MODIFIED) {
+                throw e;
+            }
+            shard = new Shard(loaded.locations(), loaded.eTag(), System.nanoTime());
+        } catch (IOException e) {
+            throw new AddressException("Failed to read segment index: " + e.getMessage(), e);
+        }
+        this.shards.set(index, shard);
+        return shard;
+    }
+
+    /**
+     * Applies index changes to a shard, a null location removes the ID.
+     *
+     * The lock serializes compactions of this instance, the conditional PUT those of
+     * other instances: a lost race re-reads the shard and applies the changes again.
+     *
+     * @throws AddressException if the shard cannot be written or keeps changing concurrently
+     */
+    void updateShard(int index, Map<String, Location> changes) {
+        var lock = this.locks[index];
+        lock.lock();
+        try {
+            for (var attempt = 1; attempt <= ConditionalWrite.MAX_ATTEMPTS; attempt++) {
+                var shard = reload(index, this.shards.get(index));
+                var locations = new HashMap<>(shard.locations());
+                changes.forEach((id, location) -> {
+                    if (location == null) {
+                        locations.remove(id);
+                    } else {
+                        locations.put(id, location);
+                    }
+                });
+                var bytes = new ByteArrayOutputStream();
+                try (var output = new DataOutputStream(bytes)) {
+                    writeLocations(locations, output);
+                } catch (IOException e) {
+                    throw new AddressException("Failed to encode segment index: " + e.getMessage(), e);
+                }
+                var eTag = writeShard(index, bytes.toByteArray(), shard.eTag());
+                if (eTag != null) {
+                    this.shards.set(index, new Shard(Map.copyOf(locations), eTag, System.nanoTime()));
+                    return;
+                }
+                logger.log(Logger.Level.DEBUG, "Segment index shard {0} changed concurrently, attempt {1}", index, attempt);
+            }
+            throw new AddressException("Failed to compact segments: index shard " + index + " changed concurrently");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    static void writeLocations(Map<String, Location> locations, DataOutputStream output) throws IOException {
+        var segments = new ArrayList<String>();
+        var segmentCodes = new HashMap<String, Integer>();
+        locations.values().forEach(location -> segmentCodes.computeIfAbsent(location.key(), key -> {
+            segments.add(key);
+            return segments.size() - 1;
+        }));
+        output.writeInt(segments.size());
+        for (var segment : segments) {
+            output.writeUTF(segment);
+        }
+        output.writeInt(locations.size());
+        for (var entry : locations.entrySet()) {
+            var location = entry.getValue();
+            output.writeUTF(entry.getKey());
+            output.writeInt(segmentCodes.get(location.key()));
+            output.writeLong(location.offset());
+            output.writeInt(location.length());
+        }
+    }
+
+    static Map<String, Location> readLocations(DataInputStream input) throws IOException {
+        var segments = new String[input.readInt()];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = input.readUTF();
+        }
+        var count = input.readInt();
+        var locations = new HashMap<String, Location>(count * 4 / 3 + 1);
+        for (int i = 0; i < count; i++) {
+            var id = input.readUTF();
+            locations.put(id, new Location(segments[input.readInt()], input.readLong(), input.readInt()));
+        }
+        return locations;
+    }
+
+    String put(String key, byte[] content) {
+        var putObjectRequest = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key)
+                .contentType(AddressIdFilter.CONTENT_TYPE)
+                .build();
+        try {
+            return S3Access.CLIENT.putObject(putObjectRequest, RequestBody.fromBytes(content)).eTag();
+        } catch (S3Exception e) {
+            logger.log(Logger.Level.ERROR, "Failed to write segment object {0}. Reason: {1}", key, e);
+            throw new AddressException("Failed to compact segments: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Replaces the shard only if it is still the version with the expected ETag,
+     * or creates it only if it does not exist yet.
+     *
+     * @return the ETag of the written shard, null if another instance changed it first
+     */
+    String writeShard(int index, byte[] content, String expectedETag) {
+        var putObjectRequest = PutObjectRequest.builder()
+                .bucket(bucketName)
+                .key(key(index))
+                .contentType(AddressIdFilter.CONTENT_TYPE)
+                .overrideConfiguration(expectedETag == null
+                        ? ConditionalWrite.ifNoneMatch()
+                        : ConditionalWrite.ifMatch(expectedETag))
+                .build();
+        try {
+            return S3Access.CLIENT.putObject(putObjectRequest, RequestBody.fromBytes(content)).eTag();
+        } catch (S3Exception e) {
+            if (ConditionalWrite.lostRace(e)) {
+                return null;
+            }
+            logger.log(Logger.Level.ERROR, "Failed to write segment index shard {0}. Reason: {1}", index, e);
+            throw new AddressException("Failed to compact segments: " + e.getMessage(), e);
+        }
+    }
+
+    void deleteKeys(List<String> keys) {
+        for (int from = 0; from < keys.size(); from += AddressStorage.MAX_DELETE_BATCH_SIZE) {
+            var batch = keys.subList(from, Math.min(keys.size(), from + AddressStorage.MAX_DELETE_BATCH_SIZE));
+            var objects = batch.stream()
+                    .map(key -> ObjectIdentifier.builder().key(key).build())
+                    .toList();
+            var deleteObjectsRequest = DeleteObjectsRequest.builder()
+                    .bucket(bucketName)
+                    .delete(Delete.builder().objects(objects).quiet(true).build())
+                    .build();
+            try {
+                var response = S3Access.CLIENT.deleteObjects(deleteObjectsRequest);
+                response.errors().forEach(error -> logger.log(Logger.Level.WARNING,
+                        "Packed append object {0} left behind. Reason: {1}", error.key(), error.message()));
+            } catch (S3Exception e) {
+                logger.log(Logger.Level.WARNING, "Packed append objects left behind: {0}. Reason: {1}", batch.size(), e);
+            }
+        }
+    }
+
+    public JsonObject statistics() {
+        var loaded = 0;
+        var entries = 0;
+        for (int i = 0; i < this.shards.length(); i++) {
+            var shard = this.shards.get(i);
+            if (shard != null) {
+                loaded++;
+                entries += shard.locations().size();
+            }
+        }
+        var current = this.pending;
+        return Json.createObjectBuilder()
+                .add("shards", numberOfShards)
+                .add("loadedShards", loaded)
+                .add("indexedAddresses", entries)
+                .add("pendingAddresses", current == null ? 0 : current.records().size())
+                .build();
+    }
+}
@@ -0,0 +1,192 @@
+package airhacks.qmpd.addresses.control;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.lang.System.Logger;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.crac.Context;
+import org.crac.Core;
+import org.crac.Resource;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import airhacks.qmpd.addresses.entity.Address;
+import airhacks.qmpd.addresses.entity.AddressResponse;
+import airhacks.qmpd.addresses.entity.AddressUpdateRequest;
+import airhacks.qmpd.addresses.entity.AddressValidationException;
+import airhacks.qmpd.addresses.entity.JSONWritable;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+/**
+ * Warms the request paths before a SnapStart checkpoint and reconnects after restore.
+ *
+ * Before the checkpoint, addresses are encoded, decoded and validated for every country
+ * with a postal code pattern, and a HEAD and GET of the missing key {@value #PROBE_KEY}
+ * load the S3 signing, TLS and error unmarshalling classes. After restore, the credentials
+ * cached in the snapshot are dropped and the probe opens a fresh connection.
+ * Priming never fails the checkpoint, errors are logged. The latency of the first request
+ * after a restore is logged regardless of {@code address.priming.enabled}, and the first
+ * request after init or restore is flagged in its {@link RequestTiming}.
+ */
+@ApplicationScoped
+public class SnapStartPriming implements Resource {
+
+    private static final Logger logger = System.getLogger(SnapStartPriming.class.getName());
+
+    static final String PROBE_KEY = "priming/probe";
+
+    static final List<Address> SAMPLES = List.of(
+        Address.create("123 Main St", "Springfield", "IL", "62701", "US"),
+        Address.create("24 Sussex Dr", "Ottawa", "ON", "K1A 0B1", "CA"),
+        Address.create("10 Downing St", "London", "England", "SW1A 2AA", "GB"),
+        Address.create("Unter den Linden 1", "Berlin", "Berlin", "10117", "DE"),
+        Address.create("1 Rue de Rivoli", "Paris", "IDF", "75001", "FR"));
+
+    @ConfigProperty(name = "address.bucket.name", defaultValue = "-not-set-")
+    String bucketName;
+
+    @ConfigProperty(name = "address.priming.enabled", defaultValue = "true")
+    boolean enabled;
+
+    volatile long restoredAt;
+    final AtomicBoolean awaitingFirstRequest = new AtomicBoolean();
+
+    volatile long initMillis;
+    volatile long restoreMillis;
+    final AtomicBoolean firstAfterInit = new AtomicBoolean();
+    final AtomicBoolean firstAfterRestore = new AtomicBoolean();
+
+    void register(@Observes StartupEvent event) {
+        this.initMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        this.firstAfterInit.set(true);
+        Core.getGlobalContext().register(this);
+    }
+
+    @Override
+    public void beforeCheckpoint(Context<? extends Resource> context) {
+        if (!this.enabled) {
+            return;
+        }
+        var started = System.nanoTime();
+        try {
+            primeSerialization();
+            primeValidation();
+            probe();
+        } catch (RuntimeException e) {
+            logger.log(Logger.Level.WARNING, "Priming before checkpoint failed: {0}", e);
+        }
+        InvocationMetrics.discard();
+        logger.log(Logger.Level.INFO, "Primed before checkpoint in {0} ms", elapsedMillis(started));
+    }
+
+    @Override
+    public void afterRestore(Context<? extends Resource> context) {
+        this.restoredAt = System.nanoTime();
+        this.awaitingFirstRequest.set(true);
+        this.firstAfterInit.set(false);
+        if (this.enabled) {
+            reconnect();
+        }
+        this.restoreMillis = elapsedMillis(this.restoredAt);
+        this.firstAfterRestore.set(true);
+    }
+
+    void reconnect() {
+        try {
+            S3Clients.resetCredentials();
+            probe();
+        } catch (RuntimeException e) {
+            logger.log(Logger.Level.WARNING, "Reconnect after restore failed: {0}", e);
+        }
+        InvocationMetrics.discard();
+        logger.log(Logger.Level.INFO, "Reconnected after restore in {0} ms", elapsedMillis(this.restoredAt));
+    }
+
+    /**
+     * Adds the JVM and application start to the first request after init, and the
+     * restore hook to the first request after a restore.
+     */
+    public void flagColdStart(RequestTiming timing) {
+        if (this.firstAfterInit.compareAndSet(true, false)) {
+            timing.flag(RequestTiming.Phase.init, this.initMillis);
+        }
+        if (this.firstAfterRestore.compareAndSet(true, false)) {
+            timing.flag(RequestTiming.Phase.restore, this.restoreMillis);
+        }
+    }
+
+    /**
+     * Reports the latency of the first request served after a restore, once per restore.
+     *
+     * @param requestStarted System.nanoTime() at the arrival of the request
+     */
+    public void requestCompleted(long requestStarted) {
+        if (!this.awaitingFirstRequest.compareAndSet(true, false)) {
+            return;
+        }
+        logger.log(Logger.Level.INFO, "First request after restore: {0} ms, arrived {1} ms after restore",
+                elapsedMillis(requestStarted), TimeUnit.NANOSECONDS.toMillis(requestStarted - this.restoredAt));
+    }
+
+    static void primeSerialization() {
+        for (var address : SAMPLES) {
+            AddressCodec.decode(AddressCodec.encode(address, StorageFormat.json));
+            AddressCodec.decode(AddressCodec.encode(address, StorageFormat.binary));
+            var bytes = new ByteArrayOutputStream();
+            try (var generator = JSONWritable.GENERATORS.createGenerator(bytes)) {
+                new PaginationResult(List.of(address), address.id(), true).writeJSON(generator);
+            }
+            try (var generator = JSONWritable.GENERATORS.createGenerator(bytes)) {
+                AddressResponse.from(address).writeJSON(generator);
+            }
+        }
+        var update = "{\"city\":\"Seattle\",\"postalCode\":\"98101\"}";
+        AddressUpdateRequest.fromJSON(JSONWritable.PARSERS.createParser(new StringReader(update)));
+        Address.fromCreateRequest(JSONWritable.PARSERS.createParser(new StringReader(update)));
+    }
+
+    static void primeValidation() {
+        SAMPLES.forEach(AddressValidator::validateForCreation);
+        var invalid = new Address(UUID.randomUUID().toString(), "", "Springfield", "IL", "ABC", "US",
+                LocalDateTime.now(), LocalDateTime.now());
+        try {
+            AddressValidator.validateForCreation(invalid);
+        } catch (AddressValidationException expected) {
+            expected.getResponse();
+        }
+    }
+
+    /**
+     * The probe key never exists, a 404 is the expected outcome of both requests.
+     */
+    void probe() {
+        try {
+            S3Access.CLIENT.headObject(builder -> builder.bucket(this.bucketName).key(PROBE_KEY));
+        } catch (NoSuchKeyException expected) {
+        } catch (S3Exception e) {
+            if (e.statusCode() != 404) {
+                throw e;
+            }
+        }
+        try (var response = S3Access.CLIENT.getObject(builder -> builder.bucket(this.bucketName).key(PROBE_KEY))) {
+            response.readAllBytes();
+        } catch (NoSuchKeyException expected) {
+        } catch (IOException e) {
+            logger.log(Logger.Level.WARNING, "Probe read failed: {0}", e);
+        }
+    }
+
+    static long elapsedMillis(long started) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+    }
+}
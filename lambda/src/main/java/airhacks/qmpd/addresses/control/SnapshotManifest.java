@@ -0,0 +1,41 @@
+package airhacks.qmpd.addresses.control;
+
+import java.util.List;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonString;
+
+/**
+ * Describes a complete snapshot: when it was taken, how many addresses
+ * it contains and the S3 keys of its parts in scan order.
+ */
+public record SnapshotManifest(
+    long takenAt,
+    long count,
+    List<String> parts
+) {
+
+    public JsonObject toJSON() {
+        var partsBuilder = Json.createArrayBuilder();
+        parts.forEach(partsBuilder::add);
+        return Json.createObjectBuilder()
+            .add("takenAt", takenAt)
+            .add("count", count)
+            .add("parts", partsBuilder)
+            .build();
+    }
+
+    public static SnapshotManifest fromJSON(JsonObject json) {
+        var parts = json.getJsonArray("parts")
+            .getValuesAs(JsonString.class)
+            .stream()
+            .map(JsonString::getString)
+            .toList();
+        return new SnapshotManifest(
+            json.getJsonNumber("takenAt").longValue(),
+            json.getJsonNumber("count").longValue(),
+            parts
+        );
+    }
+}
@@ -0,0 +1,80 @@
+package airhacks.qmpd.addresses.control;
+
+import java.util.List;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonString;
+
+/**
+ * A snapshot in progress, stored between the invocations that write its parts.
+ *
+ * The previous snapshot is copied part by part without the changed addresses, which are
+ * fetched afterwards in ID order; without a previous snapshot all addresses are listed.
+ *
+ * @param basedOn takenAt of the previous snapshot, -1 if there is none
+ * @param nextPart the next part of the previous snapshot to copy
+ * @param cursor the last changed or listed ID, null before the first one
+ * @param parts the parts written so far
+ * @param version ETag of the stored run, null before it was stored
+ */
+record SnapshotRun(
+    String token,
+    long takenAt,
+    long basedOn,
+    Phase phase,
+    int nextPart,
+    String cursor,
+    long count,
+    List<String> parts,
+    String version
+) {
+
+    enum Phase {
+        previous, changes, listing
+    }
+
+    SnapshotRun next(Phase phase, int nextPart, String cursor, long count, List<String> parts) {
+        return new SnapshotRun(token, takenAt, basedOn, phase, nextPart, cursor, count, List.copyOf(parts), version);
+    }
+
+    SnapshotRun stored(String version) {
+        return new SnapshotRun(token, takenAt, basedOn, phase, nextPart, cursor, count, parts, version);
+    }
+
+    JsonObject toJSON() {
+        var partsBuilder = Json.createArrayBuilder();
+        parts.forEach(partsBuilder::add);
+        var builder = Json.createObjectBuilder()
+            .add("token", token)
+            .add("takenAt", takenAt)
+            .add("basedOn", basedOn)
+            .add("phase", phase.name())
+            .add("nextPart", nextPart)
+            .add("count", count)
+            .add("parts", partsBuilder);
+        if (cursor != null) {
+            builder.add("cursor", cursor);
+        }
+        return builder.build();
+    }
+
+    static SnapshotRun fromJSON(JsonObject json, String version) {
+        var parts = json.getJsonArray("parts")
+            .getValuesAs(JsonString.class)
+            .stream()
+            .map(JsonString::getString)
+            .toList();
+        return new SnapshotRun(
+            json.getString("token"),
+            json.getJsonNumber("takenAt").longValue(),
+            json.getJsonNumber("basedOn").longValue(),
+            Phase.valueOf(json.getString("phase")),
+            json.getInt("nextPart"),
+            json.getString("cursor", null),
+            json.getJsonNumber("count").longValue(),
+            parts,
+            version
+        );
+    }
+}
@@ -0,0 +1,19 @@
+package airhacks.qmpd.addresses.control;
+
+/**
+ * Encoding of newly written address records, selected with {@code address.storage.format}.
+ * Records of either format are readable regardless of the setting, see {@link AddressCodec}.
+ * Each format has its own key suffix, the key names the encoding of the object.
+ */
+public enum StorageFormat {
+    json("application/json", ".json"),
+    binary("application/vnd.airhacks.address.v1", ".bin");
+
+    final String contentType;
+    final String suffix;
+
+    StorageFormat(String contentType, String suffix) {
+        this.contentType = contentType;
+        this.suffix = suffix;
+    }
+}
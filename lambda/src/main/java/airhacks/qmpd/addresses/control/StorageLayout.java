@@ -0,0 +1,15 @@
+package airhacks.qmpd.addresses.control;
+
+/**
+ * How address records are laid out in the bucket, selected with {@code address.storage.layout}.
+ */
+public enum StorageLayout {
+    /**
+     * One object per address at the bucket root.
+     */
+    object,
+    /**
+     * Addresses packed into segment objects, read with Range GETs, see {@link SegmentStore}.
+     */
+    segment
+}
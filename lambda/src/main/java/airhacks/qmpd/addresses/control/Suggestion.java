@@ -0,0 +1,17 @@
+package airhacks.qmpd.addresses.control;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+
+/**
+ * Autocomplete proposal with the number of addresses using the value.
+ */
+public record Suggestion(String value, int count) {
+
+    public JsonObject toJSON() {
+        return Json.createObjectBuilder()
+            .add("value", value)
+            .add("count", count)
+            .build();
+    }
+}
@@ -5,6 +5,8 @@ import java.time.format.DateTimeFormatter;
 import java.util.UUID;
 import jakarta.json.Json;
 import jakarta.json.JsonObject;
+import jakarta.json.stream.JsonGenerator;
+import jakarta.json.stream.JsonParser;
 
 /**
  * Core domain object representing an address record.
@@ -21,7 +23,7 @@ public record Address(
     String country,
     LocalDateTime createdAt,
     LocalDateTime updatedAt
-) {
+) implements JSONWritable {
 
     public JsonObject toJSON() {
         return Json.createObjectBuilder()
@@ -36,6 +38,20 @@ public record Address(
             .build();
     }
     
+    @Override
+    public void writeJSON(JsonGenerator generator) {
+        generator.writeStartObject();
+        JSONWritable.write(generator, "id", id);
+        JSONWritable.write(generator, "street", street);
+        JSONWritable.write(generator, "city", city);
+        JSONWritable.write(generator, "state", state);
+        JSONWritable.write(generator, "postalCode", postalCode);
+        JSONWritable.write(generator, "country", country);
+        generator.write("createdAt", createdAt.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        generator.write("updatedAt", updatedAt.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+        generator.writeEnd();
+    }
+
     public static Address fromJSON(JsonObject json) {
         return new Address(
             json.getString("id"),
@@ -73,6 +89,16 @@ public record Address(
         );
     }
 
+    /**
+     * Creates a new address from a create request body without building a JsonObject.
+     *
+     * @throws AddressValidationException if the body is not an object of string fields
+     */
+    public static Address fromCreateRequest(JsonParser parser) {
+        var fields = AddressUpdateRequest.fromJSON(parser);
+        return create(fields.street(), fields.city(), fields.state(), fields.postalCode(), fields.country());
+    }
+
     public Address update(AddressUpdateRequest request) {
         var now = LocalDateTime.now();
         return new Address(
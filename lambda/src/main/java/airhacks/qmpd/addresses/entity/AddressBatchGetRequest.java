@@ -0,0 +1,41 @@
+package airhacks.qmpd.addresses.entity;
+
+import java.util.List;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+
+/**
+ * Request model for fetching multiple address records at once.
+ * 
+ * The ids field is nullable to let validation report
+ * a missing list instead of failing during deserialization.
+ */
+public record AddressBatchGetRequest(List<String> ids) {
+
+    public JsonObject toJSON() {
+        var idsBuilder = Json.createArrayBuilder();
+        if (ids != null) {
+            ids.forEach(idsBuilder::add);
+        }
+        return Json.createObjectBuilder()
+            .add("ids", idsBuilder)
+            .build();
+    }
+
+    public static AddressBatchGetRequest fromJSON(JsonObject json) {
+        if (!json.containsKey("ids") || json.isNull("ids")) {
+            return new AddressBatchGetRequest(null);
+        }
+        if (json.get("ids").getValueType() != JsonValue.ValueType.ARRAY) {
+            throw new AddressValidationException("ids", "ids must be an array");
+        }
+        var ids = json.getJsonArray("ids")
+            .stream()
+            .map(value -> value instanceof JsonString string ? string.getString() : value.toString())
+            .toList();
+        return new AddressBatchGetRequest(ids);
+    }
+}
@@ -0,0 +1,77 @@
+package airhacks.qmpd.addresses.entity;
+
+import java.util.List;
+
+import jakarta.json.Json;
+import jakarta.json.JsonArray;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+
+/**
+ * Request model for bulk address operations.
+ * 
+ * Creates and updates are kept as raw JSON objects, so a malformed item
+ * fails on its own during processing instead of rejecting the whole request.
+ * Updates carry the address id next to the fields to change.
+ * An operation list that is not an array rejects the request.
+ */
+public record AddressBulkRequest(
+    List<JsonObject> create,
+    List<JsonObject> update,
+    List<String> delete
+) {
+
+    public int size() {
+        return create.size() + update.size() + delete.size();
+    }
+
+    public JsonObject toJSON() {
+        var createBuilder = Json.createArrayBuilder();
+        create.forEach(createBuilder::add);
+        var updateBuilder = Json.createArrayBuilder();
+        update.forEach(updateBuilder::add);
+        var deleteBuilder = Json.createArrayBuilder();
+        delete.forEach(deleteBuilder::add);
+        return Json.createObjectBuilder()
+            .add("create", createBuilder)
+            .add("update", updateBuilder)
+            .add("delete", deleteBuilder)
+            .build();
+    }
+
+    public static AddressBulkRequest fromJSON(JsonObject json) {
+        return new AddressBulkRequest(
+            objects(json, "create"),
+            objects(json, "update"),
+            strings(json, "delete")
+        );
+    }
+
+    static List<JsonObject> objects(JsonObject json, String name) {
+        if (!json.containsKey(name) || json.isNull(name)) {
+            return List.of();
+        }
+        return array(json, name)
+            .stream()
+            .map(value -> value instanceof JsonObject object ? object : JsonValue.EMPTY_JSON_OBJECT)
+            .toList();
+    }
+
+    static List<String> strings(JsonObject json, String name) {
+        if (!json.containsKey(name) || json.isNull(name)) {
+            return List.of();
+        }
+        return array(json, name)
+            .stream()
+            .map(value -> value instanceof JsonString string ? string.getString() : value.toString())
+            .toList();
+    }
+
+    static JsonArray array(JsonObject json, String name) {
+        if (json.get(name).getValueType() != JsonValue.ValueType.ARRAY) {
+            throw new AddressValidationException(name, name + " must be an array");
+        }
+        return json.getJsonArray(name);
+    }
+}
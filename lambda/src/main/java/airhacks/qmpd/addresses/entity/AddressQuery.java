@@ -0,0 +1,38 @@
+package airhacks.qmpd.addresses.entity;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Query by indexed address fields.
+ * 
+ * Null fields are not constrained. Values are compared case-insensitively
+ * after trimming, the same normalization is used for index keys.
+ */
+public record AddressQuery(
+    String country,
+    String city,
+    String postalCode
+) {
+
+    public boolean isEmpty() {
+        return country == null && city == null && postalCode == null;
+    }
+
+    public boolean matches(Address address) {
+        return matches(country, address.country())
+            && matches(city, address.city())
+            && matches(postalCode, address.postalCode());
+    }
+
+    static boolean matches(String expected, String actual) {
+        return expected == null || Objects.equals(normalize(expected), normalize(actual));
+    }
+
+    public static String normalize(String value) {
+        if (value == null) {
+            return null;
+        }
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -2,8 +2,8 @@ package airhacks.qmpd.addresses.entity;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import jakarta.json.Json;
 import jakarta.json.JsonObject;
+import jakarta.json.stream.JsonGenerator;
 
 /**
  * Response model for address operations.
@@ -21,7 +21,7 @@ public record AddressResponse(
     String country,
     LocalDateTime createdAt,
     LocalDateTime updatedAt
-) {
+) implements JSONWritable {
     
     /**
      * Creates AddressResponse from Address entity.
@@ -40,18 +40,21 @@ public record AddressResponse(
     }
     
     public JsonObject toJSON() {
-        return Json.createObjectBuilder()
-            .add("id", id)
-            .add("street", street)
-            .add("city", city)
-            .add("state", state)
-            .add("postalCode", postalCode)
-            .add("country", country)
-            .add("createdAt", createdAt.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME))
-            .add("updatedAt", updatedAt.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME))
-            .build();
+        return toAddress().toJSON();
     }
     
+    /**
+     * Written as the {@link Address} document, both have the same fields.
+     */
+    @Override
+    public void writeJSON(JsonGenerator generator) {
+        toAddress().writeJSON(generator);
+    }
+
+    Address toAddress() {
+        return new Address(id, street, city, state, postalCode, country, createdAt, updatedAt);
+    }
+
     public static AddressResponse fromJSON(JsonObject json) {
         return new AddressResponse(
             json.getString("id"),
@@ -2,6 +2,7 @@ package airhacks.qmpd.addresses.entity;
 
 import jakarta.json.Json;
 import jakarta.json.JsonObject;
+import jakarta.json.stream.JsonParser;
 
 /**
  * Request model for updating existing address records.
@@ -49,4 +50,48 @@ public record AddressUpdateRequest(
             json.containsKey("country") ? json.getString("country") : null
         );
     }
+
+    /**
+     * Reads the fields straight from the parser, unknown fields are skipped.
+     *
+     * @throws AddressValidationException if the body is not an object or a field is not a string
+     */
+    public static AddressUpdateRequest fromJSON(JsonParser parser) {
+        if (!parser.hasNext() || parser.next() != JsonParser.Event.START_OBJECT) {
+            throw new AddressValidationException("body", "JSON object expected");
+        }
+        String street = null, city = null, state = null, postalCode = null, country = null;
+        var event = parser.next();
+        while (event == JsonParser.Event.KEY_NAME) {
+            var name = parser.getString();
+            var value = parser.next();
+            switch (name) {
+                case "street" -> street = string(parser, name, value);
+                case "city" -> city = string(parser, name, value);
+                case "state" -> state = string(parser, name, value);
+                case "postalCode" -> postalCode = string(parser, name, value);
+                case "country" -> country = string(parser, name, value);
+                default -> skip(parser, value);
+            }
+            event = parser.next();
+        }
+        return new AddressUpdateRequest(street, city, state, postalCode, country);
+    }
+
+    static String string(JsonParser parser, String name, JsonParser.Event value) {
+        return switch (value) {
+            case VALUE_STRING -> parser.getString();
+            case VALUE_NULL -> null;
+            default -> throw new AddressValidationException(name, "Must be a string");
+        };
+    }
+
+    static void skip(JsonParser parser, JsonParser.Event value) {
+        switch (value) {
+            case START_OBJECT -> parser.skipObject();
+            case START_ARRAY -> parser.skipArray();
+            default -> {
+            }
+        }
+    }
 }
\ No newline at end of file
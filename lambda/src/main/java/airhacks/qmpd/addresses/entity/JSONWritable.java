@@ -0,0 +1,33 @@
+package airhacks.qmpd.addresses.entity;
+
+import java.util.Map;
+
+import jakarta.json.Json;
+import jakarta.json.stream.JsonGenerator;
+import jakarta.json.stream.JsonGeneratorFactory;
+import jakarta.json.stream.JsonParserFactory;
+
+/**
+ * Writes itself to a streaming JsonGenerator without building a JsonObject tree.
+ *
+ * The factories are created once, {@link Json#createGenerator} and
+ * {@link Json#createParser} look up the provider on every call.
+ */
+public interface JSONWritable {
+
+    JsonGeneratorFactory GENERATORS = Json.createGeneratorFactory(Map.of());
+    JsonParserFactory PARSERS = Json.createParserFactory(Map.of());
+
+    void writeJSON(JsonGenerator generator);
+
+    /**
+     * Writes the value, or JSON null if there is none.
+     */
+    static void write(JsonGenerator generator, String name, String value) {
+        if (value == null) {
+            generator.writeNull(name);
+        } else {
+            generator.write(name, value);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package airhacks.qmpd.addresses.control;
+
+import airhacks.qmpd.addresses.entity.Address;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the in-memory AddressCache.
+ *
+ * Verifies LRU eviction, time-to-live handling
+ * and the disabled configuration.
+ */
+@QuarkusTest
+class AddressCacheTest {
+
+    @Test
+    @DisplayName("Least recently used entry is evicted when capacity is exceeded")
+    void leastRecentlyUsedIsEvicted() {
+        var cache = new AddressCache(2, 60);
+        cache.put("1", address(), "\"e1\"");
+        cache.put("2", address(), "\"e2\"");
+        cache.get("1");
+        cache.put("3", address(), "\"e3\"");
+
+        assertThat(cache.get("1")).isNotNull();
+        assertThat(cache.get("2")).isNull();
+        assertThat(cache.get("3")).isNotNull();
+        assertThat(cache.statistics().evictions()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Entries become stale after the time-to-live and fresh again after revalidation")
+    void staleEntriesAreRevalidated() {
+        var cache = new AddressCache(10, 0);
+        cache.put("1", address(), "\"e1\"");
+        var entry = cache.get("1");
+
+        assertThat(cache.isFresh(entry)).isFalse();
+        cache.revalidated("1", entry);
+        assertThat(cache.get("1").eTag()).isEqualTo("\"e1\"");
+        assertThat(cache.statistics().revalidations()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Zero capacity disables caching")
+    void zeroCapacityDisablesCache() {
+        var cache = new AddressCache(0, 60);
+        cache.put("1", address(), "\"e1\"");
+
+        assertThat(cache.enabled()).isFalse();
+        assertThat(cache.get("1")).isNull();
+        assertThat(cache.statistics().size()).isZero();
+    }
+
+    static Address address() {
+        return Address.create("123 Main St", "Springfield", "IL", "62701", "US");
+    }
+}
@@ -0,0 +1,50 @@
+package airhacks.qmpd.addresses.control;
+
+import airhacks.qmpd.addresses.entity.Address;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the AddressCodec record encodings.
+ *
+ * Verifies the lossless binary round trip, reading of existing
+ * JSON records and the size advantage of the binary format.
+ */
+@QuarkusTest
+class AddressCodecTest {
+
+    static final Address ADDRESS = new Address("8c1f0a3e-4b7e-4a43-9f2e-3e5c2f2f8f11", "Main Street 1", "Springfield",
+        null, "62701", "USA", LocalDateTime.of(2024, 5, 17, 8, 30, 15, 123_456_789), LocalDateTime.of(1950, 1, 1, 0, 0));
+
+    @Test
+    @DisplayName("Binary records decode to the same address, including nanoseconds and missing fields")
+    void binaryRoundTrip() {
+        var content = AddressCodec.encode(ADDRESS, StorageFormat.binary);
+
+        assertThat(content[0]).isEqualTo(AddressCodec.VERSION);
+        assertThat(AddressCodec.decode(content)).isEqualTo(ADDRESS);
+    }
+
+    @Test
+    @DisplayName("JSON records written before the binary format remain readable")
+    void jsonFallback() {
+        var address = Address.create("Unter den Linden 5", "Berlin", "Berlin", "10117", "Germany");
+        var content = AddressCodec.encode(address, StorageFormat.json);
+
+        assertThat(AddressCodec.decode(content)).isEqualTo(address);
+    }
+
+    @Test
+    @DisplayName("Binary records are less than half the size of JSON records")
+    void binaryIsCompact() {
+        var json = AddressCodec.encode(ADDRESS, StorageFormat.json);
+        var binary = AddressCodec.encode(ADDRESS, StorageFormat.binary);
+
+        assertThat(binary.length).isLessThan(json.length / 2);
+    }
+}
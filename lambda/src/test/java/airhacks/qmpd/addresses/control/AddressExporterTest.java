@@ -0,0 +1,77 @@
+package airhacks.qmpd.addresses.control;
+
+import airhacks.qmpd.addresses.entity.Address;
+import airhacks.qmpd.addresses.entity.AddressResponse;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.json.Json;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the NDJSON lines written by the AddressExporter.
+ *
+ * Verifies that each address occupies exactly one line, that
+ * the resume cursor is a separate, parseable line, that an
+ * exhausted budget never stops an export before its first address
+ * and that no page is prefetched the budget cannot cover.
+ */
+@QuarkusTest
+class AddressExporterTest {
+
+    @Test
+    @DisplayName("Each address is written as one newline-terminated JSON document")
+    void writesOneLinePerAddress() {
+        var line = new ByteArrayOutputStream();
+        var response = AddressResponse.from(Address.create("123 Main St", "Springfield", "IL", "62701", "USA"));
+
+        AddressExporter.writeLine(response, line);
+
+        var text = line.toString(StandardCharsets.UTF_8);
+        assertThat(text).endsWith("\n").doesNotContain("\r");
+        assertThat(text.strip()).doesNotContain("\n");
+        var parsed = Json.createReader(new StringReader(text)).readObject();
+        assertThat(parsed).isEqualTo(response.toJSON());
+    }
+
+    @Test
+    @DisplayName("Resume cursor is a separate JSON line holding only the next token")
+    void writesResumeCursor() throws Exception {
+        var output = new ByteArrayOutputStream();
+
+        AddressExporter.writeNextToken(output, "last-id");
+
+        var lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(1);
+        var cursor = Json.createReader(new StringReader(lines[0])).readObject();
+        assertThat(cursor.keySet()).containsExactly("nextToken");
+        assertThat(cursor.getString("nextToken")).isEqualTo("last-id");
+    }
+
+    @Test
+    @DisplayName("An exhausted budget stops the export only after the first address")
+    void budgetStopsAfterFirstAddress() {
+        var expired = System.nanoTime() - 1;
+
+        assertThat(AddressExporter.exhausted(0, expired, 0, 1)).isFalse();
+        assertThat(AddressExporter.exhausted(1, expired, 0, 1)).isTrue();
+        assertThat(AddressExporter.exhausted(1, Long.MAX_VALUE, 0, 1)).isFalse();
+    }
+
+    @Test
+    @DisplayName("The next page is only prefetched while the budget covers two more pages")
+    void prefetchOnlyWithinBudget() {
+        var seconds = TimeUnit.SECONDS.toNanos(1);
+        var inTenSeconds = System.nanoTime() + 10 * seconds;
+
+        assertThat(AddressExporter.prefetch(inTenSeconds, seconds, 1000, 100)).isTrue();
+        assertThat(AddressExporter.prefetch(inTenSeconds, 6 * seconds, 1000, 100)).isFalse();
+        assertThat(AddressExporter.prefetch(inTenSeconds, seconds, 150, 100)).isFalse();
+    }
+}
@@ -0,0 +1,115 @@
+package airhacks.qmpd.addresses.control;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+/**
+ * Unit tests for the AddressIdFilter.
+ *
+ * Verifies against the S3StandIn that a rebuild keeps IDs added while it runs,
+ * that negative answers see IDs added by other instances, and that failed
+ * shard writes never fail the add.
+ */
+@QuarkusTest
+class AddressIdFilterTest {
+
+    static S3StandIn standIn;
+    static S3Client client;
+
+    @BeforeAll
+    static void start() {
+        standIn = S3StandIn.start();
+        var values = new HashMap<>(standIn.clientConfiguration());
+        values.put("address.s3.max.attempts", "1");
+        client = S3Clients.sync(S3ClientConfiguration.from(key -> Optional.ofNullable(values.get(key))));
+    }
+
+    @AfterAll
+    static void stop() {
+        client.close();
+        standIn.close();
+    }
+
+    static AddressIdFilter instance(String bucketName) {
+        var filter = new AddressIdFilter() {
+            @Override
+            S3Client client() {
+                return client;
+            }
+        };
+        filter.bucketName = bucketName;
+        filter.enabled = true;
+        filter.expectedInsertions = 4000;
+        filter.falsePositiveRate = 0.001;
+        filter.numberOfShards = 4;
+        filter.refreshSeconds = 30;
+        filter.rebuildGraceSeconds = 0;
+        filter.rebuildMaxSeconds = 7;
+        filter.init();
+        return filter;
+    }
+
+    @Test
+    @DisplayName("An add running concurrently with a rebuild survives the rebuild")
+    void concurrentAddSurvivesRebuild() {
+        var filter = instance("id-filter-rebuild");
+        var other = instance("id-filter-rebuild");
+
+        var result = filter.rebuild(null, cursor -> {
+            CompletableFuture.runAsync(() -> other.add("added-during-rebuild")).join();
+            return new IdPage(List.of("listed-1", "listed-2"), "listed-2", false);
+        });
+
+        assertThat(result.getJsonNumber("ids").longValue()).isEqualTo(2);
+        assertThat(result.getJsonNumber("skippedShards").longValue()).isZero();
+        var reader = instance("id-filter-rebuild");
+        assertThat(reader.statistics().getInt("completeShards")).isEqualTo(4);
+        assertThat(reader.mightContain("listed-1")).isTrue();
+        assertThat(reader.mightContain("listed-2")).isTrue();
+        assertThat(reader.mightContain("added-during-rebuild")).isTrue();
+        assertThat(reader.mightContain("never-added")).isFalse();
+    }
+
+    @Test
+    @DisplayName("A negative answer revalidates the shard and finds IDs added by another instance")
+    void negativeAnswerIsConfirmed() {
+        var writer = instance("id-filter-confirm");
+        writer.rebuild(null, cursor -> new IdPage(List.of(), null, false));
+        var reader = instance("id-filter-confirm");
+        assertThat(reader.mightContain("42")).isFalse();
+
+        writer.add("42");
+
+        assertThat(reader.mightContain("42")).isTrue();
+    }
+
+    @Test
+    @DisplayName("A shard that cannot be written is invalidated instead of failing the add")
+    void failedWriteInvalidatesShard() {
+        var filter = instance("id-filter-invalidate");
+        filter.rebuild(null, cursor -> new IdPage(List.of(), null, false));
+        standIn.fault(S3StandIn.Operation.putObject, S3StandIn.Fault.internalError(1.0));
+        try {
+            assertThatCode(() -> filter.add("lost")).doesNotThrowAnyException();
+        } finally {
+            standIn.reset();
+        }
+
+        assertThat(filter.mightContain("lost")).isTrue();
+        assertThat(filter.rebuild(null, cursor -> new IdPage(List.of("lost"), "lost", false))
+                .getJsonNumber("skippedShards").longValue()).isZero();
+        assertThat(instance("id-filter-invalidate").mightContain("lost")).isTrue();
+    }
+}
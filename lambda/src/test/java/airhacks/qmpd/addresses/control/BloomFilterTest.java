@@ -0,0 +1,60 @@
+package airhacks.qmpd.addresses.control;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the BloomFilter behind the address ID filter.
+ *
+ * Verifies the absence of false negatives, the configured
+ * false-positive rate and the binary round trip.
+ */
+@QuarkusTest
+class BloomFilterTest {
+
+    @Test
+    @DisplayName("Added IDs are always reported as possibly contained")
+    void noFalseNegatives() {
+        var filter = BloomFilter.create(10_000, 0.01);
+        var ids = IntStream.range(0, 10_000).mapToObj(i -> UUID.randomUUID().toString()).toList();
+
+        ids.forEach(filter::add);
+
+        assertThat(ids).allMatch(filter::mightContain);
+    }
+
+    @Test
+    @DisplayName("False-positive rate stays close to the configured rate")
+    void falsePositiveRateIsBounded() {
+        var filter = BloomFilter.create(10_000, 0.01);
+        IntStream.range(0, 10_000).mapToObj(i -> UUID.randomUUID().toString()).forEach(filter::add);
+
+        var falsePositives = IntStream.range(0, 10_000)
+            .mapToObj(i -> UUID.randomUUID().toString())
+            .filter(filter::mightContain)
+            .count();
+
+        assertThat(falsePositives).isLessThan(200);
+    }
+
+    @Test
+    @DisplayName("Serialized and merged filters keep all IDs")
+    void binaryRoundTripAndMerge() {
+        var first = BloomFilter.create(1_000, 0.01);
+        var second = BloomFilter.create(1_000, 0.01);
+        first.add("first");
+        second.add("second");
+
+        var restored = BloomFilter.fromBytes(first.toBytes());
+        restored.merge(second);
+
+        assertThat(restored.mightContain("first")).isTrue();
+        assertThat(restored.mightContain("second")).isTrue();
+    }
+}
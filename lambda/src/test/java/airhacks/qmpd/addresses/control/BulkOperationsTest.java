@@ -0,0 +1,66 @@
+package airhacks.qmpd.addresses.control;
+
+import airhacks.qmpd.addresses.entity.AddressValidationException;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.json.JsonValue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for NDJSON bulk requests read by BulkOperations.
+ *
+ * Verifies that each line becomes one operation, that malformed items
+ * are kept for per-item validation and that lines which are not a single
+ * known operation reject the request with their line number.
+ */
+@QuarkusTest
+class BulkOperationsTest {
+
+    static ByteArrayInputStream lines(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Each line adds one operation in order, blank lines are skipped")
+    void readsOneOperationPerLine() {
+        var request = BulkOperations.fromNDJSON(lines("""
+                {"create":{"street":"123 Main St","city":"Springfield"}}
+                {"delete":"42"}
+
+                {"update":{"id":"7","city":"Seattle"}}
+                {"delete":"43"}
+                """));
+
+        assertThat(request.create()).hasSize(1);
+        assertThat(request.create().getFirst().getString("city")).isEqualTo("Springfield");
+        assertThat(request.update().getFirst().getString("id")).isEqualTo("7");
+        assertThat(request.delete()).containsExactly("42", "43");
+    }
+
+    @Test
+    @DisplayName("Non-object items become empty objects to fail validation per item")
+    void malformedItemsArePreserved() {
+        var request = BulkOperations.fromNDJSON(lines("{\"create\":42}\n{\"update\":null}\n"));
+
+        assertThat(request.create()).containsExactly(JsonValue.EMPTY_JSON_OBJECT);
+        assertThat(request.update()).containsExactly(JsonValue.EMPTY_JSON_OBJECT);
+    }
+
+    @Test
+    @DisplayName("Malformed JSON, unknown and combined operations reject the request naming the line")
+    void rejectsInvalidLines() {
+        assertThatThrownBy(() -> BulkOperations.fromNDJSON(lines("{\"delete\":\"1\"}\n{\"create\":")))
+            .isInstanceOfSatisfying(AddressValidationException.class,
+                e -> assertThat(e.hasErrorsForField("line 2")).isTrue());
+        assertThatThrownBy(() -> BulkOperations.fromNDJSON(lines("{\"upsert\":{}}")))
+            .isInstanceOf(AddressValidationException.class);
+        assertThatThrownBy(() -> BulkOperations.fromNDJSON(lines("{\"create\":{},\"delete\":\"1\"}")))
+            .isInstanceOf(AddressValidationException.class);
+    }
+}
@@ -0,0 +1,86 @@
+package airhacks.qmpd.addresses.control;
+
+import airhacks.qmpd.addresses.entity.Address;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for the ColumnarSnapshot part encoding.
+ *
+ * Verifies the round trip including missing fields, the size advantage
+ * of dictionary-encoded columns and the rejection of foreign content.
+ */
+@QuarkusTest
+class ColumnarSnapshotTest {
+
+    static final LocalDateTime TIMESTAMP = LocalDateTime.of(2024, 5, 17, 8, 30, 15, 123_000_000);
+
+    @Test
+    @DisplayName("Decoded addresses equal the encoded ones, including missing fields")
+    void roundTrip() throws IOException {
+        var addresses = List.of(
+            new Address("1", "Main Street 1", "Springfield", "IL", "62701", "USA", TIMESTAMP, TIMESTAMP),
+            new Address("2", "Unter den Linden 5", "Berlin", null, "10117", "Germany", TIMESTAMP, TIMESTAMP.plusDays(1)));
+
+        var decoded = decode(encode(addresses));
+
+        assertThat(decoded).containsExactlyElementsOf(addresses);
+    }
+
+    @Test
+    @DisplayName("Timestamps keep their sub-millisecond precision")
+    void timestampsKeepNanoseconds() throws IOException {
+        var precise = LocalDateTime.of(2024, 5, 17, 8, 30, 15, 123_456_789);
+        var address = new Address("1", "Main Street 1", "Springfield", "IL", "62701", "USA", precise, precise.plusNanos(1));
+
+        assertThat(decode(encode(List.of(address)))).containsExactly(address);
+    }
+
+    @Test
+    @DisplayName("Repeated countries, states and cities are stored once per part")
+    void dictionaryEncodingIsCompact() throws IOException {
+        var addresses = IntStream.range(0, 1_000)
+            .mapToObj(i -> new Address("id-" + i, "Street " + i, "City " + (i % 10), "State", "" + i, "Country", TIMESTAMP, TIMESTAMP))
+            .toList();
+        var json = addresses.stream().mapToInt(address -> address.toJSON().toString().length()).sum();
+
+        var encoded = encode(addresses);
+
+        assertThat(encoded.length).isLessThan(json / 3);
+        assertThat(decode(encoded)).hasSize(1_000);
+    }
+
+    @Test
+    @DisplayName("Content without snapshot header is rejected")
+    void rejectsForeignContent() {
+        var content = "{\"id\":\"1\"}".getBytes();
+
+        assertThatThrownBy(() -> decode(content)).isInstanceOf(IOException.class);
+    }
+
+    static byte[] encode(List<Address> addresses) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        ColumnarSnapshot.write(addresses, new DataOutputStream(bytes));
+        return bytes.toByteArray();
+    }
+
+    static List<Address> decode(byte[] content) throws IOException {
+        var addresses = new ArrayList<Address>();
+        ColumnarSnapshot.read(new DataInputStream(new ByteArrayInputStream(content)), addresses::add);
+        return addresses;
+    }
+}
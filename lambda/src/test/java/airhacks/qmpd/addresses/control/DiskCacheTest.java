@@ -0,0 +1,62 @@
+package airhacks.qmpd.addresses.control;
+
+import airhacks.qmpd.addresses.entity.Address;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the ephemeral storage DiskCache.
+ *
+ * Verifies persistence across instances, size-based eviction
+ * and safe file names.
+ */
+@QuarkusTest
+class DiskCacheTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Cached addresses survive a new cache instance on the same directory")
+    void entriesSurviveRestart() {
+        var address = Address.create("123 Main St", "Springfield", "IL", "62701", "US");
+        new DiskCache(directory, 1024 * 1024).put(address.id(), address, "\"etag\"");
+
+        var entry = new DiskCache(directory, 1024 * 1024).get(address.id());
+
+        assertThat(entry).isNotNull();
+        assertThat(entry.address()).isEqualTo(address);
+        assertThat(entry.eTag()).isEqualTo("\"etag\"");
+    }
+
+    @Test
+    @DisplayName("Least recently used files are deleted when the size limit is exceeded")
+    void sizeLimitEvictsOldest() {
+        var first = Address.create("1 First St", "Springfield", "IL", "62701", "US");
+        var second = Address.create("2 Second St", "Springfield", "IL", "62701", "US");
+        var entrySize = ("\"etag\"\n" + first.toJSON()).length();
+        var cache = new DiskCache(directory, entrySize + entrySize / 2);
+
+        cache.put(first.id(), first, "\"etag\"");
+        cache.put(second.id(), second, "\"etag\"");
+
+        assertThat(cache.get(first.id())).isNull();
+        assertThat(cache.get(second.id())).isNotNull();
+        assertThat(cache.bytes()).isLessThanOrEqualTo(entrySize + entrySize / 2);
+    }
+
+    @Test
+    @DisplayName("File names cannot escape the cache directory")
+    void fileNamesAreSafe() {
+        var name = DiskCache.fileName("../../etc/passwd");
+
+        assertThat(name).doesNotContain("/", ".");
+        assertThat(DiskCache.fileName("x".repeat(1000))).isNull();
+    }
+}
@@ -0,0 +1,81 @@
+package airhacks.qmpd.addresses.control;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.s3.model.CommonPrefix;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for IdPage.
+ *
+ * Verifies that listing pages ending with or consisting of
+ * common prefixes keep paginating past the prefix, and that a record
+ * stored in both formats during a migration is listed once.
+ */
+@QuarkusTest
+class IdPageTest {
+
+    @Test
+    @DisplayName("A page ending with a common prefix continues after the prefix")
+    void pageEndingWithPrefixContinues() {
+        var response = ListObjectsV2Response.builder()
+                .contents(S3Object.builder().key("a.json").build())
+                .commonPrefixes(CommonPrefix.builder().prefix("filters/").build())
+                .isTruncated(true)
+                .build();
+
+        var page = AddressStorage.idPage(response);
+
+        assertThat(page.ids()).containsExactly("a");
+        assertThat(page.hasMore()).isTrue();
+        assertThat(page.nextToken()).isEqualTo("filters/");
+    }
+
+    @Test
+    @DisplayName("A truncated page of prefixes only still has a cursor")
+    void prefixOnlyPageHasCursor() {
+        var response = ListObjectsV2Response.builder()
+                .commonPrefixes(CommonPrefix.builder().prefix("filters/").build(),
+                        CommonPrefix.builder().prefix("indexes/").build())
+                .isTruncated(true)
+                .build();
+
+        var page = AddressStorage.idPage(response);
+
+        assertThat(page.ids()).isEmpty();
+        assertThat(page.nextToken()).isEqualTo("indexes/");
+    }
+
+    @Test
+    @DisplayName("A key after the last prefix becomes the cursor")
+    void laterKeyWins() {
+        var response = ListObjectsV2Response.builder()
+                .contents(S3Object.builder().key("zz.json").build())
+                .commonPrefixes(CommonPrefix.builder().prefix("filters/").build())
+                .isTruncated(true)
+                .build();
+
+        assertThat(AddressStorage.idPage(response).nextToken()).isEqualTo("zz");
+    }
+
+    @Test
+    @DisplayName("A record in both formats is listed once and the next page starts after both keys")
+    void recordInBothFormatsListedOnce() {
+        var response = ListObjectsV2Response.builder()
+                .contents(S3Object.builder().key("a.bin").build(),
+                        S3Object.builder().key("a.json").build(),
+                        S3Object.builder().key("b.bin").build())
+                .isTruncated(true)
+                .build();
+
+        var page = AddressStorage.idPage(response);
+
+        assertThat(page.ids()).containsExactly("a", "b");
+        assertThat(page.nextToken()).isEqualTo("b");
+        assertThat(AddressStorage.lastKey("b")).isEqualTo("b.json");
+    }
+}
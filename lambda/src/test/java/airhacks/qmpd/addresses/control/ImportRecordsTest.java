@@ -0,0 +1,90 @@
+package airhacks.qmpd.addresses.control;
+
+import airhacks.qmpd.addresses.entity.AddressValidationException;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for the incremental reading of import files.
+ *
+ * Verifies CSV quoting across line breaks, the byte offsets used to
+ * resume imports, that unreadable records are rejected one by one and
+ * the mapping of CSV rows to validated addresses.
+ */
+@QuarkusTest
+class ImportRecordsTest {
+
+    @Test
+    @DisplayName("CSV records continue within quoted fields and report the offset of their first byte")
+    void readsQuotedRecordsWithOffsets() throws Exception {
+        var text = "\uFEFFstreet,city\r\n\"Main \"\"1\"\", A\",Springfield\n\n\"Multi\nLine\", Seattle \n";
+        var bytes = text.getBytes(StandardCharsets.UTF_8);
+        var records = new ImportRecords(new ByteArrayInputStream(bytes), ImportFormat.csv, 0);
+
+        var read = new ArrayList<ImportRecords.Record>();
+        ImportRecords.Record record;
+        while ((record = records.next()) != null) {
+            read.add(record);
+        }
+
+        assertThat(read).hasSize(3);
+        assertThat(ImportRecords.csvFields(read.get(0).text())).containsExactly("street", "city");
+        assertThat(ImportRecords.csvFields(read.get(1).text())).containsExactly("Main \"1\", A", "Springfield");
+        assertThat(ImportRecords.csvFields(read.get(2).text())).containsExactly("Multi\nLine", "Seattle");
+        assertThat(read.get(2).line()).isEqualTo(4);
+        assertThat(records.offset()).isEqualTo(bytes.length);
+
+        var resumeAt = (int) read.get(2).offset();
+        var resumed = new ImportRecords(new ByteArrayInputStream(bytes, resumeAt, bytes.length - resumeAt), ImportFormat.csv, resumeAt);
+        assertThat(resumed.next().text()).isEqualTo(read.get(2).text());
+    }
+
+    @Test
+    @DisplayName("Oversized records and a quote left open become rejected records, reading continues")
+    void rejectsUnreadableRecords() throws Exception {
+        var oversized = "x".repeat(ImportRecords.MAX_RECORD_BYTES + 10);
+        var text = "street,city\n" + oversized + "\nMain St,Springfield\n\"Open,Seattle\nmore\n";
+        var records = new ImportRecords(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)), ImportFormat.csv, 0);
+        records.next();
+
+        var tooLarge = records.next();
+        var valid = records.next();
+        var unterminated = records.next();
+
+        assertThat(tooLarge.text()).isNull();
+        assertThat(tooLarge.error()).contains("exceeds");
+        assertThat(valid.text()).isEqualTo("Main St,Springfield");
+        assertThat(valid.offset()).isEqualTo(12 + oversized.length() + 1);
+        assertThat(unterminated.error()).isEqualTo("Unterminated quoted CSV field");
+        assertThat(AddressImporter.parse(unterminated, ImportFormat.csv, new int[] {0, 1, -1, -1, -1}).error())
+            .isEqualTo(unterminated.error());
+        assertThat(records.next()).isNull();
+        assertThatThrownBy(() -> AddressImporter.columns(new ImportRecords.Record(1, 0, null, ImportRecords.tooLarge())))
+            .isInstanceOf(AddressValidationException.class);
+    }
+
+    @Test
+    @DisplayName("Rows map to addresses by header name, invalid rows carry the validation message")
+    void parsesAndValidatesRows() {
+        var columns = AddressImporter.columns(ImportRecords.csvFields("Country,postalcode,STATE,city,street,extra"));
+        var valid = new ImportRecords.Record(2, 40, "USA,62701,IL,Springfield,123 Main St,ignored");
+        var invalid = new ImportRecords.Record(3, 90, "USA,,IL,Springfield,123 Main St");
+
+        var parsed = AddressImporter.parse(valid, ImportFormat.csv, columns);
+        var rejected = AddressImporter.parse(invalid, ImportFormat.csv, columns);
+
+        assertThat(parsed.error()).isNull();
+        assertThat(parsed.address().street()).isEqualTo("123 Main St");
+        assertThat(parsed.address().country()).isEqualTo("USA");
+        assertThat(rejected.address()).isNull();
+        assertThat(rejected.error()).contains("postalCode");
+    }
+}
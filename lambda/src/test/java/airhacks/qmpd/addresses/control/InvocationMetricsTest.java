@@ -0,0 +1,91 @@
+package airhacks.qmpd.addresses.control;
+
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for the InvocationMetrics.
+ *
+ * Verifies the EMF documents of timers and counters, the bounded observations per flush,
+ * and the S3 metrics recorded by the client interceptor.
+ */
+@QuarkusTest
+class InvocationMetricsTest {
+
+    @Test
+    @DisplayName("Recorded metrics are written as one EMF document and reset by the flush")
+    void emfDocument() {
+        InvocationMetrics.timer("Test.Latency").record(12.5);
+        InvocationMetrics.timer("Test.Latency").record(7.5);
+        InvocationMetrics.counter("Test.Requests").add(3);
+
+        var documents = InvocationMetrics.documents("getAddress", 1700000000000L);
+
+        assertThat(documents).hasSize(1);
+        var document = parse(documents.getFirst());
+        var directive = document.getJsonObject("_aws").getJsonArray("CloudWatchMetrics").getJsonObject(0);
+        assertThat(document.getJsonObject("_aws").getJsonNumber("Timestamp").longValue()).isEqualTo(1700000000000L);
+        assertThat(directive.getString("Namespace")).isEqualTo("Addresses");
+        assertThat(directive.getJsonArray("Metrics").getValuesAs(JsonObject.class))
+            .extracting(metric -> metric.getString("Name") + ":" + metric.getString("Unit"))
+            .contains("Test.Latency:Milliseconds", "Test.Requests:Count");
+        assertThat(document.getString("Endpoint")).isEqualTo("getAddress");
+        assertThat(document.getJsonArray("Test.Latency").getJsonNumber(0).doubleValue()).isEqualTo(12.5);
+        assertThat(document.getJsonNumber("Test.Requests").longValue()).isEqualTo(3);
+        assertThat(String.join("", InvocationMetrics.documents("getAddress", 0))).doesNotContain("Test.");
+    }
+
+    @Test
+    @DisplayName("Observations beyond the EMF limit are sampled")
+    void boundedObservations() {
+        var histogram = InvocationMetrics.histogram("Test.Bytes", Metric.Unit.bytes);
+        for (var i = 0; i < 1000; i++) {
+            histogram.record(i);
+        }
+
+        var values = histogram.drain();
+
+        assertThat(values).hasSize(Metric.MAX_VALUES);
+        assertThat(values).allMatch(value -> value >= 0 && value < 1000);
+        assertThat(histogram.drain()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("S3 calls record latency, payload sizes and NoSuchKey outcomes per operation")
+    void s3Metrics() {
+        try (var standIn = S3StandIn.start()) {
+            var values = new HashMap<>(standIn.clientConfiguration());
+            try (var client = S3Clients.sync(S3ClientConfiguration.from(key -> Optional.ofNullable(values.get(key))))) {
+                InvocationMetrics.documents("warmup", 0);
+                client.putObject(builder -> builder.bucket("metrics").key("42.json"), RequestBody.fromString("0123456789"));
+                assertThatThrownBy(() -> client.getObject(builder -> builder.bucket("metrics").key("missing.json")))
+                    .isInstanceOf(NoSuchKeyException.class);
+
+                var document = parse(String.join("", InvocationMetrics.documents("createAddress", 0)));
+
+                assertThat(document.getJsonNumber("S3.PutObject.Latency").doubleValue()).isPositive();
+                assertThat(document.getJsonNumber("S3.PutObject.RequestBytes").longValue()).isEqualTo(10);
+                assertThat(document.getJsonNumber("S3.GetObject.NotFound").longValue()).isEqualTo(1);
+                assertThat(document.containsKey("S3.GetObject.Errors")).isFalse();
+            }
+        }
+    }
+
+    static JsonObject parse(String document) {
+        try (var reader = Json.createReader(new StringReader(document))) {
+            return reader.readObject();
+        }
+    }
+}
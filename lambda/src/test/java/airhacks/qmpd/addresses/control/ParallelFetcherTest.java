@@ -0,0 +1,75 @@
+package airhacks.qmpd.addresses.control;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for ParallelFetcher.
+ *
+ * Verifies ordering, the concurrency bound and
+ * error propagation of the parallel fetch engine.
+ */
+@QuarkusTest
+class ParallelFetcherTest {
+
+    @Test
+    @DisplayName("Results keep the input order")
+    void resultsKeepInputOrder() {
+        var ids = IntStream.range(0, 200).boxed().toList();
+
+        var results = ParallelFetcher.fetchAll(ids, id -> {
+            sleep(200 - id);
+            return "address-" + id;
+        }, 32);
+
+        assertThat(results).hasSize(200);
+        assertThat(results.get(0)).isEqualTo("address-0");
+        assertThat(results.get(199)).isEqualTo("address-199");
+    }
+
+    @Test
+    @DisplayName("In-flight calls never exceed the concurrency limit")
+    void concurrencyIsBounded() {
+        var inFlight = new AtomicInteger();
+        var maxInFlight = new AtomicInteger();
+        var ids = IntStream.range(0, 100).boxed().toList();
+
+        ParallelFetcher.fetchAll(ids, id -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            sleep(5);
+            return inFlight.decrementAndGet();
+        }, 8);
+
+        assertThat(maxInFlight.get()).isBetween(2, 8);
+    }
+
+    @Test
+    @DisplayName("Runtime exceptions of a fetch are rethrown unwrapped")
+    void failuresArePropagated() {
+        var ids = IntStream.range(0, 10).boxed().toList();
+
+        assertThatThrownBy(() -> ParallelFetcher.fetchAll(ids, id -> {
+            if (id == 7) {
+                throw new IllegalStateException("S3 unavailable");
+            }
+            return id;
+        }, 4))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessage("S3 unavailable");
+    }
+
+    static void sleep(int millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
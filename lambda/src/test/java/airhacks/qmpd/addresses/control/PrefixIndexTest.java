@@ -0,0 +1,67 @@
+package airhacks.qmpd.addresses.control;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the PrefixIndex behind address autocomplete.
+ *
+ * Verifies top-k selection by frequency, case-insensitive matching,
+ * pending adjustments with their merge and the snapshot round trip.
+ */
+@QuarkusTest
+class PrefixIndexTest {
+
+    @Test
+    @DisplayName("Most frequent values matching the prefix come first")
+    void topSuggestionsByFrequency() {
+        var index = PrefixIndex.of(Map.of("Springfield", 30, "Spring", 50, "springdale", 5, "Boston", 100));
+
+        var suggestions = index.complete("SPR", 2);
+
+        assertThat(suggestions).containsExactly(new Suggestion("Spring", 50), new Suggestion("Springfield", 30));
+        assertThat(index.complete("x", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Adjustments insert, reweight and remove values before and after the merge")
+    void adjustments() {
+        var original = PrefixIndex.of(Map.of("Berlin", 1, "Bremen", 4));
+        var adjustments = new TreeMap<String, PrefixIndex.Adjustment>(Map.of(
+            "bern", new PrefixIndex.Adjustment("Bern", 2),
+            "berlin", new PrefixIndex.Adjustment("berlin", 2),
+            "bremen", new PrefixIndex.Adjustment("Bremen", -4)));
+
+        var adjusted = original.complete("b", 10, adjustments);
+        var merged = original.merged(adjustments);
+
+        assertThat(adjusted).containsExactly(new Suggestion("Berlin", 3), new Suggestion("Bern", 2));
+        assertThat(merged.complete("b", 10)).containsExactlyElementsOf(adjusted);
+        assertThat(original.complete("b", 10)).containsExactly(new Suggestion("Bremen", 4), new Suggestion("Berlin", 1));
+    }
+
+    @Test
+    @DisplayName("Snapshot round trip keeps all values and counts")
+    void snapshotRoundTrip() throws IOException {
+        var index = PrefixIndex.of(Map.of("Main Street", 7, "Market Street", 3));
+        var bytes = new ByteArrayOutputStream();
+        index.writeTo(new DataOutputStream(bytes));
+
+        var restored = PrefixIndex.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertThat(restored.size()).isEqualTo(2);
+        assertThat(restored.complete("m", 10))
+            .containsExactly(new Suggestion("Main Street", 7), new Suggestion("Market Street", 3));
+    }
+}
@@ -0,0 +1,76 @@
+package airhacks.qmpd.addresses.control;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the RequestTiming.
+ *
+ * Verifies the Server-Timing header format, the explicit propagation to fetcher threads
+ * and that timings neither leak into pool threads nor outlive their request.
+ */
+@QuarkusTest
+class RequestTimingTest {
+
+    @Test
+    @DisplayName("Header lists recorded phases in order with call counts, followed by the total")
+    void header() {
+        var timing = new RequestTiming();
+        timing.add(RequestTiming.Phase.s3Get, TimeUnit.MILLISECONDS.toNanos(12));
+        timing.add(RequestTiming.Phase.s3Get, TimeUnit.MILLISECONDS.toNanos(8));
+        timing.add(RequestTiming.Phase.parse, TimeUnit.MICROSECONDS.toNanos(250));
+        timing.flag(RequestTiming.Phase.init, 1500);
+
+        var entries = List.of(timing.header().split(", "));
+
+        assertThat(entries).hasSize(4);
+        assertThat(entries.get(0)).isEqualTo("init;dur=1500.00;desc=\"cold start\"");
+        assertThat(entries.get(1)).isEqualTo("parse;dur=0.25");
+        assertThat(entries.get(2)).isEqualTo("s3-get;dur=20.00;desc=\"2 calls\"");
+        assertThat(entries.get(3)).startsWith("total;dur=");
+    }
+
+    @Test
+    @DisplayName("Phases recorded on fetcher threads are added to the request timing until it ends")
+    void propagatesToVirtualThreads() {
+        var timing = RequestTiming.start();
+        try {
+            ParallelFetcher.fetchAll(List.of("1", "2", "3"),
+                id -> RequestTiming.time(RequestTiming.Phase.storage, () -> id), 3);
+        } finally {
+            timing.end();
+        }
+
+        assertThat(timing.counts.get(RequestTiming.Phase.storage.ordinal())).isEqualTo(3);
+        assertThat(RequestTiming.current()).isNull();
+        RequestTiming.record(RequestTiming.Phase.storage, System.nanoTime());
+        assertThat(timing.counts.get(RequestTiming.Phase.storage.ordinal())).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Pool threads see no timing unless it is passed on and drop it once it ended")
+    void doesNotLeakIntoPoolThreads() throws Exception {
+        try (var pool = Executors.newSingleThreadExecutor()) {
+            var timing = RequestTiming.start();
+            try {
+                assertThat(pool.submit(RequestTiming::current).get()).isNull();
+                pool.submit(() -> RequestTiming.CURRENT.set(timing)).get();
+            } finally {
+                timing.end();
+            }
+
+            assertThat(pool.submit(RequestTiming::current).get()).isNull();
+            assertThat(pool.submit(RequestTiming.CURRENT::get).get()).isNull();
+            assertThat(CompletableFuture.supplyAsync(() -> RequestTiming.within(timing, RequestTiming::current)).get())
+                .isNull();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package airhacks.qmpd.addresses.control;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the S3ClientConfiguration.
+ *
+ * Verifies the defaults, the parsing of the address.s3.* keys
+ * and that the secret access key never appears in toString.
+ */
+@QuarkusTest
+class S3ClientConfigurationTest {
+
+    @Test
+    @DisplayName("Defaults keep the URL connection client and the default credentials chain")
+    void defaults() {
+        var configuration = S3ClientConfiguration.from(key -> Optional.empty());
+
+        assertThat(configuration.httpClient()).isEqualTo("url-connection");
+        assertThat(configuration.asyncHttpClient()).isEqualTo("netty");
+        assertThat(configuration.credentials()).isEqualTo("chain");
+        assertThat(configuration.maxConnections()).isEqualTo(128);
+        assertThat(configuration.endpointOverride()).isEmpty();
+        assertThat(configuration.maxAttempts()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Configured values override the defaults, blank values are ignored")
+    void parsesConfiguredValues() {
+        var values = Map.of(
+            "address.s3.http.client", "apache",
+            "address.s3.max.connections", "256",
+            "address.s3.connect.timeout.ms", "500",
+            "address.s3.tcp.keep.alive", "false",
+            "address.s3.credentials", " environment ",
+            "address.s3.region", "us-east-1",
+            "address.s3.endpoint.override", "http://localhost:9000",
+            "address.s3.path.style", "true",
+            "address.s3.max.attempts", "",
+            "address.s3.socket.timeout.ms", "  ");
+
+        var configuration = S3ClientConfiguration.from(key -> Optional.ofNullable(values.get(key)));
+
+        assertThat(configuration.httpClient()).isEqualTo("apache");
+        assertThat(configuration.maxConnections()).isEqualTo(256);
+        assertThat(configuration.connectTimeout()).isEqualTo(Duration.ofMillis(500));
+        assertThat(configuration.socketTimeout()).isEqualTo(Duration.ofSeconds(5));
+        assertThat(configuration.tcpKeepAlive()).isFalse();
+        assertThat(configuration.credentials()).isEqualTo("environment");
+        assertThat(configuration.region()).isEqualTo("us-east-1");
+        assertThat(configuration.endpointOverride()).contains(URI.create("http://localhost:9000"));
+        assertThat(configuration.pathStyle()).isTrue();
+        assertThat(configuration.maxAttempts()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("toString masks the secret access key")
+    void toStringMasksSecret() {
+        var values = Map.of(
+            "address.s3.access.key.id", "AKIAEXAMPLE",
+            "address.s3.secret.access.key", "wJalrXUtnFEMI");
+
+        var text = S3ClientConfiguration.from(key -> Optional.ofNullable(values.get(key))).toString();
+
+        assertThat(text).doesNotContain("wJalrXUtnFEMI").contains("secretAccessKey=Optional[****]").contains("AKIAEXAMPLE");
+    }
+}
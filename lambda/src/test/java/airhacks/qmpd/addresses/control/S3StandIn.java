@@ -0,0 +1,684 @@
+package airhacks.qmpd.addresses.control;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * In-process S3 stand-in speaking the REST protocol of the path-style endpoint.
+ *
+ * Supports GetObject and HeadObject (Range, If-Match, If-None-Match, If-Modified-Since,
+ * If-Unmodified-Since), PutObject (plain and aws-chunked bodies, If-Match, If-None-Match: *),
+ * DeleteObject, DeleteObjects and ListObjectsV2 (prefix, delimiter, start-after, continuation).
+ * User metadata (x-amz-meta-*) is stored with the object. Objects are kept in memory, buckets are created on first access. Target it with {@link #configure()}.
+ *
+ * Per operation, a {@link Latency} delays the response and {@link Fault}s answer with an
+ * error instead, e.g. 503 SlowDown for throttling. Both draw from one seeded random
+ * generator, so a sequential run is repeatable.
+ */
+public class S3StandIn implements AutoCloseable {
+
+    static final DateTimeFormatter HTTP_DATE = DateTimeFormatter.RFC_1123_DATE_TIME.withZone(ZoneOffset.UTC);
+    static final String STREAMING_PAYLOAD = "STREAMING-";
+    static final String METADATA_PREFIX = "x-amz-meta-";
+    static final Pattern DELETE_KEY = Pattern.compile("<Key>(.*?)</Key>", Pattern.DOTALL);
+    static final long DEFAULT_SEED = 42;
+
+    public enum Operation {
+        getObject, headObject, putObject, deleteObject, deleteObjects, listObjectsV2
+    }
+
+    /**
+     * Response delay of an operation.
+     */
+    public interface Latency {
+
+        long nanos(Random random);
+
+        static Latency none() {
+            return random -> 0;
+        }
+
+        static Latency fixed(Duration delay) {
+            var nanos = delay.toNanos();
+            return random -> nanos;
+        }
+
+        static Latency uniform(Duration min, Duration max) {
+            var from = min.toNanos();
+            var bound = max.toNanos() - from + 1;
+            return random -> from + (long) (random.nextDouble() * bound);
+        }
+
+        /**
+         * Long-tailed like S3 first-byte latencies, parameterized by median and 99th percentile.
+         */
+        static Latency logNormal(Duration median, Duration p99) {
+            var medianNanos = median.toNanos();
+            var sigma = Math.log((double) p99.toNanos() / medianNanos) / 2.326;
+            return random -> (long) (medianNanos * Math.exp(sigma * random.nextGaussian()));
+        }
+
+        /**
+         * Parses {@code none}, {@code fixed:ms}, {@code uniform:minMs:maxMs} or {@code logNormal:medianMs:p99Ms}.
+         */
+        static Latency parse(String definition) {
+            var parts = definition.strip().split(":");
+            return switch (parts[0]) {
+                case "none" -> none();
+                case "fixed" -> fixed(Duration.ofMillis(Long.parseLong(parts[1])));
+                case "uniform" -> uniform(Duration.ofMillis(Long.parseLong(parts[1])), Duration.ofMillis(Long.parseLong(parts[2])));
+                case "logNormal" -> logNormal(Duration.ofMillis(Long.parseLong(parts[1])), Duration.ofMillis(Long.parseLong(parts[2])));
+                default -> throw new IllegalArgumentException("Unknown latency: " + definition
+                        + ", expected none, fixed:ms, uniform:minMs:maxMs or logNormal:medianMs:p99Ms");
+            };
+        }
+    }
+
+    /**
+     * Error response returned instead of the result for the given share of requests.
+     */
+    public record Fault(double rate, int status, String code, String message) {
+
+        public static Fault slowDown(double rate) {
+            return new Fault(rate, 503, "SlowDown", "Please reduce your request rate.");
+        }
+
+        public static Fault internalError(double rate) {
+            return new Fault(rate, 500, "InternalError", "We encountered an internal error. Please try again.");
+        }
+    }
+
+    public record StoredObject(byte[] content, String eTag, String contentType, Instant lastModified,
+            Map<String, String> metadata) {
+    }
+
+    final Map<String, ConcurrentSkipListMap<String, StoredObject>> buckets = new ConcurrentHashMap<>();
+    final Map<Operation, Latency> latencies = new ConcurrentHashMap<>();
+    final Map<Operation, List<Fault>> faults = new EnumMap<>(Operation.class);
+    final Map<Operation, LongAdder> requests = new EnumMap<>(Operation.class);
+    final Map<Operation, LongAdder> injectedFaults = new EnumMap<>(Operation.class);
+    volatile Random random = new Random(DEFAULT_SEED);
+    final HttpServer server;
+    final ExecutorService executor;
+
+    S3StandIn(HttpServer server) {
+        for (var operation : Operation.values()) {
+            this.latencies.put(operation, Latency.none());
+            this.faults.put(operation, new CopyOnWriteArrayList<>());
+            this.requests.put(operation, new LongAdder());
+            this.injectedFaults.put(operation, new LongAdder());
+        }
+        this.server = server;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.server.setExecutor(this.executor);
+        this.server.createContext("/", this::handle);
+    }
+
+    /**
+     * Starts the stand-in on an ephemeral port of the loopback interface.
+     */
+    public static S3StandIn start() {
+        return start(0);
+    }
+
+    public static S3StandIn start(int port) {
+        try {
+            var standIn = new S3StandIn(HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0));
+            standIn.server.start();
+            return standIn;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot start the S3 stand-in", e);
+        }
+    }
+
+    /**
+     * Runs the stand-in for a locally started function, e.g. for load tests:
+     * {@code -Ds3.stand-in.latency.getObject=logNormal:15:60 -Ds3.stand-in.throttle.putObject=0.01}
+     *
+     * @param args optional port, default 9090
+     */
+    public static void main(String... args) throws InterruptedException {
+        var port = args.length > 0 ? Integer.parseInt(args[0]) : 9090;
+        var standIn = start(port).configureFrom(System.getProperties());
+        System.out.println("S3 stand-in listening, start the function with:");
+        standIn.clientConfiguration().forEach((key, value) ->
+                System.out.println("  " + key.replace('.', '_').toUpperCase() + "=" + value));
+        Thread.currentThread().join();
+    }
+
+    public URI endpoint() {
+        return URI.create("http://127.0.0.1:" + this.server.getAddress().getPort());
+    }
+
+    /**
+     * Points {@link S3Access} and {@link S3AsyncAccess} to this stand-in, call before their first use.
+     */
+    public S3StandIn configure() {
+        clientConfiguration().forEach(System::setProperty);
+        return this;
+    }
+
+    /**
+     * The {@code address.s3.*} keys targeting this stand-in.
+     */
+    public Map<String, String> clientConfiguration() {
+        return Map.of(
+                "address.s3.endpoint.override", endpoint().toString(),
+                "address.s3.path.style", "true",
+                "address.s3.region", "us-east-1",
+                "address.s3.credentials", "static",
+                "address.s3.access.key.id", "stand-in",
+                "address.s3.secret.access.key", "stand-in");
+    }
+
+    /**
+     * Reads {@code s3.stand-in.seed}, and per operation {@code s3.stand-in.latency.<operation>},
+     * {@code s3.stand-in.throttle.<operation>} and {@code s3.stand-in.error.<operation>} (rates between 0 and 1).
+     */
+    public S3StandIn configureFrom(Map<Object, Object> properties) {
+        var seed = properties.get("s3.stand-in.seed");
+        if (seed != null) {
+            seed(Long.parseLong(seed.toString()));
+        }
+        for (var operation : Operation.values()) {
+            var latency = properties.get("s3.stand-in.latency." + operation);
+            if (latency != null) {
+                latency(operation, Latency.parse(latency.toString()));
+            }
+            var throttle = properties.get("s3.stand-in.throttle." + operation);
+            if (throttle != null) {
+                fault(operation, Fault.slowDown(Double.parseDouble(throttle.toString())));
+            }
+            var error = properties.get("s3.stand-in.error." + operation);
+            if (error != null) {
+                fault(operation, Fault.internalError(Double.parseDouble(error.toString())));
+            }
+        }
+        return this;
+    }
+
+    public S3StandIn seed(long seed) {
+        this.random = new Random(seed);
+        return this;
+    }
+
+    public S3StandIn latency(Operation operation, Latency latency) {
+        this.latencies.put(operation, latency);
+        return this;
+    }
+
+    public S3StandIn latency(Latency latency) {
+        for (var operation : Operation.values()) {
+            latency(operation, latency);
+        }
+        return this;
+    }
+
+    public S3StandIn fault(Operation operation, Fault fault) {
+        this.faults.get(operation).add(fault);
+        return this;
+    }
+
+    public S3StandIn throttle(Operation operation, double rate) {
+        return fault(operation, Fault.slowDown(rate));
+    }
+
+    /**
+     * Removes all latencies and faults, stored objects and counters are kept.
+     */
+    public S3StandIn reset() {
+        for (var operation : Operation.values()) {
+            this.latencies.put(operation, Latency.none());
+            this.faults.get(operation).clear();
+        }
+        return this;
+    }
+
+    public long requests(Operation operation) {
+        return this.requests.get(operation).sum();
+    }
+
+    public long injectedFaults(Operation operation) {
+        return this.injectedFaults.get(operation).sum();
+    }
+
+    public ConcurrentSkipListMap<String, StoredObject> bucket(String name) {
+        return this.buckets.computeIfAbsent(name, key -> new ConcurrentSkipListMap<>());
+    }
+
+    @Override
+    public void close() {
+        this.server.stop(0);
+        this.executor.close();
+    }
+
+    void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            var path = exchange.getRequestURI().getRawPath().substring(1);
+            var separator = path.indexOf('/');
+            var bucketName = separator < 0 ? path : path.substring(0, separator);
+            var key = separator < 0 || separator == path.length() - 1 ? null
+                    : URLDecoder.decode(path.substring(separator + 1), StandardCharsets.UTF_8);
+            var query = query(exchange.getRequestURI().getRawQuery());
+            var operation = operation(exchange.getRequestMethod(), key, query);
+            if (operation == null) {
+                error(exchange, 501, "NotImplemented", exchange.getRequestMethod() + " " + exchange.getRequestURI());
+                return;
+            }
+            this.requests.get(operation).increment();
+            delay(operation);
+            var fault = fault(operation);
+            if (fault != null) {
+                this.injectedFaults.get(operation).increment();
+                exchange.getRequestBody().readAllBytes();
+                error(exchange, fault.status(), fault.code(), fault.message());
+                return;
+            }
+            var bucket = bucket(bucketName);
+            switch (operation) {
+                case getObject -> getObject(exchange, bucket, key, true);
+                case headObject -> getObject(exchange, bucket, key, false);
+                case putObject -> putObject(exchange, bucket, key);
+                case deleteObject -> {
+                    bucket.remove(key);
+                    exchange.sendResponseHeaders(204, -1);
+                }
+                case deleteObjects -> deleteObjects(exchange, bucket);
+                case listObjectsV2 -> listObjects(exchange, bucketName, bucket, query);
+            }
+        }
+    }
+
+    static Operation operation(String method, String key, Map<String, String> query) {
+        if (key == null) {
+            if (method.equals("GET") && "2".equals(query.get("list-type"))) {
+                return Operation.listObjectsV2;
+            }
+            if (method.equals("POST") && query.containsKey("delete")) {
+                return Operation.deleteObjects;
+            }
+            return null;
+        }
+        return switch (method) {
+            case "GET" -> Operation.getObject;
+            case "HEAD" -> Operation.headObject;
+            case "PUT" -> Operation.putObject;
+            case "DELETE" -> Operation.deleteObject;
+            default -> null;
+        };
+    }
+
+    void delay(Operation operation) {
+        var nanos = this.latencies.get(operation).nanos(this.random);
+        if (nanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    Fault fault(Operation operation) {
+        for (var fault : this.faults.get(operation)) {
+            if (this.random.nextDouble() < fault.rate()) {
+                return fault;
+            }
+        }
+        return null;
+    }
+
+    void getObject(HttpExchange exchange, Map<String, StoredObject> bucket, String key, boolean withBody) throws IOException {
+        var stored = bucket.get(key);
+        if (stored == null) {
+            error(exchange, 404, "NoSuchKey", "The specified key does not exist.");
+            return;
+        }
+        var headers = exchange.getResponseHeaders();
+        headers.set("ETag", stored.eTag());
+        headers.set("Last-Modified", HTTP_DATE.format(stored.lastModified()));
+        stored.metadata().forEach((name, value) -> headers.set(METADATA_PREFIX + name, value));
+        var status = readPrecondition(exchange, stored);
+        if (status == 412) {
+            error(exchange, status, "PreconditionFailed", "At least one of the pre-conditions you specified did not hold");
+            return;
+        }
+        if (status == 304) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        headers.set("Content-Type", stored.contentType());
+        headers.set("Accept-Ranges", "bytes");
+        var content = stored.content();
+        var from = 0;
+        var to = content.length - 1;
+        var range = exchange.getRequestHeaders().getFirst("Range");
+        if (range != null && range.startsWith("bytes=")) {
+            var bounds = range.substring("bytes=".length()).split("-", -1);
+            from = Integer.parseInt(bounds[0]);
+            if (from >= content.length) {
+                error(exchange, 416, "InvalidRange", "The requested range is not satisfiable");
+                return;
+            }
+            if (!bounds[1].isEmpty()) {
+                to = Math.min(to, Integer.parseInt(bounds[1]));
+            }
+            status = 206;
+            headers.set("Content-Range", "bytes " + from + "-" + to + "/" + content.length);
+        }
+        var length = to - from + 1;
+        if (!withBody) {
+            headers.set("Content-Length", String.valueOf(length));
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, length == 0 ? -1 : length);
+        try (var body = exchange.getResponseBody()) {
+            body.write(content, from, length);
+        }
+    }
+
+    /**
+     * Evaluates the read preconditions in the order of S3: If-Match before If-Unmodified-Since,
+     * If-None-Match before If-Modified-Since.
+     *
+     * @return 200, 304 or 412
+     */
+    static int readPrecondition(HttpExchange exchange, StoredObject stored) {
+        var requestHeaders = exchange.getRequestHeaders();
+        var lastModified = stored.lastModified().truncatedTo(ChronoUnit.SECONDS);
+        var ifMatch = requestHeaders.getFirst("If-Match");
+        if (ifMatch != null) {
+            if (!matches(ifMatch, stored.eTag())) {
+                return 412;
+            }
+        } else {
+            var ifUnmodifiedSince = httpDate(requestHeaders.getFirst("If-Unmodified-Since"));
+            if (ifUnmodifiedSince != null && lastModified.isAfter(ifUnmodifiedSince)) {
+                return 412;
+            }
+        }
+        var ifNoneMatch = requestHeaders.getFirst("If-None-Match");
+        if (ifNoneMatch != null) {
+            return matches(ifNoneMatch, stored.eTag()) ? 304 : 200;
+        }
+        var ifModifiedSince = httpDate(requestHeaders.getFirst("If-Modified-Since"));
+        if (ifModifiedSince != null && !lastModified.isAfter(ifModifiedSince)) {
+            return 304;
+        }
+        return 200;
+    }
+
+    static boolean matches(String condition, String eTag) {
+        var expected = condition.strip();
+        return expected.equals("*") || expected.equals(eTag) || ("\"" + expected + "\"").equals(eTag);
+    }
+
+    static Instant httpDate(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant();
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Conditional writes: If-None-Match: * only creates, If-Match only replaces the given version.
+     */
+    void putObject(HttpExchange exchange, ConcurrentSkipListMap<String, StoredObject> bucket, String key) throws IOException {
+        var requestHeaders = exchange.getRequestHeaders();
+        var raw = exchange.getRequestBody().readAllBytes();
+        var payloadHash = requestHeaders.getFirst("x-amz-content-sha256");
+        var content = payloadHash != null && payloadHash.startsWith(STREAMING_PAYLOAD) ? unchunk(raw) : raw;
+        var contentType = requestHeaders.getFirst("Content-Type");
+        var stored = new StoredObject(content, eTag(content),
+                contentType == null ? "binary/octet-stream" : contentType, Instant.now(), metadata(requestHeaders));
+        var ifNoneMatch = requestHeaders.getFirst("If-None-Match");
+        var ifMatch = requestHeaders.getFirst("If-Match");
+        var written = true;
+        if ("*".equals(ifNoneMatch)) {
+            written = bucket.putIfAbsent(key, stored) == null;
+        } else if (ifMatch != null) {
+            var current = bucket.get(key);
+            written = current != null && matches(ifMatch, current.eTag()) && bucket.replace(key, current, stored);
+        } else {
+            bucket.put(key, stored);
+        }
+        if (!written) {
+            error(exchange, 412, "PreconditionFailed", "At least one of the pre-conditions you specified did not hold");
+            return;
+        }
+        exchange.getResponseHeaders().set("ETag", stored.eTag());
+        exchange.sendResponseHeaders(200, -1);
+    }
+
+    /**
+     * User metadata is sent as x-amz-meta-* headers, names are case-insensitive and stored in lower case.
+     */
+    static Map<String, String> metadata(Headers requestHeaders) {
+        var metadata = new TreeMap<String, String>();
+        requestHeaders.forEach((name, values) -> {
+            var lowerCase = name.toLowerCase(Locale.ROOT);
+            if (lowerCase.startsWith(METADATA_PREFIX) && !values.isEmpty()) {
+                metadata.put(lowerCase.substring(METADATA_PREFIX.length()), values.getFirst());
+            }
+        });
+        return Map.copyOf(metadata);
+    }
+
+    void deleteObjects(HttpExchange exchange, Map<String, StoredObject> bucket) throws IOException {
+        var body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        var quiet = body.contains("<Quiet>true</Quiet>");
+        var keys = new ArrayList<String>();
+        var matcher = DELETE_KEY.matcher(body);
+        while (matcher.find()) {
+            keys.add(unescape(matcher.group(1)));
+        }
+        var xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>")
+                .append("<DeleteResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">");
+        for (var key : keys) {
+            bucket.remove(key);
+            if (!quiet) {
+                xml.append("<Deleted><Key>").append(escape(key)).append("</Key></Deleted>");
+            }
+        }
+        xml.append("</DeleteResult>");
+        send(exchange, 200, xml.toString());
+    }
+
+    /**
+     * Lists the keys in order; with a delimiter, keys sharing a prefix up to it are rolled up
+     * into one common prefix. The continuation token is the last key or prefix returned.
+     */
+    void listObjects(HttpExchange exchange, String bucketName, ConcurrentSkipListMap<String, StoredObject> bucket,
+            Map<String, String> query) throws IOException {
+        var prefix = query.getOrDefault("prefix", "");
+        var delimiter = query.get("delimiter");
+        var maxKeys = Integer.parseInt(query.getOrDefault("max-keys", "1000"));
+        var after = query.getOrDefault("continuation-token", query.getOrDefault("start-after", ""));
+        var contents = new LinkedHashMap<String, StoredObject>();
+        var commonPrefixes = new TreeSet<String>();
+        String last = null;
+        var truncated = false;
+        var candidates = after.compareTo(prefix) >= 0 ? bucket.tailMap(after, false) : bucket.tailMap(prefix, true);
+        for (var entry : candidates.entrySet()) {
+            var key = entry.getKey();
+            if (!key.startsWith(prefix)) {
+                break;
+            }
+            var rolledUp = rolledUp(key, prefix, delimiter);
+            if (rolledUp != null && (rolledUp.equals(last) || rolledUp.equals(after))) {
+                continue;
+            }
+            if (contents.size() + commonPrefixes.size() == maxKeys) {
+                truncated = true;
+                break;
+            }
+            if (rolledUp != null) {
+                commonPrefixes.add(rolledUp);
+                last = rolledUp;
+            } else {
+                contents.put(key, entry.getValue());
+                last = key;
+            }
+        }
+        var xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>")
+                .append("<ListBucketResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">")
+                .append("<Name>").append(escape(bucketName)).append("</Name>")
+                .append("<Prefix>").append(escape(prefix)).append("</Prefix>")
+                .append("<KeyCount>").append(contents.size() + commonPrefixes.size()).append("</KeyCount>")
+                .append("<MaxKeys>").append(maxKeys).append("</MaxKeys>")
+                .append("<IsTruncated>").append(truncated).append("</IsTruncated>");
+        if (delimiter != null) {
+            xml.append("<Delimiter>").append(escape(delimiter)).append("</Delimiter>");
+        }
+        if (truncated) {
+            xml.append("<NextContinuationToken>").append(escape(last)).append("</NextContinuationToken>");
+        }
+        contents.forEach((key, stored) -> xml.append("<Contents>")
+                .append("<Key>").append(escape(key)).append("</Key>")
+                .append("<LastModified>").append(stored.lastModified()).append("</LastModified>")
+                .append("<ETag>").append(escape(stored.eTag())).append("</ETag>")
+                .append("<Size>").append(stored.content().length).append("</Size>")
+                .append("<StorageClass>STANDARD</StorageClass>")
+                .append("</Contents>"));
+        commonPrefixes.forEach(common -> xml.append("<CommonPrefixes><Prefix>").append(escape(common)).append("</Prefix></CommonPrefixes>"));
+        xml.append("</ListBucketResult>");
+        send(exchange, 200, xml.toString());
+    }
+
+    static String rolledUp(String key, String prefix, String delimiter) {
+        if (delimiter == null || delimiter.isEmpty()) {
+            return null;
+        }
+        var index = key.indexOf(delimiter, prefix.length());
+        return index < 0 ? null : key.substring(0, index + delimiter.length());
+    }
+
+    /**
+     * Decodes an aws-chunked body: hex size, optional ;chunk-signature, CRLF, data, CRLF, ending with a zero-size chunk.
+     */
+    static byte[] unchunk(byte[] raw) {
+        var content = new ByteArrayOutputStream(raw.length);
+        var position = 0;
+        while (position < raw.length) {
+            var lineEnd = indexOfCRLF(raw, position);
+            var header = new String(raw, position, lineEnd - position, StandardCharsets.US_ASCII);
+            var extension = header.indexOf(';');
+            var size = Integer.parseInt(extension < 0 ? header : header.substring(0, extension), 16);
+            if (size == 0) {
+                break;
+            }
+            content.write(raw, lineEnd + 2, size);
+            position = lineEnd + 2 + size + 2;
+        }
+        return content.toByteArray();
+    }
+
+    static int indexOfCRLF(byte[] raw, int from) {
+        for (var i = from; i < raw.length - 1; i++) {
+            if (raw[i] == '\r' && raw[i + 1] == '\n') {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Malformed aws-chunked body");
+    }
+
+    static String eTag(byte[] content) {
+        try {
+            return "\"" + HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(content)) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static Map<String, String> query(String rawQuery) {
+        var parameters = new LinkedHashMap<String, String>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return parameters;
+        }
+        for (var parameter : rawQuery.split("&")) {
+            var separator = parameter.indexOf('=');
+            var name = separator < 0 ? parameter : parameter.substring(0, separator);
+            var value = separator < 0 ? "" : parameter.substring(separator + 1);
+            parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return parameters;
+    }
+
+    static void error(HttpExchange exchange, int status, String code, String message) throws IOException {
+        send(exchange, status, "<?xml version=\"1.0\" encoding=\"UTF-8\"?><Error><Code>" + code
+                + "</Code><Message>" + escape(message) + "</Message></Error>");
+    }
+
+    /**
+     * Responses to HEAD requests carry the status only.
+     */
+    static void send(HttpExchange exchange, int status, String xml) throws IOException {
+        if (exchange.getRequestMethod().equals("HEAD")) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        var bytes = xml.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/xml");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (var body = exchange.getResponseBody()) {
+            body.write(bytes);
+        }
+    }
+
+    static String escape(String value) {
+        return value.replace("&", "&amp;")
+                .replace("<", "&lt;")
+                .replace(">", "&gt;")
+                .replace("\"", "&quot;")
+                .replace("'", "&apos;");
+    }
+
+    static String unescape(String value) {
+        return value.replace("&lt;", "<")
+                .replace("&gt;", ">")
+                .replace("&quot;", "\"")
+                .replace("&apos;", "'")
+                .replace("&amp;", "&");
+    }
+}
@@ -0,0 +1,102 @@
+package airhacks.qmpd.addresses.control;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for the S3StandIn.
+ *
+ * Verifies the S3 client round trip through the endpoint override, conditional reads,
+ * and the retries and delays caused by injected faults and latencies.
+ */
+@QuarkusTest
+class S3StandInTest {
+
+    static final String BUCKET = "stand-in-test";
+
+    static S3StandIn standIn;
+    static S3Client client;
+
+    @BeforeAll
+    static void start() {
+        standIn = S3StandIn.start();
+        var values = new HashMap<>(standIn.clientConfiguration());
+        values.put("address.s3.max.attempts", "2");
+        client = S3Clients.sync(S3ClientConfiguration.from(key -> Optional.ofNullable(values.get(key))));
+    }
+
+    @AfterAll
+    static void stop() {
+        client.close();
+        standIn.close();
+    }
+
+    @Test
+    @DisplayName("Objects round trip, conditional GETs answer 304 and listings roll up prefixes")
+    void roundTrip() {
+        var eTag = client.putObject(builder -> builder.bucket(BUCKET).key("42.json").contentType("application/json"),
+                RequestBody.fromString("{\"id\":\"42\"}")).eTag();
+        client.putObject(builder -> builder.bucket(BUCKET).key("indexes/country/us/42"), RequestBody.empty());
+
+        assertThat(client.getObjectAsBytes(builder -> builder.bucket(BUCKET).key("42.json")).asUtf8String()).isEqualTo("{\"id\":\"42\"}");
+        assertThatThrownBy(() -> client.getObject(builder -> builder.bucket(BUCKET).key("42.json").ifNoneMatch(eTag)))
+            .isInstanceOf(S3Exception.class)
+            .extracting(e -> ((S3Exception) e).statusCode())
+            .isEqualTo(304);
+        var listing = client.listObjectsV2(builder -> builder.bucket(BUCKET).delimiter("/"));
+        assertThat(listing.contents()).extracting(object -> object.key()).containsExactly("42.json");
+        assertThat(listing.commonPrefixes()).extracting(prefix -> prefix.prefix()).containsExactly("indexes/");
+
+        client.deleteObjects(builder -> builder.bucket(BUCKET).delete(delete -> delete.objects(
+            ObjectIdentifier.builder().key("42.json").build(),
+            ObjectIdentifier.builder().key("indexes/country/us/42").build())));
+        assertThatThrownBy(() -> client.getObject(builder -> builder.bucket(BUCKET).key("42.json")))
+            .isInstanceOf(NoSuchKeyException.class);
+    }
+
+    @Test
+    @DisplayName("Throttled requests are retried by the client until the attempts are exhausted")
+    void throttlingIsRetried() {
+        standIn.throttle(S3StandIn.Operation.headObject, 1.0);
+        var before = standIn.requests(S3StandIn.Operation.headObject);
+        try {
+            assertThatThrownBy(() -> client.headObject(builder -> builder.bucket(BUCKET).key("missing")))
+                .isInstanceOf(S3Exception.class)
+                .extracting(e -> ((S3Exception) e).statusCode())
+                .isEqualTo(503);
+            assertThat(standIn.requests(S3StandIn.Operation.headObject) - before).isEqualTo(2);
+        } finally {
+            standIn.reset();
+        }
+    }
+
+    @Test
+    @DisplayName("Injected latency delays only the configured operation")
+    void latencyIsInjected() {
+        standIn.latency(S3StandIn.Operation.listObjectsV2, S3StandIn.Latency.fixed(Duration.ofMillis(100)));
+        try {
+            var started = System.nanoTime();
+            client.listObjectsV2(builder -> builder.bucket(BUCKET));
+            var elapsed = Duration.ofNanos(System.nanoTime() - started);
+
+            assertThat(elapsed).isGreaterThanOrEqualTo(Duration.ofMillis(100));
+        } finally {
+            standIn.reset();
+        }
+    }
+}
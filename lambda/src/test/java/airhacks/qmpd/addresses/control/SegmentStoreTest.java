@@ -0,0 +1,76 @@
+package airhacks.qmpd.addresses.control;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for the SegmentStore building blocks.
+ *
+ * Verifies the index shard encoding, the ID extraction from append
+ * object keys, the selection of the newest pending version and the
+ * merge of indexed IDs with pending writes.
+ */
+@QuarkusTest
+class SegmentStoreTest {
+
+    @Test
+    @DisplayName("Index shard round trip keeps segment, offset and length of every ID")
+    void locationsRoundTrip() throws IOException {
+        var locations = Map.of(
+            "a", new SegmentStore.Location("segments/data/1", 0, 250),
+            "b", new SegmentStore.Location("segments/data/1", 250, 310),
+            "c", new SegmentStore.Location("segments/data/2", 0, 280));
+        var bytes = new ByteArrayOutputStream();
+        SegmentStore.writeLocations(locations, new DataOutputStream(bytes));
+
+        var restored = SegmentStore.readLocations(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertThat(restored).isEqualTo(locations);
+    }
+
+    @Test
+    @DisplayName("Address ID is the path after the pending prefix and version")
+    void idOfPendingKey() {
+        var key = SegmentStore.PENDING_PREFIX + "0001700000000000-abc/42";
+
+        assertThat(SegmentStore.idOf(key)).isEqualTo("42");
+    }
+
+    @Test
+    @DisplayName("Later append objects supersede earlier ones, deletions included")
+    void newestPendingVersionWins() {
+        var written = new SegmentStore.PendingRecord(SegmentStore.PENDING_PREFIX + "0001700000000000-a/42", 300);
+        var deleted = new SegmentStore.PendingRecord(SegmentStore.PENDING_PREFIX + "0001700000000001-b/42", 0);
+
+        var newest = SegmentStore.newer(written, deleted);
+
+        assertThat(newest).isEqualTo(deleted);
+        assertThat(newest.deleted()).isTrue();
+        assertThat(SegmentStore.newer(deleted, written)).isEqualTo(deleted);
+    }
+
+    @Test
+    @DisplayName("Pending writes are merged into the indexed IDs in key order, deletions removed")
+    void pendingWritesMergedIntoIndexedIds() {
+        var indexed = new TreeSet<>(List.of("a", "c", "e"));
+        var written = new TreeSet<>(List.of("b", "c", "f"));
+
+        var ids = SegmentStore.merge(indexed, written, Set.of("e"), 10);
+
+        assertThat(ids).containsExactly("a", "b", "c", "f");
+        assertThat(SegmentStore.merge(indexed, written, Set.of("e"), 2)).containsExactly("a", "b");
+    }
+}
@@ -0,0 +1,63 @@
+package airhacks.qmpd.addresses.control;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+
+/**
+ * Unit tests for the SnapStartPriming.
+ *
+ * Verifies the S3-independent priming steps, the credentials reload after restore
+ * and the cold start flags of the first request after init or restore.
+ */
+@QuarkusTest
+class SnapStartPrimingTest {
+
+    @Test
+    @DisplayName("Serialization and validation priming completes for all samples")
+    void primesWithoutS3() {
+        assertThatCode(() -> {
+            SnapStartPriming.primeSerialization();
+            SnapStartPriming.primeValidation();
+        }).doesNotThrowAnyException();
+    }
+
+    @Test
+    @DisplayName("Reset replaces the credentials resolved before the checkpoint")
+    void resetReloadsCredentials() {
+        var generation = new AtomicInteger();
+        var credentials = new S3Clients.RestorableCredentials(() -> StaticCredentialsProvider.create(
+            AwsBasicCredentials.create("key-" + generation.incrementAndGet(), "secret")));
+
+        assertThat(credentials.resolveCredentials().accessKeyId()).isEqualTo("key-1");
+        credentials.reset();
+        assertThat(credentials.resolveCredentials().accessKeyId()).isEqualTo("key-2");
+    }
+
+    @Test
+    @DisplayName("Only the first request after init or restore is flagged as cold start")
+    void flagsFirstRequest() {
+        var priming = new SnapStartPriming();
+        priming.initMillis = 800;
+        priming.firstAfterInit.set(true);
+
+        var first = new RequestTiming();
+        priming.flagColdStart(first);
+        var second = new RequestTiming();
+        priming.flagColdStart(second);
+        priming.afterRestore(null);
+        var restored = new RequestTiming();
+        priming.flagColdStart(restored);
+
+        assertThat(first.header()).startsWith("init;dur=800.00");
+        assertThat(second.header()).startsWith("total;");
+        assertThat(restored.header()).startsWith("restore;").doesNotContain("init;");
+    }
+}
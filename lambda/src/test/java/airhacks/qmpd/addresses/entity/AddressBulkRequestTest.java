@@ -0,0 +1,78 @@
+package airhacks.qmpd.addresses.entity;
+
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.json.Json;
+import jakarta.json.JsonValue;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for AddressBulkRequest JSON deserialization.
+ *
+ * Verifies that absent operation lists and malformed items
+ * do not fail the whole bulk request, and that non-array lists are rejected.
+ */
+@QuarkusTest
+class AddressBulkRequestTest {
+
+    @Test
+    @DisplayName("Absent operation lists deserialize to empty lists")
+    void absentListsAreEmpty() {
+        var json = Json.createObjectBuilder()
+            .add("delete", Json.createArrayBuilder().add("42"))
+            .build();
+
+        var request = AddressBulkRequest.fromJSON(json);
+
+        assertThat(request.create()).isEmpty();
+        assertThat(request.update()).isEmpty();
+        assertThat(request.delete()).containsExactly("42");
+        assertThat(request.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Non-object create items become empty objects to fail validation per item")
+    void malformedItemsArePreserved() {
+        var json = Json.createObjectBuilder()
+            .add("create", Json.createArrayBuilder()
+                .add(Json.createObjectBuilder().add("street", "1 Bulk Rd"))
+                .add("not an address"))
+            .build();
+
+        var request = AddressBulkRequest.fromJSON(json);
+
+        assertThat(request.create()).hasSize(2);
+        assertThat(request.create().get(0).getString("street")).isEqualTo("1 Bulk Rd");
+        assertThat(request.create().get(1)).isEqualTo(JsonValue.EMPTY_JSON_OBJECT);
+    }
+
+    @Test
+    @DisplayName("JSON serialization and deserialization preserves all operations")
+    void jsonRoundTripPreservesOperations() {
+        var update = Json.createObjectBuilder()
+            .add("id", "7")
+            .add("city", "Munich")
+            .build();
+        var original = new AddressBulkRequest(List.of(), List.of(update), List.of("8", "9"));
+
+        var deserialized = AddressBulkRequest.fromJSON(original.toJSON());
+
+        assertThat(deserialized).isEqualTo(original);
+    }
+
+    @Test
+    @DisplayName("Operation lists that are not arrays are rejected as validation errors")
+    void nonArrayListsAreRejected() {
+        var json = Json.createObjectBuilder()
+            .add("delete", "42")
+            .build();
+
+        assertThatThrownBy(() -> AddressBulkRequest.fromJSON(json))
+            .isInstanceOf(AddressValidationException.class)
+            .satisfies(e -> assertThat(((AddressValidationException) e).hasErrorsForField("delete")).isTrue());
+    }
+}
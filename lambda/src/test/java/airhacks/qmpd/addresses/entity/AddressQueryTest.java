@@ -0,0 +1,44 @@
+package airhacks.qmpd.addresses.entity;
+
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for AddressQuery matching.
+ *
+ * Verifies that queries compare normalized values
+ * and ignore unconstrained fields.
+ */
+@QuarkusTest
+class AddressQueryTest {
+
+    @Test
+    @DisplayName("Values match case-insensitively and ignore surrounding whitespace")
+    void normalizedValuesMatch() {
+        var address = Address.create("Unter den Linden 1", "Berlin", "BE", "10117", "DE");
+
+        var query = new AddressQuery(" de ", "BERLIN", null);
+
+        assertThat(query.matches(address)).isTrue();
+    }
+
+    @Test
+    @DisplayName("A single differing field rejects the address")
+    void differingFieldDoesNotMatch() {
+        var address = Address.create("Unter den Linden 1", "Berlin", "BE", "10117", "DE");
+
+        var query = new AddressQuery("DE", null, "10115");
+
+        assertThat(query.matches(address)).isFalse();
+    }
+
+    @Test
+    @DisplayName("A query without fields is empty")
+    void queryWithoutFieldsIsEmpty() {
+        assertThat(new AddressQuery(null, null, null).isEmpty()).isTrue();
+        assertThat(new AddressQuery(null, null, "10115").isEmpty()).isFalse();
+    }
+}
@@ -0,0 +1,60 @@
+package airhacks.qmpd.addresses.entity;
+
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.json.Json;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for the streaming JSON support of the address entities.
+ *
+ * Verifies that generated documents equal the tree-based ones and that
+ * request bodies are parsed field by field with type checks.
+ */
+@QuarkusTest
+class JSONWritableTest {
+
+    @Test
+    @DisplayName("Streamed address equals the JsonObject representation")
+    void streamedAddressEqualsTree() {
+        var address = Address.create("123 Main St", "Springfield", "IL", "62701", "USA");
+        var writer = new StringWriter();
+
+        try (var generator = JSONWritable.GENERATORS.createGenerator(writer)) {
+            address.writeJSON(generator);
+        }
+
+        var streamed = Json.createReader(new StringReader(writer.toString())).readObject();
+        assertThat(streamed).isEqualTo(address.toJSON());
+    }
+
+    @Test
+    @DisplayName("Parser reads known fields and skips unknown nested values")
+    void parsesUpdateRequest() {
+        var body = """
+            {"city":"Seattle","tags":["a",{"b":1}],"meta":{"x":[1,2]},"postalCode":"98101","state":null}
+            """;
+
+        var request = AddressUpdateRequest.fromJSON(JSONWritable.PARSERS.createParser(new StringReader(body)));
+
+        assertThat(request).isEqualTo(new AddressUpdateRequest(null, "Seattle", null, "98101", null));
+    }
+
+    @Test
+    @DisplayName("Non-string field values and non-object bodies are rejected as bad requests")
+    void rejectsWrongTypes() {
+        var numericCity = JSONWritable.PARSERS.createParser(new StringReader("{\"city\":42}"));
+        var array = JSONWritable.PARSERS.createParser(new StringReader("[]"));
+
+        assertThatThrownBy(() -> AddressUpdateRequest.fromJSON(numericCity))
+            .isInstanceOf(AddressValidationException.class);
+        assertThatThrownBy(() -> Address.fromCreateRequest(array))
+            .isInstanceOf(AddressValidationException.class);
+    }
+}